@@ -0,0 +1,49 @@
+package com.system.bank_manager.benchmark;
+
+import com.system.bank_manager.uniqueness.BloomFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Presupuesto del filtro de Bloom de unicidad con 10M claves al 1%:
+ * - build: tiempo de construirlo clave a clave, como al arrancar (sin contar la lectura
+ *   de la tabla, que depende de la base)
+ * - mightContainNewKey: coste de descartar una clave nueva, lo que sustituye a la
+ *   consulta existsBy de cada alta
+ * La memoria es fija por dimensionado (~13.2 MB) y la comprueba BloomFilterTest.
+ *
+ * Ejecutar solo este benchmark: ./gradlew jmh -PjmhIncludes=BloomFilterBenchmark
+ */
+@State(Scope.Benchmark)
+public class BloomFilterBenchmark {
+
+    private static final int KEYS = 10_000_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private BloomFilter filter;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filter = build();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BloomFilter build() {
+        BloomFilter built = new BloomFilter(KEYS, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < KEYS; i++) {
+            built.add(String.valueOf(100_000_000L + i));
+        }
+        return built;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean mightContainNewKey() {
+        return filter.mightContain(String.valueOf(200_000_000L + next++));
+    }
+}
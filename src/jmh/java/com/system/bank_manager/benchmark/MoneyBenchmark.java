@@ -0,0 +1,66 @@
+package com.system.bank_manager.benchmark;
+
+import com.system.bank_manager.money.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aritmética de saldos del camino caliente con BigDecimal (implementación anterior)
+ * frente a Money. Cada invocación es una transferencia sobre un arreglo de saldos
+ * con las mismas operaciones que hace el motor: comparar fondos, debitar y acreditar.
+ * Los importes tienen escala 2, como los que llegan de la API y de la base de datos.
+ *
+ * La tasa de asignación se ve con el perfilador de GC:
+ * ./gradlew jmh -PjmhIncludes=MoneyBenchmark -PjmhProfilers=gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoneyBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+
+    private BigDecimal[] decimalBalances;
+    private Money[] moneyBalances;
+    private BigDecimal decimalAmount;
+    private Money moneyAmount;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        decimalBalances = new BigDecimal[ACCOUNTS];
+        moneyBalances = new Money[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            decimalBalances[i] = new BigDecimal("100000.00");
+            moneyBalances[i] = Money.of("100000.00");
+        }
+        decimalAmount = new BigDecimal("12.34");
+        moneyAmount = Money.of("12.34");
+    }
+
+    @Benchmark
+    public BigDecimal transferBigDecimal() {
+        int from = next++ & (ACCOUNTS - 1);
+        int to = (from + 1) & (ACCOUNTS - 1);
+        BigDecimal fromBalance = decimalBalances[from];
+        if (fromBalance.compareTo(decimalAmount) < 0) {
+            return fromBalance;
+        }
+        decimalBalances[from] = fromBalance.subtract(decimalAmount);
+        return decimalBalances[to] = decimalBalances[to].add(decimalAmount);
+    }
+
+    @Benchmark
+    public Money transferMoney() {
+        int from = next++ & (ACCOUNTS - 1);
+        int to = (from + 1) & (ACCOUNTS - 1);
+        Money fromBalance = moneyBalances[from];
+        if (fromBalance.isLessThan(moneyAmount)) {
+            return fromBalance;
+        }
+        moneyBalances[from] = fromBalance.minus(moneyAmount);
+        return moneyBalances[to] = moneyBalances[to].plus(moneyAmount);
+    }
+}
@@ -0,0 +1,131 @@
+package com.system.bank_manager.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserción de filas de transactions con el patrón JDBC que genera Hibernate en
+ * cada estrategia de ID, sobre H2 en memoria:
+ *
+ *  - IDENTITY: un INSERT por fila con lectura de la clave generada; Hibernate no
+ *    puede agrupar estos INSERT en batch.
+ *  - SEQUENCE: un NEXT VALUE por bloque (optimizador pooled) e INSERTs agrupados
+ *    en batches de hibernate.jdbc.batch_size.
+ *
+ * Cada operación inserta {@code rows} filas y confirma.
+ *
+ * Es una aproximación a nivel JDBC: no pasa por Hibernate, sino que reproduce a mano
+ * las sentencias de cada estrategia (la entidad ya no tiene mapeo IDENTITY con el que
+ * comparar). La inserción real a través de saveAll se mide en TransactionSaveAllBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransactionInsertBenchmark {
+
+    @Param({"IDENTITY", "SEQUENCE"})
+    public String strategy;
+
+    @Param({"1000"})
+    public int rows;
+
+    @Param({"50"})
+    public int blockSize;
+
+    private Connection connection;
+    private long nextId;
+    private long blockEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:insert-" + strategy + ";DB_CLOSE_DELAY=-1", "sa", "");
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE accounts (id BIGINT PRIMARY KEY)");
+            statement.execute("INSERT INTO accounts VALUES (1)");
+            String id = strategy.equals("IDENTITY") ? "BIGINT GENERATED BY DEFAULT AS IDENTITY" : "BIGINT";
+            statement.execute("CREATE TABLE transactions (id " + id + " PRIMARY KEY, amount NUMERIC(15,2) NOT NULL, "
+                    + "type VARCHAR(255) NOT NULL, date TIMESTAMP NOT NULL, account_id BIGINT NOT NULL REFERENCES accounts(id))");
+            statement.execute("CREATE SEQUENCE transactions_seq START WITH 1 INCREMENT BY " + blockSize);
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public void insertTransactions() throws SQLException {
+        if (strategy.equals("IDENTITY")) {
+            insertWithIdentity();
+        } else {
+            insertWithSequence();
+        }
+        connection.commit();
+    }
+
+    private void insertWithIdentity() throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO transactions (amount, type, date, account_id) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < rows; i++) {
+                bind(insert, 1);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                }
+            }
+        }
+    }
+
+    private void insertWithSequence() throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO transactions (id, amount, type, date, account_id) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setLong(1, nextId());
+                bind(insert, 2);
+                insert.addBatch();
+                if ((i + 1) % blockSize == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void bind(PreparedStatement insert, int first) throws SQLException {
+        insert.setBigDecimal(first, BigDecimal.TEN);
+        insert.setString(first + 1, "DEPOSIT");
+        insert.setTimestamp(first + 2, Timestamp.valueOf(LocalDateTime.now()));
+        insert.setLong(first + 3, 1L);
+    }
+
+    // Misma semántica que el optimizador pooled: un valor de la secuencia cubre un bloque
+    private long nextId() throws SQLException {
+        if (nextId > blockEnd || blockEnd == 0) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet next = statement.executeQuery("SELECT NEXT VALUE FOR transactions_seq")) {
+                next.next();
+                blockEnd = next.getLong(1);
+                nextId = Math.max(1, blockEnd - blockSize + 1);
+            }
+        }
+        return nextId++;
+    }
+}
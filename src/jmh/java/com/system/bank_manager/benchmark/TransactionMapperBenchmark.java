@@ -0,0 +1,35 @@
+package com.system.bank_manager.benchmark;
+
+import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.entity.Account;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.mapper.TransactionMapper;
+import com.system.bank_manager.mapper.TransactionMapperImpl;
+import com.system.bank_manager.money.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Coste aislado del mapeo MapStruct Transaction -> TransactionResponseDTO
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransactionMapperBenchmark {
+
+    private final TransactionMapper transactionMapper = new TransactionMapperImpl();
+    private Transaction transaction;
+
+    @Setup
+    public void setUp() {
+        Account account = new Account();
+        account.setId(42L);
+        transaction = new Transaction(7L, Money.of("125.50"), Transaction.TransactionType.DEPOSIT,
+                LocalDateTime.now(), account, null);
+    }
+
+    @Benchmark
+    public TransactionResponseDTO toResponse() {
+        return transactionMapper.toResponse(transaction);
+    }
+}
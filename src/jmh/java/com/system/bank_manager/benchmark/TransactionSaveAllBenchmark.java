@@ -0,0 +1,89 @@
+package com.system.bank_manager.benchmark;
+
+import com.system.bank_manager.BankManagerApplication;
+import com.system.bank_manager.entity.Account;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.persistence.IdBlockAllocator;
+import com.system.bank_manager.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserción de filas de transactions a través de Hibernate: cada operación llama a
+ * {@code transactionRepository.saveAll} con {@code rows} entidades nuevas, en su
+ * propia transacción, sobre el contexto Spring completo y H2 en memoria.
+ *
+ * Los IDs salen de la secuencia pooled de la entidad; {@code jdbcBatchSize} cambia
+ * hibernate.jdbc.batch_size para medir lo que aporta agrupar los INSERT (con 1,
+ * Hibernate envía una sentencia por fila, como haría con IDENTITY).
+ *
+ * Ejecutar solo este benchmark: ./gradlew jmh -PjmhIncludes=TransactionSaveAllBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransactionSaveAllBenchmark {
+
+    private static final Money AMOUNT = Money.of("10.00");
+
+    @Param({"1", "50"})
+    public int jdbcBatchSize;
+
+    @Param({"1000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private TransactionRepository transactionRepository;
+    private Account account;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:save-all-" + jdbcBatchSize + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "--logging.level.root=WARN");
+        transactionRepository = context.getBean(TransactionRepository.class);
+        account = seedAccount(context.getBean(JdbcTemplate.class), context.getBean(IdBlockAllocator.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public List<Transaction> saveAll() {
+        List<Transaction> batch = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Transaction(null, AMOUNT, Transaction.TransactionType.DEPOSIT, null, account, null));
+        }
+        return transactionRepository.saveAll(batch);
+    }
+
+    // Una cuenta por JDBC; las transacciones solo la usan para la FK
+    private Account seedAccount(JdbcTemplate jdbcTemplate, IdBlockAllocator idBlockAllocator) {
+        long userId = idBlockAllocator.allocate("users_seq", 1)[0];
+        jdbcTemplate.update("INSERT INTO users (id, dni, name, email, password) VALUES (?, ?, ?, ?, ?)",
+                userId, "BENCH", "Benchmark", "bench@bank.com", "x");
+        long accountId = idBlockAllocator.allocate("accounts_seq", 1)[0];
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, user_id, created_at) "
+                + "VALUES (?, ?, ?, ?, ?)", accountId, "B" + accountId, Money.ZERO.toBigDecimal(), userId,
+                LocalDateTime.now());
+        Account seeded = new Account();
+        seeded.setId(accountId);
+        return seeded;
+    }
+}
@@ -0,0 +1,126 @@
+package com.system.bank_manager.benchmark;
+
+import com.system.bank_manager.BankManagerApplication;
+import com.system.bank_manager.dto.request.TransactionRequestDTO;
+import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.dto.response.TransactionPageDTO;
+import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.entity.Account;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.persistence.IdBlockAllocator;
+import com.system.bank_manager.repository.TransactionJdbcRepository;
+import com.system.bank_manager.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rutas calientes de TransactionService sobre el contexto Spring completo y H2 en
+ * memoria, con {@code accounts} cuentas y {@code transactionsPerAccount}
+ * transacciones previas por cuenta. Cada modo de ejecución levanta su propio
+ * contexto, así que sirve de línea base para comparar JPA, STRIPED y PARTITIONED.
+ *
+ * Ejecutar solo estos benchmarks: ./gradlew jmh -PjmhIncludes=TransactionServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransactionServiceBenchmark {
+
+    private static final Money INITIAL_BALANCE = Money.of("1000000000.00");
+    private static final Money AMOUNT = Money.of("1.00");
+
+    @Param({"JPA", "STRIPED", "PARTITIONED"})
+    public String executionMode;
+
+    @Param({"1000"})
+    public int accounts;
+
+    @Param({"20"})
+    public int transactionsPerAccount;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private long[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench-" + executionMode + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--bank.execution.mode=" + executionMode,
+                        "--logging.level.root=WARN");
+        transactionService = context.getBean(TransactionService.class);
+        seed(context.getBean(JdbcTemplate.class), context.getBean(IdBlockAllocator.class),
+                context.getBean(TransactionJdbcRepository.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionResponseDTO createTransaction() {
+        return transactionService.createTransaction(randomAccount(),
+                new TransactionRequestDTO(AMOUNT, Transaction.TransactionType.DEPOSIT));
+    }
+
+    @Benchmark
+    public void transferBetweenAccounts() {
+        long from = randomAccount();
+        long to = randomAccount();
+        if (from == to) {
+            to = accountIds[(int) ((from - accountIds[0] + 1) % accountIds.length)];
+        }
+        transactionService.transferBetweenAccounts(new TransferRequestDTO(AMOUNT, from, to));
+    }
+
+    @Benchmark
+    public TransactionPageDTO getTransactionsByAccountId() {
+        return transactionService.getTransactionsByAccountId(randomAccount(), null, 50);
+    }
+
+    private long randomAccount() {
+        return accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+    }
+
+    // Datos iniciales por JDBC en batch, con IDs de las mismas secuencias que usa Hibernate
+    private void seed(JdbcTemplate jdbcTemplate, IdBlockAllocator idBlockAllocator,
+                      TransactionJdbcRepository transactionJdbcRepository) {
+        long userId = idBlockAllocator.allocate("users_seq", 1)[0];
+        jdbcTemplate.update("INSERT INTO users (id, dni, name, email, password) VALUES (?, ?, ?, ?, ?)",
+                userId, "BENCH", "Benchmark", "bench@bank.com", "x");
+
+        accountIds = idBlockAllocator.allocate("accounts_seq", accounts);
+        List<Object[]> accountRows = new ArrayList<>(accounts);
+        for (long id : accountIds) {
+            accountRows.add(new Object[]{id, "B" + id, INITIAL_BALANCE, userId, LocalDateTime.now()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO accounts (id, account_number, balance, user_id, created_at) "
+                + "VALUES (?, ?, ?, ?, ?)", accountRows);
+
+        LocalDateTime start = LocalDateTime.now().minusDays(transactionsPerAccount);
+        List<Transaction> history = new ArrayList<>(accounts * transactionsPerAccount);
+        for (long id : accountIds) {
+            Account account = new Account();
+            account.setId(id);
+            for (int i = 0; i < transactionsPerAccount; i++) {
+                history.add(new Transaction(null, AMOUNT, Transaction.TransactionType.DEPOSIT,
+                        start.plusDays(i), account, null));
+            }
+        }
+        transactionJdbcRepository.batchInsert(history);
+    }
+}
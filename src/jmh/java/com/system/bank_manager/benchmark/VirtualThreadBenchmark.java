@@ -0,0 +1,113 @@
+package com.system.bank_manager.benchmark;
+
+import com.system.bank_manager.BankManagerApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tomcat con hilos de plataforma frente a hilos virtuales, con {@code clients}
+ * clientes HTTP concurrentes. Cada invocación es una ola: todos los clientes envían a
+ * la vez un depósito sobre una cuenta al azar y se espera a la última respuesta, así
+ * que el tiempo por operación es la duración de la ola (throughput = clients / tiempo).
+ *
+ * Los clientes corren en hilos virtuales para que el generador de carga no sea el
+ * cuello de botella; el límite de conexiones de Tomcat se sube para admitir 10k y
+ * las conexiones persistentes no se cierran entre olas. Clientes y servidor comparten
+ * proceso, así que cada cliente ocupa dos descriptores: para 10k hace falta
+ * ulimit -n por encima de 20000.
+ *
+ * Ejecutar solo este benchmark: ./gradlew jmh -PjmhIncludes=VirtualThreadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VirtualThreadBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String threads;
+
+    @Param({"1000", "5000", "10000"})
+    public int clients;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient httpClient;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankManagerApplication.class)
+                .run("--server.port=0",
+                        "--server.tomcat.max-connections=" + (clients + 1000),
+                        "--server.tomcat.accept-count=1000",
+                        // Las conexiones se reutilizan entre olas: que Tomcat no las cierre a mitad de la medición
+                        "--server.tomcat.max-keep-alive-requests=-1",
+                        "--server.tomcat.keep-alive-timeout=10m",
+                        "--spring.threads.virtual.enabled=" + threads.equals("VIRTUAL"),
+                        "--spring.datasource.url=jdbc:h2:mem:bench-threads-" + threads + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO users (id, dni, name, email, password) VALUES (1, 'BENCH', 'Benchmark', 'bench@bank.com', 'x')");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, user_id, created_at) "
+                + "SELECT X, 'B' || X, 1000000, 1, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + ACCOUNTS + ")");
+
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = HttpClient.newBuilder()
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(60))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpClient.close();
+        clientExecutor.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int depositWave() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            long accountId = 1 + ThreadLocalRandom.current().nextInt(ACCOUNTS);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/transactions/accounts/" + accountId))
+                    .timeout(Duration.ofMinutes(2))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"amount\":1,\"type\":\"DEPOSIT\"}"))
+                    .build();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 200) {
+                ok++;
+            }
+        }
+        if (ok != clients) {
+            throw new IllegalStateException((clients - ok) + " de " + clients + " depósitos fallaron");
+        }
+        return ok;
+    }
+}
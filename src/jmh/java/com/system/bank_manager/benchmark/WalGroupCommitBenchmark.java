@@ -0,0 +1,57 @@
+package com.system.bank_manager.benchmark;
+
+import com.system.bank_manager.ledger.LedgerEvent;
+import com.system.bank_manager.ledger.LedgerLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Commits por segundo del WAL de movimientos con 32 hilos concurrentes: cada
+ * invocación anexa un movimiento y espera a que esté en disco, como hace el servicio
+ * antes de responder. Con groupCommitMicros=0 cada anexo hace su propio fsync; con
+ * ventana, los anexos de la ventana comparten uno.
+ *
+ * El log se escribe en build/ y no en /tmp, que puede ser tmpfs y no sincronizar nada.
+ *
+ * Ejecutar solo este benchmark: ./gradlew jmh -PjmhIncludes=WalGroupCommitBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+public class WalGroupCommitBenchmark {
+
+    @Param({"0", "1000", "2000"})
+    public long groupCommitMicros;
+
+    private Path directory;
+    private LedgerLog log;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Files.createDirectories(Path.of("build"));
+        directory = Files.createTempDirectory(Path.of("build"), "wal-bench-");
+        log = new LedgerLog(directory, 64L * 1024 * 1024, true, groupCommitMicros);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long commit() {
+        long sequence = log.append(LedgerEvent.Type.DEPOSIT, 1, 0, 100, 1, 0, 0);
+        log.awaitDurable(sequence);
+        return sequence;
+    }
+}
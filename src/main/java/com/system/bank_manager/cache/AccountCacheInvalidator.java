@@ -0,0 +1,33 @@
+package com.system.bank_manager.cache;
+
+import com.system.bank_manager.event.BalanceChangedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Invalida las cuentas cuyo saldo cambió en cuanto termina la transacción,
+ * tanto si confirma como si se revierte: con el motor en memoria una lectura
+ * concurrente pudo cachear un saldo que luego se compensó.
+ */
+@Component
+public class AccountCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    public AccountCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        Cache accounts = cacheManager.getCache(CacheConfig.ACCOUNTS);
+        if (accounts == null) {
+            return;
+        }
+        // evictIfPresent es inmediato; evict se volvería a diferir a un commit que ya pasó
+        event.accountIds().forEach(accounts::evictIfPresent);
+    }
+}
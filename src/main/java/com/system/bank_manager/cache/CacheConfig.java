@@ -0,0 +1,31 @@
+package com.system.bank_manager.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caché de lectura para cuentas y usuarios. Caffeine acota tamaño y TTL; el
+ * proxy transaccional retrasa los @CacheEvict hasta el commit para que ninguna
+ * lectura concurrente vuelva a cachear el valor anterior.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ACCOUNTS = "accounts";
+    public static final String USERS = "users";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${bank.cache.spec}") String spec) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager(ACCOUNTS, USERS);
+        caffeine.setCacheSpecification(spec);
+        // Sin nulos: una cuenta inexistente lanza excepción y no se cachea
+        caffeine.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+}
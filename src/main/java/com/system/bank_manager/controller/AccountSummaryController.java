@@ -0,0 +1,27 @@
+package com.system.bank_manager.controller;
+
+import com.system.bank_manager.dto.response.AccountSummaryDTO;
+import com.system.bank_manager.service.AccountSummaryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/accounts")
+@Tag(name = "Cuentas", description = "Operaciones relacionadas con Cuentas")
+public class AccountSummaryController {
+
+    private final AccountSummaryService accountSummaryService;
+
+    public AccountSummaryController(AccountSummaryService accountSummaryService) {
+        this.accountSummaryService = accountSummaryService;
+    }
+
+    // Totales de la cuenta sin recorrer sus transacciones
+    @GetMapping("/{accountId}/summary")
+    @Operation(summary = "Obtener total depositado, total retirado, número de movimientos y última actividad")
+    public ResponseEntity<AccountSummaryDTO> getSummary(@PathVariable Long accountId) {
+        return ResponseEntity.ok(accountSummaryService.getSummary(accountId));
+    }
+}
@@ -0,0 +1,30 @@
+package com.system.bank_manager.controller;
+
+import com.system.bank_manager.service.BalanceStreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/accounts")
+@Tag(name = "Cuentas", description = "Operaciones relacionadas con Cuentas")
+public class BalanceStreamController {
+
+    private final BalanceStreamService balanceStreamService;
+
+    public BalanceStreamController(BalanceStreamService balanceStreamService) {
+        this.balanceStreamService = balanceStreamService;
+    }
+
+    // Saldo en vivo por Server-Sent Events, en lugar de consultar GET /accounts/{id} cada segundo
+    @GetMapping(value = "/{accountId}/balance/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Suscribirse a los cambios de saldo de una cuenta (SSE, evento balance)")
+    public SseEmitter streamBalance(@PathVariable Long accountId) {
+        return balanceStreamService.subscribe(accountId);
+    }
+}
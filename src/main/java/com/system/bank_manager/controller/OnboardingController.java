@@ -0,0 +1,54 @@
+package com.system.bank_manager.controller;
+
+import com.system.bank_manager.service.OnboardingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/onboarding")
+@Tag(name = "Usuarios", description = "Operaciones relacionadas con Usuarios")
+public class OnboardingController {
+
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private final OnboardingService onboardingService;
+
+    public OnboardingController(OnboardingService onboardingService) {
+        this.onboardingService = onboardingService;
+    }
+
+    // Leer el CSV del cuerpo a medida que llega y responder con el informe de filas rechazadas
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @Operation(summary = "Alta masiva de usuarios y cuentas desde CSV (dni,name,email,password,accountNumber,balance); devuelve las filas rechazadas")
+    public ResponseEntity<StreamingResponseBody> importCsv(HttpServletRequest request) throws IOException {
+        BufferedReader rows = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        // La cabecera se valida antes de empezar a escribir: después ya no se puede responder un error
+        String header = rows.readLine();
+        onboardingService.checkHeader(header);
+        StreamingResponseBody body = out -> {
+            Writer report = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            onboardingService.importCsv(header, rows, report);
+            report.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"onboarding-errors.csv\"")
+                .body(body);
+    }
+}
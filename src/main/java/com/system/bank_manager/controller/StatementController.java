@@ -0,0 +1,36 @@
+package com.system.bank_manager.controller;
+
+import com.system.bank_manager.dto.response.AccountStatementDTO;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.service.StatementService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/accounts/{accountId}/statement")
+@Tag(name = "Cuentas", description = "Operaciones relacionadas con Cuentas")
+public class StatementController {
+
+    private final StatementService statementService;
+
+    public StatementController(StatementService statementService) {
+        this.statementService = statementService;
+    }
+
+    // Extracto de la cuenta entre dos fechas (ambas incluidas), opcionalmente de un solo tipo
+    @GetMapping
+    @Operation(summary = "Obtener extracto con saldo de apertura y cierre")
+    public ResponseEntity<AccountStatementDTO> getStatement(
+            @PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Transaction.TransactionType type
+    ) {
+        return ResponseEntity.ok(statementService.getStatement(accountId, from, to, type));
+    }
+}
@@ -2,13 +2,21 @@ package com.system.bank_manager.controller;
 
 import com.system.bank_manager.dto.request.TransactionRequestDTO;
 import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.dto.response.JournalEntryDTO;
+import com.system.bank_manager.dto.response.TransactionPageDTO;
 import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.dto.response.TransferResultDTO;
+import com.system.bank_manager.dto.response.TransferStatusDTO;
+import com.system.bank_manager.service.AsyncTransferService;
+import com.system.bank_manager.service.IdempotencyService;
 import com.system.bank_manager.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -16,33 +24,102 @@ import java.util.List;
 @Tag(name = "Transacciones", description = "Operaciones relacionadas con Transacciones")
 public class TransactionController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String TRANSFER_OK = "Transferencia realizada con éxito";
+
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final AsyncTransferService asyncTransferService;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, IdempotencyService idempotencyService,
+                                 AsyncTransferService asyncTransferService) {
         this.transactionService = transactionService;
+        this.idempotencyService = idempotencyService;
+        this.asyncTransferService = asyncTransferService;
     }
 
-    // Registrar transacción (depósito o retiro)
+    // Registrar transacción (depósito o retiro); con Idempotency-Key un reintento devuelve la respuesta original
    @PostMapping("/accounts/{accountId}")
    @Operation(summary = "Registrar una transacción (depósito o retiro)")
    public ResponseEntity<TransactionResponseDTO> createTransaction(
        @PathVariable Long accountId,
-       @Valid @RequestBody TransactionRequestDTO request
+       @Valid @RequestBody TransactionRequestDTO request,
+       @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey
    ) {
-       return ResponseEntity.ok(transactionService.createTransaction(accountId, request));
+       if (idempotencyKey == null) {
+           return ResponseEntity.ok(transactionService.createTransaction(accountId, request));
+       }
+       return ResponseEntity.ok(idempotencyService.execute(
+               idempotencyKey, "transaction:" + accountId + ":" + request, TransactionResponseDTO.class,
+               () -> transactionService.createTransaction(accountId, request)));
    }
     @PostMapping("/transfer")
     @Operation(summary = "Transferir dinero entre cuentas")
-    public ResponseEntity<String> transfer(@RequestBody TransferRequestDTO request) {
-        transactionService.transferBetweenAccounts(request);
-        return ResponseEntity.ok("Transferencia realizada con éxito");
+    public ResponseEntity<String> transfer(
+            @RequestBody TransferRequestDTO request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey
+    ) {
+        if (idempotencyKey == null) {
+            transactionService.transferBetweenAccounts(request);
+            return ResponseEntity.ok(TRANSFER_OK);
+        }
+        return ResponseEntity.ok(idempotencyService.execute(
+                idempotencyKey, "transfer:" + request, String.class,
+                () -> {
+                    transactionService.transferBetweenAccounts(request);
+                    return TRANSFER_OK;
+                }));
+    }
+
+    // Transferencias en lote: cada elemento se aplica en orden y tiene su propio resultado
+    @PostMapping("/transfer/batch")
+    @Operation(summary = "Transferir dinero en lote")
+    public ResponseEntity<List<TransferResultDTO>> transferBatch(@RequestBody List<TransferRequestDTO> requests) {
+        return ResponseEntity.ok(transactionService.transferBatch(requests));
+    }
+
+    // Transferencia asíncrona: se acepta (202) y se aplica en segundo plano; el estado se consulta en Location
+    @PostMapping("/transfer/async")
+    @Operation(summary = "Encolar una transferencia para procesarla en segundo plano")
+    public ResponseEntity<TransferStatusDTO> transferAsync(@Valid @RequestBody TransferRequestDTO request) {
+        TransferStatusDTO status = asyncTransferService.submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/transactions/transfer/" + status.transferId()))
+                .body(status);
     }
 
-    // Listar todas las transacciones
+    @GetMapping("/transfer/{transferId}")
+    @Operation(summary = "Consultar el estado de una transferencia asíncrona")
+    public ResponseEntity<TransferStatusDTO> getTransferStatus(@PathVariable String transferId) {
+        return ResponseEntity.ok(asyncTransferService.getStatus(transferId));
+    }
+
+    // Listar transacciones por páginas; "after" es el nextCursor de la página anterior
     @GetMapping
-    @Operation(summary = "Lista todas las transacciones")
-    public ResponseEntity<List<TransactionResponseDTO>> getAllTransactions() {
-        return ResponseEntity.ok(transactionService.getAllTransactions());
+    @Operation(summary = "Lista las transacciones paginadas por cursor")
+    public ResponseEntity<TransactionPageDTO> getAllTransactions(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        return ResponseEntity.ok(transactionService.getAllTransactions(after, limit));
+    }
+
+    // Listar transacciones de una cuenta por fecha, paginadas por cursor
+    @GetMapping("/accounts/{accountId}")
+    @Operation(summary = "Lista las transacciones de una cuenta paginadas por cursor")
+    public ResponseEntity<TransactionPageDTO> getTransactionsByAccountId(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        return ResponseEntity.ok(transactionService.getTransactionsByAccountId(accountId, after, limit));
+    }
+
+    // Asiento de una transferencia: débito y abono; el entryId viene en cada pata de los listados
+    @GetMapping("/entries/{entryId}")
+    @Operation(summary = "Obtener el asiento de una transferencia con sus dos patas")
+    public ResponseEntity<JournalEntryDTO> getJournalEntry(@PathVariable Long entryId) {
+        return ResponseEntity.ok(transactionService.getJournalEntry(entryId));
     }
 
     // Obtener transacción por ID
@@ -0,0 +1,58 @@
+package com.system.bank_manager.controller;
+
+import com.system.bank_manager.service.TransactionExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/transactions/export")
+@Tag(name = "Transacciones", description = "Operaciones relacionadas con Transacciones")
+public class TransactionExportController {
+
+    // El cuerpo es el fichero .gz, no un NDJSON con Content-Encoding: así el cliente no lo descomprime
+    // por su cuenta y lo que guarda coincide con la extensión del nombre
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final TransactionExportService transactionExportService;
+
+    public TransactionExportController(TransactionExportService transactionExportService) {
+        this.transactionExportService = transactionExportService;
+    }
+
+    // Exportar el libro de transacciones como NDJSON comprimido, sin cargarlo en memoria
+    @GetMapping
+    @Operation(summary = "Exportar transacciones en NDJSON (gzip), con filtros opcionales de cuenta y fechas")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(required = false) Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        // Se valida antes de empezar a escribir: una vez enviadas las cabeceras ya no se puede responder un error
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("La fecha inicial debe ser anterior a la fecha final");
+        }
+        StreamingResponseBody body = out -> {
+            // syncFlush: cada flush del servicio llega comprimido al cliente sin esperar al final
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE, true)) {
+                transactionExportService.exportNdjson(accountId, from, to, gzip);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(GZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions.ndjson.gz\"")
+                .body(body);
+    }
+}
@@ -1,7 +1,8 @@
 package com.system.bank_manager.dto.request;
 
+import com.system.bank_manager.money.MinAmount;
+import com.system.bank_manager.money.Money;
 import jakarta.validation.constraints.*;
-import java.math.BigDecimal;
 
 public record AccountRequestDTO(
 
@@ -11,8 +12,8 @@ public record AccountRequestDTO(
         String accountNumber,
 
         @NotNull(message = "El saldo inicial no puede ser nulo")
-        @DecimalMin(value = "0.00", inclusive = true, message = "El saldo inicial no puede ser negativo")
-        BigDecimal balance,
+        @MinAmount(value = "0.00", message = "El saldo inicial no puede ser negativo")
+        Money balance,
 
         @NotNull(message = "El ID del usuario es obligatorio")
         @Min(value = 1, message = "El ID del usuario debe ser un número natural (mayor o igual a 1)")
@@ -1,10 +1,10 @@
 package com.system.bank_manager.dto.response;
 
-import java.math.BigDecimal;
+import com.system.bank_manager.money.Money;
 
 public record AccountResponseDTO(
         Long id,
         String accountNumber,
-        BigDecimal balance,
+        Money balance,
         Long userId
 ) {}
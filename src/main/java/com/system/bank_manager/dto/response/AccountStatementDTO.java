@@ -0,0 +1,14 @@
+package com.system.bank_manager.dto.response;
+
+import com.system.bank_manager.money.Money;
+import java.time.LocalDate;
+import java.util.List;
+
+public record AccountStatementDTO(
+        Long accountId,
+        LocalDate from,
+        LocalDate to,
+        Money openingBalance,
+        Money closingBalance,
+        List<TransactionResponseDTO> transactions
+) {}
@@ -0,0 +1,13 @@
+package com.system.bank_manager.dto.response;
+
+import com.system.bank_manager.money.Money;
+
+import java.time.LocalDateTime;
+
+public record AccountSummaryDTO(
+        Long accountId,
+        Money totalDeposited,
+        Money totalWithdrawn,
+        long transactionCount,
+        LocalDateTime lastActivity
+) {}
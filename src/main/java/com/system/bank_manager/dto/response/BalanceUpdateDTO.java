@@ -0,0 +1,11 @@
+package com.system.bank_manager.dto.response;
+
+import com.system.bank_manager.money.Money;
+
+import java.time.LocalDateTime;
+
+public record BalanceUpdateDTO(
+        Long accountId,
+        Money balance,
+        LocalDateTime at
+) {}
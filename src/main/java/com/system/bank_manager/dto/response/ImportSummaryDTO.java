@@ -0,0 +1,7 @@
+package com.system.bank_manager.dto.response;
+
+public record ImportSummaryDTO(
+        long rows,
+        long imported,
+        long rejected
+) {}
@@ -0,0 +1,14 @@
+package com.system.bank_manager.dto.response;
+
+import com.system.bank_manager.money.Money;
+
+import java.time.LocalDateTime;
+
+// Asiento de una transferencia: el débito sale de la cuenta origen y el abono entra en la destino
+public record JournalEntryDTO(
+        Long entryId,
+        Money amount,
+        LocalDateTime date,
+        TransactionResponseDTO debit,
+        TransactionResponseDTO credit
+) {}
@@ -0,0 +1,7 @@
+package com.system.bank_manager.dto.response;
+
+public record SummaryRebuildDTO(
+        long accounts,
+        int slices,
+        long elapsedMs
+) {}
@@ -0,0 +1,9 @@
+package com.system.bank_manager.dto.response;
+
+import java.util.List;
+
+// Página de transacciones; nextCursor es null cuando no hay más resultados
+public record TransactionPageDTO(
+        List<TransactionResponseDTO> items,
+        String nextCursor
+) {}
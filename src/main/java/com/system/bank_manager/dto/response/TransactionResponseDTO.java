@@ -1,14 +1,15 @@
 package com.system.bank_manager.dto.response;
 
 import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.money.Money;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 public record TransactionResponseDTO(
         Long id,
-        BigDecimal amount,
+        Money amount,
         Transaction.TransactionType type,
         LocalDateTime date,
-        Long accountId
+        Long accountId,
+        Long entryId
 ) {}
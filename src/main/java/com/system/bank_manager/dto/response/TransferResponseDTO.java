@@ -1,10 +1,10 @@
 package com.system.bank_manager.dto.response;
 
-import java.math.BigDecimal;
+import com.system.bank_manager.money.Money;
 import java.time.LocalDateTime;
 
 public record TransferResponseDTO(
-        BigDecimal amount,
+        Money amount,
         Long fromAccountId,
         Long toAccountId,
         LocalDateTime date
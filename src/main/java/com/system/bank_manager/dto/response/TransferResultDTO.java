@@ -0,0 +1,7 @@
+package com.system.bank_manager.dto.response;
+
+public record TransferResultDTO(
+        int index,
+        boolean success,
+        String message
+) {}
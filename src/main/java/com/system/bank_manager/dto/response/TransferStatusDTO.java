@@ -0,0 +1,11 @@
+package com.system.bank_manager.dto.response;
+
+public record TransferStatusDTO(
+        String transferId,
+        Status status,
+        String message
+) {
+    public enum Status {
+        PENDING, COMPLETED, REJECTED, FAILED
+    }
+}
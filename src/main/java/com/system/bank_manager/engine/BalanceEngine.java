@@ -0,0 +1,59 @@
+package com.system.bank_manager.engine;
+
+import com.system.bank_manager.money.Money;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Motor de saldos que atiende depósitos, retiros y transferencias sin pasar por la
+ * entidad Account. La base de datos sigue siendo la copia durable: cada cambio se
+ * escribe en diferido sobre la tabla accounts.
+ */
+public interface BalanceEngine {
+
+    // false cuando el modo de ejecución es JPA y el servicio debe usar su camino de siempre
+    boolean isEnabled();
+
+    // Dentro de una transacción de base de datos, los débitos se aplican en el acto y se liberan si no
+    // confirma, y los abonos solo se aplican al confirmar
+    Money deposit(Long accountId, Money amount);
+
+    Money withdraw(Long accountId, Money amount);
+
+    void transfer(Long fromAccountId, Long toAccountId, Money amount);
+
+    // Con el ID de la fila de transactions que deja el movimiento (en una transferencia, la del débito).
+    // Solo lo usa el motor event sourcing, que lo anexa con el evento; el resto lo ignora
+    default Money deposit(Long accountId, Money amount, long transactionId) {
+        return deposit(accountId, amount);
+    }
+
+    default Money withdraw(Long accountId, Money amount, long transactionId) {
+        return withdraw(accountId, amount);
+    }
+
+    default void transfer(Long fromAccountId, Long toAccountId, Money amount, long transactionId) {
+        transfer(fromAccountId, toAccountId, amount);
+    }
+
+    // Modo WAL: aplican el movimiento y llaman a log con las franjas todavía tomadas, así el WAL guarda
+    // los movimientos de cada cuenta en el orden en que se aplicaron. Si log falla, el saldo no cambia.
+    // Devuelven lo que devuelve log: la secuencia que hay que esperar
+    long depositLogged(Long accountId, Money amount, LongSupplier log);
+
+    long withdrawLogged(Long accountId, Money amount, LongSupplier log);
+
+    long transferLogged(Long fromAccountId, Long toAccountId, Money amount, LongSupplier log);
+
+    // Ajuste sin validación de fondos
+    void adjust(Long accountId, Money delta);
+
+    // Fija el saldo editado a mano y devuelve el que tenía: los movimientos siguientes parten del nuevo
+    Money replace(Long accountId, Money balance);
+
+    // Saldo en memoria si la cuenta ya fue cargada
+    Optional<Money> currentBalance(Long accountId);
+
+    // Descarta el saldo en memoria para que se vuelva a leer de la base de datos
+    void evict(Long accountId);
+}
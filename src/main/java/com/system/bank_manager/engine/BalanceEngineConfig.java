@@ -0,0 +1,41 @@
+package com.system.bank_manager.engine;
+
+import com.system.bank_manager.ledger.LedgerLog;
+import com.system.bank_manager.ledger.LedgerSnapshotStore;
+import com.system.bank_manager.repository.AccountRepository;
+import com.system.bank_manager.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class BalanceEngineConfig {
+
+    @Bean
+    public BalanceEngine balanceEngine(
+            @Value("${bank.execution.mode:JPA}") ExecutionMode mode,
+            @Value("${bank.engine.stripes:1024}") int stripes,
+            @Value("${bank.engine.partitions:4}") int partitions,
+            @Value("${bank.engine.partition-queue-capacity:4096}") int queueCapacity,
+            @Value("${bank.engine.partition-timeout-ms:5000}") long timeoutMillis,
+            @Value("${bank.ledger.directory:data/ledger}") Path ledgerDirectory,
+            @Value("${bank.ledger.segment-bytes:67108864}") long segmentBytes,
+            @Value("${bank.ledger.fsync:true}") boolean fsync,
+            @Value("${bank.ledger.snapshot-interval:100000}") long snapshotInterval,
+            @Value("${bank.ledger.replay-threads:4}") int replayThreads,
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            BalanceWriteBehind writeBehind) {
+        return switch (mode) {
+            case JPA -> new DisabledBalanceEngine();
+            case STRIPED, WAL -> new StripedBalanceEngine(stripes, accountRepository, writeBehind);
+            case PARTITIONED -> new PartitionedBalanceEngine(partitions, queueCapacity, timeoutMillis,
+                    accountRepository, writeBehind);
+            case EVENT_SOURCED -> new EventSourcedBalanceEngine(stripes, replayThreads, snapshotInterval,
+                    new LedgerLog(ledgerDirectory, segmentBytes, fsync), new LedgerSnapshotStore(ledgerDirectory),
+                    accountRepository, transactionRepository, writeBehind);
+        };
+    }
+}
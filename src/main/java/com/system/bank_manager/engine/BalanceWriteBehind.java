@@ -0,0 +1,63 @@
+package com.system.bank_manager.engine;
+
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Escritura diferida de saldos: guarda el último saldo de cada cuenta modificada y
+ * lo vuelca periódicamente sobre la tabla accounts en un único batch JDBC.
+ *
+ * En modo WAL no acumula nada: los saldos llegan a accounts desde el WAL de
+ * movimientos, que es quien sabe qué está en disco, y dos escritores se pisarían.
+ */
+@Component
+public class BalanceWriteBehind {
+
+    private final ConcurrentHashMap<Long, Money> pending = new ConcurrentHashMap<>();
+    private final AccountJdbcRepository accountJdbcRepository;
+    private final boolean enabled;
+
+    public BalanceWriteBehind(AccountJdbcRepository accountJdbcRepository,
+                              @Value("${bank.execution.mode:JPA}") ExecutionMode mode) {
+        this.accountJdbcRepository = accountJdbcRepository;
+        this.enabled = mode != ExecutionMode.WAL;
+    }
+
+    public void markDirty(Long accountId, Money balance) {
+        if (enabled) {
+            pending.put(accountId, balance);
+        }
+    }
+
+    public void discard(Long accountId) {
+        pending.remove(accountId);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${bank.engine.write-behind-interval-ms:200}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Money> batch = new HashMap<>(pending);
+        accountJdbcRepository.updateBalances(batch);
+        // Solo se quita lo que no cambió mientras se escribía; lo demás sale en el próximo ciclo
+        batch.forEach(pending::remove);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
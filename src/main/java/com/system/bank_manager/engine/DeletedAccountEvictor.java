@@ -0,0 +1,27 @@
+package com.system.bank_manager.engine;
+
+import com.system.bank_manager.event.AccountsDeletedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Descarta del motor los saldos de las cuentas borradas, solo cuando la baja confirma.
+ * Descartarlos dentro de la transacción perdería, si esta se revierte, los saldos aún
+ * pendientes de escritura diferida; y un movimiento concurrente volvería a cargar la
+ * cuenta, que hasta el commit sigue existiendo para los demás.
+ */
+@Component
+public class DeletedAccountEvictor {
+
+    private final BalanceEngine balanceEngine;
+
+    public DeletedAccountEvictor(BalanceEngine balanceEngine) {
+        this.balanceEngine = balanceEngine;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAccountsDeleted(AccountsDeletedEvent event) {
+        event.accountIds().forEach(balanceEngine::evict);
+    }
+}
@@ -0,0 +1,68 @@
+package com.system.bank_manager.engine;
+
+import com.system.bank_manager.money.Money;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+// Motor usado en modo JPA: no guarda nada y deja que el servicio trabaje sobre la entidad
+class DisabledBalanceEngine implements BalanceEngine {
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public Money deposit(Long accountId, Money amount) {
+        throw disabled();
+    }
+
+    @Override
+    public Money withdraw(Long accountId, Money amount) {
+        throw disabled();
+    }
+
+    @Override
+    public void transfer(Long fromAccountId, Long toAccountId, Money amount) {
+        throw disabled();
+    }
+
+    @Override
+    public long depositLogged(Long accountId, Money amount, LongSupplier log) {
+        throw disabled();
+    }
+
+    @Override
+    public long withdrawLogged(Long accountId, Money amount, LongSupplier log) {
+        throw disabled();
+    }
+
+    @Override
+    public long transferLogged(Long fromAccountId, Long toAccountId, Money amount, LongSupplier log) {
+        throw disabled();
+    }
+
+    @Override
+    public void adjust(Long accountId, Money delta) {
+        throw disabled();
+    }
+
+    @Override
+    public Money replace(Long accountId, Money balance) {
+        throw disabled();
+    }
+
+    @Override
+    public Optional<Money> currentBalance(Long accountId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void evict(Long accountId) {
+        // Nada que descartar en modo JPA
+    }
+
+    private IllegalStateException disabled() {
+        return new IllegalStateException("El motor de saldos en memoria no está habilitado");
+    }
+}
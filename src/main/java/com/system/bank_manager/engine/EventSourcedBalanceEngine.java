@@ -0,0 +1,541 @@
+package com.system.bank_manager.engine;
+
+import com.system.bank_manager.exception.InsufficientFundsException;
+import com.system.bank_manager.ledger.LedgerEvent;
+import com.system.bank_manager.ledger.LedgerLog;
+import com.system.bank_manager.ledger.LedgerSnapshotStore;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountRepository;
+import com.system.bank_manager.repository.TransactionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Motor event sourcing: cada movimiento se anexa al libro mayor (LedgerLog) y los
+ * saldos en memoria son una proyección de ese log. La tabla accounts sigue recibiendo
+ * los saldos en diferido, pero al arrancar manda el log: se carga el último snapshot y
+ * se reproduce solo la cola posterior.
+ *
+ * Cada snapshotInterval eventos se toma un snapshot en segundo plano y se borran los
+ * segmentos que cubre el snapshot anterior (se conserva por si el nuevo aparece
+ * dañado), así que al arrancar nunca se reproduce mucho más que dos intervalos. La reproducción lee el log en orden y reparte los eventos por cuenta
+ * entre varios hilos: cada cuenta se aplica en orden y cuentas distintas en paralelo.
+ *
+ * Los locks son por franja, como en StripedBalanceEngine. El evento se anexa con la
+ * franja tomada, después de validar y antes de tocar el saldo: si el anexo falla, el
+ * saldo no cambia.
+ *
+ * Un movimiento hecho dentro de una transacción de base de datos se anexa antes de que
+ * esta confirme, con el ID de su fila en transactions, y queda en vuelo hasta que
+ * termina: sus débitos reservan el saldo en el acto y sus abonos esperan al commit (ver
+ * TransactionHooks); si no confirma, se libera lo reservado. Al arrancar se reproducen
+ * solo los movimientos cuya fila existe, así que ni una caída entre el commit y el
+ * abono en memoria pierde un movimiento confirmado ni un rollback deja uno sin fila. Lo
+ * que está en vuelo no entra en los saldos del snapshot, sino aparte, para decidirlo
+ * igual al arrancar.
+ *
+ * Los ajustes y las ediciones a mano no tienen fila: se anexan después del commit. Si
+ * ese anexo falla, el log ya no refleja lo confirmado y el motor deja de aceptar
+ * movimientos hasta que se reinicie.
+ */
+public class EventSourcedBalanceEngine implements BalanceEngine, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventSourcedBalanceEngine.class);
+
+    // IDs por consulta al comprobar qué movimientos del log tienen fila en transactions
+    private static final int EXISTENCE_QUERY_SIZE = 1000;
+
+    private final ConcurrentHashMap<Long, Money> balances = new ConcurrentHashMap<>();
+    // Suma de los débitos aplicados en memoria cuya transacción aún no terminó
+    private final ConcurrentHashMap<Long, Money> inflight = new ConcurrentHashMap<>();
+    // Eventos ya anexados cuya transacción aún no terminó, por secuencia
+    private final ConcurrentHashMap<Long, LedgerEvent> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes;
+    private final LedgerLog ledger;
+    private final LedgerSnapshotStore snapshots;
+    private final long snapshotInterval;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final BalanceWriteBehind writeBehind;
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ledger-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong eventsSinceSnapshot = new AtomicLong();
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
+    private volatile RuntimeException failure;
+
+    public EventSourcedBalanceEngine(int stripeCount, int replayThreads, long snapshotInterval,
+                                     LedgerLog ledger, LedgerSnapshotStore snapshots,
+                                     AccountRepository accountRepository, TransactionRepository transactionRepository,
+                                     BalanceWriteBehind writeBehind) {
+        if (stripeCount < 1 || replayThreads < 1 || snapshotInterval < 1) {
+            throw new IllegalArgumentException("Franjas, hilos de reproducción e intervalo de snapshot deben ser mayores a 0");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.ledger = ledger;
+        this.snapshots = snapshots;
+        this.snapshotInterval = snapshotInterval;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.writeBehind = writeBehind;
+        recover(replayThreads);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public Money deposit(Long accountId, Money amount) {
+        return deposit(accountId, amount, 0);
+    }
+
+    @Override
+    public Money deposit(Long accountId, Money amount, long transactionId) {
+        checkAvailable();
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            Money updated = load(accountId, "Cuenta no encontrada con ID: ").plus(amount);
+            LedgerEvent event = append(LedgerEvent.Type.DEPOSIT, accountId, 0, amount.cents(), transactionId);
+            if (TransactionHooks.active()) {
+                track(event, Map.of(), Map.of(accountId, amount));
+                return updated;
+            }
+            return store(accountId, updated);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Money withdraw(Long accountId, Money amount) {
+        return withdraw(accountId, amount, 0);
+    }
+
+    @Override
+    public Money withdraw(Long accountId, Money amount, long transactionId) {
+        checkAvailable();
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            Money balance = load(accountId, "Cuenta no encontrada con ID: ");
+            if (balance.isLessThan(amount)) {
+                throw new InsufficientFundsException("Saldo insuficiente para realizar el retiro");
+            }
+            LedgerEvent event = append(LedgerEvent.Type.WITHDRAWAL, accountId, 0, amount.cents(), transactionId);
+            if (TransactionHooks.active()) {
+                track(event, Map.of(accountId, amount.negate()), Map.of());
+            }
+            return store(accountId, balance.minus(amount));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void transfer(Long fromAccountId, Long toAccountId, Money amount) {
+        transfer(fromAccountId, toAccountId, amount, 0);
+    }
+
+    @Override
+    public void transfer(Long fromAccountId, Long toAccountId, Money amount, long transactionId) {
+        checkAvailable();
+        int fromStripe = stripeOf(fromAccountId);
+        int toStripe = stripeOf(toAccountId);
+        ReentrantLock first = stripes[Math.min(fromStripe, toStripe)];
+        ReentrantLock second = stripes[Math.max(fromStripe, toStripe)];
+
+        first.lock();
+        try {
+            if (second != first) {
+                second.lock();
+            }
+            try {
+                Money fromBalance = load(fromAccountId, "Cuenta origen no encontrada con ID: ");
+                Money toBalance = load(toAccountId, "Cuenta destino no encontrada con ID: ");
+                if (fromBalance.isLessThan(amount)) {
+                    throw new InsufficientFundsException("Saldo insuficiente en la cuenta origen");
+                }
+                LedgerEvent event = append(LedgerEvent.Type.TRANSFER, fromAccountId, toAccountId, amount.cents(),
+                        transactionId);
+                store(fromAccountId, fromBalance.minus(amount));
+                if (TransactionHooks.active()) {
+                    track(event, Map.of(fromAccountId, amount.negate()), Map.of(toAccountId, amount));
+                } else {
+                    store(toAccountId, toBalance.plus(amount));
+                }
+            } finally {
+                if (second != first) {
+                    second.unlock();
+                }
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    @Override
+    public long depositLogged(Long accountId, Money amount, LongSupplier log) {
+        throw notLogged();
+    }
+
+    @Override
+    public long withdrawLogged(Long accountId, Money amount, LongSupplier log) {
+        throw notLogged();
+    }
+
+    @Override
+    public long transferLogged(Long fromAccountId, Long toAccountId, Money amount, LongSupplier log) {
+        throw notLogged();
+    }
+
+    // Dentro de una transacción, el ajuste y la edición a mano esperan a que confirme: no tienen fila en
+    // transactions con la que decidir al arrancar si cuentan, así que solo llegan al log ya confirmados
+    @Override
+    public void adjust(Long accountId, Money delta) {
+        checkAvailable();
+        if (TransactionHooks.active()) {
+            TransactionHooks.afterCommit(() -> rebalance(accountId, balance -> balance.plus(delta)));
+            return;
+        }
+        rebalance(accountId, balance -> balance.plus(delta));
+    }
+
+    // En el log queda como un ajuste por la diferencia, así la reproducción llega al mismo saldo
+    @Override
+    public Money replace(Long accountId, Money balance) {
+        checkAvailable();
+        if (TransactionHooks.active()) {
+            Money previous = locked(accountId, () -> load(accountId, "Cuenta no encontrada con ID: "));
+            TransactionHooks.afterCommit(() -> rebalance(accountId, current -> balance));
+            return previous;
+        }
+        return rebalance(accountId, current -> balance);
+    }
+
+    @Override
+    public Optional<Money> currentBalance(Long accountId) {
+        return Optional.ofNullable(balances.get(accountId));
+    }
+
+    @Override
+    public void evict(Long accountId) {
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            // Se llama con el borrado ya confirmado
+            if (balances.containsKey(accountId)) {
+                appendCommitted(LedgerEvent.Type.EVICTED, accountId, 0);
+            }
+            balances.remove(accountId);
+            inflight.remove(accountId);
+            writeBehind.discard(accountId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Corte consistente: con todas las franjas tomadas no hay movimientos a medio aplicar
+    public void snapshot() {
+        long sequence;
+        Map<Long, Long> copy = new HashMap<>();
+        List<LedgerEvent> unsettled;
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            sequence = ledger.lastSequence();
+            // Los saldos sin lo que está en vuelo, que va aparte: ya está en el log antes de esta secuencia
+            // y al arrancar se sabrá si su transacción confirmó
+            balances.forEach((accountId, balance) ->
+                    copy.put(accountId, balance.minus(inflight.getOrDefault(accountId, Money.ZERO)).cents()));
+            unsettled = pending.values().stream().sorted(Comparator.comparingLong(LedgerEvent::sequence)).toList();
+            eventsSinceSnapshot.set(0);
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+        ledger.deleteSegmentsUpTo(snapshots.write(sequence, copy, unsettled));
+    }
+
+    // Al apagar se deja un snapshot al día para que el próximo arranque no reproduzca nada
+    @Override
+    public void close() {
+        snapshotExecutor.shutdown();
+        try {
+            snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshot();
+        ledger.close();
+    }
+
+    private void recover(int threads) {
+        long started = System.nanoTime();
+        Optional<LedgerSnapshotStore.Snapshot> snapshot = snapshots.latest();
+        long fromSequence = snapshot.map(LedgerSnapshotStore.Snapshot::sequence).orElse(0L);
+        snapshot.ifPresent(s -> s.balances().forEach((accountId, cents) -> balances.put(accountId, Money.ofCents(cents))));
+
+        // Lectura secuencial de la cola, detrás de lo que estaba en vuelo al tomar el snapshot; una
+        // transferencia va a las particiones de sus dos cuentas
+        List<List<LedgerEvent>> partitions = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        Set<Long> transactionIds = new HashSet<>();
+        Consumer<LedgerEvent> route = event -> {
+            int source = partitionOf(event.accountId(), threads);
+            partitions.get(source).add(event);
+            if (event.type() == LedgerEvent.Type.TRANSFER) {
+                int target = partitionOf(event.counterpartyId(), threads);
+                if (target != source) {
+                    partitions.get(target).add(event);
+                }
+            }
+            if (event.transactionId() != 0) {
+                transactionIds.add(event.transactionId());
+            }
+        };
+        snapshot.ifPresent(s -> s.pending().forEach(route));
+        long replayed = ledger.replay(fromSequence, route);
+        Set<Long> committed = committedTransactions(transactionIds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                int partition = i;
+                results.add(executor.submit(() -> replay(partitions.get(partition), partition, threads, committed)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reproducción del libro mayor interrumpida", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Ni lo reproducido ni lo del snapshot tiene por qué haber llegado a accounts antes de la caída
+        balances.forEach(writeBehind::markDirty);
+        eventsSinceSnapshot.set(replayed);
+        log.info("Libro mayor recuperado: snapshot hasta {}, {} eventos reproducidos y {} movimientos sin fila "
+                        + "descartados en {} ms", fromSequence, replayed, transactionIds.size() - committed.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    // Los movimientos se anexan antes de que su transacción confirme: solo cuentan los que dejaron su fila
+    private Set<Long> committedTransactions(Set<Long> transactionIds) {
+        List<Long> ids = new ArrayList<>(transactionIds);
+        Set<Long> committed = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += EXISTENCE_QUERY_SIZE) {
+            committed.addAll(transactionRepository.findExistingIds(
+                    ids.subList(from, Math.min(ids.size(), from + EXISTENCE_QUERY_SIZE))));
+        }
+        return committed;
+    }
+
+    private void replay(List<LedgerEvent> events, int partition, int partitions, Set<Long> committed) {
+        for (LedgerEvent event : events) {
+            if (event.transactionId() != 0 && !committed.contains(event.transactionId())) {
+                continue;
+            }
+            switch (event.type()) {
+                case OPENED -> balances.put(event.accountId(), Money.ofCents(event.amountCents()));
+                case DEPOSIT, ADJUSTMENT -> apply(event.accountId(), event.amountCents());
+                case WITHDRAWAL -> apply(event.accountId(), -event.amountCents());
+                case TRANSFER -> {
+                    if (partitionOf(event.accountId(), partitions) == partition) {
+                        apply(event.accountId(), -event.amountCents());
+                    }
+                    if (partitionOf(event.counterpartyId(), partitions) == partition) {
+                        apply(event.counterpartyId(), event.amountCents());
+                    }
+                }
+                case EVICTED -> balances.remove(event.accountId());
+            }
+        }
+    }
+
+    private void apply(long accountId, long deltaCents) {
+        Money balance = balances.get(accountId);
+        if (balance == null) {
+            throw new IllegalStateException("El libro mayor mueve la cuenta " + accountId + " sin saldo de partida");
+        }
+        balances.put(accountId, balance.plus(Money.ofCents(deltaCents)));
+    }
+
+    // Se llama con las franjas tomadas y el evento ya anexado: applied (los débitos) ya está en memoria y
+    // credited se abona al confirmar. Si no confirma, se libera lo aplicado; el evento queda en el log,
+    // pero su fila no existe y la reproducción lo descarta
+    private void track(LedgerEvent event, Map<Long, Money> applied, Map<Long, Money> credited) {
+        applied.forEach((id, delta) -> inflight.merge(id, delta, Money::plus));
+        pending.put(event.sequence(), event);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                settle(true, event, applied, credited);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    settle(false, event, applied, credited);
+                }
+            }
+        });
+    }
+
+    // Cierra un movimiento en vuelo: confirmado se abona lo pendiente; si no, se deshace lo aplicado.
+    // Las cuentas desalojadas mientras tanto se saltan: se volverán a leer de la base de datos
+    private void settle(boolean committed, LedgerEvent event, Map<Long, Money> applied, Map<Long, Money> credited) {
+        Set<Long> accounts = new HashSet<>(applied.keySet());
+        accounts.addAll(credited.keySet());
+        List<ReentrantLock> locks = accounts.stream()
+                .map(this::stripeOf).distinct().sorted().map(stripe -> stripes[stripe]).toList();
+        locks.forEach(ReentrantLock::lock);
+        try {
+            pending.remove(event.sequence());
+            applied.forEach((id, delta) -> inflight.computeIfPresent(id, (key, reserved) -> {
+                Money remaining = reserved.minus(delta);
+                return remaining.equals(Money.ZERO) ? null : remaining;
+            }));
+            Map<Long, Money> deltas = committed ? credited : applied;
+            deltas.forEach((id, delta) -> {
+                Money balance = balances.get(id);
+                if (balance != null) {
+                    store(id, committed ? balance.plus(delta) : balance.minus(delta));
+                }
+            });
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    // Cambio de saldo sin fila en transactions; devuelve el saldo que había
+    private Money rebalance(Long accountId, UnaryOperator<Money> change) {
+        return locked(accountId, () -> {
+            Money previous = load(accountId, "Cuenta no encontrada con ID: ");
+            Money updated = change.apply(previous);
+            appendCommitted(LedgerEvent.Type.ADJUSTMENT, accountId, updated.minus(previous).cents());
+            store(accountId, updated);
+            return previous;
+        });
+    }
+
+    private <T> T locked(Long accountId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Un cambio que la base de datos ya confirmó y no llega al log dejaría la proyección sin él al
+    // arrancar: a partir de ahí el motor no acepta más movimientos
+    private void appendCommitted(LedgerEvent.Type type, long accountId, long amountCents) {
+        try {
+            append(type, accountId, 0, amountCents, 0);
+        } catch (RuntimeException e) {
+            failure = e;
+            log.error("Un cambio ya confirmado no llegó al libro mayor; el motor deja de aceptar movimientos", e);
+            throw e;
+        }
+    }
+
+    private void checkAvailable() {
+        RuntimeException cause = failure;
+        if (cause != null) {
+            throw new IllegalStateException("El motor no acepta movimientos: un cambio ya confirmado no llegó al libro mayor", cause);
+        }
+    }
+
+    private LedgerEvent append(LedgerEvent.Type type, long accountId, long counterpartyId, long amountCents,
+                               long transactionId) {
+        long sequence = ledger.append(type, accountId, counterpartyId, amountCents, transactionId, 0, 0);
+        if (eventsSinceSnapshot.incrementAndGet() >= snapshotInterval && snapshotPending.compareAndSet(false, true)) {
+            snapshotExecutor.execute(() -> {
+                try {
+                    snapshot();
+                } catch (RuntimeException e) {
+                    log.error("No se pudo tomar el snapshot del libro mayor", e);
+                } finally {
+                    snapshotPending.set(false);
+                }
+            });
+        }
+        return new LedgerEvent(sequence, type, accountId, counterpartyId, amountCents, transactionId, 0, 0);
+    }
+
+    // Se llama con el lock de la franja tomado: la primera lectura va a la base de datos y queda en el log
+    private Money load(Long accountId, String notFoundMessage) {
+        Money balance = balances.get(accountId);
+        if (balance == null) {
+            balance = accountRepository.findBalanceById(accountId)
+                    .orElseThrow(() -> new EntityNotFoundException(notFoundMessage + accountId));
+            append(LedgerEvent.Type.OPENED, accountId, 0, balance.cents(), 0);
+            balances.put(accountId, balance);
+        }
+        return balance;
+    }
+
+    private Money store(Long accountId, Money balance) {
+        balances.put(accountId, balance);
+        writeBehind.markDirty(accountId, balance);
+        return balance;
+    }
+
+    // El modo WAL usa StripedBalanceEngine
+    private static IllegalStateException notLogged() {
+        return new IllegalStateException("Este motor no anexa movimientos al WAL");
+    }
+
+    private int stripeOf(Long accountId) {
+        return Math.floorMod(Long.hashCode(accountId), stripes.length);
+    }
+
+    private static int partitionOf(long accountId, int partitions) {
+        return Math.floorMod(Long.hashCode(accountId), partitions);
+    }
+}
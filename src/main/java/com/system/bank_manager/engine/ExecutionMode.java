@@ -0,0 +1,15 @@
+package com.system.bank_manager.engine;
+
+// Modo en que se aplican los movimientos de saldo (propiedad bank.execution.mode)
+public enum ExecutionMode {
+    // Cada movimiento lee y actualiza la entidad Account dentro de la transacción JPA
+    JPA,
+    // Saldos en memoria protegidos por locks por franja, persistidos en diferido
+    STRIPED,
+    // Cada cuenta pertenece a una partición con un único hilo escritor y una cola acotada
+    PARTITIONED,
+    // Locks por franja como STRIPED, con cada movimiento anexado al libro mayor y saldos reconstruidos desde él
+    EVENT_SOURCED,
+    // Locks por franja como STRIPED; cada movimiento se confirma en un WAL con group commit y llega a la base desde él
+    WAL
+}
@@ -0,0 +1,395 @@
+package com.system.bank_manager.engine;
+
+import com.system.bank_manager.exception.InsufficientFundsException;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountRepository;
+import jakarta.persistence.EntityNotFoundException;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Motor de un solo escritor por partición. Cada cuenta pertenece a una partición
+ * según su ID y solo el hilo de esa partición modifica su saldo, así que no hay
+ * locks sobre los saldos. Los comandos llegan por una cola acotada: si se llena,
+ * quien envía espera.
+ *
+ * Dentro de una transacción de base de datos los débitos reservan el saldo en el acto
+ * y los abonos se entregan a su partición al confirmar (ver TransactionHooks).
+ *
+ * Fuera de una transacción, una transferencia entre particiones se hace en dos pasos siempre en el mismo
+ * orden: la partición origen valida y debita, y luego entrega el crédito a la
+ * partición destino. Si el crédito no puede aplicarse, el importe vuelve al origen.
+ * Estas entregas entre particiones van por una cola aparte sin límite, para que dos
+ * particiones con la cola llena no queden esperándose entre sí.
+ *
+ * El saldo de una cuenta que la partición todavía no conoce se lee en el hilo que
+ * llama, que ya tiene su conexión, y viaja con el comando; si la cuenta no existe, la
+ * llamada falla ahí, antes de encolar. El hilo de la partición nunca consulta la base
+ * de datos: con el pool agotado por llamadas que esperan a esa misma partición, ambos
+ * quedarían bloqueados hasta el timeout.
+ *
+ * Quien espera más de timeoutMillis se disputa el comando con la partición mediante un
+ * CAS. Si el comando no había empezado, queda descartado y no se ejecutará después; si
+ * ya había empezado, sus cambios de saldo son reales y se espera su resultado.
+ */
+public class PartitionedBalanceEngine implements BalanceEngine, AutoCloseable {
+
+    private static final Runnable WAKE_UP = () -> { };
+
+    private final Partition[] partitions;
+    private final AccountRepository accountRepository;
+    private final BalanceWriteBehind writeBehind;
+    private final long timeoutMillis;
+
+    public PartitionedBalanceEngine(int partitionCount, int queueCapacity, long timeoutMillis,
+                                    AccountRepository accountRepository, BalanceWriteBehind writeBehind) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("La cantidad de particiones debe ser mayor a 0");
+        }
+        this.accountRepository = accountRepository;
+        this.writeBehind = writeBehind;
+        this.timeoutMillis = timeoutMillis;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i, queueCapacity);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    // Dentro de una transacción la partición solo carga la cuenta; el abono llega al confirmar
+    @Override
+    public Money deposit(Long accountId, Money amount) {
+        Partition partition = partitionOf(accountId);
+        Money prefetched = partition.prefetch(accountId, "Cuenta no encontrada con ID: ");
+        if (TransactionHooks.active()) {
+            Money balance = await(partition.call(() -> partition.load(accountId, prefetched, "Cuenta no encontrada con ID: ")));
+            TransactionHooks.afterCommit(() -> credit(accountId, amount));
+            return balance.plus(amount);
+        }
+        return await(partition.call(() -> {
+            Money balance = partition.load(accountId, prefetched, "Cuenta no encontrada con ID: ");
+            return partition.store(accountId, balance.plus(amount));
+        }));
+    }
+
+    @Override
+    public Money withdraw(Long accountId, Money amount) {
+        Partition partition = partitionOf(accountId);
+        Money prefetched = partition.prefetch(accountId, "Cuenta no encontrada con ID: ");
+        Money updated = await(partition.call(() -> {
+            Money balance = partition.load(accountId, prefetched, "Cuenta no encontrada con ID: ");
+            if (balance.isLessThan(amount)) {
+                throw new InsufficientFundsException("Saldo insuficiente para realizar el retiro");
+            }
+            return partition.store(accountId, balance.minus(amount));
+        }));
+        if (TransactionHooks.active()) {
+            TransactionHooks.onRollback(() -> credit(accountId, amount));
+        }
+        return updated;
+    }
+
+    @Override
+    public void transfer(Long fromAccountId, Long toAccountId, Money amount) {
+        Partition source = partitionOf(fromAccountId);
+        Partition target = partitionOf(toAccountId);
+        Money fromPrefetched = source.prefetch(fromAccountId, "Cuenta origen no encontrada con ID: ");
+        Money toPrefetched = target.prefetch(toAccountId, "Cuenta destino no encontrada con ID: ");
+        if (TransactionHooks.active()) {
+            reserve(source, fromAccountId, fromPrefetched, target, toAccountId, toPrefetched, amount);
+            return;
+        }
+        Command<Money> done = new Command<>();
+
+        source.submit(done, () -> {
+            Money fromBalance = source.load(fromAccountId, fromPrefetched, "Cuenta origen no encontrada con ID: ");
+            if (source == target) {
+                Money toBalance = source.load(toAccountId, toPrefetched, "Cuenta destino no encontrada con ID: ");
+                checkFunds(fromBalance, amount);
+                source.store(fromAccountId, fromBalance.minus(amount));
+                source.store(toAccountId, toBalance.plus(amount));
+                done.complete(amount);
+                return;
+            }
+            // Paso 1: la partición origen valida y debita. El destino ya se comprobó al encolar
+            checkFunds(fromBalance, amount);
+            source.store(fromAccountId, fromBalance.minus(amount));
+
+            // Paso 2: la partición destino acredita; si falla, el importe vuelve al origen
+            target.handoff(done, () -> {
+                try {
+                    Money toBalance = target.load(toAccountId, toPrefetched, "Cuenta destino no encontrada con ID: ");
+                    target.store(toAccountId, toBalance.plus(amount));
+                    done.complete(amount);
+                } catch (RuntimeException e) {
+                    source.handoff(done, () -> {
+                        source.store(fromAccountId, source.load(fromAccountId, fromPrefetched, "Cuenta origen no encontrada con ID: ").plus(amount));
+                        done.completeExceptionally(e);
+                    });
+                }
+            });
+        });
+        await(done);
+    }
+
+    // Dentro de una transacción solo se debita el origen; el destino queda cargado para el abono, que
+    // llega al confirmar. Si no confirma, el débito vuelve al origen
+    private void reserve(Partition source, Long fromAccountId, Money fromPrefetched,
+                         Partition target, Long toAccountId, Money toPrefetched, Money amount) {
+        if (target != source && toPrefetched != null) {
+            await(target.call(() -> target.load(toAccountId, toPrefetched, "Cuenta destino no encontrada con ID: ")));
+        }
+        await(source.call(() -> {
+            Money fromBalance = source.load(fromAccountId, fromPrefetched, "Cuenta origen no encontrada con ID: ");
+            if (target == source) {
+                source.load(toAccountId, toPrefetched, "Cuenta destino no encontrada con ID: ");
+            }
+            checkFunds(fromBalance, amount);
+            return source.store(fromAccountId, fromBalance.minus(amount));
+        }));
+        TransactionHooks.onRollback(() -> credit(fromAccountId, amount));
+        TransactionHooks.afterCommit(() -> credit(toAccountId, amount));
+    }
+
+    @Override
+    public long depositLogged(Long accountId, Money amount, LongSupplier log) {
+        throw notLogged();
+    }
+
+    @Override
+    public long withdrawLogged(Long accountId, Money amount, LongSupplier log) {
+        throw notLogged();
+    }
+
+    @Override
+    public long transferLogged(Long fromAccountId, Long toAccountId, Money amount, LongSupplier log) {
+        throw notLogged();
+    }
+
+    @Override
+    public void adjust(Long accountId, Money delta) {
+        Partition partition = partitionOf(accountId);
+        Money prefetched = partition.prefetch(accountId, "Cuenta no encontrada con ID: ");
+        await(partition.call(() ->
+                partition.store(accountId, partition.load(accountId, prefetched, "Cuenta no encontrada con ID: ").plus(delta))));
+    }
+
+    @Override
+    public Money replace(Long accountId, Money balance) {
+        Partition partition = partitionOf(accountId);
+        Money prefetched = partition.prefetch(accountId, "Cuenta no encontrada con ID: ");
+        return await(partition.call(() -> {
+            Money previous = partition.load(accountId, prefetched, "Cuenta no encontrada con ID: ");
+            partition.store(accountId, balance);
+            return previous;
+        }));
+    }
+
+    @Override
+    public Optional<Money> currentBalance(Long accountId) {
+        return Optional.ofNullable(partitionOf(accountId).balances.get(accountId));
+    }
+
+    @Override
+    public void evict(Long accountId) {
+        Partition partition = partitionOf(accountId);
+        await(partition.call(() -> {
+            partition.balances.remove(accountId);
+            writeBehind.discard(accountId);
+            return null;
+        }));
+    }
+
+    @Override
+    public void close() {
+        for (Partition partition : partitions) {
+            partition.worker.interrupt();
+        }
+    }
+
+    private static void checkFunds(Money balance, Money amount) {
+        if (balance.isLessThan(amount)) {
+            throw new InsufficientFundsException("Saldo insuficiente en la cuenta origen");
+        }
+    }
+
+    // Abono confirmado o reserva liberada. Va como entrega, que nunca se descarta ni espera cola; si la
+    // partición ya no conoce la cuenta es que se borró
+    private void credit(Long accountId, Money amount) {
+        Partition partition = partitionOf(accountId);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        partition.handoff(done, () -> {
+            Money balance = partition.balances.get(accountId);
+            if (balance != null) {
+                partition.store(accountId, balance.plus(amount));
+            }
+            done.complete(null);
+        });
+        // Pasado el timeout se deja de esperar, pero la entrega sigue en cola y se aplicará
+        done.completeOnTimeout(null, timeoutMillis, TimeUnit.MILLISECONDS).join();
+    }
+
+    // El modo WAL usa StripedBalanceEngine
+    private static IllegalStateException notLogged() {
+        return new IllegalStateException("Este motor no anexa movimientos al WAL");
+    }
+
+    private Partition partitionOf(Long accountId) {
+        return partitions[Math.floorMod(Long.hashCode(accountId), partitions.length)];
+    }
+
+    private <T> T await(Command<T> command) {
+        try {
+            return command.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (TimeoutException e) {
+            return abandon(command, new IllegalStateException("La partición no respondió en " + timeoutMillis + " ms"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return abandon(command, new IllegalStateException("Operación interrumpida", e));
+        }
+    }
+
+    // Si el comando no empezó, el CAS lo descarta; si ya empezó, su resultado llega en cuanto termine
+    private static <T> T abandon(Command<T> command, IllegalStateException failure) {
+        if (command.claim()) {
+            throw failure;
+        }
+        try {
+            return command.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+
+    // Futuro de un comando de cliente; lo reclama quien llegue antes, la partición para ejecutarlo
+    // o quien espera para descartarlo
+    private static final class Command<T> extends CompletableFuture<T> {
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    private final class Partition {
+
+        // Solo el hilo de la partición escribe; otros hilos únicamente leen
+        private final ConcurrentHashMap<Long, Money> balances = new ConcurrentHashMap<>();
+        private final BlockingQueue<Runnable> queue;
+        private final ConcurrentLinkedQueue<Runnable> handoffs = new ConcurrentLinkedQueue<>();
+        private final Thread worker;
+
+        private Partition(int index, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.worker = new Thread(this::run, "balance-partition-" + index);
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+
+        private <T> Command<T> call(Supplier<T> command) {
+            Command<T> result = new Command<>();
+            submit(result, () -> result.complete(command.get()));
+            return result;
+        }
+
+        // Comandos de clientes: si la cola está llena, quien envía espera. Uno que quien espera ya
+        // abandonó se salta
+        private void submit(Command<?> owner, Runnable command) {
+            Runnable guarded = guard(owner, command);
+            try {
+                queue.put(() -> {
+                    if (owner.claim()) {
+                        guarded.run();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                owner.completeExceptionally(new IllegalStateException("Operación interrumpida", e));
+            }
+        }
+
+        // Entregas desde otra partición: nunca bloquean al hilo que las envía
+        private void handoff(CompletableFuture<?> owner, Runnable command) {
+            handoffs.add(guard(owner, command));
+            queue.offer(WAKE_UP);
+        }
+
+        // Un error del comando termina el futuro de quien lo envió, nunca el hilo de la partición
+        private Runnable guard(CompletableFuture<?> owner, Runnable command) {
+            return () -> {
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    owner.completeExceptionally(e);
+                }
+            };
+        }
+
+        private void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Runnable next = handoffs.poll();
+                    (next != null ? next : queue.take()).run();
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private boolean knows(Long accountId) {
+            return balances.containsKey(accountId);
+        }
+
+        // Se ejecuta en el hilo que llama; null si la partición ya conoce la cuenta
+        private Money prefetch(Long accountId, String notFoundMessage) {
+            if (knows(accountId)) {
+                return null;
+            }
+            return accountRepository.findBalanceById(accountId)
+                    .orElseThrow(() -> new EntityNotFoundException(notFoundMessage + accountId));
+        }
+
+        // Lo que ya conoce la partición manda sobre lo leído antes de encolar, que puede estar desfasado.
+        // Sin ninguno de los dos, la cuenta salió de la partición después de encolar: se borró
+        private Money load(Long accountId, Money prefetched, String notFoundMessage) {
+            Money balance = balances.get(accountId);
+            if (balance == null) {
+                if (prefetched == null) {
+                    throw new EntityNotFoundException(notFoundMessage + accountId);
+                }
+                balance = prefetched;
+                balances.put(accountId, balance);
+            }
+            return balance;
+        }
+
+        private Money store(Long accountId, Money balance) {
+            balances.put(accountId, balance);
+            writeBehind.markDirty(accountId, balance);
+            return balance;
+        }
+    }
+}
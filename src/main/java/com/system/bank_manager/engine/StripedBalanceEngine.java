@@ -0,0 +1,251 @@
+package com.system.bank_manager.engine;
+
+import com.system.bank_manager.exception.InsufficientFundsException;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountRepository;
+import jakarta.persistence.EntityNotFoundException;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Saldos en memoria indexados por ID de cuenta. Cada cuenta cae en una franja
+ * (stripe) con su propio lock, de modo que operaciones sobre cuentas distintas no
+ * compiten entre sí. Las transferencias toman las dos franjas en orden de índice
+ * para que A→B y B→A nunca se bloqueen mutuamente.
+ *
+ * Dentro de una transacción de base de datos los débitos reservan el saldo en el acto
+ * y los abonos esperan al commit (ver TransactionHooks). En modo WAL el anexo al log se
+ * hace dentro de las mismas franjas, así que ningún movimiento puede gastar un saldo
+ * que el log todavía no recoge.
+ */
+public class StripedBalanceEngine implements BalanceEngine {
+
+    private final ConcurrentHashMap<Long, Money> balances = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes;
+    private final AccountRepository accountRepository;
+    private final BalanceWriteBehind writeBehind;
+
+    public StripedBalanceEngine(int stripeCount, AccountRepository accountRepository, BalanceWriteBehind writeBehind) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("La cantidad de franjas debe ser mayor a 0");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.accountRepository = accountRepository;
+        this.writeBehind = writeBehind;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    // Dentro de una transacción el abono se aplica al confirmar; devuelve el saldo que resultará
+    @Override
+    public Money deposit(Long accountId, Money amount) {
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            Money balance = load(accountId, "Cuenta no encontrada con ID: ");
+            if (TransactionHooks.active()) {
+                TransactionHooks.afterCommit(() -> credit(accountId, amount));
+                return balance.plus(amount);
+            }
+            return store(accountId, balance.plus(amount));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Money withdraw(Long accountId, Money amount) {
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            Money balance = load(accountId, "Cuenta no encontrada con ID: ");
+            if (balance.isLessThan(amount)) {
+                throw new InsufficientFundsException("Saldo insuficiente para realizar el retiro");
+            }
+            if (TransactionHooks.active()) {
+                TransactionHooks.onRollback(() -> credit(accountId, amount));
+            }
+            return store(accountId, balance.minus(amount));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void transfer(Long fromAccountId, Long toAccountId, Money amount) {
+        withStripes(fromAccountId, toAccountId, () -> {
+            Money fromBalance = load(fromAccountId, "Cuenta origen no encontrada con ID: ");
+            Money toBalance = load(toAccountId, "Cuenta destino no encontrada con ID: ");
+            checkFunds(fromBalance, amount);
+            store(fromAccountId, fromBalance.minus(amount));
+            if (TransactionHooks.active()) {
+                TransactionHooks.onRollback(() -> credit(fromAccountId, amount));
+                TransactionHooks.afterCommit(() -> credit(toAccountId, amount));
+            } else {
+                store(toAccountId, toBalance.plus(amount));
+            }
+            return 0;
+        });
+    }
+
+    // En modo WAL lo que confirma es el anexo, no la transacción de base de datos: el movimiento se
+    // anexa antes de tocar los saldos y, si el anexo falla, no hay nada que deshacer
+    @Override
+    public long depositLogged(Long accountId, Money amount, LongSupplier log) {
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            Money balance = load(accountId, "Cuenta no encontrada con ID: ");
+            long sequence = log.getAsLong();
+            store(accountId, balance.plus(amount));
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long withdrawLogged(Long accountId, Money amount, LongSupplier log) {
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            Money balance = load(accountId, "Cuenta no encontrada con ID: ");
+            if (balance.isLessThan(amount)) {
+                throw new InsufficientFundsException("Saldo insuficiente para realizar el retiro");
+            }
+            long sequence = log.getAsLong();
+            store(accountId, balance.minus(amount));
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long transferLogged(Long fromAccountId, Long toAccountId, Money amount, LongSupplier log) {
+        return withStripes(fromAccountId, toAccountId, () -> {
+            Money fromBalance = load(fromAccountId, "Cuenta origen no encontrada con ID: ");
+            Money toBalance = load(toAccountId, "Cuenta destino no encontrada con ID: ");
+            checkFunds(fromBalance, amount);
+            long sequence = log.getAsLong();
+            store(fromAccountId, fromBalance.minus(amount));
+            store(toAccountId, toBalance.plus(amount));
+            return sequence;
+        });
+    }
+
+    @Override
+    public void adjust(Long accountId, Money delta) {
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            store(accountId, load(accountId, "Cuenta no encontrada con ID: ").plus(delta));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Money replace(Long accountId, Money balance) {
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            Money previous = load(accountId, "Cuenta no encontrada con ID: ");
+            store(accountId, balance);
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Money> currentBalance(Long accountId) {
+        return Optional.ofNullable(balances.get(accountId));
+    }
+
+    @Override
+    public void evict(Long accountId) {
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            balances.remove(accountId);
+            writeBehind.discard(accountId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Abono confirmado o reserva liberada. Si la cuenta ya no está en memoria es que se borró
+    private void credit(Long accountId, Money amount) {
+        ReentrantLock lock = stripes[stripeOf(accountId)];
+        lock.lock();
+        try {
+            Money balance = balances.get(accountId);
+            if (balance != null) {
+                store(accountId, balance.plus(amount));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Las dos franjas en orden de índice
+    private long withStripes(Long fromAccountId, Long toAccountId, LongSupplier action) {
+        int fromStripe = stripeOf(fromAccountId);
+        int toStripe = stripeOf(toAccountId);
+        ReentrantLock first = stripes[Math.min(fromStripe, toStripe)];
+        ReentrantLock second = stripes[Math.max(fromStripe, toStripe)];
+
+        first.lock();
+        try {
+            if (second != first) {
+                second.lock();
+            }
+            try {
+                return action.getAsLong();
+            } finally {
+                if (second != first) {
+                    second.unlock();
+                }
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    private static void checkFunds(Money balance, Money amount) {
+        if (balance.isLessThan(amount)) {
+            throw new InsufficientFundsException("Saldo insuficiente en la cuenta origen");
+        }
+    }
+
+    // Se llama con el lock de la franja tomado: la primera lectura va a la base de datos
+    private Money load(Long accountId, String notFoundMessage) {
+        Money balance = balances.get(accountId);
+        if (balance == null) {
+            balance = accountRepository.findBalanceById(accountId)
+                    .orElseThrow(() -> new EntityNotFoundException(notFoundMessage + accountId));
+            balances.put(accountId, balance);
+        }
+        return balance;
+    }
+
+    private Money store(Long accountId, Money balance) {
+        balances.put(accountId, balance);
+        writeBehind.markDirty(accountId, balance);
+        return balance;
+    }
+
+    private int stripeOf(Long accountId) {
+        return Math.floorMod(Long.hashCode(accountId), stripes.length);
+    }
+}
@@ -0,0 +1,41 @@
+package com.system.bank_manager.engine;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ganchos sobre la transacción de base de datos en curso. Dentro de una transacción
+ * los motores aplican en el acto los débitos, que reservan el saldo, y dejan los
+ * abonos para cuando confirma: nadie puede gastar un dinero que un rollback todavía
+ * puede hacer desaparecer. Si la transacción no confirma, las reservas se liberan.
+ */
+final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    static boolean active() {
+        return TransactionSynchronizationManager.isSynchronizationActive();
+    }
+
+    // Corre antes que los oyentes AFTER_COMMIT registrados después, que así ya ven el abono
+    static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    static void onRollback(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
@@ -1,12 +1,13 @@
 package com.system.bank_manager.entity;
 
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.persistence.PooledSequence;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -18,16 +19,17 @@ import java.util.List;
 @Table(name = "accounts")
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("accounts_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, length = 20)
     private String accountNumber;
 
     @Column(nullable = false, precision = 15, scale = 2)
-    private BigDecimal balance = BigDecimal.ZERO;
+    private Money balance = Money.ZERO;
 
-    @ManyToOne
+    // Perezosa: las respuestas solo usan user.id, que el proxy ya trae sin consultar la tabla users
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -0,0 +1,45 @@
+package com.system.bank_manager.entity;
+
+import com.system.bank_manager.money.Money;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+// Totales de movimientos de una cuenta, mantenidos en la misma transacción que cada inserción en transactions
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "account_summaries")
+public class AccountSummary {
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    // Solo para la FK: al borrar la cuenta la base borra también su resumen
+    @OneToOne(fetch = FetchType.LAZY)
+    @MapsId
+    @JoinColumn(name = "account_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Account account;
+
+    // Sumas de toda la historia: más precisión que el saldo
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money totalDeposited;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money totalWithdrawn;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    @Column(nullable = false)
+    private LocalDateTime lastActivity;
+}
@@ -0,0 +1,41 @@
+package com.system.bank_manager.entity;
+
+import com.system.bank_manager.money.Money;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Saldo de cierre de una cuenta al final de un día; lo escribe el job nocturno de snapshots
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@IdClass(DailyBalance.Key.class)
+@Table(name = "daily_balances")
+public class DailyBalance {
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Id
+    @Column(name = "balance_date")
+    private LocalDate balanceDate;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private Money closingBalance;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long accountId;
+        private LocalDate balanceDate;
+    }
+}
@@ -0,0 +1,33 @@
+package com.system.bank_manager.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Respuesta original de una operación con Idempotency-Key; se inserta en la misma transacción que la operación,
+// salvo en modo WAL, donde se reserva antes con respuesta vacía y se completa al terminar
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyKey {
+    @Id
+    @Column(length = 128)
+    private String id;
+
+    // Huella de la petición: la misma clave con otro cuerpo es un error del cliente
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false, length = 4000)
+    private String response;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
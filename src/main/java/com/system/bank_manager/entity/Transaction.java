@@ -1,12 +1,13 @@
 package com.system.bank_manager.entity;
 
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.persistence.PooledSequence;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @AllArgsConstructor
@@ -14,14 +15,17 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_account_date_id", columnList = "account_id, date, id"),
+        @Index(name = "idx_transactions_entry_id", columnList = "entry_id")
+})
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("transactions_seq")
     private Long id;
 
     @Column(nullable = false, precision = 15, scale = 2)
-    private BigDecimal amount;
+    private Money amount;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -30,10 +34,16 @@ public class Transaction {
     @Column(nullable = false, updatable = false)
     private LocalDateTime date;
 
-    @ManyToOne
+    // Perezosa: las respuestas solo usan account.id, que el proxy ya trae sin consultar la tabla accounts
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
 
+    // Asiento de doble partida: las dos patas de una transferencia comparten entry_id, que es el ID
+    // de su débito. Nulo en depósitos y retiros, que solo tienen una pata
+    @Column(name = "entry_id")
+    private Long entryId;
+
     @PrePersist
     protected void onCreate() {
         this.date = LocalDateTime.now();
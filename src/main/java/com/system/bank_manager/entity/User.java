@@ -1,6 +1,7 @@
 
 package com.system.bank_manager.entity;
 
+import com.system.bank_manager.persistence.PooledSequence;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -20,7 +21,7 @@ import java.util.List;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("users_seq")
     private Long id;
 
     @Column(nullable = false, unique = true)
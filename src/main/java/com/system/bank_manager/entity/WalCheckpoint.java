@@ -0,0 +1,25 @@
+package com.system.bank_manager.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Última secuencia del WAL de movimientos ya aplicada a accounts y transactions; se actualiza en la misma transacción
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "wal_checkpoints")
+public class WalCheckpoint {
+    // Una sola fila
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long sequence;
+}
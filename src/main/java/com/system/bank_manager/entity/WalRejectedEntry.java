@@ -0,0 +1,48 @@
+package com.system.bank_manager.entity;
+
+import com.system.bank_manager.money.Money;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Pata de un movimiento del WAL que la base de datos rechazó (p. ej. su cuenta se borró antes de aplicarlo).
+// Queda aquí para conciliarla a mano en lugar de frenar al resto de la cola
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "wal_rejected_entries")
+public class WalRejectedEntry {
+    // El ID que se le asignó a la fila de transactions al anexarla
+    @Id
+    private Long transactionId;
+
+    @Column(nullable = false)
+    private Long sequence;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Transaction.TransactionType type;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private Money amount;
+
+    @Column(nullable = false)
+    private LocalDateTime date;
+
+    private Long entryId;
+
+    @Column(nullable = false, length = 500)
+    private String reason;
+
+    @Column(nullable = false)
+    private LocalDateTime rejectedAt;
+}
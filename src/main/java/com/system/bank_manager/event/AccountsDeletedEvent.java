@@ -0,0 +1,7 @@
+package com.system.bank_manager.event;
+
+import java.util.Set;
+
+// Se publica dentro de la transacción que borra cuentas, también las borradas en cascada con su usuario
+public record AccountsDeletedEvent(Set<Long> accountIds) {
+}
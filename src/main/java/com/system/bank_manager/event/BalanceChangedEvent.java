@@ -0,0 +1,7 @@
+package com.system.bank_manager.event;
+
+import java.util.Set;
+
+// Se publica dentro de la transacción que modifica saldos; los oyentes actúan al terminarla
+public record BalanceChangedEvent(Set<Long> accountIds) {
+}
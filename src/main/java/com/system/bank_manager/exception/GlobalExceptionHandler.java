@@ -2,8 +2,12 @@ package com.system.bank_manager.exception;
 
 
 import com.system.bank_manager.exception.InsufficientFundsException;
+import com.system.bank_manager.metrics.MetricsConfig;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -18,9 +22,21 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Un contador por tipo concreto: el manejador genérico distingue IllegalArgumentException de otras
+    private void count(Exception ex) {
+        meterRegistry.counter(MetricsConfig.EXCEPTIONS_COUNTER, "exception", ex.getClass().getSimpleName()).increment();
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(
             MethodArgumentNotValidException ex) {
+        count(ex);
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
@@ -32,12 +48,41 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(DuplicateAccountException.class)
     public ResponseEntity<ErrorResponse> handleDuplicateAccount(DuplicateAccountException ex) {
+        count(ex);
         ErrorResponse error = new ErrorResponse("DUPLICATE_ACCOUNT", ex.getMessage(), LocalDateTime.now());
         return new ResponseEntity<>(error, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReuse(IdempotencyKeyReuseException ex) {
+        count(ex);
+        ErrorResponse error = new ErrorResponse("IDEMPOTENCY_KEY_REUSED", ex.getMessage(), LocalDateTime.now());
+        return new ResponseEntity<>(error, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    // Otra petición con la misma clave sigue en curso (modo WAL): el reintento se resolverá al terminar
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyInProgress(IdempotencyKeyInProgressException ex) {
+        count(ex);
+        ErrorResponse error = new ErrorResponse("IDEMPOTENCY_KEY_IN_PROGRESS", ex.getMessage(), LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    // Cola de transferencias asíncronas llena: el cliente debe reintentar más tarde
+    @ExceptionHandler(TransferQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleTransferQueueFull(TransferQueueFullException ex) {
+        count(ex);
+        ErrorResponse error = new ErrorResponse("TRANSFER_QUEUE_FULL", ex.getMessage(), LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
     @ExceptionHandler(InsufficientFundsException.class)
     public ResponseEntity<ErrorResponse> handleInsufficientFunds(InsufficientFundsException ex) {
+        count(ex);
         ErrorResponse error = new ErrorResponse(
                 "Fondos Insuficientes",
                 ex.getMessage(),
@@ -48,15 +93,20 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleEntityNotFound(EntityNotFoundException ex) {
+        count(ex);
         ErrorResponse error = new ErrorResponse(
                 "ENTITY_NOT_FOUND",
                 ex.getMessage(),
                 LocalDateTime.now()
         );
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+        // Tipo fijado: un EventSource pide solo text/event-stream y sin él no se podría escribir el 404
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(error);
     }
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException ex) {
+        count(ex);
         ErrorResponse error = new ErrorResponse("BUSINESS_ERROR", ex.getMessage(), LocalDateTime.now());
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
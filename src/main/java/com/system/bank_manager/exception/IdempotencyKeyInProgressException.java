@@ -0,0 +1,7 @@
+package com.system.bank_manager.exception;
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
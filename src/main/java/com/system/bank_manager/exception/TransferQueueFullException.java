@@ -0,0 +1,7 @@
+package com.system.bank_manager.exception;
+
+public class TransferQueueFullException extends RuntimeException {
+    public TransferQueueFullException(String message) {
+        super(message);
+    }
+}
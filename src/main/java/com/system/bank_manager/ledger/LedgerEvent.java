@@ -0,0 +1,51 @@
+package com.system.bank_manager.ledger;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Entrada del libro mayor. Los importes van en céntimos (Money.cents()).
+ * En TRANSFER, accountId es el origen y counterpartyId el destino; en el resto de
+ * tipos counterpartyId es 0.
+ *
+ * transactionId es el ID de la fila de transactions que genera el evento (en
+ * TRANSFER, la del origen) y 0 si no genera ninguna. counterTransactionId (la fila
+ * del destino en TRANSFER) y timestampNanos solo los usa el WAL de movimientos. El
+ * motor event sourcing anexa los movimientos antes de que su transacción confirme y,
+ * al arrancar, descarta los que tienen transactionId pero no fila.
+ */
+public record LedgerEvent(long sequence, Type type, long accountId, long counterpartyId, long amountCents,
+                          long transactionId, long counterTransactionId, long timestampNanos) {
+
+    // secuencia + tipo + cuenta + contraparte + importe + dos IDs de transacción + fecha
+    static final int SIZE = Long.BYTES + 1 + 6 * Long.BYTES;
+
+    public enum Type {
+        // Saldo de partida leído de la base de datos la primera vez que el motor usa la cuenta
+        OPENED,
+        DEPOSIT,
+        WITHDRAWAL,
+        TRANSFER,
+        // Ajuste con signo, sin validar fondos (compensación de un rollback)
+        ADJUSTMENT,
+        // La cuenta sale de la proyección y se volverá a leer de la base de datos
+        EVICTED
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putLong(sequence)
+                .put((byte) type.ordinal())
+                .putLong(accountId)
+                .putLong(counterpartyId)
+                .putLong(amountCents)
+                .putLong(transactionId)
+                .putLong(counterTransactionId)
+                .putLong(timestampNanos);
+    }
+
+    static LedgerEvent readFrom(ByteBuffer buffer) {
+        long sequence = buffer.getLong();
+        Type type = Type.values()[buffer.get()];
+        return new LedgerEvent(sequence, type, buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,424 @@
+package com.system.bank_manager.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Log de solo anexado repartido en segmentos de tamaño acotado. Cada segmento se
+ * llama como la secuencia de su primer evento y solo se escribe al final del último,
+ * así que anexar es siempre escritura secuencial.
+ *
+ * Cada registro es el CRC32 del evento seguido del evento. Un registro incompleto o
+ * con CRC inválido al final del último segmento es una escritura cortada por una
+ * caída: al abrir se trunca y el log sigue desde el último evento válido.
+ *
+ * Con fsync y ventana de group commit, append solo escribe y un hilo aparte hace un
+ * único fsync por ventana para todo lo anexado en ella; quien necesite el evento en
+ * disco espera con awaitDurable. Sin ventana, cada append hace su propio fsync. Si una
+ * escritura o un fsync falla, no se sabe qué llegó al disco: el log deja de aceptar
+ * eventos y se trunca a lo ya durable, así que lo que nadie vio confirmado tampoco
+ * reaparece al reabrir.
+ *
+ * Se usa ReentrantLock y no synchronized: el fsync bloquea y, con hilos virtuales,
+ * dentro de un synchronized retendría el hilo portador.
+ */
+public class LedgerLog implements AutoCloseable {
+
+    static final int RECORD_SIZE = Integer.BYTES + LedgerEvent.SIZE;
+
+    private static final String SUFFIX = ".log";
+    private static final int READ_BATCH_RECORDS = 4096;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final long groupCommitNanos;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final ReentrantLock lock = new ReentrantLock();
+    // El flusher espera anexos pendientes; quienes llaman a awaitDurable esperan el fsync
+    private final Condition appended = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    // Primera secuencia de cada segmento -> archivo
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private final Thread flusher;
+    private FileChannel active;
+    private long nextSequence;
+    private long durableSequence;
+    private IOException failure;
+    private boolean closed;
+
+    public LedgerLog(Path directory, long segmentBytes, boolean fsync) {
+        this(directory, segmentBytes, fsync, 0);
+    }
+
+    public LedgerLog(Path directory, long segmentBytes, boolean fsync, long groupCommitMicros) {
+        if (segmentBytes < RECORD_SIZE) {
+            throw new IllegalArgumentException("El tamaño de segmento debe admitir al menos un registro");
+        }
+        if (groupCommitMicros < 0) {
+            throw new IllegalArgumentException("La ventana de group commit no puede ser negativa");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                        .forEach(file -> segments.put(firstSequenceOf(file), file));
+            }
+            if (segments.isEmpty()) {
+                openSegment(1);
+            } else {
+                Map.Entry<Long, Path> last = segments.lastEntry();
+                active = FileChannel.open(last.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                long valid = countValidRecords(active, last.getKey());
+                active.truncate(valid * RECORD_SIZE);
+                active.position(valid * RECORD_SIZE);
+                nextSequence = last.getKey() + valid;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el libro mayor en " + directory, e);
+        }
+        // Lo que sobrevivió a la apertura ya está en disco
+        durableSequence = nextSequence - 1;
+
+        if (fsync && groupCommitNanos > 0) {
+            flusher = new Thread(this::flushLoop, "ledger-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    // Devuelve la secuencia asignada; con group commit el evento no es durable hasta awaitDurable
+    public long append(LedgerEvent.Type type, long accountId, long counterpartyId, long amountCents) {
+        return append(type, accountId, counterpartyId, amountCents, 0, 0, 0);
+    }
+
+    public long append(LedgerEvent.Type type, long accountId, long counterpartyId, long amountCents,
+                       long transactionId, long counterTransactionId, long timestampNanos) {
+        lock.lock();
+        try {
+            if (failure != null || closed) {
+                throw unavailable();
+            }
+            long sequence = nextSequence;
+            write(new LedgerEvent(sequence, type, accountId, counterpartyId, amountCents,
+                    transactionId, counterTransactionId, timestampNanos));
+            nextSequence++;
+            if (flusher == null) {
+                durableSequence = sequence;
+            } else {
+                appended.signal();
+            }
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Bloquea hasta que el evento con esa secuencia (y todos los anteriores) está en disco
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (failure != null || closed) {
+                    throw unavailable();
+                }
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Recorre en orden los eventos con secuencia mayor a afterSequence; devuelve cuántos entregó
+    public long replay(long afterSequence, Consumer<LedgerEvent> consumer) {
+        List<Path> files;
+        lock.lock();
+        try {
+            Long first = segments.floorKey(afterSequence + 1);
+            files = new ArrayList<>((first == null ? segments : segments.tailMap(first, true)).values());
+        } finally {
+            lock.unlock();
+        }
+        long delivered = 0;
+        ByteBuffer batch = ByteBuffer.allocate(RECORD_SIZE * READ_BATCH_RECORDS);
+        CRC32 readCrc = new CRC32();
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                batch.clear();
+                while (channel.read(batch) >= 0) {
+                    batch.flip();
+                    while (batch.remaining() >= RECORD_SIZE) {
+                        LedgerEvent event = readRecord(batch, readCrc);
+                        if (event == null) {
+                            throw new IllegalStateException("Registro corrupto en el libro mayor: " + file);
+                        }
+                        if (event.sequence() > afterSequence) {
+                            consumer.accept(event);
+                            delivered++;
+                        }
+                    }
+                    batch.compact();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el libro mayor: " + file, e);
+            }
+        }
+        return delivered;
+    }
+
+    // Borra los segmentos cuyos eventos ya están todos cubiertos por un snapshot hasta sequence
+    public void deleteSegmentsUpTo(long sequence) {
+        lock.lock();
+        try {
+            List<Long> firsts = new ArrayList<>(segments.keySet());
+            for (int i = 0; i + 1 < firsts.size() && firsts.get(i + 1) <= sequence + 1; i++) {
+                Path file = segments.remove(firsts.get(i));
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo borrar un segmento del libro mayor", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return nextSequence - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long durableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int segmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            if (failure == null) {
+                active.force(false);
+                durableSequence = nextSequence - 1;
+            }
+            active.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo cerrar el libro mayor", e);
+        } finally {
+            flushed.signalAll();
+            lock.unlock();
+        }
+    }
+
+    // Un fsync por ventana: lo que se anexe mientras se espera o se sincroniza sale en el siguiente
+    private void flushLoop() {
+        while (true) {
+            long target;
+            FileChannel channel;
+            lock.lock();
+            try {
+                while (!closed && durableSequence == nextSequence - 1) {
+                    appended.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            LockSupport.parkNanos(groupCommitNanos);
+
+            lock.lock();
+            try {
+                target = nextSequence - 1;
+                channel = active;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // Otro segmento tomó el relevo: roll ya sincronizó el anterior antes de cerrarlo
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    fence(e);
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            lock.lock();
+            try {
+                // Un fallo de escritura durante el fsync ya truncó lo que este fsync iba a confirmar
+                if (failure != null) {
+                    return;
+                }
+                durableSequence = Math.max(durableSequence, target);
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void write(LedgerEvent event) {
+        record.clear();
+        record.putInt(0);
+        event.writeTo(record);
+        crc.reset();
+        crc.update(record.array(), Integer.BYTES, LedgerEvent.SIZE);
+        record.putInt(0, (int) crc.getValue());
+        record.flip();
+
+        try {
+            if (active.position() + RECORD_SIZE > segmentBytes) {
+                roll(event.sequence());
+            }
+            while (record.hasRemaining()) {
+                active.write(record);
+            }
+            if (fsync && flusher == null) {
+                active.force(false);
+            }
+        } catch (IOException e) {
+            fence(e);
+            throw new UncheckedIOException("No se pudo escribir en el libro mayor", e);
+        }
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        active.force(false);
+        active.close();
+        if (fsync) {
+            durableSequence = firstSequence - 1;
+            flushed.signalAll();
+        }
+        openSegment(firstSequence);
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        active = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(firstSequence, file);
+        nextSequence = firstSequence;
+    }
+
+    // Se llama con el lock tomado. Lo no durable está siempre en el segmento activo: roll sincroniza el
+    // anterior antes de abrir uno nuevo
+    private void fence(IOException cause) {
+        failure = cause;
+        try {
+            long kept = Math.max(0, durableSequence + 1 - segments.lastKey());
+            active.truncate(kept * RECORD_SIZE);
+            active.force(false);
+        } catch (IOException ignored) {
+            // Si tampoco se puede truncar, al reabrir se conserva lo que llegó entero al disco
+        }
+        flushed.signalAll();
+    }
+
+    private IllegalStateException unavailable() {
+        return failure != null
+                ? new IllegalStateException("El libro mayor no acepta más eventos tras un fallo de escritura", failure)
+                : new IllegalStateException("El libro mayor está cerrado");
+    }
+
+    private static long countValidRecords(FileChannel channel, long firstSequence) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        CRC32 checksum = new CRC32();
+        long count = 0;
+        long position = 0;
+        while (true) {
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                // Fin del archivo antes de completar el registro: escritura cortada o final limpio
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    return count;
+                }
+            }
+            buffer.flip();
+            LedgerEvent event = readRecord(buffer, checksum);
+            if (event == null || event.sequence() != firstSequence + count) {
+                return count;
+            }
+            count++;
+            position += RECORD_SIZE;
+        }
+    }
+
+    // null si el CRC no coincide
+    private static LedgerEvent readRecord(ByteBuffer buffer, CRC32 checksum) {
+        int expected = buffer.getInt();
+        checksum.reset();
+        checksum.update(buffer.array(), buffer.arrayOffset() + buffer.position(), LedgerEvent.SIZE);
+        if ((int) checksum.getValue() != expected) {
+            buffer.position(buffer.position() + LedgerEvent.SIZE);
+            return null;
+        }
+        return LedgerEvent.readFrom(buffer);
+    }
+
+    private static long firstSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,175 @@
+package com.system.bank_manager.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshots de la proyección de saldos: la secuencia del último evento que incluyen,
+ * el saldo en céntimos de cada cuenta y los movimientos anteriores a esa secuencia
+ * cuya transacción aún no había terminado (no están en los saldos; al arrancar se
+ * decide con la base de datos si cuentan), con un CRC32 al final. Se escriben en un
+ * temporal que se relee y verifica antes de renombrarlo, así que un snapshot a medio
+ * escribir nunca reemplaza al anterior.
+ *
+ * Además del más reciente se conserva el anterior válido: si al arrancar el último
+ * aparece dañado, se usa ese, y los segmentos del log posteriores a él siguen ahí
+ * para reproducir la cola.
+ */
+public class LedgerSnapshotStore {
+
+    private static final String SUFFIX = ".snapshot";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+
+    public LedgerSnapshotStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el directorio de snapshots " + directory, e);
+        }
+    }
+
+    public record Snapshot(long sequence, Map<Long, Long> balances, List<LedgerEvent> pending) {}
+
+    // Devuelve la secuencia hasta la que se pueden borrar segmentos del log: la del snapshot anterior
+    // que se conserva, o 0 si no hay ninguno al que volver
+    public long write(long sequence, Map<Long, Long> balances, List<LedgerEvent> pending) {
+        Path target = directory.resolve(String.format("%020d%s", sequence, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                CRC32 crc = new CRC32();
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new CheckedOutputStream(Channels.newOutputStream(channel), crc)));
+                out.writeLong(sequence);
+                out.writeInt(balances.size());
+                for (Map.Entry<Long, Long> entry : balances.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+                out.writeInt(pending.size());
+                ByteBuffer record = ByteBuffer.allocate(LedgerEvent.SIZE);
+                for (LedgerEvent event : pending) {
+                    record.clear();
+                    event.writeTo(record);
+                    out.write(record.array());
+                }
+                out.flush();
+                out.writeInt((int) crc.getValue());
+                out.flush();
+                channel.force(true);
+            }
+            Optional<Snapshot> written = read(temp);
+            if (written.isEmpty() || !written.get().equals(new Snapshot(sequence, balances, pending))) {
+                Files.deleteIfExists(temp);
+                throw new IllegalStateException("El snapshot " + target + " no coincide con lo escrito al releerlo");
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            // Del resto solo sobrevive el anterior válido más reciente; los dañados y los más antiguos sobran
+            long previous = 0;
+            List<Path> files = snapshotFiles();
+            for (int i = files.size() - 1; i >= 0; i--) {
+                Path older = files.get(i);
+                if (older.compareTo(target) >= 0) {
+                    continue;
+                }
+                if (previous == 0) {
+                    Optional<Snapshot> snapshot = read(older);
+                    if (snapshot.isPresent()) {
+                        previous = snapshot.get().sequence();
+                        continue;
+                    }
+                }
+                Files.deleteIfExists(older);
+            }
+            return previous;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el snapshot " + target, e);
+        }
+    }
+
+    // El snapshot válido más reciente; uno dañado se ignora y se prueba con el anterior
+    public Optional<Snapshot> latest() {
+        try {
+            List<Path> files = snapshotFiles();
+            for (int i = files.size() - 1; i >= 0; i--) {
+                Optional<Snapshot> snapshot = read(files.get(i));
+                if (snapshot.isPresent()) {
+                    return snapshot;
+                }
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el directorio de snapshots " + directory, e);
+        }
+    }
+
+    private Optional<Snapshot> read(Path file) {
+        CRC32 crc = new CRC32();
+        try (InputStream stream = Files.newInputStream(file)) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(stream), crc));
+            long sequence = in.readLong();
+            int count = in.readInt();
+            if (count < 0) {
+                return Optional.empty();
+            }
+            Map<Long, Long> balances = new HashMap<>(Math.max(16, (int) (count / 0.75f) + 1));
+            for (int i = 0; i < count; i++) {
+                balances.put(in.readLong(), in.readLong());
+            }
+            int pendingCount = in.readInt();
+            if (pendingCount < 0) {
+                return Optional.empty();
+            }
+            List<byte[]> records = new ArrayList<>();
+            for (int i = 0; i < pendingCount; i++) {
+                byte[] record = new byte[LedgerEvent.SIZE];
+                in.readFully(record);
+                records.add(record);
+            }
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) {
+                return Optional.empty();
+            }
+            // Se decodifican después de validar el CRC: un tipo dañado no llega a leerse
+            List<LedgerEvent> pending = records.stream().map(record -> LedgerEvent.readFrom(ByteBuffer.wrap(record))).toList();
+            return Optional.of(new Snapshot(sequence, balances, pending));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private List<Path> snapshotFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparing(Path::getFileName))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.system.bank_manager.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métricas propias de la aplicación, publicadas en /actuator/prometheus junto a las
+ * que Spring Boot registra solo: consultas de repositorios Spring Data
+ * (spring.data.repository.invocations) y pool Hikari (hikaricp.connections.acquire
+ * es la espera por una conexión, que separa contención de base de datos de CPU).
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Latencia por método de los servicios anotados con @Timed (tags class y method)
+    public static final String SERVICE_TIMER = "bank.service";
+    // Excepciones atendidas por GlobalExceptionHandler (tag exception)
+    public static final String EXCEPTIONS_COUNTER = "bank.exceptions";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
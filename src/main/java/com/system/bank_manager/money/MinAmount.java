@@ -0,0 +1,27 @@
+package com.system.bank_manager.money;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.*;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+// Equivalente a @DecimalMin (inclusivo) para Money; null se considera válido, como en las anotaciones estándar
+@Documented
+@Constraint(validatedBy = MinAmountValidator.class)
+@Target({METHOD, FIELD, ANNOTATION_TYPE, CONSTRUCTOR, PARAMETER, TYPE_USE})
+@Retention(RUNTIME)
+public @interface MinAmount {
+
+    String value();
+
+    String message() default "El importe es menor al mínimo permitido";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
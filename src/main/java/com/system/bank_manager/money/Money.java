@@ -0,0 +1,87 @@
+package com.system.bank_manager.money;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+
+/**
+ * Importe monetario inmutable guardado como un long de céntimos. Las columnas de
+ * importes son DECIMAL(15, 2), así que cualquier valor válido cabe en un long y
+ * sumar, restar o comparar no reserva memoria más allá del propio objeto, a
+ * diferencia de BigDecimal.
+ *
+ * Toda operación comprueba que el resultado siga cabiendo en la columna; si no,
+ * lanza ArithmeticException en lugar de desbordar en silencio. En JSON se lee y se
+ * escribe como número decimal, igual que antes con BigDecimal.
+ */
+public record Money(long cents) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+
+    // DECIMAL(15, 2): 13 dígitos enteros y 2 decimales
+    public static final long MAX_CENTS = 999_999_999_999_999L;
+
+    public static final Money ZERO = new Money(0);
+
+    public Money {
+        if (cents > MAX_CENTS || cents < -MAX_CENTS) {
+            throw new ArithmeticException("El importe excede el máximo permitido");
+        }
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Money of(BigDecimal value) {
+        if (value.scale() > SCALE && value.stripTrailingZeros().scale() > SCALE) {
+            throw new IllegalArgumentException("El importe no puede tener más de " + SCALE + " decimales");
+        }
+        try {
+            return ofCents(value.movePointRight(SCALE).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("El importe excede el máximo permitido");
+        }
+    }
+
+    public static Money of(String value) {
+        return of(new BigDecimal(value));
+    }
+
+    public Money plus(Money other) {
+        return ofCents(cents + other.cents);
+    }
+
+    public Money minus(Money other) {
+        return ofCents(cents - other.cents);
+    }
+
+    public Money negate() {
+        return ofCents(-cents);
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return cents < other.cents;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,23 @@
+package com.system.bank_manager.persistence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdAllocationConfig {
+
+    // Pasa bank.id.block-size a Hibernate para que lo lea PooledSequenceGenerator
+    @Bean
+    public HibernatePropertiesCustomizer idBlockSizeCustomizer(@Value("${bank.id.block-size:50}") int blockSize) {
+        return properties -> properties.put(PooledSequenceGenerator.BLOCK_SIZE_SETTING, blockSize);
+    }
+
+    // La migración de secuencias tiene que correr antes de que Hibernate valide el esquema
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor idSequenceMigrationDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor(IdSequenceMigration.class);
+    }
+}
@@ -0,0 +1,60 @@
+package com.system.bank_manager.persistence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reparte IDs para inserciones JDBC que no pasan por Hibernate, con la misma
+ * semántica pooled que PooledSequenceGenerator: cada valor de la secuencia cubre
+ * un bloque completo, así que ambos caminos pueden compartir la secuencia sin
+ * repetir IDs y sin una consulta por fila.
+ */
+@Component
+public class IdBlockAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+    private final Map<String, long[]> ranges = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public IdBlockAllocator(JdbcTemplate jdbcTemplate, @Value("${bank.id.block-size:50}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+    }
+
+    public long[] allocate(String sequence, int count) {
+        long[] ids = new long[count];
+        lock.lock();
+        try {
+            // range[0] = próximo ID libre, range[1] = último ID del bloque
+            long[] range = ranges.computeIfAbsent(sequence, s -> new long[]{1, 0});
+            for (int i = 0; i < count; i++) {
+                if (range[0] > range[1]) {
+                    fetchBlock(sequence, range);
+                }
+                ids[i] = range[0]++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return ids;
+    }
+
+    private void fetchBlock(String sequence, long[] range) {
+        long hi = nextValue(sequence);
+        // Valor inicial de una secuencia recién creada: igual que el optimizador pooled, cubre un solo ID.
+        // Pedir otro valor aquí solaparía el bloque con el que Hibernate sacara entre las dos llamadas
+        long low = hi - blockSize + 1;
+        range[0] = low < 1 ? hi : low;
+        range[1] = hi;
+    }
+
+    private long nextValue(String sequence) {
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence, Long.class);
+    }
+}
@@ -0,0 +1,75 @@
+package com.system.bank_manager.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Prepara las secuencias de ID para una base que ya tiene datos creados con
+ * IDENTITY (por ejemplo ./data/mydatabase). Con el optimizador pooled, el valor
+ * que devuelve la secuencia es el límite superior del bloque, así que la
+ * secuencia debe arrancar en max(id) + tamaño de bloque para que el primer
+ * bloque empiece justo después del último ID existente.
+ *
+ * En una base vacía no hace nada: Hibernate crea tablas y secuencias.
+ */
+@Component
+public class IdSequenceMigration implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceMigration.class);
+
+    // Tabla -> secuencia que la alimenta
+    static final Map<String, String> SEQUENCES = Map.of(
+            "users", "users_seq",
+            "accounts", "accounts_seq",
+            "transactions", "transactions_seq"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+
+    public IdSequenceMigration(DataSource dataSource, @Value("${bank.id.block-size:50}") int blockSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        SEQUENCES.forEach(this::migrate);
+    }
+
+    private void migrate(String table, String sequence) {
+        if (!exists("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = CURRENT_SCHEMA AND UPPER(TABLE_NAME) = UPPER(?)", table)) {
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        long required = maxId + blockSize;
+
+        if (!exists("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = CURRENT_SCHEMA AND UPPER(SEQUENCE_NAME) = UPPER(?)", sequence)) {
+            jdbcTemplate.execute("CREATE SEQUENCE " + sequence + " START WITH " + required + " INCREMENT BY " + blockSize);
+            log.info("Secuencia {} creada a partir del ID {} de la tabla {}", sequence, maxId, table);
+            return;
+        }
+
+        Long next = jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = CURRENT_SCHEMA AND UPPER(SEQUENCE_NAME) = UPPER(?)",
+                Long.class, sequence);
+        if (next != null && next < required) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + required);
+            log.info("Secuencia {} adelantada hasta {} para no repetir IDs de {}", sequence, required, table);
+        }
+        // Si cambió el tamaño de bloque, el incremento de la secuencia tiene que acompañarlo
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + blockSize);
+    }
+
+    private boolean exists(String sql, String name) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, name);
+        return count != null && count > 0;
+    }
+}
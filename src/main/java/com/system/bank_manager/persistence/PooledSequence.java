@@ -0,0 +1,18 @@
+package com.system.bank_manager.persistence;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// ID tomado de una secuencia con asignación por bloques (optimizador pooled)
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledSequence {
+
+    // Nombre de la secuencia en la base de datos
+    String value();
+}
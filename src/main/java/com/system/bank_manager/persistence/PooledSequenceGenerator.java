@@ -0,0 +1,40 @@
+package com.system.bank_manager.persistence;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+
+/**
+ * Generador de secuencia cuyo tamaño de bloque sale de la configuración
+ * (bank.id.block-size) en lugar de quedar fijo en la anotación. A diferencia de
+ * IDENTITY, Hibernate conoce el ID antes del INSERT y puede agrupar inserciones
+ * en batches JDBC.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String BLOCK_SIZE_SETTING = "bank.id.block-size";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private final String sequenceName;
+
+    public PooledSequenceGenerator(PooledSequence config, Member member, CustomIdGeneratorCreationContext context) {
+        this.sequenceName = config.value();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        Object blockSize = serviceRegistry.requireService(ConfigurationService.class)
+                .getSettings()
+                .getOrDefault(BLOCK_SIZE_SETTING, DEFAULT_BLOCK_SIZE);
+        parameters.setProperty(SEQUENCE_PARAM, sequenceName);
+        parameters.setProperty(INCREMENT_PARAM, blockSize.toString());
+        parameters.setProperty(OPT_PARAM, "pooled");
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
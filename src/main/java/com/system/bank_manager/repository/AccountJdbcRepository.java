@@ -0,0 +1,72 @@
+package com.system.bank_manager.repository;
+
+import com.system.bank_manager.entity.Account;
+import com.system.bank_manager.money.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Operaciones sobre accounts que conviene enviar como batch JDBC en lugar de entidad por entidad
+@Repository
+public class AccountJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Actualizar saldos de varias cuentas en un solo batch
+    public void updateBalances(Map<Long, Money> balances) {
+        List<Object[]> args = new ArrayList<>(balances.size());
+        balances.forEach((id, balance) -> args.add(new Object[]{balance.toBigDecimal(), id}));
+        jdbcTemplate.batchUpdate("UPDATE accounts SET balance = ? WHERE id = ?", args);
+    }
+
+    // Sumar una variación con signo al saldo de varias cuentas en un solo batch
+    public void addToBalances(Map<Long, Money> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> args.add(new Object[]{delta.toBigDecimal(), id}));
+        jdbcTemplate.batchUpdate("UPDATE accounts SET balance = balance + ? WHERE id = ?", args);
+    }
+
+    // IDs de la lista que siguen teniendo cuenta, con una sola consulta IN
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM accounts WHERE id IN (" + placeholders + ")", Long.class, ids.toArray()));
+    }
+
+    // Recorrer todos los números de cuenta por bloques, sin tenerlos en memoria a la vez
+    public void forEachAccountNumber(Consumer<String> action) {
+        JdbcKeyQueries.scan(jdbcTemplate, "accounts", "account_number", action);
+    }
+
+    // Números de la lista que ya tienen cuenta
+    public Set<String> findExistingAccountNumbers(Collection<String> accountNumbers) {
+        return JdbcKeyQueries.existing(jdbcTemplate, "accounts", "account_number", accountNumbers);
+    }
+
+    // Inserción masiva con los IDs ya asignados; la cuenta solo aporta user.id para la FK
+    public void insertAll(List<Account> accounts) {
+        List<Object[]> args = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            args.add(new Object[]{account.getId(), account.getAccountNumber(), account.getBalance().toBigDecimal(),
+                    account.getUser().getId(), Timestamp.valueOf(account.getCreatedAt())});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO accounts (id, account_number, balance, user_id, created_at) VALUES (?, ?, ?, ?, ?)", args);
+    }
+}
@@ -1,10 +1,20 @@
 package com.system.bank_manager.repository;
 
+import com.system.bank_manager.dto.response.AccountResponseDTO;
 import com.system.bank_manager.entity.Account;
+import com.system.bank_manager.money.Money;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,4 +27,34 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
         boolean existsByAccountNumber(@NotBlank(message = "El número de cuenta es obligatorio") @Pattern(regexp = "^[0-9]{6,12}$", message = "El número de cuenta debe tener entre 6 y 12 dígitos numéricos"
         ) String s);
+
+    // Proyecciones de lectura: seleccionan directamente en el DTO, sin entidades gestionadas ni
+    // snapshots para dirty checking. user.id sale de la FK, sin join
+    String RESPONSE = "select new com.system.bank_manager.dto.response.AccountResponseDTO("
+            + "a.id, a.accountNumber, a.balance, a.user.id) from Account a ";
+
+    @Query(RESPONSE)
+    List<AccountResponseDTO> findAllResponses();
+
+    @Query(RESPONSE + "where a.id = :id")
+    Optional<AccountResponseDTO> findResponseById(@Param("id") Long id);
+
+    // Leer solo el saldo, sin cargar la entidad ni su usuario
+    default Optional<Money> findBalanceById(Long id) {
+        return findBalanceValueById(id).map(Money::of);
+    }
+
+    // Spring Data trataría Money como proyección DTO (select new Money(...)): se lee el decimal y se envuelve arriba
+    @Query("select cast(a.balance as BigDecimal) from Account a where a.id = :id")
+    Optional<BigDecimal> findBalanceValueById(@Param("id") Long id);
+
+    // Cargar y bloquear una cuenta hasta el fin de la transacción
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    // Cargar y bloquear varias cuentas en una sola consulta, siempre en el mismo orden
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id in :ids order by a.id")
+    List<Account> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 }
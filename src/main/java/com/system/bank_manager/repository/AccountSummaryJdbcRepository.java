@@ -0,0 +1,117 @@
+package com.system.bank_manager.repository;
+
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.money.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// Mantenimiento de account_summaries: sumas incrementales por batch y recálculo por tramos de cuentas
+@Repository
+public class AccountSummaryJdbcRepository {
+
+    // Suma una variación al resumen de la cuenta, o lo crea si es su primer movimiento
+    private static final String APPLY_SQL = """
+            MERGE INTO account_summaries s
+            USING (
+                SELECT CAST(? AS BIGINT) AS account_id,
+                       CAST(? AS DECIMAL(19, 2)) AS deposited,
+                       CAST(? AS DECIMAL(19, 2)) AS withdrawn,
+                       CAST(? AS BIGINT) AS tx_count,
+                       CAST(? AS TIMESTAMP) AS last_activity
+            ) d
+            ON (s.account_id = d.account_id)
+            WHEN MATCHED THEN UPDATE SET
+                total_deposited = s.total_deposited + d.deposited,
+                total_withdrawn = s.total_withdrawn + d.withdrawn,
+                transaction_count = s.transaction_count + d.tx_count,
+                last_activity = GREATEST(s.last_activity, d.last_activity)
+            WHEN NOT MATCHED THEN INSERT (account_id, total_deposited, total_withdrawn, transaction_count, last_activity)
+                VALUES (d.account_id, d.deposited, d.withdrawn, d.tx_count, d.last_activity)
+            """;
+
+    // Recalcula desde transactions los resúmenes de un tramo de cuentas, recorriendo el índice (account_id, date, id)
+    private static final String REBUILD_SQL = """
+            INSERT INTO account_summaries (account_id, total_deposited, total_withdrawn, transaction_count, last_activity)
+            SELECT account_id,
+                   SUM(CASE WHEN type IN ('DEPOSIT', 'DEPOSITO') THEN amount ELSE 0 END),
+                   SUM(CASE WHEN type IN ('WITHDRAWAL', 'RETIRO') THEN amount ELSE 0 END),
+                   COUNT(*),
+                   MAX(date)
+            FROM transactions
+            WHERE account_id BETWEEN ? AND ?
+            GROUP BY account_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountSummaryJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Una sentencia por cuenta tocada, en orden de ID para que dos transacciones no se interbloqueen
+    public void apply(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        Map<Long, Delta> deltas = new TreeMap<>();
+        for (Transaction transaction : transactions) {
+            deltas.computeIfAbsent(transaction.getAccount().getId(), id -> new Delta()).add(transaction);
+        }
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((accountId, delta) -> args.add(new Object[]{accountId,
+                BigDecimal.valueOf(delta.depositedCents, Money.SCALE), BigDecimal.valueOf(delta.withdrawnCents, Money.SCALE),
+                delta.count, Timestamp.valueOf(delta.lastActivity)}));
+        jdbcTemplate.batchUpdate(APPLY_SQL, args);
+    }
+
+    // Movimientos que recogen los resúmenes; coincide con las filas de transactions si están al día
+    public long countSummarized() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(transaction_count), 0) FROM account_summaries", Long.class);
+    }
+
+    public long countTransactions() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Long.class);
+    }
+
+    // Menor y mayor ID de cuenta, para repartir la reconstrucción en tramos
+    public Optional<long[]> accountIdRange() {
+        return jdbcTemplate.query("SELECT MIN(id), MAX(id) FROM accounts", resultSet -> {
+            resultSet.next();
+            long min = resultSet.getLong(1);
+            return resultSet.wasNull() ? Optional.empty() : Optional.of(new long[]{min, resultSet.getLong(2)});
+        });
+    }
+
+    // Sustituye los resúmenes de las cuentas [fromId, toId]; devuelve cuántas tienen movimientos
+    public int rebuildRange(long fromId, long toId) {
+        jdbcTemplate.update("DELETE FROM account_summaries WHERE account_id BETWEEN ? AND ?", fromId, toId);
+        return jdbcTemplate.update(REBUILD_SQL, fromId, toId);
+    }
+
+    private static final class Delta {
+        private long depositedCents;
+        private long withdrawnCents;
+        private long count;
+        private LocalDateTime lastActivity;
+
+        private void add(Transaction transaction) {
+            switch (transaction.getType()) {
+                case DEPOSIT, DEPOSITO -> depositedCents = Math.addExact(depositedCents, transaction.getAmount().cents());
+                case WITHDRAWAL, RETIRO -> withdrawnCents = Math.addExact(withdrawnCents, transaction.getAmount().cents());
+            }
+            count++;
+            if (lastActivity == null || transaction.getDate().isAfter(lastActivity)) {
+                lastActivity = transaction.getDate();
+            }
+        }
+    }
+}
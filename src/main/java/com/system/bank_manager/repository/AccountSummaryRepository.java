@@ -0,0 +1,20 @@
+package com.system.bank_manager.repository;
+
+import com.system.bank_manager.dto.response.AccountSummaryDTO;
+import com.system.bank_manager.entity.AccountSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AccountSummaryRepository extends JpaRepository<AccountSummary, Long> {
+
+    // Lectura por clave primaria, directamente al DTO
+    @Query("select new com.system.bank_manager.dto.response.AccountSummaryDTO("
+            + "s.accountId, s.totalDeposited, s.totalWithdrawn, s.transactionCount, s.lastActivity) "
+            + "from AccountSummary s where s.accountId = :accountId")
+    Optional<AccountSummaryDTO> findResponseById(@Param("accountId") Long accountId);
+}
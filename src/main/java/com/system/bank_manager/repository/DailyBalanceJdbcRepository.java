@@ -0,0 +1,44 @@
+package com.system.bank_manager.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+// Escritura masiva de snapshots diarios: una sola sentencia para todas las cuentas
+@Repository
+public class DailyBalanceJdbcRepository {
+
+    // El cierre de un día es el saldo actual menos lo movido desde el día siguiente,
+    // así se incluye el saldo inicial y los ajustes manuales que no generan transacciones
+    private static final String SNAPSHOT_SQL = """
+            MERGE INTO daily_balances d
+            USING (
+                SELECT a.id AS account_id,
+                       a.balance - COALESCE((
+                           SELECT SUM(CASE WHEN t.type IN ('DEPOSIT', 'DEPOSITO') THEN t.amount ELSE -t.amount END)
+                           FROM transactions t
+                           WHERE t.account_id = a.id AND t.date >= ?), 0) AS closing_balance
+                FROM accounts a
+            ) s
+            ON (d.account_id = s.account_id AND d.balance_date = ?)
+            WHEN MATCHED THEN UPDATE SET closing_balance = s.closing_balance
+            WHEN NOT MATCHED THEN INSERT (account_id, balance_date, closing_balance)
+                VALUES (s.account_id, ?, s.closing_balance)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DailyBalanceJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Guardar (o recalcular) el saldo de cierre del día indicado para todas las cuentas
+    public int snapshotClosingBalances(LocalDate day) {
+        Date balanceDate = Date.valueOf(day);
+        return jdbcTemplate.update(SNAPSHOT_SQL,
+                Timestamp.valueOf(day.plusDays(1).atStartOfDay()), balanceDate, balanceDate);
+    }
+}
@@ -0,0 +1,17 @@
+package com.system.bank_manager.repository;
+
+import com.system.bank_manager.entity.DailyBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface DailyBalanceRepository extends JpaRepository<DailyBalance, DailyBalance.Key> {
+    // Último snapshot en o antes del día dado
+    Optional<DailyBalance> findFirstByAccountIdAndBalanceDateLessThanEqualOrderByBalanceDateDesc(Long accountId, LocalDate day);
+
+    // Primer snapshot posterior al día dado
+    Optional<DailyBalance> findFirstByAccountIdAndBalanceDateGreaterThanOrderByBalanceDateAsc(Long accountId, LocalDate day);
+}
@@ -0,0 +1,41 @@
+package com.system.bank_manager.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Consultas sobre una columna de claves únicas (número de cuenta, DNI) compartidas por los repositorios JDBC
+final class JdbcKeyQueries {
+
+    // Filas por viaje al servidor en los recorridos completos
+    static final int SCAN_FETCH_SIZE = 1000;
+
+    private JdbcKeyQueries() {
+    }
+
+    // Recorrer la columna entera por bloques, sin tenerla en memoria a la vez
+    static void scan(JdbcTemplate jdbcTemplate, String table, String column, Consumer<String> action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT " + column + " FROM " + table);
+            statement.setFetchSize(SCAN_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> action.accept(resultSet.getString(1)));
+    }
+
+    // Cuáles de las claves ya existen, con una sola consulta IN
+    static Set<String> existing(JdbcTemplate jdbcTemplate, String table, String column, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(keys.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT " + column + " FROM " + table + " WHERE " + column + " IN (" + placeholders + ")",
+                String.class, keys.toArray()));
+    }
+}
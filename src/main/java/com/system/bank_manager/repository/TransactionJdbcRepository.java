@@ -0,0 +1,92 @@
+package com.system.bank_manager.repository;
+
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.persistence.IdBlockAllocator;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+// Inserción masiva de transacciones con batch JDBC, sin pasar por el contexto de persistencia
+@Repository
+public class TransactionJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdBlockAllocator idBlockAllocator;
+
+    public TransactionJdbcRepository(JdbcTemplate jdbcTemplate, IdBlockAllocator idBlockAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idBlockAllocator = idBlockAllocator;
+    }
+
+    public void batchInsert(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        assignIds(transactions);
+        insertAll(transactions);
+    }
+
+    // Asientos de transferencia: las patas llegan en pares (débito, abono) y cada par comparte
+    // entry_id, que es el ID de su débito. Todas las patas van en un único batch
+    public void batchInsertEntries(List<Transaction> legs) {
+        assignEntryIds(legs);
+        insertAll(legs);
+    }
+
+    // IDs y entry_id de las patas sin insertarlas, para quien necesita los IDs antes (el motor event
+    // sourcing los anexa con el movimiento); la inserción va después con insertAll
+    public void assignEntryIds(List<Transaction> legs) {
+        if (legs.size() % 2 != 0) {
+            throw new IllegalArgumentException("Las patas de un asiento deben ir en pares débito/abono");
+        }
+        if (legs.isEmpty()) {
+            return;
+        }
+        assignIds(legs);
+        for (int i = 0; i < legs.size(); i += 2) {
+            Long entryId = legs.get(i).getId();
+            legs.get(i).setEntryId(entryId);
+            legs.get(i + 1).setEntryId(entryId);
+        }
+    }
+
+    // Los IDs salen de la misma secuencia que usa Hibernate, reservados por bloques
+    private void assignIds(List<Transaction> transactions) {
+        long[] ids = idBlockAllocator.allocate("transactions_seq", transactions.size());
+        for (int i = 0; i < ids.length; i++) {
+            transactions.get(i).setId(ids[i]);
+        }
+    }
+
+    // Inserción con los IDs ya asignados (por ejemplo, los que trae el WAL de movimientos)
+    public void insertAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO transactions (id, amount, type, date, account_id, entry_id) VALUES (?, ?, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Transaction transaction = transactions.get(i);
+                        ps.setLong(1, transaction.getId());
+                        ps.setBigDecimal(2, transaction.getAmount().toBigDecimal());
+                        ps.setString(3, transaction.getType().name());
+                        ps.setTimestamp(4, Timestamp.valueOf(transaction.getDate()));
+                        ps.setLong(5, transaction.getAccount().getId());
+                        ps.setObject(6, transaction.getEntryId(), Types.BIGINT);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return transactions.size();
+                    }
+                });
+    }
+}
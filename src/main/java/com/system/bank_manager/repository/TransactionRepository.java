@@ -1,15 +1,129 @@
 package com.system.bank_manager.repository;
 
+import com.system.bank_manager.dto.response.TransactionResponseDTO;
 import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.money.Money;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+
+    // Filas por viaje al servidor en el recorrido de exportación
+    int EXPORT_FETCH_SIZE = 1000;
+
+    // Tipos que suman al saldo; el resto resta
+    String CREDIT_TYPES = "com.system.bank_manager.entity.Transaction.TransactionType.DEPOSIT, "
+            + "com.system.bank_manager.entity.Transaction.TransactionType.DEPOSITO";
+
+    // Importe como decimal de la columna, sin pasar por el conversor de Money
+    String AMOUNT = "cast(t.amount as BigDecimal)";
+
+    // Las lecturas que terminan en TransactionResponseDTO seleccionan directamente en el DTO: sin
+    // entidades gestionadas ni snapshots para dirty checking, y account.id sale de la FK, sin join
+    String RESPONSE = "select new com.system.bank_manager.dto.response.TransactionResponseDTO("
+            + "t.id, t.amount, t.type, t.date, t.account.id, t.entryId) from Transaction t ";
+
     // Buscar transacciones por cuenta
     List<Transaction> findByAccountId(Long accountId);
 
     // Buscar todas las transacciones de un tipo específico (ejemplo: todos los depósitos)
     List<Transaction> findByType(Transaction.TransactionType type);
+
+    @Query(RESPONSE + "where t.id = :id")
+    Optional<TransactionResponseDTO> findResponseById(@Param("id") Long id);
+
+    // De los IDs dados, los que tienen fila: el motor event sourcing lo consulta al reproducir su libro mayor
+    @Query("select t.id from Transaction t where t.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Las dos patas de un asiento, por el índice de entry_id; el débito tiene el ID menor
+    @Query(RESPONSE + "where t.entryId = :entryId order by t.id")
+    List<TransactionResponseDTO> findEntryLegs(@Param("entryId") Long entryId);
+
+    // Los listados solo seleccionan transactions. Una sola sentencia por página, sin joins ni consultas por fila
+
+    // Paginación por keyset sobre la clave primaria: siguiente página tras el id dado
+    @Query(RESPONSE + "where t.id > :id order by t.id")
+    List<TransactionResponseDTO> findPageAfterId(@Param("id") Long id, Limit limit);
+
+    // Las consultas por cuenta filtran y ordenan por t.account.id (la columna account_id, sin join) y
+    // ordenan por (account_id, date, id): así recorren el índice compuesto y no hace falta ordenar
+
+    // Primera página de una cuenta, recorriendo el índice (account_id, date, id)
+    @Query(RESPONSE + "where t.account.id = :accountId "
+            + "order by t.account.id asc, t.date asc, t.id asc")
+    List<TransactionResponseDTO> findPageByAccountId(@Param("accountId") Long accountId, Limit limit);
+
+    // Páginas siguientes de una cuenta: filas estrictamente posteriores a (date, id)
+    @Query(RESPONSE + "where t.account.id = :accountId "
+            + "and (t.date > :date or (t.date = :date and t.id > :id)) "
+            + "order by t.account.id asc, t.date asc, t.id asc")
+    List<TransactionResponseDTO> findByAccountIdAfter(@Param("accountId") Long accountId,
+                                                      @Param("date") LocalDateTime date,
+                                                      @Param("id") Long id,
+                                                      Limit limit);
+
+    // Movimientos de una cuenta en [from, to), en el orden del índice (account_id, date, id)
+    @Query(RESPONSE + "where t.account.id = :accountId "
+            + "and t.date >= :from and t.date < :to "
+            + "order by t.account.id asc, t.date asc, t.id asc")
+    List<TransactionResponseDTO> findStatementLines(@Param("accountId") Long accountId,
+                                                    @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to);
+
+    // Igual que la anterior pero solo de un tipo; el tipo se filtra sobre el rango del índice
+    @Query(RESPONSE + "where t.account.id = :accountId "
+            + "and t.date >= :from and t.date < :to and t.type = :type "
+            + "order by t.account.id asc, t.date asc, t.id asc")
+    List<TransactionResponseDTO> findStatementLinesByType(@Param("accountId") Long accountId,
+                                                          @Param("type") Transaction.TransactionType type,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to);
+
+    // Efecto neto sobre el saldo de los movimientos de una cuenta en [from, to)
+    default Money sumDeltas(Long accountId, LocalDateTime from, LocalDateTime to) {
+        return Money.of(sumDeltaValues(accountId, from, to));
+    }
+
+    // Efecto neto sobre el saldo de los movimientos de una cuenta desde from
+    default Money sumDeltasSince(Long accountId, LocalDateTime from) {
+        return Money.of(sumDeltaValuesSince(accountId, from));
+    }
+
+    // Las sumas se hacen sobre el decimal de la columna; Money solo envuelve el resultado
+    @Query("select coalesce(sum(case when t.type in (" + CREDIT_TYPES + ") then " + AMOUNT + " else -" + AMOUNT + " end), 0) "
+            + "from Transaction t where t.account.id = :accountId and t.date >= :from and t.date < :to")
+    BigDecimal sumDeltaValues(@Param("accountId") Long accountId,
+                              @Param("from") LocalDateTime from,
+                              @Param("to") LocalDateTime to);
+
+    @Query("select coalesce(sum(case when t.type in (" + CREDIT_TYPES + ") then " + AMOUNT + " else -" + AMOUNT + " end), 0) "
+            + "from Transaction t where t.account.id = :accountId and t.date >= :from")
+    BigDecimal sumDeltaValuesSince(@Param("accountId") Long accountId, @Param("from") LocalDateTime from);
+
+    // Recorrido completo para exportación: cursor del lado del servidor leído por bloques de EXPORT_FETCH_SIZE.
+    // Los filtros nulos no restringen; "to" es exclusivo para poder encadenar extracciones incrementales.
+    // Como proyección, las filas leídas no quedan en el contexto de persistencia
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query(RESPONSE
+            + "where (:accountId is null or t.account.id = :accountId) "
+            + "and (:from is null or t.date >= :from) "
+            + "and (:to is null or t.date < :to) "
+            + "order by t.id")
+    Stream<TransactionResponseDTO> streamForExport(@Param("accountId") Long accountId,
+                                                   @Param("from") LocalDateTime from,
+                                                   @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,41 @@
+package com.system.bank_manager.repository;
+
+import com.system.bank_manager.entity.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Operaciones sobre users que no necesitan la entidad gestionada
+@Repository
+public class UserJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Recorrer todos los DNIs por bloques, sin tenerlos en memoria a la vez
+    public void forEachDni(Consumer<String> action) {
+        JdbcKeyQueries.scan(jdbcTemplate, "users", "dni", action);
+    }
+
+    // DNIs de la lista que ya tienen usuario
+    public Set<String> findExistingDnis(Collection<String> dnis) {
+        return JdbcKeyQueries.existing(jdbcTemplate, "users", "dni", dnis);
+    }
+
+    // Inserción masiva con los IDs ya asignados
+    public void insertAll(List<User> users) {
+        List<Object[]> args = new ArrayList<>(users.size());
+        for (User user : users) {
+            args.add(new Object[]{user.getId(), user.getDni(), user.getName(), user.getEmail(), user.getPassword()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, dni, name, email, password) VALUES (?, ?, ?, ?, ?)", args);
+    }
+}
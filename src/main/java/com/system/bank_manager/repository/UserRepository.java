@@ -1,14 +1,31 @@
 package com.system.bank_manager.repository;
 
+import com.system.bank_manager.dto.response.UserResponseDTO;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.system.bank_manager.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByDni(String dni);
+
+    // Comprobar el DNI sin cargar la entidad
+    boolean existsByDni(String dni);
+
+    // Proyecciones de lectura: directamente al DTO, sin entidades gestionadas
+    String RESPONSE = "select new com.system.bank_manager.dto.response.UserResponseDTO("
+            + "u.id, u.dni, u.name, u.email) from User u ";
+
+    @Query(RESPONSE)
+    List<UserResponseDTO> findAllResponses();
+
+    @Query(RESPONSE + "where u.id = :id")
+    Optional<UserResponseDTO> findResponseById(@Param("id") Long id);
 }
 
 
@@ -0,0 +1,9 @@
+package com.system.bank_manager.repository;
+
+import com.system.bank_manager.entity.WalRejectedEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WalRejectedEntryRepository extends JpaRepository<WalRejectedEntry, Long> {
+}
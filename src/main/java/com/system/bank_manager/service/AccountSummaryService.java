@@ -0,0 +1,13 @@
+package com.system.bank_manager.service;
+
+import com.system.bank_manager.dto.response.AccountSummaryDTO;
+import com.system.bank_manager.dto.response.SummaryRebuildDTO;
+
+public interface AccountSummaryService {
+
+    // Totales de la cuenta con una lectura por clave primaria
+    AccountSummaryDTO getSummary(Long accountId);
+
+    // Recalcula todos los resúmenes desde la tabla transactions, por tramos de cuentas en paralelo
+    SummaryRebuildDTO rebuildAll();
+}
@@ -0,0 +1,12 @@
+package com.system.bank_manager.service;
+
+import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.dto.response.TransferStatusDTO;
+
+public interface AsyncTransferService {
+
+    // Encola la transferencia y devuelve su estado inicial (PENDING) con el ID para consultarla
+    TransferStatusDTO submit(TransferRequestDTO request);
+
+    TransferStatusDTO getStatus(String transferId);
+}
@@ -0,0 +1,9 @@
+package com.system.bank_manager.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface BalanceStreamService {
+
+    // Emisor SSE con el saldo actual de la cuenta y un evento por cada cambio confirmado
+    SseEmitter subscribe(Long accountId);
+}
@@ -0,0 +1,9 @@
+package com.system.bank_manager.service;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    // Ejecuta la operación una sola vez por clave; los reintentos reciben la respuesta original
+    <T> T execute(String key, String request, Class<T> responseType, Supplier<T> operation);
+}
@@ -0,0 +1,19 @@
+package com.system.bank_manager.service;
+
+import com.system.bank_manager.dto.response.ImportSummaryDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+
+public interface OnboardingService {
+
+    // Columnas obligatorias del CSV de alta, en cualquier orden
+    String[] COLUMNS = {"dni", "name", "email", "password", "accountNumber", "balance"};
+
+    // Lanza IllegalArgumentException si a la cabecera le falta alguna columna
+    void checkHeader(String header);
+
+    // Da de alta un usuario con su cuenta por fila, por bloques, y escribe en report una línea CSV por fila rechazada
+    ImportSummaryDTO importCsv(String header, BufferedReader rows, Writer report) throws IOException;
+}
@@ -0,0 +1,12 @@
+package com.system.bank_manager.service;
+
+import com.system.bank_manager.dto.response.AccountStatementDTO;
+import com.system.bank_manager.entity.Transaction;
+
+import java.time.LocalDate;
+
+public interface StatementService {
+
+    // type es opcional: filtra los movimientos listados, no los saldos
+    AccountStatementDTO getStatement(Long accountId, LocalDate from, LocalDate to, Transaction.TransactionType type);
+}
@@ -0,0 +1,11 @@
+package com.system.bank_manager.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface TransactionExportService {
+
+    // Escribe las transacciones como NDJSON (un objeto JSON por línea) a medida que se leen
+    void exportNdjson(Long accountId, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException;
+}
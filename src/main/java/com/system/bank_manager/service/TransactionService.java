@@ -2,14 +2,19 @@ package com.system.bank_manager.service;
 
 import com.system.bank_manager.dto.request.TransactionRequestDTO;
 import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.dto.response.JournalEntryDTO;
+import com.system.bank_manager.dto.response.TransactionPageDTO;
 import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.dto.response.TransferResultDTO;
 import java.util.List;
 
 public interface TransactionService {
 
     void transferBetweenAccounts(TransferRequestDTO request);
+    List<TransferResultDTO> transferBatch(List<TransferRequestDTO> requests);
     TransactionResponseDTO createTransaction(Long accountId, com.system.bank_manager.dto.request.TransactionRequestDTO request);
-    List<TransactionResponseDTO> getAllTransactions();
+    TransactionPageDTO getAllTransactions(String after, int limit);
     TransactionResponseDTO getTransactionById(Long id);
-    List<TransactionResponseDTO> getTransactionsByAccountId(Long accountId);
+    TransactionPageDTO getTransactionsByAccountId(Long accountId, String after, int limit);
+    JournalEntryDTO getJournalEntry(Long entryId);
 }
\ No newline at end of file
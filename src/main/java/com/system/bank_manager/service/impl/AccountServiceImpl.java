@@ -1,37 +1,70 @@
 package com.system.bank_manager.service.impl;
 
+import com.system.bank_manager.cache.CacheConfig;
 import com.system.bank_manager.dto.request.AccountRequestDTO;
 import com.system.bank_manager.dto.response.AccountResponseDTO;
+import com.system.bank_manager.engine.BalanceEngine;
 import com.system.bank_manager.entity.Account;
 import com.system.bank_manager.entity.Transaction;
 import com.system.bank_manager.entity.User;
+import com.system.bank_manager.event.AccountsDeletedEvent;
+import com.system.bank_manager.event.BalanceChangedEvent;
 import com.system.bank_manager.exception.DuplicateAccountException;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountJdbcRepository;
 import com.system.bank_manager.repository.AccountRepository;
 import com.system.bank_manager.repository.TransactionRepository;
 import com.system.bank_manager.repository.UserRepository;
 import com.system.bank_manager.service.AccountService;
+import com.system.bank_manager.uniqueness.UniqueKeyFilter;
+import com.system.bank_manager.wal.TransactionWal;
+import com.system.bank_manager.metrics.MetricsConfig;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
-
-    public AccountServiceImpl(AccountRepository accountRepository, TransactionRepository transactionRepository,UserRepository userRepository) {
+    private final BalanceEngine balanceEngine;
+    private final UniqueKeyFilter uniqueKeyFilter;
+    private final AccountJdbcRepository accountJdbcRepository;
+    private final TransactionWal transactionWal;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AccountServiceImpl(AccountRepository accountRepository, TransactionRepository transactionRepository,UserRepository userRepository,
+                              BalanceEngine balanceEngine, UniqueKeyFilter uniqueKeyFilter,
+                              AccountJdbcRepository accountJdbcRepository, TransactionWal transactionWal,
+                              ApplicationEventPublisher eventPublisher) {
         this.accountRepository = accountRepository;
         this.userRepository = userRepository;
+        this.balanceEngine = balanceEngine;
+        this.uniqueKeyFilter = uniqueKeyFilter;
+        this.accountJdbcRepository = accountJdbcRepository;
+        this.transactionWal = transactionWal;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public AccountResponseDTO createAccount(AccountRequestDTO request) {
-        if (accountRepository.existsByAccountNumber(request.accountNumber())) {
+        // Si el filtro descarta el número no hace falta consultar la base
+        if (uniqueKeyFilter.mightExist(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER, request.accountNumber())
+                && accountRepository.existsByAccountNumber(request.accountNumber())) {
             throw new DuplicateAccountException("Ya existe una cuenta con este número: " + request.accountNumber());
         }
 
@@ -44,53 +77,106 @@ public class AccountServiceImpl implements AccountService {
         account.setBalance(request.balance());
         account.setUser(user);
 
-        Account saved = accountRepository.save(account);
+        Account saved;
+        try {
+            saved = accountRepository.save(account);
+        } catch (DataIntegrityViolationException e) {
+            // La restricción única respalda al filtro y a la comprobación previa frente a altas concurrentes
+            throw new DuplicateAccountException("Ya existe una cuenta con este número: " + request.accountNumber());
+        }
+        uniqueKeyFilter.added(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER, saved.getAccountNumber());
         return mapToResponseDTO(saved);
     }
 
+    // La fila queda bloqueada hasta confirmar: ningún movimiento escribe su saldo mientras se edita
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ACCOUNTS, key = "#id")
     public AccountResponseDTO updateAccount(Long id, AccountRequestDTO request) {
-        Account account = accountRepository.findById(id)
+        Account account = accountRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Cuenta no encontrada con id: " + id));
 
-
+        String previousNumber = account.getAccountNumber();
         account.setAccountNumber(request.accountNumber());
-        account.setBalance(request.balance());
+        if (!balanceEngine.isEnabled()) {
+            account.setBalance(request.balance());
+        }
 
         User user = userRepository.findById(request.userId())
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + request.userId()));
         account.setUser(user);
 
         Account updated = accountRepository.save(account);
+        // Un cambio de número es un alta del nuevo y una baja del anterior
+        if (!updated.getAccountNumber().equals(previousNumber)) {
+            uniqueKeyFilter.added(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER, updated.getAccountNumber());
+            uniqueKeyFilter.removed(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER);
+        }
+        if (balanceEngine.isEnabled()) {
+            // El saldo editado entra por el motor, con el mismo lock que los movimientos: ninguno se
+            // pierde, y la escritura diferida lo lleva a la tabla después de cualquier volcado en curso.
+            // El flush va antes para que un error de la entidad no deje el motor cambiado
+            accountRepository.flush();
+            Money previous = balanceEngine.replace(id, request.balance());
+            if (transactionWal.isEnabled()) {
+                // En modo WAL la tabla va por detrás del motor en lo que falta aplicar: la edición
+                // entra como variación, que se suma sin pisar esos movimientos pendientes
+                accountJdbcRepository.addToBalances(Map.of(id, request.balance().minus(previous)));
+            }
+        }
+        // El saldo editado llega al stream como cualquier movimiento, al confirmar
+        eventPublisher.publishEvent(new BalanceChangedEvent(Set.of(id)));
         return mapToResponseDTO(updated);
     }
 
+    // Las lecturas seleccionan directamente en el DTO; readOnly deja la sesión sin flush
     @Override
+    @Transactional(readOnly = true)
     public List<AccountResponseDTO> getAllAccounts() {
-        return accountRepository.findAll().stream()
-                .map(this::mapToResponseDTO)
+        return accountRepository.findAllResponses().stream()
+                .map(this::withCurrentBalance)
                 .collect(Collectors.toList());
     }
 
+    // sync: una sola carga por clave; una invalidación concurrente espera a que termine y la descarta
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.ACCOUNTS, key = "#id", sync = true)
     public AccountResponseDTO getAccountById(Long id) {
-        Account account = accountRepository.findById(id)
+        return accountRepository.findResponseById(id)
+                .map(this::withCurrentBalance)
                 .orElseThrow(() -> new EntityNotFoundException(("Cuenta no encontrada con ID: " + id)));
-        return mapToResponseDTO(account);
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ACCOUNTS, key = "#id")
     public void deleteAccount(Long id) {
-        accountRepository.deleteById(id);
+        // Los movimientos aún pendientes en el WAL se aplican antes de que la cuenta desaparezca
+        transactionWal.applyPending();
+        // El filtro solo cuenta las bajas que borraron una fila
+        accountRepository.findById(id).ifPresent(account -> {
+            accountRepository.delete(account);
+            uniqueKeyFilter.removed(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER);
+        });
+        // El saldo en memoria se descarta cuando la baja confirma
+        eventPublisher.publishEvent(new AccountsDeletedEvent(Set.of(id)));
     }
 
     // Metodo auxiliar para mapear Account a AccountResponseDTO
+    // Con el motor en memoria activo, su saldo es más reciente que el de la tabla
    private AccountResponseDTO mapToResponseDTO(Account account) {
        return new AccountResponseDTO(
            account.getId(),
            account.getAccountNumber(),
-           account.getBalance(),
+           balanceEngine.currentBalance(account.getId()).orElse(account.getBalance()),
            account.getUser().getId()
        );
    }
+
+    private AccountResponseDTO withCurrentBalance(AccountResponseDTO account) {
+        return balanceEngine.currentBalance(account.id())
+                .map(balance -> new AccountResponseDTO(account.id(), account.accountNumber(), balance, account.userId()))
+                .orElse(account);
+    }
 }
\ No newline at end of file
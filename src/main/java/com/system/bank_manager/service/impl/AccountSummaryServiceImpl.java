@@ -0,0 +1,148 @@
+package com.system.bank_manager.service.impl;
+
+import com.system.bank_manager.dto.response.AccountSummaryDTO;
+import com.system.bank_manager.dto.response.SummaryRebuildDTO;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountRepository;
+import com.system.bank_manager.repository.AccountSummaryJdbcRepository;
+import com.system.bank_manager.repository.AccountSummaryRepository;
+import com.system.bank_manager.service.AccountSummaryService;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumen de movimientos por cuenta (depositado, retirado, número de movimientos y última
+ * actividad). TransactionServiceImpl y el WAL lo actualizan en la misma transacción que
+ * insertan las filas de transactions, así que leerlo es una consulta por clave primaria
+ * en lugar de recorrer la historia de la cuenta.
+ *
+ * La reconstrucción reparte las cuentas en tramos de ID y recalcula cada tramo en su
+ * propia transacción. Pensada para reparar o inicializar la tabla: los movimientos que se
+ * confirmen sobre un tramo mientras se recalcula pueden quedar contados dos veces o
+ * ninguna, así que conviene lanzarla sin tráfico de escritura.
+ *
+ * Por eso solo se lanza al arrancar, antes de atender peticiones: sola si los resúmenes
+ * no recogen todos los movimientos (en una base que ya tenía transactions cuando apareció
+ * la tabla, el primer movimiento nuevo crearía un resumen con solo ese movimiento), o
+ * siempre con bank.summaries.rebuild-on-startup=true para reparar importes. No hay
+ * endpoint que la lance con tráfico.
+ */
+@Service
+public class AccountSummaryServiceImpl implements AccountSummaryService, InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountSummaryServiceImpl.class);
+    // Más tramos que hilos: un tramo con cuentas muy activas no deja a los demás hilos parados
+    private static final int SLICES_PER_THREAD = 4;
+
+    private final AccountSummaryRepository accountSummaryRepository;
+    private final AccountSummaryJdbcRepository accountSummaryJdbcRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildThreads;
+    private final boolean rebuildOnStartup;
+
+    public AccountSummaryServiceImpl(AccountSummaryRepository accountSummaryRepository,
+                                     AccountSummaryJdbcRepository accountSummaryJdbcRepository,
+                                     AccountRepository accountRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${bank.summaries.rebuild-threads:4}") int rebuildThreads,
+                                     @Value("${bank.summaries.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        if (rebuildThreads < 1) {
+            throw new IllegalArgumentException("La reconstrucción necesita al menos un hilo");
+        }
+        this.accountSummaryRepository = accountSummaryRepository;
+        this.accountSummaryJdbcRepository = accountSummaryJdbcRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildThreads = rebuildThreads;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (rebuildOnStartup) {
+            rebuildAll();
+        } else {
+            backfillIfIncomplete();
+        }
+    }
+
+    // Reconstruye si el total de movimientos resumidos no cuadra con transactions; true si lo hizo
+    public boolean backfillIfIncomplete() {
+        long transactions = accountSummaryJdbcRepository.countTransactions();
+        long summarized = accountSummaryJdbcRepository.countSummarized();
+        if (transactions == summarized) {
+            return false;
+        }
+        log.info("Los resúmenes de cuenta recogen {} de {} movimientos: se reconstruyen", summarized, transactions);
+        rebuildAll();
+        return true;
+    }
+
+    // Una cuenta sin movimientos no tiene fila: solo entonces se comprueba que exista
+    @Override
+    @Transactional(readOnly = true)
+    public AccountSummaryDTO getSummary(Long accountId) {
+        return accountSummaryRepository.findResponseById(accountId).orElseGet(() -> {
+            if (!accountRepository.existsById(accountId)) {
+                throw new EntityNotFoundException("Cuenta no encontrada con ID: " + accountId);
+            }
+            return new AccountSummaryDTO(accountId, Money.ZERO, Money.ZERO, 0, null);
+        });
+    }
+
+    @Override
+    public SummaryRebuildDTO rebuildAll() {
+        long started = System.nanoTime();
+        Optional<long[]> range = accountSummaryJdbcRepository.accountIdRange();
+        if (range.isEmpty()) {
+            return new SummaryRebuildDTO(0, 0, 0);
+        }
+        long minId = range.get()[0];
+        long span = range.get()[1] - minId + 1;
+        int slices = (int) Math.min(span, (long) rebuildThreads * SLICES_PER_THREAD);
+        long step = (span + slices - 1) / slices;
+
+        long accounts = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>(slices);
+            for (long from = minId; from < minId + span; from += step) {
+                long fromId = from;
+                long toId = Math.min(from + step, minId + span) - 1;
+                results.add(executor.submit(() -> transactionTemplate.execute(
+                        status -> accountSummaryJdbcRepository.rebuildRange(fromId, toId))));
+            }
+            for (Future<Integer> result : results) {
+                accounts += result.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconstrucción de resúmenes interrumpida", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Resúmenes de cuenta reconstruidos: {} cuentas con movimientos, {} tramos en {} ms", accounts, slices, elapsedMs);
+        return new SummaryRebuildDTO(accounts, slices, elapsedMs);
+    }
+}
@@ -0,0 +1,166 @@
+package com.system.bank_manager.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.dto.response.TransferResultDTO;
+import com.system.bank_manager.dto.response.TransferStatusDTO;
+import com.system.bank_manager.exception.TransferQueueFullException;
+import com.system.bank_manager.service.AsyncTransferService;
+import com.system.bank_manager.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Transferencias asíncronas: la petición se encola en una cola acotada y se responde
+ * enseguida. Unos pocos hilos vacían la cola en micro-lotes, cada uno aplicado con
+ * transferBatch (una transacción, bloqueo de cuentas en una consulta y un batch JDBC).
+ * Si la cola está llena se rechaza la petición en lugar de crecer sin límite.
+ *
+ * El estado de cada transferencia vive en memoria (Caffeine, con TTL) y se pierde al
+ * reiniciar; lo que ya se confirmó queda registrado en transactions.
+ */
+@Service
+public class AsyncTransferServiceImpl implements AsyncTransferService {
+
+    private static final long MAX_TRACKED_TRANSFERS = 1_000_000;
+    private static final Duration STATUS_RETENTION = Duration.ofHours(1);
+    private static final long POLL_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final Cache<String, TransferStatusDTO> statuses = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_TRANSFERS)
+            .expireAfterWrite(STATUS_RETENTION)
+            .build();
+
+    private final TransactionService transactionService;
+    private final BlockingQueue<QueuedTransfer> queue;
+    private final int batchSize;
+    private final List<Thread> workers = new ArrayList<>();
+    // Encolar (lectura) y apagar (escritura) se excluyen: tras el apagado no entra nada que los workers no vayan a ver
+    private final ReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    public AsyncTransferServiceImpl(
+            TransactionService transactionService,
+            MeterRegistry meterRegistry,
+            @Value("${bank.transfers.async.queue-capacity:10000}") int queueCapacity,
+            @Value("${bank.transfers.async.workers:2}") int workerCount,
+            @Value("${bank.transfers.async.batch-size:500}") int batchSize) {
+        if (queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("La capacidad de la cola y el tamaño de lote deben ser mayores a 0");
+        }
+        this.transactionService = transactionService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        meterRegistry.gaugeCollectionSize("bank.transfers.queue", Tags.empty(), queue);
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::drain, "transfer-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @Override
+    public TransferStatusDTO submit(TransferRequestDTO request) {
+        if (request.fromAccountId().equals(request.toAccountId())) {
+            throw new IllegalArgumentException("No puedes transferir dinero a la misma cuenta");
+        }
+        String transferId = UUID.randomUUID().toString();
+        TransferStatusDTO pending = new TransferStatusDTO(transferId, TransferStatusDTO.Status.PENDING, null);
+        shutdownLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new TransferQueueFullException("El servicio se está apagando, reintente más tarde");
+            }
+            // Se registra antes de encolar para que el resultado del worker nunca quede pisado por PENDING
+            statuses.put(transferId, pending);
+            if (!queue.offer(new QueuedTransfer(transferId, request))) {
+                statuses.invalidate(transferId);
+                throw new TransferQueueFullException("La cola de transferencias está llena, reintente más tarde");
+            }
+            return pending;
+        } finally {
+            shutdownLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TransferStatusDTO getStatus(String transferId) {
+        TransferStatusDTO status = statuses.getIfPresent(transferId);
+        if (status == null) {
+            throw new EntityNotFoundException("Transferencia no encontrada con ID: " + transferId);
+        }
+        return status;
+    }
+
+    // Al apagar se deja de esperar trabajo nuevo, pero lo ya encolado se procesa antes de salir
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        shutdownLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+        for (Thread worker : workers) {
+            worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+    }
+
+    private void drain() {
+        List<QueuedTransfer> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedTransfer first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<QueuedTransfer> batch) {
+        List<TransferRequestDTO> requests = batch.stream().map(QueuedTransfer::request).toList();
+        try {
+            for (TransferResultDTO result : transactionService.transferBatch(requests)) {
+                QueuedTransfer transfer = batch.get(result.index());
+                TransferStatusDTO.Status status = result.success()
+                        ? TransferStatusDTO.Status.COMPLETED
+                        : TransferStatusDTO.Status.REJECTED;
+                statuses.put(transfer.id(), new TransferStatusDTO(transfer.id(), status, result.message()));
+            }
+        } catch (RuntimeException e) {
+            // El lote se revirtió entero (por ejemplo, un error de base de datos): ninguna se aplicó
+            for (QueuedTransfer transfer : batch) {
+                statuses.put(transfer.id(),
+                        new TransferStatusDTO(transfer.id(), TransferStatusDTO.Status.FAILED, e.getMessage()));
+            }
+        }
+    }
+
+    private record QueuedTransfer(String id, TransferRequestDTO request) {}
+}
@@ -0,0 +1,43 @@
+package com.system.bank_manager.service.impl;
+
+import com.system.bank_manager.repository.AccountRepository;
+import com.system.bank_manager.service.BalanceStreamService;
+import com.system.bank_manager.stream.BalanceStreamBus;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Suscripciones SSE al saldo de una cuenta. El emisor usa el timeout de las peticiones
+ * asíncronas (spring.mvc.async.request-timeout); al vencer, el EventSource del navegador
+ * reconecta solo y vuelve a recibir el saldo actual como primer evento.
+ */
+@Service
+public class BalanceStreamServiceImpl implements BalanceStreamService {
+
+    public static final String EVENT_NAME = "balance";
+
+    private final BalanceStreamBus balanceStreamBus;
+    private final AccountRepository accountRepository;
+
+    public BalanceStreamServiceImpl(BalanceStreamBus balanceStreamBus, AccountRepository accountRepository) {
+        this.balanceStreamBus = balanceStreamBus;
+        this.accountRepository = accountRepository;
+    }
+
+    @Override
+    public SseEmitter subscribe(Long accountId) {
+        // Se comprueba antes de abrir el stream, cuando aún se puede responder 404
+        if (!accountRepository.existsById(accountId)) {
+            throw new EntityNotFoundException("Cuenta no encontrada con ID: " + accountId);
+        }
+        SseEmitter emitter = new SseEmitter();
+        BalanceStreamBus.Subscription subscription = balanceStreamBus.subscribe(accountId,
+                update -> emitter.send(SseEmitter.event().name(EVENT_NAME).data(update, MediaType.APPLICATION_JSON)));
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return emitter;
+    }
+}
@@ -0,0 +1,148 @@
+package com.system.bank_manager.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lector de registros CSV (RFC 4180): campos entre comillas con comas, comillas dobladas o saltos de línea
+final class CsvRecordReader {
+
+    // Tope de caracteres por registro: unas comillas sin cerrar no pueden arrastrar el resto del fichero a memoria
+    static final int MAX_RECORD_CHARS = 8 * 1024;
+
+    private final BufferedReader reader;
+    private final int maxRecordChars;
+    private final StringBuilder lineBuffer = new StringBuilder();
+    private int line;
+    private int recordLine;
+    private int remaining;
+
+    // firstLine: número de la primera línea que se va a leer, para el informe de errores
+    CsvRecordReader(BufferedReader reader, int firstLine) {
+        this(reader, firstLine, MAX_RECORD_CHARS);
+    }
+
+    CsvRecordReader(BufferedReader reader, int firstLine, int maxRecordChars) {
+        this.reader = reader;
+        this.line = firstLine - 1;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    // Siguiente registro no vacío, o null al final del fichero. Un registro que supera el tope se
+    // descarta hasta el siguiente salto de línea y se lanza RecordTooLongException; se puede seguir leyendo
+    List<String> next() throws IOException {
+        String text;
+        do {
+            recordLine = line + 1;
+            remaining = maxRecordChars;
+            text = readLine();
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == text.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // Salto de línea dentro de un campo entre comillas
+                String continuation = readLine();
+                if (continuation == null) {
+                    throw new IllegalArgumentException("Comillas sin cerrar en la línea " + recordLine);
+                }
+                field.append('\n');
+                text = continuation;
+                i = 0;
+                continue;
+            }
+            char c = text.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < text.length() && text.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Una línea física, descontada del presupuesto del registro; null al final del fichero
+    private String readLine() throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        lineBuffer.setLength(0);
+        while (c >= 0 && c != '\n' && c != '\r') {
+            if (lineBuffer.length() == remaining) {
+                skipLine();
+                throw new RecordTooLongException("El registro de la línea " + recordLine
+                        + " supera el máximo de " + maxRecordChars + " caracteres");
+            }
+            lineBuffer.append((char) c);
+            c = reader.read();
+        }
+        endOfLine(c);
+        remaining -= lineBuffer.length();
+        return lineBuffer.toString();
+    }
+
+    // Descarta el resto de la línea física sin guardarla
+    private void skipLine() throws IOException {
+        int c = reader.read();
+        while (c >= 0 && c != '\n' && c != '\r') {
+            c = reader.read();
+        }
+        endOfLine(c);
+    }
+
+    // Igual que readLine de BufferedReader: \n, \r o \r\n terminan la línea
+    private void endOfLine(int terminator) throws IOException {
+        if (terminator == '\r') {
+            reader.mark(1);
+            if (reader.read() != '\n') {
+                reader.reset();
+            }
+        }
+        line++;
+    }
+
+    // Línea en la que empieza el último registro leído
+    int recordLine() {
+        return recordLine;
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    static final class RecordTooLongException extends IllegalArgumentException {
+        RecordTooLongException(String message) {
+            super(message);
+        }
+    }
+}
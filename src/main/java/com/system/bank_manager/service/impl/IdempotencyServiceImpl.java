@@ -0,0 +1,180 @@
+package com.system.bank_manager.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.system.bank_manager.entity.IdempotencyKey;
+import com.system.bank_manager.exception.IdempotencyKeyInProgressException;
+import com.system.bank_manager.exception.IdempotencyKeyReuseException;
+import com.system.bank_manager.repository.IdempotencyKeyRepository;
+import com.system.bank_manager.service.IdempotencyService;
+import com.system.bank_manager.wal.TransactionWal;
+import jakarta.persistence.EntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicación por Idempotency-Key en dos niveles:
+ *
+ *  - Memoria (Caffeine, acotada por tamaño y TTL): un reintento reciente se
+ *    resuelve sin ir a la base de datos.
+ *  - Tabla idempotency_keys: la clave se inserta en la misma transacción que el
+ *    movimiento de dinero. Una clave nueva no necesita consulta previa; si ya
+ *    existía (reinicio, o expulsada de memoria) la clave primaria rechaza el
+ *    commit, todo se revierte y se devuelve la respuesta guardada.
+ *
+ * En modo WAL el movimiento es durable en cuanto se anexa al WAL, antes del commit, y un
+ * rollback ya no lo deshace. Por eso ahí la clave se reserva antes, en su propia
+ * transacción confirmada y sin respuesta; la operación corre solo si la reserva entró y
+ * después se guarda la respuesta. Un reintento que encuentra la clave reservada recibe
+ * IdempotencyKeyInProgressException (409). Si la operación falla se libera la clave; si la
+ * aplicación cae entre el anexo y guardar la respuesta, la clave queda reservada hasta la
+ * purga y el reintento sigue recibiendo 409 en lugar de repetir el movimiento.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final long MAX_CACHED_KEYS = 100_000;
+    private static final Duration RETENTION = Duration.ofHours(24);
+    // Respuesta de una clave reservada en modo WAL cuya operación no ha terminado (una respuesta real es JSON)
+    static final String PENDING_RESPONSE = "";
+
+    private final Cache<String, StoredResponse> recent = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_KEYS)
+            .expireAfterWrite(RETENTION)
+            .build();
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionWal transactionWal;
+
+    public IdempotencyServiceImpl(
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            TransactionWal transactionWal) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.transactionWal = transactionWal;
+    }
+
+    @Override
+    public <T> T execute(String key, String request, Class<T> responseType, Supplier<T> operation) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("La Idempotency-Key debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres");
+        }
+        String requestHash = hash(request);
+
+        StoredResponse stored = recent.getIfPresent(key);
+        if (stored != null) {
+            return replay(stored, requestHash, responseType);
+        }
+        if (transactionWal.isEnabled()) {
+            return executeReserved(key, requestHash, responseType, operation);
+        }
+
+        try {
+            T response = transactionTemplate.execute(status -> {
+                T result = operation.get();
+                entityManager.persist(new IdempotencyKey(key, requestHash, toJson(result), LocalDateTime.now()));
+                return result;
+            });
+            recent.put(key, new StoredResponse(requestHash, toJson(response)));
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            // La clave ya estaba confirmada: la operación se revirtió y se responde lo original
+            return replayExisting(key, requestHash, responseType, e);
+        }
+    }
+
+    // Modo WAL: reservar la clave, ejecutar y guardar la respuesta, cada paso confirmado por separado
+    private <T> T executeReserved(String key, String requestHash, Class<T> responseType, Supplier<T> operation) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> entityManager.persist(
+                    new IdempotencyKey(key, requestHash, PENDING_RESPONSE, LocalDateTime.now())));
+        } catch (DataIntegrityViolationException e) {
+            return replayExisting(key, requestHash, responseType, e);
+        }
+
+        T response;
+        try {
+            response = operation.get();
+        } catch (RuntimeException e) {
+            // Nada llegó al WAL: el reintento puede volver a ejecutar
+            transactionTemplate.executeWithoutResult(status -> idempotencyKeyRepository.deleteById(key));
+            throw e;
+        }
+        String json = toJson(response);
+        transactionTemplate.executeWithoutResult(status ->
+                idempotencyKeyRepository.findById(key).ifPresent(reserved -> reserved.setResponse(json)));
+        recent.put(key, new StoredResponse(requestHash, json));
+        return response;
+    }
+
+    private <T> T replayExisting(String key, String requestHash, Class<T> responseType, DataIntegrityViolationException e) {
+        IdempotencyKey existing = idempotencyKeyRepository.findById(key).orElseThrow(() -> e);
+        if (PENDING_RESPONSE.equals(existing.getResponse())) {
+            if (!existing.getRequestHash().equals(requestHash)) {
+                throw new IdempotencyKeyReuseException("La Idempotency-Key ya se usó con una petición distinta");
+            }
+            throw new IdempotencyKeyInProgressException("La petición con esta Idempotency-Key sigue en curso");
+        }
+        StoredResponse stored = new StoredResponse(existing.getRequestHash(), existing.getResponse());
+        recent.put(key, stored);
+        return replay(stored, requestHash, responseType);
+    }
+
+    @Scheduled(cron = "0 0 * * * *")
+    public void purgeExpired() {
+        idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(RETENTION));
+    }
+
+    private <T> T replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReuseException("La Idempotency-Key ya se usó con una petición distinta");
+        }
+        try {
+            return objectMapper.readValue(stored.response(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Respuesta idempotente ilegible", e);
+        }
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta", e);
+        }
+    }
+
+    static String hash(String request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, String response) {
+    }
+}
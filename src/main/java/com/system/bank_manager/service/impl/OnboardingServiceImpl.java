@@ -0,0 +1,347 @@
+package com.system.bank_manager.service.impl;
+
+import com.system.bank_manager.dto.request.AccountRequestDTO;
+import com.system.bank_manager.dto.request.CreateUserDTO;
+import com.system.bank_manager.dto.response.ImportSummaryDTO;
+import com.system.bank_manager.entity.Account;
+import com.system.bank_manager.entity.User;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.persistence.IdBlockAllocator;
+import com.system.bank_manager.repository.AccountJdbcRepository;
+import com.system.bank_manager.repository.UserJdbcRepository;
+import com.system.bank_manager.service.OnboardingService;
+import com.system.bank_manager.uniqueness.UniqueKeyFilter;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Alta masiva de usuarios con su cuenta desde un CSV que se lee en streaming. La memoria
+ * depende del tamaño de bloque y no del fichero: se leen chunkSize filas, se validan en
+ * paralelo, se buscan duplicados con una consulta IN por tabla (solo para las claves que
+ * el filtro de Bloom no descarta) y las válidas se insertan con batch JDBC en una única
+ * transacción por bloque. Los errores del bloque se escriben en el informe antes de leer
+ * el siguiente.
+ *
+ * Un bloque confirmado no se deshace aunque falle uno posterior: el informe indica qué
+ * filas hay que corregir y volver a enviar.
+ */
+@Service
+public class OnboardingServiceImpl implements OnboardingService {
+
+    private static final Logger log = LoggerFactory.getLogger(OnboardingServiceImpl.class);
+    static final String REPORT_HEADER = "line,dni,accountNumber,error";
+
+    private final UserJdbcRepository userJdbcRepository;
+    private final AccountJdbcRepository accountJdbcRepository;
+    private final IdBlockAllocator idBlockAllocator;
+    private final UniqueKeyFilter uniqueKeyFilter;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public OnboardingServiceImpl(UserJdbcRepository userJdbcRepository,
+                                 AccountJdbcRepository accountJdbcRepository,
+                                 IdBlockAllocator idBlockAllocator,
+                                 UniqueKeyFilter uniqueKeyFilter,
+                                 Validator validator,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${bank.onboarding.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser mayor a 0");
+        }
+        this.userJdbcRepository = userJdbcRepository;
+        this.accountJdbcRepository = accountJdbcRepository;
+        this.idBlockAllocator = idBlockAllocator;
+        this.uniqueKeyFilter = uniqueKeyFilter;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void checkHeader(String header) {
+        columns(header);
+    }
+
+    @Override
+    public ImportSummaryDTO importCsv(String header, BufferedReader rows, Writer report) throws IOException {
+        int[] columns = columns(header);
+        report.write(REPORT_HEADER);
+        report.write('\n');
+        report.flush();
+
+        // La cabecera es la línea 1
+        CsvRecordReader reader = new CsvRecordReader(rows, 2);
+        long total = 0;
+        long imported = 0;
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        boolean end = false;
+        while (!end) {
+            try {
+                List<String> fields = reader.next();
+                if (fields != null) {
+                    chunk.add(Row.of(reader.recordLine(), fields, columns));
+                } else {
+                    end = true;
+                }
+            } catch (CsvRecordReader.RecordTooLongException e) {
+                // El lector ya descartó el registro hasta el siguiente salto de línea: se informa y se sigue
+                chunk.add(Row.rejected(reader.recordLine(), e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                // Un registro sin cerrar llega al final del fichero: se informa y se termina
+                chunk.add(Row.rejected(reader.recordLine(), e.getMessage()));
+                end = true;
+            }
+            if (chunk.size() == chunkSize || (end && !chunk.isEmpty())) {
+                total += chunk.size();
+                imported += importChunk(chunk);
+                writeErrors(chunk, report);
+                chunk.clear();
+            }
+        }
+
+        ImportSummaryDTO summary = new ImportSummaryDTO(total, imported, total - imported);
+        log.info("Alta masiva: {} filas, {} importadas, {} rechazadas", summary.rows(), summary.imported(), summary.rejected());
+        return summary;
+    }
+
+    // Devuelve cuántas filas del bloque se guardaron; las demás quedan con su error
+    private int importChunk(List<Row> chunk) {
+        // PASO 1: Validar las filas en paralelo, cada una de forma independiente
+        chunk.parallelStream().filter(Row::valid).forEach(this::validate);
+
+        // PASO 2: Duplicados dentro del bloque; el primero gana (los de bloques anteriores ya están en la base)
+        Set<String> dnis = new HashSet<>();
+        Set<String> accountNumbers = new HashSet<>();
+        for (Row row : chunk) {
+            if (!row.valid()) {
+                continue;
+            }
+            if (!dnis.add(row.dni)) {
+                row.error = "DNI repetido en el fichero: " + row.dni;
+            } else if (!accountNumbers.add(row.accountNumber)) {
+                dnis.remove(row.dni);
+                row.error = "Número de cuenta repetido en el fichero: " + row.accountNumber;
+            }
+        }
+
+        // PASO 3: Duplicados en la base, con una consulta IN por tabla y solo para lo que el filtro no descarta
+        Set<String> existingDnis = userJdbcRepository.findExistingDnis(
+                maybeExisting(UniqueKeyFilter.KeySpace.DNI, dnis));
+        Set<String> existingNumbers = accountJdbcRepository.findExistingAccountNumbers(
+                maybeExisting(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER, accountNumbers));
+        List<Row> accepted = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (!row.valid()) {
+                continue;
+            }
+            if (existingDnis.contains(row.dni)) {
+                row.error = "Ya existe un usuario con DNI: " + row.dni;
+            } else if (existingNumbers.contains(row.accountNumber)) {
+                row.error = "Ya existe una cuenta con este número: " + row.accountNumber;
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return 0;
+        }
+
+        // PASO 4: Guardar el bloque en una transacción; si otra alta se cruzó entre la consulta
+        // y el insert, la restricción única lo rechaza y se repite fila a fila
+        List<User> users = new ArrayList<>(accepted.size());
+        List<Account> accounts = new ArrayList<>(accepted.size());
+        toEntities(accepted, users, accounts);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                userJdbcRepository.insertAll(users);
+                accountJdbcRepository.insertAll(accounts);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Conflicto de unicidad en un bloque de {} filas; se guarda fila a fila", accepted.size());
+            return importOneByOne(accepted, users, accounts);
+        }
+        accepted.forEach(this::registerKeys);
+        return accepted.size();
+    }
+
+    private int importOneByOne(List<Row> accepted, List<User> users, List<Account> accounts) {
+        int saved = 0;
+        for (int i = 0; i < accepted.size(); i++) {
+            Row row = accepted.get(i);
+            User user = users.get(i);
+            Account account = accounts.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    userJdbcRepository.insertAll(List.of(user));
+                    accountJdbcRepository.insertAll(List.of(account));
+                });
+                registerKeys(row);
+                saved++;
+            } catch (DataIntegrityViolationException e) {
+                row.error = userJdbcRepository.findExistingDnis(List.of(row.dni)).isEmpty()
+                        ? "Ya existe una cuenta con este número: " + row.accountNumber
+                        : "Ya existe un usuario con DNI: " + row.dni;
+            }
+        }
+        return saved;
+    }
+
+    private void validate(Row row) {
+        CreateUserDTO user = new CreateUserDTO(row.dni, row.name, row.email, row.password);
+        Set<String> messages = new HashSet<>();
+        validator.validate(user).forEach(violation -> messages.add(violation.getMessage()));
+
+        // userId se asigna al guardar: se validan solo las propiedades que vienen en el fichero
+        validator.validateValue(AccountRequestDTO.class, "accountNumber", row.accountNumber)
+                .forEach(violation -> messages.add(violation.getMessage()));
+        Money balance = null;
+        try {
+            balance = row.balance.isBlank() ? null : Money.of(row.balance.strip());
+            validator.validateValue(AccountRequestDTO.class, "balance", balance)
+                    .forEach(violation -> messages.add(violation.getMessage()));
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            messages.add("El saldo inicial no es un importe válido: " + row.balance);
+        }
+
+        if (!messages.isEmpty()) {
+            // Orden fijo para que el informe no dependa del orden de las violaciones
+            row.error = messages.stream().sorted().collect(Collectors.joining("; "));
+        } else {
+            row.parsedBalance = balance;
+        }
+    }
+
+    private Set<String> maybeExisting(UniqueKeyFilter.KeySpace space, Set<String> keys) {
+        Set<String> maybe = new HashSet<>();
+        for (String key : keys) {
+            if (uniqueKeyFilter.mightExist(space, key)) {
+                maybe.add(key);
+            }
+        }
+        return maybe;
+    }
+
+    private void toEntities(List<Row> rows, List<User> users, List<Account> accounts) {
+        long[] userIds = idBlockAllocator.allocate("users_seq", rows.size());
+        long[] accountIds = idBlockAllocator.allocate("accounts_seq", rows.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            User user = new User();
+            user.setId(userIds[i]);
+            user.setDni(row.dni);
+            user.setName(row.name);
+            user.setEmail(row.email);
+            user.setPassword(row.password);
+            users.add(user);
+
+            Account account = new Account();
+            account.setId(accountIds[i]);
+            account.setAccountNumber(row.accountNumber);
+            account.setBalance(row.parsedBalance);
+            account.setUser(user);
+            account.setCreatedAt(now);
+            accounts.add(account);
+        }
+    }
+
+    private void registerKeys(Row row) {
+        uniqueKeyFilter.added(UniqueKeyFilter.KeySpace.DNI, row.dni);
+        uniqueKeyFilter.added(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER, row.accountNumber);
+    }
+
+    private static void writeErrors(List<Row> chunk, Writer report) throws IOException {
+        for (Row row : chunk) {
+            if (!row.valid()) {
+                report.write(row.line + "," + CsvRecordReader.quote(row.dni) + ","
+                        + CsvRecordReader.quote(row.accountNumber) + "," + CsvRecordReader.quote(row.error));
+                report.write('\n');
+            }
+        }
+        report.flush();
+    }
+
+    // Posición de cada columna de COLUMNS en la cabecera
+    private static int[] columns(String header) {
+        if (header == null || header.isBlank()) {
+            throw new IllegalArgumentException("El CSV está vacío; se esperaba la cabecera " + String.join(",", COLUMNS));
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        String[] names = header.strip().replace("\uFEFF", "").split(",", -1);
+        for (int i = 0; i < names.length; i++) {
+            positions.putIfAbsent(names[i].strip().replace("\"", ""), i);
+        }
+        List<String> missing = Arrays.stream(COLUMNS).filter(column -> !positions.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Faltan columnas en la cabecera del CSV: " + String.join(", ", missing));
+        }
+        return Arrays.stream(COLUMNS).mapToInt(positions::get).toArray();
+    }
+
+    // Una fila del fichero; error queda a null mientras sea válida
+    private static final class Row {
+        private final int line;
+        private String dni;
+        private String name;
+        private String email;
+        private String password;
+        private String accountNumber;
+        private String balance;
+        private Money parsedBalance;
+        private String error;
+
+        private Row(int line) {
+            this.line = line;
+        }
+
+        static Row rejected(int line, String error) {
+            Row row = new Row(line);
+            row.error = error;
+            return row;
+        }
+
+        static Row of(int line, List<String> fields, int[] columns) {
+            Row row = new Row(line);
+            int needed = Arrays.stream(columns).max().orElse(0) + 1;
+            if (fields.size() < needed) {
+                row.error = "Se esperaban al menos " + needed + " columnas y hay " + fields.size();
+                return row;
+            }
+            row.dni = fields.get(columns[0]).strip();
+            row.name = fields.get(columns[1]).strip();
+            row.email = emptyToNull(fields.get(columns[2]).strip());
+            row.password = emptyToNull(fields.get(columns[3]));
+            row.accountNumber = fields.get(columns[4]).strip();
+            row.balance = fields.get(columns[5]);
+            return row;
+        }
+
+        private static String emptyToNull(String value) {
+            return value.isEmpty() ? null : value;
+        }
+
+        boolean valid() {
+            return error == null;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.system.bank_manager.service.impl;
+
+import com.system.bank_manager.dto.response.AccountStatementDTO;
+import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.engine.BalanceEngine;
+import com.system.bank_manager.entity.DailyBalance;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountRepository;
+import com.system.bank_manager.repository.DailyBalanceRepository;
+import com.system.bank_manager.repository.TransactionRepository;
+import com.system.bank_manager.service.StatementService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class StatementServiceImpl implements StatementService {
+
+    private static final long MAX_STATEMENT_DAYS = 366;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final DailyBalanceRepository dailyBalanceRepository;
+    private final BalanceEngine balanceEngine;
+
+    public StatementServiceImpl(
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            DailyBalanceRepository dailyBalanceRepository,
+            BalanceEngine balanceEngine) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.dailyBalanceRepository = dailyBalanceRepository;
+        this.balanceEngine = balanceEngine;
+    }
+
+    // Extracto: saldo de apertura desde el snapshot más cercano y solo los movimientos del rango
+    @Override
+    @Transactional(readOnly = true)
+    public AccountStatementDTO getStatement(Long accountId, LocalDate from, LocalDate to,
+                                            Transaction.TransactionType type) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la fecha final");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_STATEMENT_DAYS) {
+            throw new IllegalArgumentException("El extracto no puede abarcar más de " + MAX_STATEMENT_DAYS + " días");
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new EntityNotFoundException("Cuenta no encontrada con ID: " + accountId);
+        }
+
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Money opening = balanceAtStartOf(accountId, from);
+
+        List<TransactionResponseDTO> transactions;
+        Money closing;
+        if (type == null) {
+            transactions = transactionRepository.findStatementLines(accountId, start, end);
+            closing = opening;
+            for (TransactionResponseDTO transaction : transactions) {
+                closing = closing.plus(delta(transaction));
+            }
+        } else {
+            // Con filtro de tipo los movimientos listados no explican el cierre: se suma el rango completo
+            transactions = transactionRepository.findStatementLinesByType(accountId, type, start, end);
+            closing = opening.plus(transactionRepository.sumDeltas(accountId, start, end));
+        }
+        return new AccountStatementDTO(accountId, from, to, opening, closing, transactions);
+    }
+
+    // Saldo a las 00:00 del día dado, es decir, el cierre del día anterior
+    private Money balanceAtStartOf(Long accountId, LocalDate day) {
+        LocalDate previousDay = day.minusDays(1);
+        LocalDateTime start = day.atStartOfDay();
+
+        // Snapshot anterior: se suman los movimientos entre ese cierre y el inicio del día
+        Optional<DailyBalance> before = dailyBalanceRepository
+                .findFirstByAccountIdAndBalanceDateLessThanEqualOrderByBalanceDateDesc(accountId, previousDay);
+        if (before.isPresent()) {
+            LocalDateTime snapshotEnd = before.get().getBalanceDate().plusDays(1).atStartOfDay();
+            return before.get().getClosingBalance()
+                    .plus(transactionRepository.sumDeltas(accountId, snapshotEnd, start));
+        }
+
+        // Snapshot posterior (cuenta anterior al primer snapshot): se descuentan hacia atrás
+        Optional<DailyBalance> after = dailyBalanceRepository
+                .findFirstByAccountIdAndBalanceDateGreaterThanOrderByBalanceDateAsc(accountId, previousDay);
+        if (after.isPresent()) {
+            LocalDateTime snapshotEnd = after.get().getBalanceDate().plusDays(1).atStartOfDay();
+            return after.get().getClosingBalance()
+                    .minus(transactionRepository.sumDeltas(accountId, start, snapshotEnd));
+        }
+
+        // Sin snapshots todavía: se parte del saldo actual
+        return currentBalance(accountId).minus(transactionRepository.sumDeltasSince(accountId, start));
+    }
+
+    private Money currentBalance(Long accountId) {
+        return balanceEngine.currentBalance(accountId)
+                .orElseGet(() -> accountRepository.findBalanceById(accountId)
+                        .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con ID: " + accountId)));
+    }
+
+    private static Money delta(TransactionResponseDTO transaction) {
+        return switch (transaction.type()) {
+            case DEPOSIT, DEPOSITO -> transaction.amount();
+            case WITHDRAWAL, RETIRO -> transaction.amount().negate();
+        };
+    }
+}
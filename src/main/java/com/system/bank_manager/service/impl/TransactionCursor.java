@@ -0,0 +1,36 @@
+package com.system.bank_manager.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco de la paginación por keyset: la posición de la última fila
+ * devuelta. El listado global ordena por id y solo usa {@code id}; el listado
+ * por cuenta ordena por (date, id) y usa ambos.
+ */
+record TransactionCursor(LocalDateTime date, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    String encode() {
+        String raw = date == null ? String.valueOf(id) : date.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static TransactionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new TransactionCursor(null, Long.parseLong(raw));
+            }
+            return new TransactionCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+    }
+}
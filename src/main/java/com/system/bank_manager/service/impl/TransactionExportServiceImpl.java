@@ -0,0 +1,49 @@
+package com.system.bank_manager.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.repository.TransactionRepository;
+import com.system.bank_manager.service.TransactionExportService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class TransactionExportServiceImpl implements TransactionExportService {
+
+    private static final byte NEWLINE = '\n';
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    public TransactionExportServiceImpl(TransactionRepository transactionRepository, ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // La transacción mantiene abierto el cursor mientras se consume el Stream
+    @Override
+    @Transactional(readOnly = true)
+    public void exportNdjson(Long accountId, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        try (Stream<TransactionResponseDTO> transactions = transactionRepository.streamForExport(accountId, from, to)) {
+            Iterator<TransactionResponseDTO> iterator = transactions.iterator();
+            long written = 0;
+            while (iterator.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                out.write(NEWLINE);
+                written++;
+                // La primera línea sale enseguida; después se vacía por bloques. Las filas son
+                // proyecciones, así que el contexto de persistencia no crece con el recorrido
+                if (written == 1 || written % TransactionRepository.EXPORT_FETCH_SIZE == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+    }
+}
@@ -2,63 +2,168 @@ package com.system.bank_manager.service.impl;
 
 import com.system.bank_manager.dto.request.TransactionRequestDTO;
 import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.dto.response.JournalEntryDTO;
+import com.system.bank_manager.dto.response.TransactionPageDTO;
 import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.dto.response.TransferResultDTO;
+import com.system.bank_manager.engine.BalanceEngine;
 import com.system.bank_manager.entity.Account;
+import com.system.bank_manager.event.BalanceChangedEvent;
 import com.system.bank_manager.entity.Transaction;
 import com.system.bank_manager.exception.InsufficientFundsException;
 import com.system.bank_manager.mapper.TransactionMapper;
+import com.system.bank_manager.money.Money;
 import com.system.bank_manager.repository.AccountRepository;
+import com.system.bank_manager.repository.AccountSummaryJdbcRepository;
+import com.system.bank_manager.repository.TransactionJdbcRepository;
 import com.system.bank_manager.repository.TransactionRepository;
 import com.system.bank_manager.service.TransactionService;
+import com.system.bank_manager.metrics.MetricsConfig;
+import com.system.bank_manager.wal.TransactionWal;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class TransactionServiceImpl implements TransactionService {
 
+    private static final int MAX_BATCH_SIZE = 50_000;
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
     private final TransactionMapper transactionMapper;
+    private final BalanceEngine balanceEngine;
+    private final TransactionJdbcRepository transactionJdbcRepository;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionWal transactionWal;
+    private final AccountSummaryJdbcRepository accountSummaryJdbcRepository;
 
     public TransactionServiceImpl(
             TransactionRepository transactionRepository,
             AccountRepository accountRepository,
-            TransactionMapper transactionMapper) {
+            TransactionMapper transactionMapper,
+            BalanceEngine balanceEngine,
+            TransactionJdbcRepository transactionJdbcRepository,
+            Validator validator,
+            ApplicationEventPublisher eventPublisher,
+            TransactionWal transactionWal,
+            AccountSummaryJdbcRepository accountSummaryJdbcRepository) {
         this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
         this.transactionMapper = transactionMapper;
+        this.balanceEngine = balanceEngine;
+        this.transactionJdbcRepository = transactionJdbcRepository;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.transactionWal = transactionWal;
+        this.accountSummaryJdbcRepository = accountSummaryJdbcRepository;
     }
 
     @Override
     @Transactional
     public TransactionResponseDTO createTransaction(Long accountId, TransactionRequestDTO request) {
-        Account account = accountRepository.findById(accountId)
+        if (transactionWal.isEnabled()) {
+            return createLogged(accountId, request);
+        }
+        Account account = balanceEngine.isEnabled()
+                ? accountRepository.getReferenceById(accountId)
+                : applyOnEntity(accountId, request);
+
+        Transaction transaction = transactionMapper.toEntity(request);
+        transaction.setAccount(account);
+        // El ID se asigna al persistir; el INSERT va al hacer flush
+        Transaction saved = transactionRepository.save(transaction);
+        if (balanceEngine.isEnabled()) {
+            applyInMemory(accountId, request, saved.getId());
+        }
+        eventPublisher.publishEvent(new BalanceChangedEvent(Set.of(accountId)));
+        accountSummaryJdbcRepository.apply(List.of(saved));
+        return transactionMapper.toResponse(saved);
+    }
+
+    private Account applyOnEntity(Long accountId, TransactionRequestDTO request) {
+        // Bloqueo de fila: dos depósitos concurrentes sobre la misma cuenta no pueden pisarse el saldo
+        Account account = accountRepository.findByIdForUpdate(accountId)
                 .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con ID: " + accountId));
 
         // Usamos directamente el enum
         if (request.type() == Transaction.TransactionType.DEPOSIT) {
-            account.setBalance(account.getBalance().add(request.amount()));
+            account.setBalance(account.getBalance().plus(request.amount()));
         } else if (request.type() == Transaction.TransactionType.WITHDRAWAL) {
-            if (account.getBalance().compareTo(request.amount()) < 0) {
+            if (account.getBalance().isLessThan(request.amount())) {
                 throw new InsufficientFundsException("Saldo insuficiente para realizar el retiro");
             }
-            account.setBalance(account.getBalance().subtract(request.amount()));
+            account.setBalance(account.getBalance().minus(request.amount()));
         } else {
             throw new IllegalArgumentException("Tipo de transacción no válido: " + request.type());
         }
 
         accountRepository.save(account);
+        return account;
+    }
 
-        Transaction transaction = transactionMapper.toEntity(request);
-        transaction.setAccount(account);
+    // El saldo vive en el motor; la cuenta solo se referencia para la FK de la transacción. El motor
+    // abona al confirmar y libera el retiro si la transacción no confirma. Recibe el ID de la fila, que
+    // el motor event sourcing anexa con el movimiento
+    private void applyInMemory(Long accountId, TransactionRequestDTO request, long transactionId) {
+        if (request.type() == Transaction.TransactionType.DEPOSIT) {
+            balanceEngine.deposit(accountId, request.amount(), transactionId);
+        } else if (request.type() == Transaction.TransactionType.WITHDRAWAL) {
+            balanceEngine.withdraw(accountId, request.amount(), transactionId);
+        } else {
+            throw new IllegalArgumentException("Tipo de transacción no válido: " + request.type());
+        }
+    }
 
-        return transactionMapper.toResponse(transactionRepository.save(transaction));
+    // Modo WAL: se responde cuando el movimiento está en disco; la fila y el saldo llegan a la base desde el WAL.
+    // El motor anexa con la franja de la cuenta tomada, así el orden del WAL es el orden de aplicación
+    private TransactionResponseDTO createLogged(Long accountId, TransactionRequestDTO request) {
+        Transaction transaction = createTransaction(request.amount(), request.type(),
+                accountRepository.getReferenceById(accountId), LocalDateTime.now());
+        long sequence;
+        Money compensation;
+        if (request.type() == Transaction.TransactionType.DEPOSIT) {
+            sequence = balanceEngine.depositLogged(accountId, request.amount(), () -> transactionWal.append(transaction));
+            compensation = request.amount().negate();
+        } else if (request.type() == Transaction.TransactionType.WITHDRAWAL) {
+            sequence = balanceEngine.withdrawLogged(accountId, request.amount(), () -> transactionWal.append(transaction));
+            compensation = request.amount();
+        } else {
+            throw new IllegalArgumentException("Tipo de transacción no válido: " + request.type());
+        }
+
+        eventPublisher.publishEvent(new BalanceChangedEvent(Set.of(accountId)));
+        awaitDurable(sequence, () -> balanceEngine.adjust(accountId, compensation));
+        return transactionMapper.toResponse(transaction);
     }
+
+    // Si el movimiento no llega a disco se deshace en memoria y el llamador recibe el error
+    private void awaitDurable(long sequence, Runnable compensation) {
+        try {
+            transactionWal.awaitDurable(sequence);
+        } catch (RuntimeException e) {
+            compensation.run();
+            throw e;
+        }
+    }
+
     //SINGLE RESPONSIBILITY PRINCIPLE
     //
      //
@@ -71,29 +176,216 @@ public class TransactionServiceImpl implements TransactionService {
             throw new IllegalArgumentException("No puedes transferir dinero a la misma cuenta");
         }
 
-        // Buscar cuentas
-        Account fromAccount = accountRepository.findById(request.fromAccountId())
-                .orElseThrow(() -> new EntityNotFoundException("Cuenta origen no encontrada con ID: " + request.fromAccountId()));
-        Account toAccount = accountRepository.findById(request.toAccountId())
-                .orElseThrow(() -> new EntityNotFoundException("Cuenta destino no encontrada con ID: " + request.toAccountId()));
+        if (transactionWal.isEnabled()) {
+            List<Transaction> rows = transferRows(request, LocalDateTime.now());
+            long sequence = balanceEngine.transferLogged(request.fromAccountId(), request.toAccountId(),
+                    request.amount(), () -> transactionWal.appendTransfer(rows.get(0), rows.get(1)));
+            publishBalanceChange(request);
+            awaitDurable(sequence, () -> undoTransfer(request));
+            return;
+        }
 
-        // Verificar fondos
-        if (fromAccount.getBalance().compareTo(request.amount()) < 0) {
-            throw new InsufficientFundsException("Saldo insuficiente en la cuenta origen");
+        if (balanceEngine.isEnabled()) {
+            List<Transaction> legs = transferInMemory(request, LocalDateTime.now());
+            publishBalanceChange(request);
+
+            insertAssignedEntries(legs);
+            return;
         }
 
-        // Actualizar saldos
-        fromAccount.setBalance(fromAccount.getBalance().subtract(request.amount()));
-        toAccount.setBalance(toAccount.getBalance().add(request.amount()));
+        // Buscar y bloquear ambas cuentas en orden de ID, así dos transferencias cruzadas no se interbloquean
+        Map<Long, Account> accounts = lockAccounts(List.of(request));
+        applyTransfer(request, accounts);
+        publishBalanceChange(request);
+
+        // Registrar el asiento: débito y abono en un solo batch, enlazados por entry_id
+        insertEntries(transferRows(request, LocalDateTime.now()));
+    }
+
+    // Las filas y los resúmenes de sus cuentas se escriben en la misma transacción
+    private void insertEntries(List<Transaction> legs) {
+        transactionJdbcRepository.batchInsertEntries(legs);
+        accountSummaryJdbcRepository.apply(legs);
+    }
+
+    private void insertAssignedEntries(List<Transaction> legs) {
+        transactionJdbcRepository.insertAll(legs);
+        accountSummaryJdbcRepository.apply(legs);
+    }
+
+    // Con el motor, los IDs del asiento se reservan antes del movimiento: el motor recibe el del débito
+    // (el entry_id) y el event sourcing lo anexa con él. Las filas se insertan después con insertAll
+    private List<Transaction> transferInMemory(TransferRequestDTO request, LocalDateTime date) {
+        List<Transaction> legs = transferRows(request, date);
+        transactionJdbcRepository.assignEntryIds(legs);
+        balanceEngine.transfer(request.fromAccountId(), request.toAccountId(), request.amount(), legs.get(0).getId());
+        return legs;
+    }
 
-        // Registrar transacciones
+    // Lote de transferencias: una sola consulta para las cuentas y un batch JDBC para los asientos.
+    // Un elemento rechazado (datos inválidos, cuenta inexistente, fondos insuficientes) no afecta a los demás.
+    // Con el motor en memoria, lo que un elemento abona no se puede gastar en el mismo lote: llega al confirmar.
+    @Override
+    @Transactional
+    public List<TransferResultDTO> transferBatch(List<TransferRequestDTO> requests) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("El lote no puede superar " + MAX_BATCH_SIZE + " transferencias");
+        }
+        if (transactionWal.isEnabled()) {
+            return transferBatchLogged(requests);
+        }
+
+        Map<Long, Account> accounts = balanceEngine.isEnabled() ? Map.of() : lockAccounts(requests);
+        List<TransferResultDTO> results = new ArrayList<>(requests.size());
+        List<Transaction> transactions = new ArrayList<>();
+        Set<Long> changedAccounts = new HashSet<>();
         LocalDateTime now = LocalDateTime.now();
 
-        transactionRepository.save(createTransaction(request.amount(), Transaction.TransactionType.WITHDRAWAL, fromAccount, now));
-        transactionRepository.save(createTransaction(request.amount(), Transaction.TransactionType.DEPOSIT, toAccount, now));
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequestDTO request = requests.get(i);
+            try {
+                validate(request);
+                if (balanceEngine.isEnabled()) {
+                    transactions.addAll(transferInMemory(request, now));
+                } else {
+                    applyTransfer(request, accounts);
+                    transactions.addAll(transferRows(request, now));
+                }
+                changedAccounts.add(request.fromAccountId());
+                changedAccounts.add(request.toAccountId());
+                results.add(new TransferResultDTO(i, true, "Transferencia realizada con éxito"));
+            } catch (RuntimeException e) {
+                results.add(new TransferResultDTO(i, false, e.getMessage()));
+            }
+        }
+
+        if (balanceEngine.isEnabled()) {
+            insertAssignedEntries(transactions);
+        } else {
+            insertEntries(transactions);
+        }
+        if (!changedAccounts.isEmpty()) {
+            eventPublisher.publishEvent(new BalanceChangedEvent(changedAccounts));
+        }
+        return results;
     }
 
-    private Transaction createTransaction(BigDecimal amount, Transaction.TransactionType type, Account account, LocalDateTime date) {
+    // Modo WAL: se anexa cada transferencia aplicada y se espera una sola vez, por la última. Si el WAL
+    // falla, lo que ya está en disco está confirmado (el WAL lo llevará a la base) y solo se deshace el resto
+    private List<TransferResultDTO> transferBatchLogged(List<TransferRequestDTO> requests) {
+        List<TransferResultDTO> results = new ArrayList<>(requests.size());
+        List<LoggedTransfer> logged = new ArrayList<>();
+        Set<Long> changedAccounts = new HashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequestDTO request = requests.get(i);
+            try {
+                validate(request);
+                List<Transaction> rows = transferRows(request, now);
+                long sequence = balanceEngine.transferLogged(request.fromAccountId(), request.toAccountId(),
+                        request.amount(), () -> transactionWal.appendTransfer(rows.get(0), rows.get(1)));
+                logged.add(new LoggedTransfer(i, request, sequence));
+            } catch (RuntimeException e) {
+                results.add(new TransferResultDTO(i, false, e.getMessage()));
+                continue;
+            }
+            changedAccounts.add(request.fromAccountId());
+            changedAccounts.add(request.toAccountId());
+            results.add(new TransferResultDTO(i, true, "Transferencia realizada con éxito"));
+        }
+        if (logged.isEmpty()) {
+            return results;
+        }
+
+        eventPublisher.publishEvent(new BalanceChangedEvent(changedAccounts));
+        try {
+            transactionWal.awaitDurable(logged.get(logged.size() - 1).sequence());
+        } catch (RuntimeException e) {
+            // El log queda cerrado tras el fallo, así que lo durable ya no cambia
+            long durable = transactionWal.durableSequence();
+            boolean anyDurable = false;
+            for (LoggedTransfer transfer : logged) {
+                if (transfer.sequence() <= durable) {
+                    anyDurable = true;
+                    continue;
+                }
+                undoTransfer(transfer.request());
+                results.set(transfer.index(), new TransferResultDTO(transfer.index(), false, e.getMessage()));
+            }
+            if (!anyDurable) {
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    private record LoggedTransfer(int index, TransferRequestDTO request, long sequence) {
+    }
+
+    // Patas del asiento en el orden que espera batchInsertEntries: débito en origen y abono en destino
+    private List<Transaction> transferRows(TransferRequestDTO request, LocalDateTime date) {
+        return List.of(
+                createTransaction(request.amount(), Transaction.TransactionType.WITHDRAWAL,
+                        accountRepository.getReferenceById(request.fromAccountId()), date),
+                createTransaction(request.amount(), Transaction.TransactionType.DEPOSIT,
+                        accountRepository.getReferenceById(request.toAccountId()), date));
+    }
+
+    private void undoTransfer(TransferRequestDTO request) {
+        balanceEngine.adjust(request.fromAccountId(), request.amount());
+        balanceEngine.adjust(request.toAccountId(), request.amount().negate());
+    }
+
+    // Se publica después de llamar al motor: sus abonos y liberaciones al terminar la transacción corren antes que los oyentes
+    private void publishBalanceChange(TransferRequestDTO request) {
+        eventPublisher.publishEvent(new BalanceChangedEvent(Set.of(request.fromAccountId(), request.toAccountId())));
+    }
+
+    private Map<Long, Account> lockAccounts(List<TransferRequestDTO> requests) {
+        Set<Long> ids = new HashSet<>();
+        for (TransferRequestDTO request : requests) {
+            if (request.fromAccountId() != null) {
+                ids.add(request.fromAccountId());
+            }
+            if (request.toAccountId() != null) {
+                ids.add(request.toAccountId());
+            }
+        }
+        Map<Long, Account> accounts = new HashMap<>();
+        if (!ids.isEmpty()) {
+            accountRepository.findAllByIdForUpdate(ids).forEach(account -> accounts.put(account.getId(), account));
+        }
+        return accounts;
+    }
+
+    private void applyTransfer(TransferRequestDTO request, Map<Long, Account> accounts) {
+        Account fromAccount = accounts.get(request.fromAccountId());
+        if (fromAccount == null) {
+            throw new EntityNotFoundException("Cuenta origen no encontrada con ID: " + request.fromAccountId());
+        }
+        Account toAccount = accounts.get(request.toAccountId());
+        if (toAccount == null) {
+            throw new EntityNotFoundException("Cuenta destino no encontrada con ID: " + request.toAccountId());
+        }
+        if (fromAccount.getBalance().isLessThan(request.amount())) {
+            throw new InsufficientFundsException("Saldo insuficiente en la cuenta origen");
+        }
+        fromAccount.setBalance(fromAccount.getBalance().minus(request.amount()));
+        toAccount.setBalance(toAccount.getBalance().plus(request.amount()));
+    }
+
+    private void validate(TransferRequestDTO request) {
+        Set<ConstraintViolation<TransferRequestDTO>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.iterator().next().getMessage());
+        }
+        if (request.fromAccountId().equals(request.toAccountId())) {
+            throw new IllegalArgumentException("No puedes transferir dinero a la misma cuenta");
+        }
+    }
+
+    private Transaction createTransaction(Money amount, Transaction.TransactionType type, Account account, LocalDateTime date) {
         Transaction transaction = new Transaction();
         transaction.setAmount(amount);
         transaction.setType(type);
@@ -103,22 +395,64 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    public List<TransactionResponseDTO> getTransactionsByAccountId(Long accountId) {
-        return transactionRepository.findByAccountId(accountId).stream()
-                .map(transactionMapper::toResponse)
-                .toList();
+    @Transactional(readOnly = true)
+    public TransactionPageDTO getTransactionsByAccountId(Long accountId, String after, int limit) {
+        int pageSize = pageSize(limit);
+        // Se pide una fila extra para saber si existe una página siguiente
+        List<TransactionResponseDTO> rows;
+        if (after == null || after.isBlank()) {
+            rows = transactionRepository.findPageByAccountId(accountId, Limit.of(pageSize + 1));
+        } else {
+            TransactionCursor cursor = TransactionCursor.decode(after);
+            if (cursor.date() == null) {
+                throw new IllegalArgumentException("Cursor de paginación inválido");
+            }
+            rows = transactionRepository.findByAccountIdAfter(
+                    accountId, cursor.date(), cursor.id(), Limit.of(pageSize + 1));
+        }
+        return toPage(rows, pageSize, last -> new TransactionCursor(last.date(), last.id()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionPageDTO getAllTransactions(String after, int limit) {
+        int pageSize = pageSize(limit);
+        long afterId = after == null || after.isBlank() ? 0L : TransactionCursor.decode(after).id();
+        List<TransactionResponseDTO> rows = transactionRepository.findPageAfterId(afterId, Limit.of(pageSize + 1));
+        return toPage(rows, pageSize, last -> new TransactionCursor(null, last.id()));
+    }
+
+    private int pageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    private TransactionPageDTO toPage(List<TransactionResponseDTO> rows, int pageSize,
+                                      Function<TransactionResponseDTO, TransactionCursor> cursorOf) {
+        boolean hasNext = rows.size() > pageSize;
+        List<TransactionResponseDTO> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+        return new TransactionPageDTO(page, nextCursor);
     }
+
+    // Ambas patas de una transferencia con una sola búsqueda por el índice de entry_id
     @Override
-    public List<TransactionResponseDTO> getAllTransactions() {
-        return transactionRepository.findAll().stream()
-                .map(transactionMapper::toResponse)
-                .toList();
+    @Transactional(readOnly = true)
+    public JournalEntryDTO getJournalEntry(Long entryId) {
+        List<TransactionResponseDTO> legs = transactionRepository.findEntryLegs(entryId);
+        if (legs.size() != 2) {
+            throw new EntityNotFoundException("Asiento no encontrado con ID: " + entryId);
+        }
+        TransactionResponseDTO debit = legs.get(0);
+        return new JournalEntryDTO(entryId, debit.amount(), debit.date(), debit, legs.get(1));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public TransactionResponseDTO getTransactionById(Long id) {
-        Transaction transaction = transactionRepository.findById(id)
+        return transactionRepository.findResponseById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Transacción no encontrada con ID: " + id));
-        return transactionMapper.toResponse(transaction);
     }
 }
\ No newline at end of file
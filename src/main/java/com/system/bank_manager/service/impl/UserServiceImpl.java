@@ -1,46 +1,75 @@
 package com.system.bank_manager.service.impl;
 
+import com.system.bank_manager.cache.CacheConfig;
 import com.system.bank_manager.dto.request.CreateUserDTO;
 import com.system.bank_manager.dto.request.UpdateUserDTO;
 import com.system.bank_manager.dto.response.UserResponseDTO;
+import com.system.bank_manager.entity.Account;
 import com.system.bank_manager.entity.User;
+import com.system.bank_manager.event.AccountsDeletedEvent;
 import com.system.bank_manager.exception.DuplicateUserException;
 import com.system.bank_manager.mapper.UserMapper;
 import com.system.bank_manager.repository.UserRepository;
 import com.system.bank_manager.service.UserService;
+import com.system.bank_manager.uniqueness.UniqueKeyFilter;
+import com.system.bank_manager.wal.TransactionWal;
+import com.system.bank_manager.metrics.MetricsConfig;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final UniqueKeyFilter uniqueKeyFilter;
+    private final TransactionWal transactionWal;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper) {
+    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper, UniqueKeyFilter uniqueKeyFilter,
+                           TransactionWal transactionWal, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
+        this.uniqueKeyFilter = uniqueKeyFilter;
+        this.transactionWal = transactionWal;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     @Transactional
     public UserResponseDTO createUser(CreateUserDTO dto) {
-        //  Validar DNI duplicado
-        if (userRepository.findByDni(dto.dni()).isPresent()) {
+        //  Validar DNI duplicado: si el filtro descarta el DNI no hace falta consultar la base
+        if (uniqueKeyFilter.mightExist(UniqueKeyFilter.KeySpace.DNI, dto.dni()) && userRepository.existsByDni(dto.dni())) {
             throw new DuplicateUserException("Ya existe un usuario con DNI: " + dto.dni());
         }
 
         User user = userMapper.toEntity(dto);
-        User savedUser = userRepository.save(user); //
+        User savedUser;
+        try {
+            // flush aquí para que la restricción única salte dentro del método y no al confirmar
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateUserException("Ya existe un usuario con DNI: " + dto.dni());
+        }
+        uniqueKeyFilter.added(UniqueKeyFilter.KeySpace.DNI, savedUser.getDni());
         return userMapper.toResponse(savedUser);
     }
 
     @Override
     @Transactional //
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id")
     public UserResponseDTO updateUser(Long id, UpdateUserDTO request) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado con ID: " + id));
@@ -56,26 +85,41 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(readOnly = true)
     public List<UserResponseDTO> getAllUsers() {
-        return userRepository.findAll()
-                .stream()
-                .map(userMapper::toResponse)
-                .collect(Collectors.toList());
+        return userRepository.findAllResponses();
     }
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#id", sync = true)
     public UserResponseDTO getUserById(Long id) {
-        User user = userRepository.findById(id)
+        return userRepository.findResponseById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado con ID: " + id));
-        return userMapper.toResponse(user);
     }
 
+    // Borrar el usuario borra sus cuentas en cascada
     @Override
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ACCOUNTS, allEntries = true)
+    })
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new EntityNotFoundException("Usuario no encontrado con ID: " + id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado con ID: " + id));
+        // El borrado arrastra sus cuentas: lo que tengan pendiente en el WAL se aplica antes
+        transactionWal.applyPending();
+        Set<Long> accountIds = user.getAccounts() == null ? Set.of()
+                : user.getAccounts().stream().map(Account::getId).collect(Collectors.toSet());
+        int accounts = user.getAccounts() == null ? 0 : user.getAccounts().size();
+        userRepository.delete(user);
+        // Los números de las cuentas borradas en cascada también son bajas para el filtro
+        uniqueKeyFilter.removed(UniqueKeyFilter.KeySpace.DNI);
+        for (int i = 0; i < accounts; i++) {
+            uniqueKeyFilter.removed(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER);
+        }
+        // Sus saldos en memoria se descartan cuando la baja confirma
+        if (!accountIds.isEmpty()) {
+            eventPublisher.publishEvent(new AccountsDeletedEvent(accountIds));
         }
-        userRepository.deleteById(id);
     }
 }
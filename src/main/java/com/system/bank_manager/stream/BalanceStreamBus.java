@@ -0,0 +1,219 @@
+package com.system.bank_manager.stream;
+
+import com.system.bank_manager.dto.response.BalanceUpdateDTO;
+import com.system.bank_manager.money.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Reparto de cambios de saldo a suscriptores (las conexiones SSE) sin que un cliente lento
+ * frene a los demás ni haga crecer la memoria.
+ *
+ * Un único hilo despachador lee el saldo de cada cuenta cambiada y lo ofrece a sus
+ * suscriptores. Las cuentas pendientes se agrupan: varios commits sobre la misma cuenta
+ * antes de que el despachador llegue a ella se resuelven con una sola lectura. Como todas
+ * las lecturas pasan por ese hilo, cada suscriptor recibe saldos en orden.
+ *
+ * Cada suscriptor tiene una cola de capacidad 1 que conserva solo el último saldo: si el
+ * cliente no ha terminado de recibir el anterior, el nuevo sustituye al pendiente. El envío
+ * corre en un hilo virtual por suscriptor y como mucho uno a la vez, así que un cliente que
+ * no lee bloquea solo su propio hilo.
+ */
+public class BalanceStreamBus implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceStreamBus.class);
+    private static final long POLL_MILLIS = 100;
+
+    // Destino de un suscriptor; una excepción lo da de baja
+    @FunctionalInterface
+    public interface Sink {
+        void send(BalanceUpdateDTO update) throws IOException;
+    }
+
+    // subscription nula: saldo cambiado, para todos los suscriptores de la cuenta; si no, saldo inicial solo para ella
+    private record Work(Long accountId, Subscription subscription) {
+    }
+
+    private final Function<Long, Optional<Money>> balances;
+    private final ConcurrentHashMap<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<Work> work = new LinkedBlockingQueue<>();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("balance-stream-", 0).factory());
+    private final Thread dispatcher;
+    private final AtomicLong subscribers = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+    private volatile boolean running = true;
+
+    // balances: saldo vigente de una cuenta, vacío si ya no existe
+    public BalanceStreamBus(Function<Long, Optional<Money>> balances) {
+        this.balances = balances;
+        this.dispatcher = new Thread(this::dispatch, "balance-stream-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    // El suscriptor recibe primero el saldo actual y después cada cambio confirmado
+    public Subscription subscribe(Long accountId, Sink sink) {
+        Subscription subscription = new Subscription(accountId, sink);
+        subscriptions.compute(accountId, (id, current) -> {
+            Set<Subscription> set = current != null ? current : ConcurrentHashMap.newKeySet();
+            set.add(subscription);
+            return set;
+        });
+        subscribers.incrementAndGet();
+        work.add(new Work(accountId, subscription));
+        return subscription;
+    }
+
+    // Cuentas cuyo saldo cambió en una transacción ya terminada
+    public void changed(Collection<Long> accountIds) {
+        for (Long accountId : accountIds) {
+            if (subscriptions.containsKey(accountId) && changed.add(accountId)) {
+                work.add(new Work(accountId, null));
+            }
+        }
+    }
+
+    public long subscribers() {
+        return subscribers.get();
+    }
+
+    public long delivered() {
+        return delivered.get();
+    }
+
+    // Saldos sustituidos por uno más reciente antes de llegar a enviarse
+    public long conflated() {
+        return conflated.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        senders.shutdownNow();
+    }
+
+    private void dispatch() {
+        while (running) {
+            Work next;
+            try {
+                next = work.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (next == null) {
+                continue;
+            }
+            if (next.subscription() == null) {
+                // Se quita antes de leer: un commit posterior a la lectura vuelve a encolar la cuenta
+                changed.remove(next.accountId());
+            }
+            BalanceUpdateDTO update;
+            try {
+                Optional<Money> balance = balances.apply(next.accountId());
+                if (balance.isEmpty()) {
+                    continue;
+                }
+                update = new BalanceUpdateDTO(next.accountId(), balance.get(), LocalDateTime.now());
+            } catch (RuntimeException e) {
+                log.warn("No se pudo leer el saldo de la cuenta {} para el stream", next.accountId(), e);
+                continue;
+            }
+            if (next.subscription() != null) {
+                next.subscription().offer(update);
+            } else {
+                subscriptions.getOrDefault(next.accountId(), Set.of()).forEach(subscription -> subscription.offer(update));
+            }
+        }
+    }
+
+    public final class Subscription implements AutoCloseable {
+
+        private final Long accountId;
+        private final Sink sink;
+        private final AtomicReference<BalanceUpdateDTO> pending = new AtomicReference<>();
+        // true mientras hay un envío en curso o programado: uno como mucho por suscriptor
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscription(Long accountId, Sink sink) {
+            this.accountId = accountId;
+            this.sink = sink;
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscriptions.computeIfPresent(accountId, (id, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+            subscribers.decrementAndGet();
+            pending.set(null);
+        }
+
+        private void offer(BalanceUpdateDTO update) {
+            if (closed.get()) {
+                return;
+            }
+            if (pending.getAndSet(update) != null) {
+                conflated.incrementAndGet();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(this::send);
+            } catch (RejectedExecutionException e) {
+                // Bus cerrado: no se envía nada más
+                scheduled.set(false);
+            }
+        }
+
+        private void send() {
+            try {
+                BalanceUpdateDTO update = pending.getAndSet(null);
+                if (update != null && !closed.get()) {
+                    sink.send(update);
+                    delivered.incrementAndGet();
+                }
+            } catch (IOException | RuntimeException e) {
+                // Cliente desconectado o emisor ya completado
+                close();
+            } finally {
+                scheduled.set(false);
+                // Un saldo que llegó durante el envío no programó otro: se hace aquí
+                if (pending.get() != null) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
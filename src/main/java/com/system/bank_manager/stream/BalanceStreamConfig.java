@@ -0,0 +1,27 @@
+package com.system.bank_manager.stream;
+
+import com.system.bank_manager.engine.BalanceEngine;
+import com.system.bank_manager.repository.AccountRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BalanceStreamConfig {
+
+    // El saldo en memoria del motor va por delante de la tabla accounts; sin motor se lee de la base.
+    // Puede incluir débitos reservados aún sin confirmar: si no confirman, BalanceStreamPublisher
+    // vuelve a publicar la cuenta con la reserva liberada
+    @Bean(destroyMethod = "close")
+    public BalanceStreamBus balanceStreamBus(BalanceEngine balanceEngine, AccountRepository accountRepository,
+                                             MeterRegistry meterRegistry) {
+        BalanceStreamBus bus = new BalanceStreamBus(accountId -> balanceEngine.currentBalance(accountId)
+                .or(() -> accountRepository.findBalanceById(accountId)));
+        Gauge.builder("bank.balance.stream.subscribers", bus, BalanceStreamBus::subscribers).register(meterRegistry);
+        FunctionCounter.builder("bank.balance.stream.delivered", bus, BalanceStreamBus::delivered).register(meterRegistry);
+        FunctionCounter.builder("bank.balance.stream.conflated", bus, BalanceStreamBus::conflated).register(meterRegistry);
+        return bus;
+    }
+}
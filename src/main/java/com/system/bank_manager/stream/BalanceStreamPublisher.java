@@ -0,0 +1,32 @@
+package com.system.bank_manager.stream;
+
+import com.system.bank_manager.event.BalanceChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Lleva al stream de saldos las cuentas cuyo saldo cambió cuando termina la transacción,
+ * tanto si confirma como si se revierte. Con el motor en memoria, el saldo que se envía
+ * tras un commit puede incluir débitos reservados por transacciones todavía en curso;
+ * si alguna se revierte, su aviso manda el saldo ya liberado y el cliente no se queda
+ * con uno que nunca se confirmó. Los oyentes corren después de que el motor abone
+ * (afterCommit) o libere (afterCompletion), así que ven el saldo final.
+ *
+ * El despacho es asíncrono, así que el hilo que termina la transacción no espera a
+ * ningún suscriptor.
+ */
+@Component
+public class BalanceStreamPublisher {
+
+    private final BalanceStreamBus balanceStreamBus;
+
+    public BalanceStreamPublisher(BalanceStreamBus balanceStreamBus) {
+        this.balanceStreamBus = balanceStreamBus;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        balanceStreamBus.changed(event.accountIds());
+    }
+}
@@ -0,0 +1,105 @@
+package com.system.bank_manager.uniqueness;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Filtro de Bloom sobre cadenas, seguro entre hilos sin locks: cada bit se pone con un
+ * OR atómico sobre su palabra (una sola instrucción, sin bucle de compareAndSet). Un "no" es definitivo; un "quizá" se confirma en la base.
+ *
+ * Es un filtro por bloques: los k bits de una clave caen en el mismo bloque de 512 bits
+ * (una línea de caché), así que añadir o consultar cuesta un fallo de caché y no k. A
+ * cambio reparte algo peor los bits, y se compensa con un 10% más de memoria que el
+ * filtro clásico para la misma tasa de falsos positivos.
+ */
+public final class BloomFilter {
+
+    // 8 palabras de 64 bits: 512 bits por bloque
+    private static final int BLOCK_WORDS = 8;
+    private static final int BLOCK_BITS = BLOCK_WORDS * Long.SIZE;
+    private static final double BLOCKING_OVERHEAD = 1.1;
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+    private final int blocks;
+    private final int hashes;
+    private final long capacity;
+
+    // Dimensionado para capacity claves con la tasa de falsos positivos indicada
+    public BloomFilter(long capacity, double falsePositiveRate) {
+        if (capacity < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Capacidad mayor a 0 y tasa de falsos positivos entre 0 y 1");
+        }
+        double optimalBits = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.blocks = Math.toIntExact(Math.max(1, (long) Math.ceil(optimalBits * BLOCKING_OVERHEAD / BLOCK_BITS)));
+        this.words = new long[blocks * BLOCK_WORDS];
+        // k óptimo del filtro clásico, sin contar el margen por bloques
+        this.hashes = Math.max(1, (int) Math.round(optimalBits / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    public void add(String key) {
+        long hash = hash(key);
+        int base = block(hash);
+        long h1 = mix(hash ^ 0x9E3779B97F4A7C15L);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) ((h1 + i * h2) >>> (Long.SIZE - 9));
+            int word = base + (bit >>> 6);
+            long mask = 1L << bit;
+            if (((long) WORDS.getOpaque(words, word) & mask) == 0) {
+                WORDS.getAndBitwiseOr(words, word, mask);
+            }
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        int base = block(hash);
+        long h1 = mix(hash ^ 0x9E3779B97F4A7C15L);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) ((h1 + i * h2) >>> (Long.SIZE - 9));
+            if (((long) WORDS.getOpaque(words, base + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+
+    public long memoryBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    // Primera palabra del bloque de la clave
+    private int block(long hash) {
+        return (int) Long.remainderUnsigned(hash, blocks) * BLOCK_WORDS;
+    }
+
+    // FNV-1a de 64 bits sobre los caracteres (sin copiar la cadena a bytes) y el finalizador de MurmurHash3
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,150 @@
+package com.system.bank_manager.uniqueness;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Un filtro de Bloom por espacio de claves, construido en segundo plano al arrancar con
+ * un recorrido por bloques de la tabla. Hasta que termina, toda clave "puede existir" y
+ * se consulta la base como antes.
+ *
+ * Las altas se añaden al filtro en vivo (y al que se esté reconstruyendo). Las bajas no se
+ * pueden quitar de un filtro de Bloom: sus bits siguen puestos y solo suben los falsos
+ * positivos, así que se cuentan y, cuando pasan de una fracción de las claves, o cuando
+ * las claves superan la capacidad, el filtro se reconstruye desde la tabla.
+ */
+public class BloomUniqueKeyFilter implements UniqueKeyFilter, ApplicationListener<ApplicationReadyEvent>, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BloomUniqueKeyFilter.class);
+    // Fracción de claves borradas a partir de la cual compensa reconstruir
+    private static final double REBUILD_REMOVED_RATIO = 0.2;
+
+    private final Map<KeySpace, Slot> slots = new EnumMap<>(KeySpace.class);
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bloom-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // scans: recorrido completo de las claves existentes de cada espacio
+    public BloomUniqueKeyFilter(Map<KeySpace, Consumer<Consumer<String>>> scans, long expectedKeys, double falsePositiveRate) {
+        if (expectedKeys < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Claves esperadas mayor a 0 y tasa de falsos positivos entre 0 y 1");
+        }
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        scans.forEach((space, scan) -> slots.put(space, new Slot(scan)));
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        slots.keySet().forEach(this::scheduleRebuild);
+    }
+
+    @Override
+    public boolean mightExist(KeySpace space, String key) {
+        Slot slot = slots.get(space);
+        return !slot.ready || slot.filter.mightContain(key);
+    }
+
+    @Override
+    public void added(KeySpace space, String key) {
+        Slot slot = slots.get(space);
+        slot.filter.add(key);
+        BloomFilter next = slot.next;
+        if (next != null) {
+            next.add(key);
+        }
+        if (slot.ready && slot.keys.incrementAndGet() > slot.filter.capacity()) {
+            scheduleRebuild(space);
+        }
+    }
+
+    @Override
+    public void removed(KeySpace space) {
+        Slot slot = slots.get(space);
+        if (slot.ready && slot.removed.incrementAndGet() > slot.keys.get() * REBUILD_REMOVED_RATIO) {
+            scheduleRebuild(space);
+        }
+    }
+
+    // Reconstruye el filtro desde la tabla; las altas concurrentes van también al nuevo
+    public void rebuild(KeySpace space) {
+        Slot slot = slots.get(space);
+        slot.lock.lock();
+        try {
+            long started = System.nanoTime();
+            BloomFilter next = new BloomFilter(Math.max(expectedKeys, 2 * slot.keys.get()), falsePositiveRate);
+            slot.next = next;
+            long[] scanned = {0};
+            slot.scan.accept(key -> {
+                next.add(key);
+                scanned[0]++;
+            });
+            slot.filter = next;
+            slot.next = null;
+            // Aproximado: las altas que lleguen durante el recorrido pueden contarse o no
+            slot.keys.set(scanned[0]);
+            slot.removed.set(0);
+            slot.ready = true;
+            log.info("Filtro de Bloom de {}: {} claves en {} ms, {} KB, {} hashes", space, scanned[0],
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), next.memoryBytes() / 1024, next.hashes());
+        } finally {
+            slot.scheduled.set(false);
+            slot.lock.unlock();
+        }
+    }
+
+    public boolean isReady(KeySpace space) {
+        return slots.get(space).ready;
+    }
+
+    @Override
+    public void close() {
+        builder.shutdownNow();
+    }
+
+    private void scheduleRebuild(KeySpace space) {
+        if (!slots.get(space).scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        builder.execute(() -> {
+            try {
+                rebuild(space);
+            } catch (RuntimeException e) {
+                // Se sigue con el filtro anterior o, si nunca se construyó, consultando siempre la base
+                log.error("No se pudo construir el filtro de Bloom de {}", space, e);
+            }
+        });
+    }
+
+    private static final class Slot {
+        private final Consumer<Consumer<String>> scan;
+        private final AtomicLong keys = new AtomicLong();
+        private final AtomicLong removed = new AtomicLong();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final ReentrantLock lock = new ReentrantLock();
+        // Hasta el primer recorrido no se usa: mightExist responde siempre que sí
+        private volatile BloomFilter filter = new BloomFilter(1, 0.5);
+        private volatile BloomFilter next;
+        private volatile boolean ready;
+
+        private Slot(Consumer<Consumer<String>> scan) {
+            this.scan = scan;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.system.bank_manager.uniqueness;
+
+// Sin filtro: toda clave puede existir y se consulta siempre la base
+class DisabledUniqueKeyFilter implements UniqueKeyFilter {
+
+    @Override
+    public boolean mightExist(KeySpace space, String key) {
+        return true;
+    }
+
+    @Override
+    public void added(KeySpace space, String key) {
+    }
+
+    @Override
+    public void removed(KeySpace space) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.system.bank_manager.uniqueness;
+
+/**
+ * Comprobación previa de unicidad de números de cuenta y DNIs. Si mightExist devuelve
+ * false la clave no está en la base y se puede omitir la consulta; si devuelve true hay
+ * que confirmarlo. La restricción única de la tabla sigue siendo la última defensa.
+ */
+public interface UniqueKeyFilter {
+
+    enum KeySpace {
+        ACCOUNT_NUMBER,
+        DNI
+    }
+
+    boolean mightExist(KeySpace space, String key);
+
+    // Clave insertada (o que pasa a existir por una actualización)
+    void added(KeySpace space, String key);
+
+    // Clave borrada: un filtro de Bloom no puede quitarla, solo tenerla en cuenta para reconstruirse
+    void removed(KeySpace space);
+}
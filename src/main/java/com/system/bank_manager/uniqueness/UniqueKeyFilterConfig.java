@@ -0,0 +1,29 @@
+package com.system.bank_manager.uniqueness;
+
+import com.system.bank_manager.repository.AccountJdbcRepository;
+import com.system.bank_manager.repository.UserJdbcRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+@Configuration
+public class UniqueKeyFilterConfig {
+
+    @Bean
+    public UniqueKeyFilter uniqueKeyFilter(
+            @Value("${bank.uniqueness.bloom.enabled:true}") boolean enabled,
+            @Value("${bank.uniqueness.bloom.expected-keys:1000000}") long expectedKeys,
+            @Value("${bank.uniqueness.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+            AccountJdbcRepository accountJdbcRepository,
+            UserJdbcRepository userJdbcRepository) {
+        if (!enabled) {
+            return new DisabledUniqueKeyFilter();
+        }
+        return new BloomUniqueKeyFilter(Map.of(
+                UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER, accountJdbcRepository::forEachAccountNumber,
+                UniqueKeyFilter.KeySpace.DNI, userJdbcRepository::forEachDni),
+                expectedKeys, falsePositiveRate);
+    }
+}
@@ -0,0 +1,41 @@
+package com.system.bank_manager.wal;
+
+import com.system.bank_manager.entity.Transaction;
+
+// WAL usado fuera del modo WAL: cada movimiento se confirma en su propia transacción de base de datos
+class DisabledTransactionWal implements TransactionWal {
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public long append(Transaction transaction) {
+        throw disabled();
+    }
+
+    @Override
+    public long appendTransfer(Transaction withdrawal, Transaction deposit) {
+        throw disabled();
+    }
+
+    @Override
+    public void awaitDurable(long sequence) {
+        throw disabled();
+    }
+
+    @Override
+    public long durableSequence() {
+        throw disabled();
+    }
+
+    @Override
+    public void applyPending() {
+        // Sin WAL cada movimiento ya está en la base de datos
+    }
+
+    private IllegalStateException disabled() {
+        return new IllegalStateException("El WAL de movimientos no está habilitado");
+    }
+}
@@ -0,0 +1,381 @@
+package com.system.bank_manager.wal;
+
+import com.system.bank_manager.entity.Account;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.entity.WalCheckpoint;
+import com.system.bank_manager.entity.WalRejectedEntry;
+import com.system.bank_manager.ledger.LedgerEvent;
+import com.system.bank_manager.ledger.LedgerLog;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.persistence.IdBlockAllocator;
+import com.system.bank_manager.repository.AccountJdbcRepository;
+import com.system.bank_manager.repository.AccountSummaryJdbcRepository;
+import com.system.bank_manager.repository.TransactionJdbcRepository;
+import com.system.bank_manager.repository.WalCheckpointRepository;
+import com.system.bank_manager.repository.WalRejectedEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * WAL de movimientos sobre un LedgerLog con group commit: los anexos concurrentes de
+ * una misma ventana comparten un fsync, y cada llamador espera solo a que su evento
+ * esté en disco.
+ *
+ * Un hilo aplicador lleva lo ya durable a la base de datos cada applyIntervalMillis:
+ * en una sola transacción inserta las filas de transactions, suma las variaciones de
+ * saldo en accounts y avanza wal_checkpoints. Como el checkpoint se confirma junto con
+ * los datos, al arrancar basta con reproducir los eventos posteriores a él para que
+ * ambas tablas recojan todo lo que se respondió antes de una caída, sin duplicar nada.
+ * Los segmentos ya aplicados se borran.
+ *
+ * Un evento que la base de datos rechaza (p. ej. la cuenta se borró con movimientos
+ * todavía pendientes) no se reintenta para siempre: se aplican las patas cuyas cuentas
+ * siguen existiendo, el resto queda en wal_rejected_entries y la cola sigue avanzando.
+ */
+public class GroupCommitTransactionWal implements TransactionWal, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitTransactionWal.class);
+    private static final String SEQUENCE = "transactions_seq";
+    private static final int REASON_LENGTH = 500;
+
+    private final LedgerLog ledger;
+    private final IdBlockAllocator idBlockAllocator;
+    private final TransactionJdbcRepository transactionJdbcRepository;
+    private final AccountJdbcRepository accountJdbcRepository;
+    private final AccountSummaryJdbcRepository accountSummaryJdbcRepository;
+    private final WalCheckpointRepository checkpointRepository;
+    private final WalRejectedEntryRepository rejectedEntryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long applyIntervalMillis;
+    // Anexados y aún no aplicados, en orden de secuencia
+    private final ArrayDeque<LedgerEvent> pending = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // Un solo lote en vuelo: dos aplicadores a la vez insertarían dos veces la misma cabeza
+    private final ReentrantLock applyLock = new ReentrantLock();
+    private final Thread applier;
+    private volatile boolean running = true;
+
+    public GroupCommitTransactionWal(LedgerLog ledger, IdBlockAllocator idBlockAllocator,
+                                     TransactionJdbcRepository transactionJdbcRepository,
+                                     AccountJdbcRepository accountJdbcRepository,
+                                     AccountSummaryJdbcRepository accountSummaryJdbcRepository,
+                                     WalCheckpointRepository checkpointRepository,
+                                     WalRejectedEntryRepository rejectedEntryRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     int batchSize, long applyIntervalMillis) {
+        if (batchSize < 1 || applyIntervalMillis < 1) {
+            throw new IllegalArgumentException("Tamaño de lote e intervalo de aplicación deben ser mayores a 0");
+        }
+        this.ledger = ledger;
+        this.idBlockAllocator = idBlockAllocator;
+        this.transactionJdbcRepository = transactionJdbcRepository;
+        this.accountJdbcRepository = accountJdbcRepository;
+        this.accountSummaryJdbcRepository = accountSummaryJdbcRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.rejectedEntryRepository = rejectedEntryRepository;
+        // Cada lote se confirma o se deshace por su cuenta, aunque applyPending llegue desde la
+        // transacción de un servicio
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager(), transactionTemplate);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.applyIntervalMillis = applyIntervalMillis;
+        recover();
+
+        applier = new Thread(this::applyLoop, "wal-applier");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public long append(Transaction transaction) {
+        LedgerEvent.Type type = switch (transaction.getType()) {
+            case DEPOSIT -> LedgerEvent.Type.DEPOSIT;
+            case WITHDRAWAL -> LedgerEvent.Type.WITHDRAWAL;
+            default -> throw new IllegalArgumentException("Tipo de transacción no válido: " + transaction.getType());
+        };
+        transaction.setId(idBlockAllocator.allocate(SEQUENCE, 1)[0]);
+        return append(new LedgerEvent(0, type, transaction.getAccount().getId(), 0,
+                transaction.getAmount().cents(), transaction.getId(), 0, toNanos(transaction.getDate())));
+    }
+
+    @Override
+    public long appendTransfer(Transaction withdrawal, Transaction deposit) {
+        long[] ids = idBlockAllocator.allocate(SEQUENCE, 2);
+        withdrawal.setId(ids[0]);
+        deposit.setId(ids[1]);
+        // El asiento es el ID del débito, como en TransactionJdbcRepository.batchInsertEntries
+        withdrawal.setEntryId(ids[0]);
+        deposit.setEntryId(ids[0]);
+        return append(new LedgerEvent(0, LedgerEvent.Type.TRANSFER, withdrawal.getAccount().getId(),
+                deposit.getAccount().getId(), withdrawal.getAmount().cents(), ids[0], ids[1],
+                toNanos(withdrawal.getDate())));
+    }
+
+    @Override
+    public void awaitDurable(long sequence) {
+        ledger.awaitDurable(sequence);
+    }
+
+    @Override
+    public long durableSequence() {
+        return ledger.durableSequence();
+    }
+
+    @Override
+    public void applyPending() {
+        ledger.awaitDurable(ledger.lastSequence());
+        applyDurable();
+    }
+
+    // Lleva a la base de datos todo lo que ya está en disco; devuelve cuántos eventos aplicó
+    public int applyDurable() {
+        applyLock.lock();
+        try {
+            return applyDurableLocked();
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    private int applyDurableLocked() {
+        int applied = 0;
+        while (true) {
+            long durable = ledger.durableSequence();
+            List<LedgerEvent> batch = new ArrayList<>();
+            lock.lock();
+            try {
+                for (LedgerEvent event : pending) {
+                    if (event.sequence() > durable || batch.size() == batchSize) {
+                        break;
+                    }
+                    batch.add(event);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (batch.isEmpty()) {
+                return applied;
+            }
+            apply(batch);
+            // Solo el aplicador quita de la cabeza; los anexos entran por la cola
+            lock.lock();
+            try {
+                for (int i = 0; i < batch.size(); i++) {
+                    pending.poll();
+                }
+            } finally {
+                lock.unlock();
+            }
+            ledger.deleteSegmentsUpTo(batch.get(batch.size() - 1).sequence());
+            applied += batch.size();
+        }
+    }
+
+    // Al apagar: lo anexado se sincroniza al cerrar el log y se aplica antes de soltar la base de datos
+    @Override
+    public void close() {
+        // unpark y no interrupt: interrumpir al aplicador a mitad de un lote cerraría canales de H2
+        running = false;
+        LockSupport.unpark(applier);
+        try {
+            applier.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ledger.close();
+        applyDurable();
+    }
+
+    private long append(LedgerEvent event) {
+        // El lock mantiene pending en el mismo orden que las secuencias del log
+        lock.lock();
+        try {
+            long sequence = ledger.append(event.type(), event.accountId(), event.counterpartyId(),
+                    event.amountCents(), event.transactionId(), event.counterTransactionId(), event.timestampNanos());
+            pending.add(new LedgerEvent(sequence, event.type(), event.accountId(), event.counterpartyId(),
+                    event.amountCents(), event.transactionId(), event.counterTransactionId(), event.timestampNanos()));
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void applyLoop() {
+        while (running) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(applyIntervalMillis));
+            if (!running) {
+                return;
+            }
+            try {
+                applyDurable();
+            } catch (RuntimeException e) {
+                // Los eventos siguen pendientes y se reintentan en el próximo ciclo
+                log.error("No se pudo aplicar el WAL de movimientos a la base de datos", e);
+            }
+        }
+    }
+
+    private void recover() {
+        long started = System.nanoTime();
+        long checkpoint = checkpoint();
+        if (ledger.lastSequence() < checkpoint) {
+            throw new IllegalStateException("El WAL termina en la secuencia " + ledger.lastSequence()
+                    + " pero la base de datos ya aplicó hasta la " + checkpoint);
+        }
+        List<LedgerEvent> batch = new ArrayList<>(batchSize);
+        long replayed = ledger.replay(checkpoint, event -> {
+            batch.add(event);
+            if (batch.size() == batchSize) {
+                apply(batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            apply(batch);
+        }
+        ledger.deleteSegmentsUpTo(ledger.lastSequence());
+        log.info("WAL de movimientos: {} eventos posteriores al checkpoint {} aplicados en {} ms",
+                replayed, checkpoint, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private long checkpoint() {
+        return checkpointRepository.findById(WalCheckpoint.ID)
+                .map(WalCheckpoint::getSequence)
+                .orElse(0L);
+    }
+
+    /*
+     * Filas, saldos y checkpoint en una sola transacción: el lote se aplica entero o no
+     * se aplica. Si la base de datos lo rechaza (una cuenta borrada con movimientos aún
+     * pendientes rompe la FK), se aplica de a un evento para aislar el que falla.
+     */
+    private void apply(List<LedgerEvent> events) {
+        List<Transaction> rows = rows(events);
+        long last = events.get(events.size() - 1).sequence();
+        try {
+            write(rows, List.of(), last);
+        } catch (DataIntegrityViolationException e) {
+            if (events.size() == 1) {
+                reject(events.get(0), rows, e);
+                return;
+            }
+            for (LedgerEvent event : events) {
+                apply(List.of(event));
+            }
+        }
+    }
+
+    // Un evento rechazado no puede frenar la cola: las patas cuya cuenta sigue existiendo se
+    // aplican y el resto queda en wal_rejected_entries, y el checkpoint avanza igual
+    private void reject(LedgerEvent event, List<Transaction> rows, DataIntegrityViolationException cause) {
+        Set<Long> existing = accountJdbcRepository.findExistingIds(
+                rows.stream().map(row -> row.getAccount().getId()).collect(Collectors.toSet()));
+        List<Transaction> kept = new ArrayList<>(rows.size());
+        List<Transaction> dropped = new ArrayList<>(rows.size());
+        for (Transaction row : rows) {
+            (existing.contains(row.getAccount().getId()) ? kept : dropped).add(row);
+        }
+        try {
+            write(kept, rejected(event, dropped, cause), event.sequence());
+        } catch (DataIntegrityViolationException e) {
+            write(List.of(), rejected(event, rows, e), event.sequence());
+        }
+        log.error("Evento {} del WAL de movimientos rechazado por la base de datos: {}",
+                event.sequence(), cause.getMostSpecificCause().getMessage());
+    }
+
+    private void write(List<Transaction> rows, List<WalRejectedEntry> rejected, long last) {
+        Map<Long, Money> deltas = new HashMap<>();
+        for (Transaction row : rows) {
+            Money delta = row.getType() == Transaction.TransactionType.DEPOSIT ? row.getAmount() : row.getAmount().negate();
+            deltas.merge(row.getAccount().getId(), delta, Money::plus);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!rows.isEmpty()) {
+                transactionJdbcRepository.insertAll(rows);
+                accountJdbcRepository.addToBalances(deltas);
+                accountSummaryJdbcRepository.apply(rows);
+            }
+            if (!rejected.isEmpty()) {
+                rejectedEntryRepository.saveAll(rejected);
+            }
+            checkpointRepository.save(new WalCheckpoint(WalCheckpoint.ID, last));
+        });
+    }
+
+    private static List<Transaction> rows(List<LedgerEvent> events) {
+        List<Transaction> rows = new ArrayList<>(events.size() * 2);
+        for (LedgerEvent event : events) {
+            Money amount = Money.ofCents(event.amountCents());
+            LocalDateTime date = toDate(event.timestampNanos());
+            switch (event.type()) {
+                case DEPOSIT -> rows.add(row(event.transactionId(), Transaction.TransactionType.DEPOSIT,
+                        event.accountId(), amount, date, null));
+                case WITHDRAWAL -> rows.add(row(event.transactionId(), Transaction.TransactionType.WITHDRAWAL,
+                        event.accountId(), amount, date, null));
+                case TRANSFER -> {
+                    rows.add(row(event.transactionId(), Transaction.TransactionType.WITHDRAWAL, event.accountId(),
+                            amount, date, event.transactionId()));
+                    rows.add(row(event.counterTransactionId(), Transaction.TransactionType.DEPOSIT, event.counterpartyId(),
+                            amount, date, event.transactionId()));
+                }
+                default -> throw new IllegalStateException("Evento inesperado en el WAL de movimientos: " + event.type());
+            }
+        }
+        return rows;
+    }
+
+    private static List<WalRejectedEntry> rejected(LedgerEvent event, List<Transaction> rows,
+                                                   DataIntegrityViolationException cause) {
+        String reason = String.valueOf(cause.getMostSpecificCause().getMessage());
+        if (reason.length() > REASON_LENGTH) {
+            reason = reason.substring(0, REASON_LENGTH);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<WalRejectedEntry> entries = new ArrayList<>(rows.size());
+        for (Transaction row : rows) {
+            entries.add(new WalRejectedEntry(row.getId(), event.sequence(), row.getAccount().getId(), row.getType(),
+                    row.getAmount(), row.getDate(), row.getEntryId(), reason, now));
+        }
+        return entries;
+    }
+
+    private static Transaction row(long id, Transaction.TransactionType type, long accountId, Money amount,
+                                  LocalDateTime date, Long entryId) {
+        Account account = new Account();
+        account.setId(accountId);
+        return new Transaction(id, amount, type, date, account, entryId);
+    }
+
+    // La fecha viaja como nanosegundos desde la época, tomando la hora local tal cual (sin zona)
+    private static long toNanos(LocalDateTime date) {
+        return TimeUnit.SECONDS.toNanos(date.toEpochSecond(ZoneOffset.UTC)) + date.getNano();
+    }
+
+    private static LocalDateTime toDate(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
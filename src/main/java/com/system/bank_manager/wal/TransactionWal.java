@@ -0,0 +1,31 @@
+package com.system.bank_manager.wal;
+
+import com.system.bank_manager.entity.Transaction;
+
+/**
+ * Write-ahead log de movimientos (modo WAL). Cada depósito, retiro o transferencia se
+ * anexa como un evento que lleva los IDs y la fecha de las filas de transactions que
+ * produce, y el servicio responde solo después de awaitDurable. Las filas y los saldos
+ * llegan a la base de datos más tarde, en lotes aplicados desde el WAL.
+ */
+public interface TransactionWal {
+
+    // false fuera del modo WAL: el servicio confirma cada movimiento en la base de datos
+    boolean isEnabled();
+
+    // Asigna el ID a la transacción y la anexa; devuelve la secuencia que hay que esperar
+    long append(Transaction transaction);
+
+    // Las dos filas de una transferencia van en un único evento: llegan a disco juntas o ninguna
+    long appendTransfer(Transaction withdrawal, Transaction deposit);
+
+    // Bloquea hasta que el evento con esa secuencia, y todos los anteriores, está en disco
+    void awaitDurable(long sequence);
+
+    // Última secuencia en disco. Tras un fallo del log deja de avanzar: lo anexado por encima no se aplicará
+    long durableSequence();
+
+    // Lleva a la base de datos todo lo anexado hasta ahora. Se llama antes de borrar una cuenta
+    // o un usuario, para que sus movimientos pendientes no lleguen después de la baja
+    void applyPending();
+}
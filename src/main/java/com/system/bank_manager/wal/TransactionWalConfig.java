@@ -0,0 +1,45 @@
+package com.system.bank_manager.wal;
+
+import com.system.bank_manager.engine.ExecutionMode;
+import com.system.bank_manager.ledger.LedgerLog;
+import com.system.bank_manager.persistence.IdBlockAllocator;
+import com.system.bank_manager.repository.AccountJdbcRepository;
+import com.system.bank_manager.repository.AccountSummaryJdbcRepository;
+import com.system.bank_manager.repository.TransactionJdbcRepository;
+import com.system.bank_manager.repository.WalCheckpointRepository;
+import com.system.bank_manager.repository.WalRejectedEntryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+
+@Configuration
+public class TransactionWalConfig {
+
+    @Bean
+    public TransactionWal transactionWal(
+            @Value("${bank.execution.mode:JPA}") ExecutionMode mode,
+            @Value("${bank.wal.directory:data/wal}") Path directory,
+            @Value("${bank.wal.segment-bytes:67108864}") long segmentBytes,
+            @Value("${bank.wal.group-commit-micros:1000}") long groupCommitMicros,
+            @Value("${bank.wal.apply-interval-ms:100}") long applyIntervalMillis,
+            @Value("${bank.wal.apply-batch-size:5000}") int batchSize,
+            IdBlockAllocator idBlockAllocator,
+            TransactionJdbcRepository transactionJdbcRepository,
+            AccountJdbcRepository accountJdbcRepository,
+            AccountSummaryJdbcRepository accountSummaryJdbcRepository,
+            WalCheckpointRepository checkpointRepository,
+            WalRejectedEntryRepository rejectedEntryRepository,
+            PlatformTransactionManager transactionManager) {
+        if (mode != ExecutionMode.WAL) {
+            return new DisabledTransactionWal();
+        }
+        return new GroupCommitTransactionWal(new LedgerLog(directory, segmentBytes, true, groupCommitMicros),
+                idBlockAllocator, transactionJdbcRepository, accountJdbcRepository, accountSummaryJdbcRepository,
+                checkpointRepository, rejectedEntryRepository,
+                new TransactionTemplate(transactionManager), batchSize, applyIntervalMillis);
+    }
+}
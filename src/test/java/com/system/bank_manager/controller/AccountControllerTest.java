@@ -5,7 +5,10 @@ import com.system.bank_manager.dto.request.AccountRequestDTO;
 import com.system.bank_manager.dto.response.AccountResponseDTO;
 import com.system.bank_manager.exception.DuplicateAccountException;
 import com.system.bank_manager.exception.GlobalExceptionHandler;
+import com.system.bank_manager.metrics.MetricsConfig;
+import com.system.bank_manager.money.Money;
 import com.system.bank_manager.service.AccountService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,8 +19,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import java.math.BigDecimal;
-
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -36,10 +38,13 @@ class AccountControllerTest {
 
     private ObjectMapper objectMapper;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
         mockMvc = MockMvcBuilders.standaloneSetup(accountController)
-                .setControllerAdvice(new GlobalExceptionHandler())
+                .setControllerAdvice(new GlobalExceptionHandler(meterRegistry))
                 .build();
         objectMapper = new ObjectMapper();
     }
@@ -48,8 +53,8 @@ class AccountControllerTest {
     @Test
     void createAccount_whenValidRequest_returnsCreatedAccount() throws Exception {
         // 1
-        AccountRequestDTO request = new AccountRequestDTO("1234567890", BigDecimal.valueOf(5000), 1L);
-        AccountResponseDTO response = new AccountResponseDTO(1L, "1234567890", BigDecimal.valueOf(5000), 1L);
+        AccountRequestDTO request = new AccountRequestDTO("1234567890", Money.of("5000"), 1L);
+        AccountResponseDTO response = new AccountResponseDTO(1L, "1234567890", Money.of("5000"), 1L);
         //2
         when(accountService.createAccount(any(AccountRequestDTO.class)))
                 .thenReturn(response);
@@ -73,7 +78,7 @@ class AccountControllerTest {
     @Test
     void createAccount_whenDuplicateAccount_returnsConflict() throws Exception {
         // 1
-        AccountRequestDTO request = new AccountRequestDTO("1234567890", BigDecimal.valueOf(5000), 1L);
+        AccountRequestDTO request = new AccountRequestDTO("1234567890", Money.of("5000"), 1L);
         // 2
         when(accountService.createAccount(any(AccountRequestDTO.class)))
                 .thenThrow(new DuplicateAccountException("Ya existe una cuenta con este número: 1234567890"));
@@ -89,6 +94,8 @@ class AccountControllerTest {
 
         // 5
         verify(accountService, times(1)).createAccount(any(AccountRequestDTO.class));
+        assertEquals(1.0, meterRegistry.counter(MetricsConfig.EXCEPTIONS_COUNTER,
+                "exception", "DuplicateAccountException").count());
     }
 }
 
@@ -0,0 +1,138 @@
+package com.system.bank_manager.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuesto de sentencias SQL por endpoint. Con 5 usuarios, 20 cuentas y unas 200
+ * transacciones, una carga perezosa por fila superaría el presupuesto con holgura.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Endpoints de listado - Presupuesto de sentencias SQL")
+class QueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private QueryCounter queryCounter;
+
+    @BeforeAll
+    void seed() {
+        // 5 usuarios con 4 cuentas cada uno y 10 movimientos por cuenta
+        jdbcTemplate.update("INSERT INTO users (id, dni, name, email, password) "
+                + "SELECT X, 'DNI' || X, 'Usuario ' || X, 'u' || X || '@bank.com', 'x' FROM SYSTEM_RANGE(1, 5)");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, user_id, created_at) "
+                + "SELECT X, 'ACC' || X, 1000, MOD(X, 5) + 1, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, 20)");
+        jdbcTemplate.update("INSERT INTO transactions (id, amount, type, date, account_id) "
+                + "SELECT X, 10, 'DEPOSIT', DATEADD('MINUTE', X, TIMESTAMP '2025-01-01 00:00:00'), MOD(X, 20) + 1 "
+                + "FROM SYSTEM_RANGE(1, 200)");
+        // Una transferencia de la cuenta 1 a la 2: débito y abono con el mismo entry_id
+        jdbcTemplate.update("INSERT INTO transactions (id, amount, type, date, account_id, entry_id) VALUES "
+                + "(201, 25, 'WITHDRAWAL', TIMESTAMP '2025-02-01 00:00:00', 1, 201), "
+                + "(202, 25, 'DEPOSIT', TIMESTAMP '2025-02-01 00:00:00', 2, 201)");
+        queryCounter = new QueryCounter(entityManagerFactory);
+    }
+
+    @BeforeEach
+    void resetCounter() {
+        queryCounter.reset();
+    }
+
+    // TEST 1: listado de cuentas sin cargar el usuario de cada una
+    @Test
+    @DisplayName("GET /accounts - Debería ejecutar como máximo 1 sentencia")
+    void getAllAccounts_WithinBudget() throws Exception {
+        mockMvc.perform(get("/accounts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(20))
+                .andExpect(jsonPath("$[0].userId").exists());
+
+        queryCounter.assertAtMost(1, "GET /accounts");
+    }
+
+    // TEST 2: listado de usuarios
+    @Test
+    @DisplayName("GET /users - Debería ejecutar como máximo 1 sentencia")
+    void getAllUsers_WithinBudget() throws Exception {
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5));
+
+        queryCounter.assertAtMost(1, "GET /users");
+    }
+
+    // TEST 3: página de transacciones sin cargar la cuenta de cada una
+    @Test
+    @DisplayName("GET /transactions - Debería ejecutar como máximo 1 sentencia")
+    void getAllTransactions_WithinBudget() throws Exception {
+        mockMvc.perform(get("/transactions").param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(100))
+                .andExpect(jsonPath("$.items[0].accountId").exists());
+
+        queryCounter.assertAtMost(1, "GET /transactions");
+    }
+
+    // TEST 4: página de transacciones de una cuenta
+    @Test
+    @DisplayName("GET /transactions/accounts/{id} - Debería ejecutar como máximo 1 sentencia")
+    void getTransactionsByAccountId_WithinBudget() throws Exception {
+        mockMvc.perform(get("/transactions/accounts/3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(10));
+
+        queryCounter.assertAtMost(1, "GET /transactions/accounts/{id}");
+    }
+
+    // TEST 5: asiento de una transferencia: ambas patas por el índice de entry_id
+    @Test
+    @DisplayName("GET /transactions/entries/{id} - Debería ejecutar como máximo 1 sentencia")
+    void getJournalEntry_WithinBudget() throws Exception {
+        mockMvc.perform(get("/transactions/entries/201"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.debit.accountId").value(1))
+                .andExpect(jsonPath("$.credit.accountId").value(2))
+                .andExpect(jsonPath("$.credit.entryId").value(201));
+
+        queryCounter.assertAtMost(1, "GET /transactions/entries/{id}");
+    }
+
+    // TEST 6: extracto: existencia, dos snapshots, saldo actual, deltas y movimientos, sin importar cuántos haya
+    @Test
+    @DisplayName("GET /accounts/{id}/statement - Debería ejecutar como máximo 6 sentencias")
+    void getStatement_WithinBudget() throws Exception {
+        mockMvc.perform(get("/accounts/3/statement")
+                        .param("from", "2025-01-01")
+                        .param("to", "2025-01-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(10));
+
+        queryCounter.assertAtMost(6, "GET /accounts/{id}/statement");
+    }
+}
@@ -0,0 +1,35 @@
+package com.system.bank_manager.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cuenta las sentencias SQL que prepara Hibernate a partir de sus estadísticas
+ * (requiere hibernate.generate_statistics=true). Se reinicia antes de la petición y
+ * se compara después contra el presupuesto del endpoint.
+ */
+class QueryCounter {
+
+    private final Statistics statistics;
+
+    QueryCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    void reset() {
+        statistics.clear();
+    }
+
+    long count() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    void assertAtMost(long budget, String endpoint) {
+        long executed = count();
+        assertTrue(executed <= budget,
+                endpoint + " ejecutó " + executed + " sentencias SQL; el presupuesto es " + budget);
+    }
+}
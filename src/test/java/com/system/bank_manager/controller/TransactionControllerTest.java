@@ -1,9 +1,15 @@
 package com.system.bank_manager.controller;
 
 import com.system.bank_manager.dto.request.TransactionRequestDTO;
+import com.system.bank_manager.dto.request.TransferRequestDTO;
 import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.dto.response.TransferResultDTO;
+import com.system.bank_manager.dto.response.TransferStatusDTO;
 import com.system.bank_manager.entity.Transaction;
 import com.system.bank_manager.exception.InsufficientFundsException;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.service.AsyncTransferService;
+import com.system.bank_manager.service.IdempotencyService;
 import com.system.bank_manager.service.TransactionService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,10 +19,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +33,12 @@ class TransactionControllerDepositTest {
     @Mock
     private TransactionService transactionService;
 
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private AsyncTransferService asyncTransferService;
+
     @InjectMocks
     private TransactionController transactionController;
 
@@ -35,24 +48,25 @@ class TransactionControllerDepositTest {
     void createTransaction_Deposit_Success() {
         // PASO 1: Crear request
         TransactionRequestDTO request = new TransactionRequestDTO(
-                new BigDecimal("1000.00"),
+                Money.of("1000.00"),
                 Transaction.TransactionType.DEPOSIT
         );
 
         // PASO 2: Crear respuesta esperada
         TransactionResponseDTO responseDTO = new TransactionResponseDTO(
                 1L,
-                new BigDecimal("1000.00"),
+                Money.of("1000.00"),
                 Transaction.TransactionType.DEPOSIT,
                 LocalDateTime.now(),
-                1L
+                1L,
+                null
         );
 
         // PASO 3: Configurar mock
         when(transactionService.createTransaction(1L, request)).thenReturn(responseDTO);
 
         // PASO 4: Ejecutar
-        ResponseEntity<TransactionResponseDTO> response = transactionController.createTransaction(1L, request);
+        ResponseEntity<TransactionResponseDTO> response = transactionController.createTransaction(1L, request, null);
 
         // PASO 5: Verificar resultados
         assertNotNull(response);
@@ -69,7 +83,7 @@ class TransactionControllerDepositTest {
     void createTransaction_Deposit_Fail() {
         // PASO 1: Crear request con monto negativo
         TransactionRequestDTO request = new TransactionRequestDTO(
-                new BigDecimal("-100.00"),
+                Money.of("-100.00"),
                 Transaction.TransactionType.DEPOSIT
         );
 
@@ -80,7 +94,7 @@ class TransactionControllerDepositTest {
         // PASO 3: Ejecutar y capturar excepción
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
-                () -> transactionController.createTransaction(1L, request)
+                () -> transactionController.createTransaction(1L, request, null)
         );
 
         // PASO 4: Verificar mensaje
@@ -89,5 +103,75 @@ class TransactionControllerDepositTest {
         // PASO 5: Verificar interacciones
         verify(transactionService).createTransaction(1L, request);
     }
-}
 
+    // ==================== TEST 3: Transferencias en lote ====================
+    @Test
+    @DisplayName("transferBatch - Debería devolver un resultado por cada transferencia")
+    void transferBatch_ReturnsResultPerItem() {
+        // PASO 1: Crear request
+        List<TransferRequestDTO> requests = List.of(
+                new TransferRequestDTO(Money.of("10.00"), 1L, 2L),
+                new TransferRequestDTO(Money.of("999.00"), 1L, 2L)
+        );
+        List<TransferResultDTO> results = List.of(
+                new TransferResultDTO(0, true, "Transferencia realizada con éxito"),
+                new TransferResultDTO(1, false, "Saldo insuficiente en la cuenta origen")
+        );
+
+        // PASO 2: Configurar mock
+        when(transactionService.transferBatch(requests)).thenReturn(results);
+
+        // PASO 3: Ejecutar
+        ResponseEntity<List<TransferResultDTO>> response = transactionController.transferBatch(requests);
+
+        // PASO 4: Verificar resultados
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(results, response.getBody());
+        verify(transactionService).transferBatch(requests);
+    }
+
+    // ==================== TEST 4: Depósito con Idempotency-Key ====================
+    @Test
+    @DisplayName("createTransaction - Con Idempotency-Key debería delegar en el servicio de idempotencia")
+    void createTransaction_WithIdempotencyKey() {
+        // PASO 1: Crear request y respuesta original
+        TransactionRequestDTO request = new TransactionRequestDTO(
+                Money.of("1000.00"),
+                Transaction.TransactionType.DEPOSIT
+        );
+        TransactionResponseDTO original = new TransactionResponseDTO(
+                1L, Money.of("1000.00"), Transaction.TransactionType.DEPOSIT, LocalDateTime.now(), 1L, null);
+
+        // PASO 2: Configurar mock (el reintento devuelve la respuesta guardada)
+        when(idempotencyService.execute(eq("abc-123"), anyString(), eq(TransactionResponseDTO.class), any()))
+                .thenReturn(original);
+
+        // PASO 3: Ejecutar
+        ResponseEntity<TransactionResponseDTO> response = transactionController.createTransaction(1L, request, "abc-123");
+
+        // PASO 4: Verificar que la operación no se ejecutó fuera del servicio de idempotencia
+        assertEquals(original, response.getBody());
+        verify(transactionService, never()).createTransaction(any(), any());
+    }
+
+    // ==================== TEST 5: Transferencia asíncrona ====================
+    @Test
+    @DisplayName("transferAsync - Debería responder 202 con el ID y la ubicación del estado")
+    void transferAsync_Accepted() {
+        // PASO 1: Crear request y estado inicial
+        TransferRequestDTO request = new TransferRequestDTO(Money.of("50.00"), 1L, 2L);
+        TransferStatusDTO pending = new TransferStatusDTO("t-1", TransferStatusDTO.Status.PENDING, null);
+
+        // PASO 2: Configurar mock
+        when(asyncTransferService.submit(request)).thenReturn(pending);
+
+        // PASO 3: Ejecutar
+        ResponseEntity<TransferStatusDTO> response = transactionController.transferAsync(request);
+
+        // PASO 4: Verificar que se aceptó sin aplicarse en el hilo de la petición
+        assertEquals(202, response.getStatusCodeValue());
+        assertEquals(pending, response.getBody());
+        assertEquals("/transactions/transfer/t-1", response.getHeaders().getLocation().toString());
+        verify(transactionService, never()).transferBetweenAccounts(any());
+    }
+}
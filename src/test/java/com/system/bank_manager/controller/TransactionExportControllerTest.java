@@ -0,0 +1,90 @@
+package com.system.bank_manager.controller;
+
+import com.system.bank_manager.exception.GlobalExceptionHandler;
+import com.system.bank_manager.service.TransactionExportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private TransactionExportService transactionExportService;
+
+    @InjectMocks
+    private TransactionExportController transactionExportController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(transactionExportController)
+                .setControllerAdvice(new GlobalExceptionHandler(new SimpleMeterRegistry()))
+                .build();
+    }
+
+    //  CASO EXITOSO
+    @Test
+    void exportTransactions_returnsGzipFileWithoutContentEncoding() throws Exception {
+        // 1
+        String ndjson = "{\"id\":1}\n{\"id\":2}\n";
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(3);
+            out.write(ndjson.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(transactionExportService).exportNdjson(isNull(), isNull(), isNull(), any(OutputStream.class));
+
+        // 2
+        MvcResult started = mockMvc.perform(get("/transactions/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // 3: el cuerpo es el fichero .gz tal cual, sin Content-Encoding que invite a descomprimirlo
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/gzip"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions.ndjson.gz\""))
+                .andReturn();
+
+        // 4
+        try (GZIPInputStream gzip = new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertEquals(ndjson, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    // CASO DE ERROR
+    @Test
+    void exportTransactions_whenRangeIsInverted_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/transactions/export")
+                        .param("from", "2025-01-02T00:00:00")
+                        .param("to", "2025-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(transactionExportService);
+    }
+}
@@ -0,0 +1,306 @@
+package com.system.bank_manager.engine;
+
+import com.system.bank_manager.exception.InsufficientFundsException;
+import com.system.bank_manager.ledger.LedgerLog;
+import com.system.bank_manager.ledger.LedgerSnapshotStore;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountRepository;
+import com.system.bank_manager.repository.TransactionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EventSourcedBalanceEngine - Tests Esenciales")
+class EventSourcedBalanceEngineTest {
+
+    // Cada segmento admite 10 registros
+    private static final long SEGMENT_BYTES = 61 * 10;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private BalanceWriteBehind writeBehind;
+
+    @TempDir
+    private Path directory;
+
+    private LedgerLog ledger;
+
+    private EventSourcedBalanceEngine open(long snapshotInterval) {
+        ledger = new LedgerLog(directory, SEGMENT_BYTES, false);
+        return new EventSourcedBalanceEngine(16, 4, snapshotInterval, ledger,
+                new LedgerSnapshotStore(directory), accountRepository, transactionRepository, writeBehind);
+    }
+
+    // Caída: el log queda como está, sin snapshot final
+    private void crash() {
+        ledger.close();
+    }
+
+    // Fin de la transacción de base de datos en la que se hicieron los movimientos
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    // TEST 1: el log es la fuente de verdad al arrancar
+    @Test
+    @DisplayName("constructor - Debería reconstruir los saldos desde el log sin leer la base de datos")
+    void restart_ReplaysLedger() {
+        // PASO 1: Movimientos sobre varias cuentas, repartidas entre particiones de reproducción
+        for (long id = 1; id <= 8; id++) {
+            when(accountRepository.findBalanceById(id)).thenReturn(Optional.of(Money.of("100.00")));
+        }
+        EventSourcedBalanceEngine engine = open(1_000_000);
+        for (long id = 1; id <= 8; id++) {
+            engine.deposit(id, Money.of("10.00"));
+            engine.transfer(id, id % 8 + 1, Money.of(id + ".00"));
+        }
+        engine.withdraw(3L, Money.of("0.50"));
+        engine.adjust(4L, Money.of("-1.25"));
+        assertThrows(InsufficientFundsException.class, () -> engine.withdraw(5L, Money.of("1000")));
+        List<Optional<Money>> before = Stream.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L).map(engine::currentBalance).toList();
+        crash();
+
+        // PASO 2: Rearrancar con una base de datos que ya no responde
+        reset(accountRepository, writeBehind);
+        EventSourcedBalanceEngine restarted = open(1_000_000);
+
+        // PASO 3: Mismos saldos, sin consultas, y marcados para escribirse en accounts
+        assertEquals(before, Stream.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L).map(restarted::currentBalance).toList());
+        assertEquals(Optional.of(Money.of("109.00")), restarted.currentBalance(2L));
+        verifyNoInteractions(accountRepository);
+        verify(writeBehind).markDirty(4L, before.get(3).orElseThrow());
+        restarted.close();
+    }
+
+    // 50 depósitos, snapshot, 25 depósitos, snapshot y 3 depósitos más antes de la caída
+    private void depositsAcrossTwoSnapshots() {
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("0.00")));
+        EventSourcedBalanceEngine engine = open(1_000_000);
+        for (int i = 0; i < 50; i++) {
+            engine.deposit(1L, Money.of("1.00"));
+        }
+        int segments = ledger.segmentCount();
+        assertTrue(segments > 1);
+
+        // El primer snapshot no tiene uno anterior al que volver: no se borra ningún segmento
+        engine.snapshot();
+        assertEquals(segments, ledger.segmentCount());
+        for (int i = 0; i < 25; i++) {
+            engine.deposit(1L, Money.of("1.00"));
+        }
+
+        // El segundo libera los segmentos que cubre el primero (eventos 1..51) y conserva el resto
+        engine.snapshot();
+        assertEquals(3, ledger.segmentCount());
+        for (int i = 0; i < 3; i++) {
+            engine.deposit(1L, Money.of("1.00"));
+        }
+        crash();
+    }
+
+    // TEST 2: el snapshot acota la reproducción y libera segmentos
+    @Test
+    @DisplayName("snapshot - Debería borrar los segmentos cubiertos por el snapshot anterior y reproducir solo la cola")
+    void snapshot_BoundsReplay() {
+        // PASO 1: Dos snapshots y una cola de 3 eventos
+        depositsAcrossTwoSnapshots();
+
+        // PASO 2: Los eventos previos ya no existen: el saldo sale del último snapshot más la cola
+        reset(writeBehind);
+        EventSourcedBalanceEngine restarted = open(1_000_000);
+        assertEquals(Optional.of(Money.of("78.00")), restarted.currentBalance(1L));
+        assertEquals(1 + 50 + 25 + 3, ledger.lastSequence());
+
+        // PASO 3: Se conservan los dos últimos snapshots
+        assertTrue(Files.exists(directory.resolve(String.format("%020d.snapshot", 51))));
+        assertTrue(Files.exists(directory.resolve(String.format("%020d.snapshot", 76))));
+        restarted.close();
+    }
+
+    // TEST 2b: snapshot dañado
+    @Test
+    @DisplayName("constructor - Debería volver al snapshot anterior si el último está dañado y reproducir desde él")
+    void restart_FallsBackToPreviousSnapshot() throws IOException {
+        // PASO 1: Dos snapshots y una cola de 3 eventos
+        depositsAcrossTwoSnapshots();
+
+        // PASO 2: El último snapshot se corrompe en disco
+        Path latest = directory.resolve(String.format("%020d.snapshot", 76));
+        byte[] bytes = Files.readAllBytes(latest);
+        bytes[bytes.length - 1] ^= 0x7F;
+        Files.write(latest, bytes);
+
+        // PASO 3: Arranca desde el snapshot 51 y los segmentos que le siguen, con el mismo saldo
+        reset(writeBehind);
+        EventSourcedBalanceEngine restarted = open(1_000_000);
+        assertEquals(Optional.of(Money.of("78.00")), restarted.currentBalance(1L));
+        restarted.close();
+    }
+
+    // TEST 3: escritura cortada al final del log
+    @Test
+    @DisplayName("constructor - Debería descartar un registro incompleto al final del último segmento")
+    void restart_TruncatesTornTail() throws IOException {
+        // PASO 1: Dos depósitos y medio registro de basura
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("10.00")));
+        EventSourcedBalanceEngine engine = open(1_000_000);
+        engine.deposit(1L, Money.of("1.00"));
+        engine.deposit(1L, Money.of("2.00"));
+        crash();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[20], StandardOpenOption.APPEND);
+
+        // PASO 2: Rearrancar y seguir escribiendo
+        EventSourcedBalanceEngine restarted = open(1_000_000);
+        assertEquals(Optional.of(Money.of("13.00")), restarted.currentBalance(1L));
+        restarted.deposit(1L, Money.of("4.00"));
+        crash();
+
+        // PASO 3: El nuevo evento quedó justo detrás del último válido
+        EventSourcedBalanceEngine again = open(1_000_000);
+        assertEquals(Optional.of(Money.of("17.00")), again.currentBalance(1L));
+        assertEquals(4, ledger.lastSequence());
+        again.close();
+    }
+
+    // TEST 4: desalojo
+    @Test
+    @DisplayName("evict - Debería olvidar la cuenta también tras rearrancar y volver a leerla de la base de datos")
+    void evict_SurvivesRestart() {
+        // PASO 1: Cargar, mover y desalojar
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("10.00")));
+        EventSourcedBalanceEngine engine = open(1_000_000);
+        engine.deposit(1L, Money.of("5.00"));
+        engine.evict(1L);
+        verify(writeBehind).discard(1L);
+        crash();
+
+        // PASO 2: Rearrancar: la cuenta no está en memoria ni se reescribe en accounts
+        reset(writeBehind);
+        EventSourcedBalanceEngine restarted = open(1_000_000);
+        assertEquals(Optional.empty(), restarted.currentBalance(1L));
+        verify(writeBehind, never()).markDirty(any(), any());
+
+        // PASO 3: El siguiente uso vuelve a partir de la base de datos
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("15.00")));
+        assertEquals(Money.of("16.00"), restarted.deposit(1L, Money.of("1.00")));
+        restarted.close();
+    }
+
+    // TEST 5: caída con transacciones sin terminar
+    @Test
+    @DisplayName("constructor - Debería reproducir los movimientos en vuelo cuya fila existe y descartar el resto")
+    void restart_ResolvesMovementsOfUnfinishedTransactions() {
+        // PASO 1: Un depósito fuera de transacción y dos dentro de transacciones que no llegan a terminar en
+        // memoria, uno anterior al snapshot y otro posterior
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("10.00")));
+        EventSourcedBalanceEngine engine = open(1_000_000);
+        engine.deposit(1L, Money.of("5.00"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals(Money.of("25.00"), engine.deposit(1L, Money.of("10.00"), 42L));
+            // El snapshot tomado en medio guarda el depósito en vuelo aparte de los saldos
+            engine.snapshot();
+            engine.deposit(1L, Money.of("7.00"), 43L);
+            crash();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // PASO 2: Rearrancar: la 42 confirmó antes de la caída y la 43 no
+        reset(writeBehind);
+        when(transactionRepository.findExistingIds(any())).thenReturn(List.of(42L));
+        EventSourcedBalanceEngine restarted = open(1_000_000);
+        assertEquals(Optional.of(Money.of("25.00")), restarted.currentBalance(1L));
+        verify(transactionRepository).findExistingIds(argThat(ids -> Set.copyOf(ids).equals(Set.of(42L, 43L))));
+        // La cuenta viene del snapshot y aun así se vuelve a escribir en accounts
+        verify(writeBehind).markDirty(1L, Money.of("25.00"));
+        restarted.close();
+    }
+
+    // TEST 6: confirmación y rollback
+    @Test
+    @DisplayName("transfer - Debería anexar antes de confirmar, abonar al confirmar y liberar el débito al hacer rollback")
+    void transaction_CommitCreditsAndRollbackReleases() {
+        // PASO 1: Una transferencia en una transacción que confirma
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("100.00")));
+        when(accountRepository.findBalanceById(2L)).thenReturn(Optional.of(Money.of("100.00")));
+        EventSourcedBalanceEngine engine = open(1_000_000);
+        TransactionSynchronizationManager.initSynchronization();
+        engine.transfer(1L, 2L, Money.of("30.00"), 100L);
+        // Ya está en el log; el débito está reservado y el abono todavía no se puede gastar
+        long appended = ledger.lastSequence();
+        assertEquals(Optional.of(Money.of("70.00")), engine.currentBalance(1L));
+        assertEquals(Optional.of(Money.of("100.00")), engine.currentBalance(2L));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(appended, ledger.lastSequence());
+        assertEquals(Optional.of(Money.of("130.00")), engine.currentBalance(2L));
+
+        // PASO 2: Un retiro en una transacción que hace rollback
+        TransactionSynchronizationManager.initSynchronization();
+        engine.withdraw(1L, Money.of("50.00"), 101L);
+        assertEquals(Optional.of(Money.of("20.00")), engine.currentBalance(1L));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // PASO 3: En memoria se deshizo una sola vez; el evento queda en el log pero no tiene fila
+        assertEquals(Optional.of(Money.of("70.00")), engine.currentBalance(1L));
+        assertEquals(appended + 1, ledger.lastSequence());
+        crash();
+        when(transactionRepository.findExistingIds(any())).thenReturn(List.of(100L));
+        EventSourcedBalanceEngine restarted = open(1_000_000);
+        assertEquals(Optional.of(Money.of("70.00")), restarted.currentBalance(1L));
+        assertEquals(Optional.of(Money.of("130.00")), restarted.currentBalance(2L));
+        restarted.close();
+    }
+
+    // TEST 7: un cambio confirmado que no llega al log
+    @Test
+    @DisplayName("evict - Si el desalojo no llega al log, el motor debería dejar de aceptar movimientos")
+    void evict_AppendFailureStopsMovements() {
+        // PASO 1: Cargar la cuenta y romper el log
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("10.00")));
+        EventSourcedBalanceEngine engine = open(1_000_000);
+        engine.deposit(1L, Money.of("5.00"));
+        ledger.close();
+
+        // PASO 2: El borrado ya confirmó, pero su evento no se puede anexar
+        assertThrows(IllegalStateException.class, () -> engine.evict(1L));
+
+        // PASO 3: Los movimientos se rechazan antes de tocar saldo ni log
+        IllegalStateException rejected = assertThrows(IllegalStateException.class,
+                () -> engine.deposit(2L, Money.of("1.00")));
+        assertTrue(rejected.getMessage().contains("no llegó al libro mayor"));
+        verify(accountRepository, never()).findBalanceById(2L);
+    }
+}
@@ -0,0 +1,199 @@
+package com.system.bank_manager.engine;
+
+import com.system.bank_manager.exception.InsufficientFundsException;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("PartitionedBalanceEngine - Tests Esenciales")
+class PartitionedBalanceEngineTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private BalanceWriteBehind writeBehind;
+
+    private PartitionedBalanceEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        // Con 4 particiones las cuentas 1 y 2 caen en particiones distintas
+        engine = new PartitionedBalanceEngine(4, 16, 5000, accountRepository, writeBehind);
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("1000.00")));
+        when(accountRepository.findBalanceById(2L)).thenReturn(Optional.of(Money.of("1000.00")));
+        when(accountRepository.findBalanceById(5L)).thenReturn(Optional.of(Money.of("10.00")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    // TEST 1: transferencia dentro de la misma partición
+    @Test
+    @DisplayName("transfer - Debería mover saldo entre cuentas de la misma partición")
+    void transfer_SamePartition() {
+        engine.transfer(1L, 5L, Money.of("100.00"));
+
+        assertEquals(Optional.of(Money.of("900.00")), engine.currentBalance(1L));
+        assertEquals(Optional.of(Money.of("110.00")), engine.currentBalance(5L));
+    }
+
+    // TEST 2: transferencia entre particiones en dos pasos
+    @Test
+    @DisplayName("transfer - Debería debitar en el origen y acreditar en la partición destino")
+    void transfer_CrossPartition() {
+        engine.transfer(1L, 2L, Money.of("100.00"));
+
+        assertEquals(Optional.of(Money.of("900.00")), engine.currentBalance(1L));
+        assertEquals(Optional.of(Money.of("1100.00")), engine.currentBalance(2L));
+    }
+
+    // TEST 3: fondos insuficientes no tocan ninguna cuenta
+    @Test
+    @DisplayName("transfer - Debería lanzar InsufficientFundsException sin modificar saldos")
+    void transfer_InsufficientFunds() {
+        assertThrows(InsufficientFundsException.class, () -> engine.transfer(5L, 2L, Money.of("10.01")));
+
+        assertEquals(Optional.of(Money.of("10.00")), engine.currentBalance(5L));
+        assertTrue(engine.currentBalance(2L).isEmpty());
+    }
+
+    // TEST 4: destino inexistente
+    @Test
+    @DisplayName("transfer - Debería lanzar EntityNotFoundException si la cuenta destino no existe")
+    void transfer_DestinationNotFound() {
+        when(accountRepository.findBalanceById(3L)).thenReturn(Optional.empty());
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> engine.transfer(1L, 3L, Money.of("1")));
+
+        // Falla al leer el destino en el hilo que llama, antes de encolar: la partición origen no se entera
+        assertTrue(exception.getMessage().contains("Cuenta destino no encontrada"));
+        assertTrue(engine.currentBalance(1L).isEmpty());
+        verify(accountRepository, never()).existsById(any());
+    }
+
+    // TEST 5: transferencias cruzadas concurrentes con colas pequeñas
+    @Test
+    @DisplayName("transfer - Transferencias cruzadas concurrentes deberían conservar el total")
+    void transfer_ConcurrentCrossTransfersConserveTotal() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            boolean forward = i % 2 == 0;
+            futures.add(executor.submit(() -> engine.transfer(forward ? 1L : 2L, forward ? 2L : 1L, Money.of("1"))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Money total = engine.currentBalance(1L).orElseThrow().plus(engine.currentBalance(2L).orElseThrow());
+        assertEquals(Money.of("2000.00"), total);
+    }
+
+    // TEST 6: un comando que vence en la cola no se ejecuta después
+    @Test
+    @DisplayName("deposit - Un depósito que venció esperando en la cola no debería aplicarse más tarde")
+    void deposit_TimedOutInQueue_IsNeverApplied() throws Exception {
+        // PASO 1: Motor con timeout corto y la partición de las cuentas 1 y 5 ocupada
+        PartitionedBalanceEngine slow = new PartitionedBalanceEngine(4, 16, 100, accountRepository, writeBehind);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            busy.countDown();
+            release.await();
+            return null;
+        }).when(writeBehind).markDirty(1L, Money.of("1001.00"));
+        Thread blocker = new Thread(() -> slow.deposit(1L, Money.of("1.00")));
+        blocker.start();
+        busy.await();
+
+        // PASO 2: El depósito en la 5 espera detrás y vence
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> slow.deposit(5L, Money.of("50.00")));
+        assertTrue(exception.getMessage().contains("no respondió"));
+
+        // PASO 3: Se libera la partición; un depósito posterior ve el saldo sin el que venció
+        release.countDown();
+        blocker.join();
+        assertEquals(Money.of("11.00"), slow.deposit(5L, Money.of("1.00")));
+        verify(writeBehind, never()).markDirty(5L, Money.of("60.00"));
+        slow.close();
+    }
+
+    // TEST 7: el hilo de la partición no consulta la base de datos
+    @Test
+    @DisplayName("transfer - Las lecturas de saldo deberían hacerse en el hilo que llama")
+    void transfer_ReadsBalancesOnCallerThread() {
+        List<String> readers = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            readers.add(Thread.currentThread().getName());
+            return Optional.of(Money.of("100.00"));
+        }).when(accountRepository).findBalanceById(any());
+
+        engine.transfer(3L, 4L, Money.of("10.00"));
+        engine.deposit(6L, Money.of("10.00"));
+
+        assertEquals(3, readers.size());
+        assertTrue(readers.stream().noneMatch(name -> name.startsWith("balance-partition-")), readers.toString());
+        verify(accountRepository, never()).existsById(any());
+    }
+
+    // TEST 8: dentro de una transacción de base de datos
+    @Test
+    @DisplayName("transfer - Entre particiones, dentro de una transacción, debería abonar solo al confirmar")
+    void transfer_InTransaction_CreditsOnCommitAndReleasesOnRollback() {
+        // PASO 1: Una transferencia entre particiones en una transacción que confirma
+        TransactionSynchronizationManager.initSynchronization();
+        engine.transfer(1L, 2L, Money.of("100.00"));
+        assertEquals(Optional.of(Money.of("900.00")), engine.currentBalance(1L));
+        assertEquals(Optional.of(Money.of("1000.00")), engine.currentBalance(2L));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(Optional.of(Money.of("1100.00")), engine.currentBalance(2L));
+
+        // PASO 2: Otra que hace rollback devuelve el débito y no abona nada
+        TransactionSynchronizationManager.initSynchronization();
+        engine.transfer(1L, 2L, Money.of("100.00"));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(Optional.of(Money.of("900.00")), engine.currentBalance(1L));
+        assertEquals(Optional.of(Money.of("1100.00")), engine.currentBalance(2L));
+    }
+
+    // Fin de la transacción de base de datos en la que se hicieron los movimientos
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
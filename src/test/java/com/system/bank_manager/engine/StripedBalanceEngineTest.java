@@ -0,0 +1,213 @@
+package com.system.bank_manager.engine;
+
+import com.system.bank_manager.exception.InsufficientFundsException;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountJdbcRepository;
+import com.system.bank_manager.repository.AccountRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StripedBalanceEngine - Tests Esenciales")
+class StripedBalanceEngineTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private BalanceWriteBehind writeBehind;
+
+    private StripedBalanceEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new StripedBalanceEngine(16, accountRepository, writeBehind);
+    }
+
+    // TEST 1: la cuenta se lee de la base de datos una sola vez
+    @Test
+    @DisplayName("deposit - Debería cargar el saldo una vez y marcarlo para escritura diferida")
+    void deposit_LoadsOnceAndMarksDirty() {
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("100.00")));
+
+        engine.deposit(1L, Money.of("10.00"));
+        Money result = engine.deposit(1L, Money.of("5.00"));
+
+        assertEquals(Money.of("115.00"), result);
+        assertEquals(Optional.of(Money.of("115.00")), engine.currentBalance(1L));
+        verify(accountRepository, times(1)).findBalanceById(1L);
+        verify(writeBehind).markDirty(1L, Money.of("115.00"));
+    }
+
+    // TEST 2: retiro sin fondos
+    @Test
+    @DisplayName("withdraw - Debería lanzar excepción si saldo insuficiente")
+    void withdraw_InsufficientFunds() {
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("20.00")));
+
+        assertThrows(InsufficientFundsException.class, () -> engine.withdraw(1L, Money.of("20.01")));
+
+        assertEquals(Optional.of(Money.of("20.00")), engine.currentBalance(1L));
+        verify(writeBehind, never()).markDirty(any(), any());
+    }
+
+    // TEST 3: cuenta inexistente
+    @Test
+    @DisplayName("transfer - Debería lanzar EntityNotFoundException si la cuenta destino no existe")
+    void transfer_DestinationNotFound() {
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("20.00")));
+        when(accountRepository.findBalanceById(2L)).thenReturn(Optional.empty());
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> engine.transfer(1L, 2L, Money.of("1")));
+
+        assertTrue(exception.getMessage().contains("Cuenta destino no encontrada"));
+    }
+
+    // TEST 4: transferencias cruzadas concurrentes conservan el total
+    @Test
+    @DisplayName("transfer - Transferencias cruzadas concurrentes no deberían perder ni crear dinero")
+    void transfer_ConcurrentCrossTransfersConserveTotal() throws Exception {
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("1000.00")));
+        when(accountRepository.findBalanceById(2L)).thenReturn(Optional.of(Money.of("1000.00")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            boolean forward = i % 2 == 0;
+            futures.add(executor.submit(() -> engine.transfer(forward ? 1L : 2L, forward ? 2L : 1L, Money.of("1"))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Money total = engine.currentBalance(1L).orElseThrow().plus(engine.currentBalance(2L).orElseThrow());
+        assertEquals(Money.of("2000.00"), total);
+    }
+
+    // TEST 5: evict descarta el saldo y la escritura pendiente
+    @Test
+    @DisplayName("evict - Debería descartar el saldo en memoria y la escritura pendiente")
+    void evict_DiscardsBalance() {
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("10")));
+        engine.deposit(1L, Money.of("1"));
+
+        engine.evict(1L);
+
+        assertTrue(engine.currentBalance(1L).isEmpty());
+        verify(writeBehind).discard(1L);
+    }
+
+    // TEST 6: edición manual con un volcado en curso
+    @Test
+    @DisplayName("replace - Un volcado desfasado en curso no debería dejar pisado el saldo editado")
+    void replace_WithStaleFlushInFlight_EndsWithEditedBalance() throws Exception {
+        // PASO 1: Escritura diferida real cuyo primer volcado se queda a medias
+        AccountJdbcRepository accountJdbcRepository = mock(AccountJdbcRepository.class);
+        BalanceWriteBehind realWriteBehind = new BalanceWriteBehind(accountJdbcRepository, ExecutionMode.STRIPED);
+        StripedBalanceEngine striped = new StripedBalanceEngine(16, accountRepository, realWriteBehind);
+        List<Map<Long, Money>> writes = new CopyOnWriteArrayList<>();
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Map<Long, Money> batch = invocation.getArgument(0);
+            writes.add(Map.copyOf(batch));
+            if (writes.size() == 1) {
+                flushing.countDown();
+                release.await();
+            }
+            return null;
+        }).when(accountJdbcRepository).updateBalances(anyMap());
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("100.00")));
+        striped.deposit(1L, Money.of("10.00"));
+
+        // PASO 2: El volcado toma 110 y, mientras escribe, se edita el saldo y entra un depósito
+        Thread flush = new Thread(realWriteBehind::flush);
+        flush.start();
+        flushing.await();
+        assertEquals(Money.of("110.00"), striped.replace(1L, Money.of("500.00")));
+        striped.deposit(1L, Money.of("5.00"));
+        release.countDown();
+        flush.join();
+
+        // PASO 3: El siguiente volcado escribe lo último; nada queda pendiente
+        realWriteBehind.flush();
+        assertEquals(List.of(Map.of(1L, Money.of("110.00")), Map.of(1L, Money.of("505.00"))), writes);
+        assertEquals(0, realWriteBehind.pendingCount());
+    }
+
+    // TEST 7: modo WAL, el anexo falla
+    @Test
+    @DisplayName("withdrawLogged - Debería anexar con la franja tomada y no tocar el saldo si el anexo falla")
+    void withdrawLogged_AppendFails_KeepsBalance() {
+        // PASO 1: Un anexo que comprueba que el saldo todavía no cambió, y otro que falla
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("100.00")));
+        long sequence = engine.withdrawLogged(1L, Money.of("30.00"), () -> {
+            assertEquals(Optional.of(Money.of("100.00")), engine.currentBalance(1L));
+            return 7L;
+        });
+
+        // PASO 2: Verificar
+        assertEquals(7L, sequence);
+        assertEquals(Optional.of(Money.of("70.00")), engine.currentBalance(1L));
+        assertThrows(IllegalStateException.class, () -> engine.withdrawLogged(1L, Money.of("30.00"), () -> {
+            throw new IllegalStateException("El libro mayor no acepta más eventos tras un fallo de escritura");
+        }));
+        assertEquals(Optional.of(Money.of("70.00")), engine.currentBalance(1L));
+    }
+
+    // TEST 8: dentro de una transacción de base de datos
+    @Test
+    @DisplayName("transfer - Dentro de una transacción debería reservar el débito y abonar solo al confirmar")
+    void transfer_InTransaction_CreditsOnCommitAndReleasesOnRollback() {
+        // PASO 1: Una transferencia en una transacción que confirma
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("100.00")));
+        when(accountRepository.findBalanceById(2L)).thenReturn(Optional.of(Money.of("0.00")));
+        TransactionSynchronizationManager.initSynchronization();
+        engine.transfer(1L, 2L, Money.of("60.00"));
+
+        // PASO 2: El abono sin confirmar no se puede gastar
+        assertEquals(Optional.of(Money.of("40.00")), engine.currentBalance(1L));
+        assertThrows(InsufficientFundsException.class, () -> engine.withdraw(2L, Money.of("1.00")));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(Optional.of(Money.of("60.00")), engine.currentBalance(2L));
+
+        // PASO 3: Un retiro cuya transacción hace rollback libera la reserva
+        TransactionSynchronizationManager.initSynchronization();
+        engine.withdraw(2L, Money.of("60.00"));
+        assertEquals(Optional.of(Money.of("0.00")), engine.currentBalance(2L));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(Optional.of(Money.of("60.00")), engine.currentBalance(2L));
+    }
+
+    // Fin de la transacción de base de datos en la que se hicieron los movimientos
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
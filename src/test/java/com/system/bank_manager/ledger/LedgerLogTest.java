@@ -0,0 +1,73 @@
+package com.system.bank_manager.ledger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LedgerLog - Group commit")
+class LedgerLogTest {
+
+    private static final int THREADS = 16;
+    private static final int APPENDS_PER_THREAD = 50;
+
+    @TempDir
+    private Path directory;
+
+    // TEST 1: anexos concurrentes con una ventana de 1 ms
+    @Test
+    @DisplayName("awaitDurable - Debería volver solo con el evento en disco y conservarlo tras reabrir")
+    void awaitDurable_GroupCommit() throws Exception {
+        // PASO 1: Varios hilos anexan y esperan cada uno su propio evento, cruzando segmentos
+        LedgerLog log = new LedgerLog(directory, LedgerLog.RECORD_SIZE * 100L, true, 1000);
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                long accountId = t + 1;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < APPENDS_PER_THREAD; i++) {
+                        long sequence = log.append(LedgerEvent.Type.DEPOSIT, accountId, 0, 100);
+                        log.awaitDurable(sequence);
+                        assertTrue(log.durableSequence() >= sequence);
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+
+        // PASO 2: Todo lo anexado es durable y está en orden tras reabrir
+        int total = THREADS * APPENDS_PER_THREAD;
+        assertEquals(total, log.durableSequence());
+        log.close();
+        LedgerLog reopened = new LedgerLog(directory, LedgerLog.RECORD_SIZE * 100L, true, 1000);
+        List<Long> sequences = new ArrayList<>();
+        assertEquals(total, reopened.replay(0, event -> sequences.add(event.sequence())));
+        assertEquals(total, sequences.get(sequences.size() - 1));
+        assertEquals(total, reopened.durableSequence());
+        reopened.close();
+    }
+
+    // TEST 2: log cerrado
+    @Test
+    @DisplayName("append - Debería rechazar eventos una vez cerrado el log")
+    void append_AfterClose() {
+        LedgerLog log = new LedgerLog(directory, LedgerLog.RECORD_SIZE * 100L, true, 1000);
+        long sequence = log.append(LedgerEvent.Type.DEPOSIT, 1, 0, 100);
+        log.close();
+
+        // El evento anterior al cierre quedó en disco; los siguientes se rechazan
+        log.awaitDurable(sequence);
+        assertThrows(IllegalStateException.class, () -> log.append(LedgerEvent.Type.DEPOSIT, 1, 0, 100));
+    }
+}
@@ -0,0 +1,322 @@
+package com.system.bank_manager.load;
+
+import com.system.bank_manager.BankManagerApplication;
+import com.system.bank_manager.dto.request.TransactionRequestDTO;
+import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.engine.BalanceWriteBehind;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.exception.InsufficientFundsException;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.persistence.IdBlockAllocator;
+import com.system.bank_manager.service.TransactionService;
+import com.system.bank_manager.wal.GroupCommitTransactionWal;
+import com.system.bank_manager.wal.TransactionWal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Carga concurrente sobre TransactionService con cuentas calientes (muy disputadas) y
+ * frías. Levanta el contexto Spring completo sobre H2 en memoria, reparte depósitos,
+ * retiros y transferencias según la mezcla configurada y reporta throughput, latencias
+ * p50/p99/p999 y reintentos por interbloqueo o espera de bloqueo. Al final comprueba que
+ * no se creó ni se perdió dinero.
+ *
+ * No corre con ./gradlew test; se lanza aparte y se configura con propiedades -Pload.*:
+ *
+ * ./gradlew loadTest -Pload.mode=JPA -Pload.threads=200 -Pload.hotAccounts=10 \
+ *     -Pload.mix=deposit:20,withdrawal:20,transfer:60
+ */
+@Tag("load")
+class TransferContentionLoadTest {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("10000.00");
+    // SQLState de H2 para interbloqueo (DEADLOCK_1); el resto de fallos transitorios son esperas de bloqueo
+    private static final String DEADLOCK_SQL_STATE = "40001";
+
+    private enum Operation { DEPOSIT, WITHDRAWAL, TRANSFER }
+
+    private record LoadConfig(String mode, int threads, int operationsPerThread, int hotAccounts,
+                              int coldAccounts, double hotRatio, Map<Operation, Integer> mix,
+                              int maxRetries, int poolSize) {
+
+        static LoadConfig fromSystemProperties() {
+            return new LoadConfig(
+                    System.getProperty("load.mode", "JPA"),
+                    Integer.getInteger("load.threads", 200),
+                    Integer.getInteger("load.operationsPerThread", 100),
+                    Integer.getInteger("load.hotAccounts", 10),
+                    Integer.getInteger("load.coldAccounts", 990),
+                    Double.parseDouble(System.getProperty("load.hotRatio", "0.9")),
+                    parseMix(System.getProperty("load.mix", "deposit:20,withdrawal:20,transfer:60")),
+                    Integer.getInteger("load.maxRetries", 10),
+                    Integer.getInteger("load.poolSize", 10));
+        }
+
+        private static Map<Operation, Integer> parseMix(String mix) {
+            Map<Operation, Integer> weights = new TreeMap<>();
+            for (String entry : mix.split(",")) {
+                String[] parts = entry.trim().split(":");
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+            }
+            return weights;
+        }
+
+        Operation pick(ThreadLocalRandom random) {
+            int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+            int roll = random.nextInt(total);
+            for (Map.Entry<Operation, Integer> weight : mix.entrySet()) {
+                roll -= weight.getValue();
+                if (roll < 0) {
+                    return weight.getKey();
+                }
+            }
+            throw new IllegalStateException("Mezcla de operaciones vacía");
+        }
+    }
+
+    // Contadores compartidos; los importes son enteros para sumarlos sin BigDecimal entre hilos
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+    private final LongAdder lockTimeouts = new LongAdder();
+    private final AtomicLong deposited = new AtomicLong();
+    private final AtomicLong withdrawn = new AtomicLong();
+
+    // Libro mayor (EVENT_SOURCED) y WAL (WAL), vacíos en cada ejecución como la base de datos en memoria
+    @TempDir
+    private Path ledgerDirectory;
+
+    @Test
+    @DisplayName("transferBetweenAccounts bajo contención - Debería conservar el dinero total")
+    void contendedMix_ConservesMoney() throws Exception {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+
+        try (ConfigurableApplicationContext context = start(config)) {
+            // PASO 1: Datos iniciales: las primeras hotAccounts cuentas son las calientes
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            long[] accountIds = seed(jdbcTemplate, context.getBean(IdBlockAllocator.class),
+                    config.hotAccounts() + config.coldAccounts());
+            BigDecimal startingTotal = totalBalance(jdbcTemplate);
+
+            // PASO 2: Lanzar todos los hilos a la vez
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            ExecutorService executor = Executors.newFixedThreadPool(config.threads());
+            CountDownLatch startGate = new CountDownLatch(1);
+            List<Future<long[]>> workers = new ArrayList<>(config.threads());
+            for (int i = 0; i < config.threads(); i++) {
+                workers.add(executor.submit(() -> {
+                    startGate.await();
+                    return runWorker(config, transactionService, accountIds);
+                }));
+            }
+            long startNanos = System.nanoTime();
+            startGate.countDown();
+
+            long[] latencies = new long[config.threads() * config.operationsPerThread()];
+            int offset = 0;
+            for (Future<long[]> worker : workers) {
+                long[] workerLatencies = worker.get();
+                System.arraycopy(workerLatencies, 0, latencies, offset, workerLatencies.length);
+                offset += workerLatencies.length;
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+
+            // PASO 3: En modo motor los saldos llegan a la tabla por escritura diferida; en modo WAL, desde el WAL
+            context.getBean(BalanceWriteBehind.class).flush();
+            if (context.getBean(TransactionWal.class) instanceof GroupCommitTransactionWal wal) {
+                wal.applyDurable();
+            }
+            report(config, latencies, elapsedNanos);
+
+            // PASO 4: Conservación: inicial + depósitos - retiros; las transferencias suman cero
+            BigDecimal expectedTotal = startingTotal
+                    .add(BigDecimal.valueOf(deposited.get()))
+                    .subtract(BigDecimal.valueOf(withdrawn.get()));
+            assertEquals(0, expectedTotal.compareTo(totalBalance(jdbcTemplate)),
+                    "El total de saldos no coincide con inicial + depósitos - retiros");
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM accounts WHERE balance < 0", Integer.class));
+            assertTrue(completed.sum() > 0, "Ninguna operación se completó");
+        }
+    }
+
+    private ConfigurableApplicationContext start(LoadConfig config) {
+        return new SpringApplicationBuilder(BankManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:load-" + config.mode() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.hikari.maximum-pool-size=" + config.poolSize(),
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--bank.execution.mode=" + config.mode(),
+                        "--bank.ledger.directory=" + ledgerDirectory.resolve("ledger"),
+                        "--bank.wal.directory=" + ledgerDirectory.resolve("wal"),
+                        "--logging.level.root=WARN");
+    }
+
+    private long[] runWorker(LoadConfig config, TransactionService transactionService, long[] accountIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[config.operationsPerThread()];
+        for (int i = 0; i < latencies.length; i++) {
+            Operation operation = config.pick(random);
+            long amount = random.nextLong(1, 101);
+            long from = pickAccount(config, random, accountIds);
+            long to = pickAccount(config, random, accountIds);
+            while (operation == Operation.TRANSFER && to == from) {
+                to = pickAccount(config, random, accountIds);
+            }
+
+            long started = System.nanoTime();
+            execute(config, transactionService, operation, amount, from, to);
+            latencies[i] = System.nanoTime() - started;
+        }
+        return latencies;
+    }
+
+    private long pickAccount(LoadConfig config, ThreadLocalRandom random, long[] accountIds) {
+        if (config.coldAccounts() == 0 || random.nextDouble() < config.hotRatio()) {
+            return accountIds[random.nextInt(config.hotAccounts())];
+        }
+        return accountIds[config.hotAccounts() + random.nextInt(config.coldAccounts())];
+    }
+
+    // Ejecuta la operación reintentando los fallos transitorios de bloqueo; solo cuenta importes confirmados
+    private void execute(LoadConfig config, TransactionService transactionService, Operation operation,
+                         long amount, long from, long to) {
+        Money value = Money.ofCents(amount * 100);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                switch (operation) {
+                    case DEPOSIT -> {
+                        transactionService.createTransaction(from,
+                                new TransactionRequestDTO(value, Transaction.TransactionType.DEPOSIT));
+                        deposited.addAndGet(amount);
+                    }
+                    case WITHDRAWAL -> {
+                        transactionService.createTransaction(from,
+                                new TransactionRequestDTO(value, Transaction.TransactionType.WITHDRAWAL));
+                        withdrawn.addAndGet(amount);
+                    }
+                    case TRANSFER -> transactionService.transferBetweenAccounts(new TransferRequestDTO(value, from, to));
+                }
+                completed.increment();
+                return;
+            } catch (InsufficientFundsException e) {
+                rejected.increment();
+                return;
+            } catch (TransientDataAccessException e) {
+                if (isDeadlock(e)) {
+                    deadlocks.increment();
+                } else {
+                    lockTimeouts.increment();
+                }
+                if (attempt == config.maxRetries()) {
+                    failed.increment();
+                    return;
+                }
+                retries.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+                return;
+            }
+        }
+    }
+
+    private boolean isDeadlock(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && DEADLOCK_SQL_STATE.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void report(LoadConfig config, long[] latencies, long elapsedNanos) {
+        Arrays.sort(latencies);
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("""
+
+                ===== Carga con contención: modo %s =====
+                hilos=%d operaciones/hilo=%d cuentas calientes=%d frías=%d ratio caliente=%.2f mezcla=%s
+                duración            %.2f s
+                throughput          %.0f ops/s (completadas)
+                completadas         %d
+                rechazadas (fondos) %d
+                fallidas            %d
+                reintentos          %d
+                interbloqueos       %d
+                esperas de bloqueo  %d
+                latencia p50        %.2f ms
+                latencia p99        %.2f ms
+                latencia p999       %.2f ms
+                latencia máx        %.2f ms
+                %n""",
+                config.mode(), config.threads(), config.operationsPerThread(), config.hotAccounts(),
+                config.coldAccounts(), config.hotRatio(), config.mix(), seconds,
+                completed.sum() / seconds, completed.sum(), rejected.sum(), failed.sum(), retries.sum(),
+                deadlocks.sum(), lockTimeouts.sum(),
+                millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)),
+                millis(percentile(latencies, 0.999)), millis(latencies[latencies.length - 1]));
+    }
+
+    // Percentil por rango más cercano sobre las latencias ya ordenadas
+    private long percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private BigDecimal totalBalance(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(balance), 0) FROM accounts", BigDecimal.class);
+    }
+
+    // Cuentas por JDBC en batch, con IDs de la misma secuencia que usa Hibernate
+    private long[] seed(JdbcTemplate jdbcTemplate, IdBlockAllocator idBlockAllocator, int accounts) {
+        long userId = idBlockAllocator.allocate("users_seq", 1)[0];
+        jdbcTemplate.update("INSERT INTO users (id, dni, name, email, password) VALUES (?, ?, ?, ?, ?)",
+                userId, "LOAD", "Carga", "load@bank.com", "x");
+
+        long[] accountIds = idBlockAllocator.allocate("accounts_seq", accounts);
+        List<Object[]> rows = new ArrayList<>(accounts);
+        for (long id : accountIds) {
+            rows.add(new Object[]{id, "L" + id, INITIAL_BALANCE, userId, LocalDateTime.now()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO accounts (id, account_number, balance, user_id, created_at) "
+                + "VALUES (?, ?, ?, ?, ?)", rows);
+        return accountIds;
+    }
+}
@@ -0,0 +1,64 @@
+package com.system.bank_manager.money;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Money - Importes en céntimos")
+class MoneyTest {
+
+    // TEST 1: Conversión desde decimal
+    @Test
+    @DisplayName("of - Debería aceptar hasta 2 decimales y rechazar más")
+    void of_Scale() {
+        // PASO 1: Escalas equivalentes representan el mismo importe
+        assertEquals(Money.ofCents(1250), Money.of("12.5"));
+        assertEquals(Money.of("12.50"), Money.of("12.500"));
+        assertEquals(new BigDecimal("12.50"), Money.of("12.5").toBigDecimal());
+
+        // PASO 2: Un tercer decimal significativo no se redondea
+        assertThrows(IllegalArgumentException.class, () -> Money.of("12.345"));
+    }
+
+    // TEST 2: Desbordamiento
+    @Test
+    @DisplayName("plus - Debería lanzar ArithmeticException si el resultado no cabe en DECIMAL(15, 2)")
+    void plus_Overflow() {
+        // PASO 1: El máximo de la columna es válido
+        Money max = Money.of("9999999999999.99");
+        assertEquals(Money.MAX_CENTS, max.cents());
+
+        // PASO 2: Superarlo falla en lugar de desbordar
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.of("0.01")));
+        assertThrows(ArithmeticException.class, () -> max.negate().minus(Money.of("0.01")));
+        assertThrows(ArithmeticException.class, () -> Money.of("1e20"));
+    }
+
+    // TEST 3: Aritmética y comparación
+    @Test
+    @DisplayName("minus - Debería restar y comparar sin perder céntimos")
+    void minus_And_Compare() {
+        Money balance = Money.of("100.00");
+        Money amount = Money.of("0.10");
+
+        Money result = balance.minus(amount).minus(amount).minus(amount);
+
+        assertEquals(Money.of("99.70"), result);
+        assertTrue(amount.isLessThan(result));
+        assertTrue(Money.ZERO.minus(amount).isNegative());
+    }
+
+    // TEST 4: JSON
+    @Test
+    @DisplayName("JSON - Debería leerse y escribirse como número decimal")
+    void json_RoundTrip() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        assertEquals("1000.50", objectMapper.writeValueAsString(Money.of("1000.5")));
+        assertEquals(Money.of("7.25"), objectMapper.readValue("7.25", Money.class));
+    }
+}
@@ -0,0 +1,49 @@
+package com.system.bank_manager.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdBlockAllocator - Bloques de IDs compartidos con Hibernate")
+class IdBlockAllocatorTest {
+
+    private static final String NEXT_VALUE = "SELECT NEXT VALUE FOR transactions_seq";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    // TEST 1: Secuencia recién creada con Hibernate sacando un valor en medio
+    @Test
+    @DisplayName("allocate - Debería tomar el valor inicial como un solo ID, sin pedir otro a la vez")
+    void allocate_FreshSequence_DoesNotOverlapHibernate() {
+        // PASO 1: El asignador saca 1; Hibernate se queda con 51 (bloque 2..51); al asignador le llega 101
+        when(jdbcTemplate.queryForObject(NEXT_VALUE, Long.class)).thenReturn(1L, 101L);
+        IdBlockAllocator allocator = new IdBlockAllocator(jdbcTemplate, 50);
+
+        // PASO 2: Ejecutar
+        long[] ids = allocator.allocate("transactions_seq", 3);
+
+        // PASO 3: El 1 sale solo y el resto del bloque 52..101, fuera del de Hibernate
+        assertArrayEquals(new long[]{1, 52, 53}, ids);
+        verify(jdbcTemplate, times(2)).queryForObject(NEXT_VALUE, Long.class);
+    }
+
+    // TEST 2: Bloque completo
+    @Test
+    @DisplayName("allocate - Debería repartir el bloque entero que cubre cada valor de la secuencia")
+    void allocate_FullBlock() {
+        when(jdbcTemplate.queryForObject(NEXT_VALUE, Long.class)).thenReturn(150L);
+        IdBlockAllocator allocator = new IdBlockAllocator(jdbcTemplate, 50);
+
+        assertArrayEquals(new long[]{101, 102}, allocator.allocate("transactions_seq", 2));
+        assertArrayEquals(new long[]{103}, allocator.allocate("transactions_seq", 1));
+        verify(jdbcTemplate, times(1)).queryForObject(NEXT_VALUE, Long.class);
+    }
+}
@@ -0,0 +1,109 @@
+package com.system.bank_manager.repository;
+
+import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.system.bank_manager.repository.TransactionRepositoryIndexTest$SqlCapture")
+@DisplayName("TransactionRepository - Consultas de extracto sobre H2")
+class TransactionRepositoryIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    /**
+     * Guarda el SQL que Hibernate envía a la base, para poder pedir el plan de la sentencia
+     * real en lugar de una copia escrita a mano.
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        // 20 cuentas y 5000 movimientos, uno por minuto desde el 1 de enero y alternando tipo
+        jdbcTemplate.update("INSERT INTO users (id, dni, name, email, password) VALUES (1, '1', 'Ana', 'ana@bank.com', 'x')");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, user_id, created_at) "
+                + "SELECT X, 'ACC' || X, 0, 1, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, 20)");
+        jdbcTemplate.update("INSERT INTO transactions (id, amount, type, date, account_id) "
+                + "SELECT X, 10, CASEWHEN(MOD(X, 40) < 20, 'DEPOSIT', 'WITHDRAWAL'), "
+                + "DATEADD('MINUTE', X, TIMESTAMP '2025-01-01 00:00:00'), MOD(X, 20) + 1 "
+                + "FROM SYSTEM_RANGE(1, 5000)");
+    }
+
+    // TEST 1: El plan de la consulta del extracto usa el índice compuesto y no ordena
+    @Test
+    @DisplayName("findStatementLinesByType - Debería usar idx_transactions_account_date_id ya ordenado")
+    void statementQuery_UsesCompositeIndex() {
+        // PASO 1: Ejecutar la consulta y quedarse con el SQL que generó Hibernate
+        LocalDateTime from = LocalDateTime.of(2025, 1, 2, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 1, 3, 0, 0);
+        SqlCapture.STATEMENTS.clear();
+        transactionRepository.findStatementLinesByType(3L, Transaction.TransactionType.DEPOSIT, from, to);
+        List<String> statements = SqlCapture.STATEMENTS.stream()
+                .filter(sql -> sql.toLowerCase().contains("from transactions"))
+                .toList();
+        assertEquals(1, statements.size(), statements.toString());
+
+        // PASO 2: EXPLAIN de esa sentencia, con los parámetros en el orden en que los enlaza Hibernate
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + statements.get(0), String.class,
+                3L, Timestamp.valueOf(from), Timestamp.valueOf(to), Transaction.TransactionType.DEPOSIT.name());
+
+        // PASO 3: Verificar que recorre el índice y que H2 no necesita ordenar el resultado
+        assertNotNull(plan);
+        assertTrue(plan.contains("IDX_TRANSACTIONS_ACCOUNT_DATE_ID"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    // TEST 2: La consulta real devuelve solo la cuenta, el rango y el tipo pedidos, en orden
+    @Test
+    @DisplayName("findStatementLinesByType - Debería devolver los movimientos filtrados y ordenados")
+    void statementQuery_ReturnsFilteredSortedRows() {
+        // PASO 1: Datos de entrada
+        LocalDateTime from = LocalDateTime.of(2025, 1, 2, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 1, 3, 0, 0);
+
+        // PASO 2: Ejecutar
+        List<TransactionResponseDTO> rows = transactionRepository.findStatementLinesByType(
+                3L, Transaction.TransactionType.DEPOSIT, from, to);
+
+        // PASO 3: Verificar
+        assertFalse(rows.isEmpty());
+        for (int i = 0; i < rows.size(); i++) {
+            TransactionResponseDTO row = rows.get(i);
+            assertEquals(3L, row.accountId());
+            assertEquals(Transaction.TransactionType.DEPOSIT, row.type());
+            assertEquals(Money.of("10.00"), row.amount());
+            assertFalse(row.date().isBefore(from));
+            assertTrue(row.date().isBefore(to));
+            if (i > 0) {
+                assertTrue(rows.get(i - 1).date().isBefore(row.date()));
+            }
+        }
+    }
+}
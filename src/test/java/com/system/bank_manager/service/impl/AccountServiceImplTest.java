@@ -2,24 +2,35 @@ package com.system.bank_manager.service.impl;
 
 import com.system.bank_manager.dto.request.AccountRequestDTO;
 import com.system.bank_manager.dto.response.AccountResponseDTO;
+import com.system.bank_manager.engine.BalanceEngine;
 import com.system.bank_manager.entity.Account;
 import com.system.bank_manager.entity.User;
+import com.system.bank_manager.event.AccountsDeletedEvent;
+import com.system.bank_manager.event.BalanceChangedEvent;
 import com.system.bank_manager.exception.DuplicateAccountException;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountJdbcRepository;
 import com.system.bank_manager.repository.AccountRepository;
 import com.system.bank_manager.repository.UserRepository;
+import com.system.bank_manager.uniqueness.UniqueKeyFilter;
+import com.system.bank_manager.wal.TransactionWal;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
-import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,6 +45,21 @@ class AccountServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private BalanceEngine balanceEngine;
+
+    @Mock
+    private UniqueKeyFilter uniqueKeyFilter;
+
+    @Mock
+    private AccountJdbcRepository accountJdbcRepository;
+
+    @Mock
+    private TransactionWal transactionWal;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -42,7 +68,7 @@ class AccountServiceImplTest {
     @DisplayName("createAccount - Debería crear cuenta exitosamente")
     void createAccount_Success() {
         // Paso 1: Datos
-        AccountRequestDTO request = new AccountRequestDTO("12345", BigDecimal.valueOf(1000), 1L);
+        AccountRequestDTO request = new AccountRequestDTO("12345", Money.of("1000"), 1L);
 
         User user = new User();
         user.setId(1L);
@@ -50,10 +76,11 @@ class AccountServiceImplTest {
         Account saved = new Account();
         saved.setId(10L);
         saved.setAccountNumber("12345");
-        saved.setBalance(BigDecimal.valueOf(1000));
+        saved.setBalance(Money.of("1000"));
         saved.setUser(user);
 
         // Paso 2: Mocks
+        when(uniqueKeyFilter.mightExist(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER, "12345")).thenReturn(true);
         when(accountRepository.existsByAccountNumber("12345")).thenReturn(false);
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(accountRepository.save(any(Account.class))).thenReturn(saved);
@@ -65,13 +92,14 @@ class AccountServiceImplTest {
         assertNotNull(result);
         assertEquals(10L, result.id());
         assertEquals("12345", result.accountNumber());
-        assertEquals(BigDecimal.valueOf(1000), result.balance());
+        assertEquals(Money.of("1000"), result.balance());
         assertEquals(1L, result.userId());
 
         // Paso 5: Verificar interacciones
         verify(accountRepository).existsByAccountNumber("12345");
         verify(userRepository).findById(1L);
         verify(accountRepository).save(any(Account.class));
+        verify(uniqueKeyFilter).added(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER, "12345");
     }
 
     // ==================== TEST 2: createAccount - Caso malo (duplicado) ====================
@@ -79,9 +107,10 @@ class AccountServiceImplTest {
     @DisplayName("createAccount - Debería lanzar excepción si el número de cuenta ya existe")
     void createAccount_DuplicateAccount() {
         // Paso 1: Datos
-        AccountRequestDTO request = new AccountRequestDTO("12345", BigDecimal.valueOf(500), 1L);
+        AccountRequestDTO request = new AccountRequestDTO("12345", Money.of("500"), 1L);
 
         // Paso 2: Mocks
+        when(uniqueKeyFilter.mightExist(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER, "12345")).thenReturn(true);
         when(accountRepository.existsByAccountNumber("12345")).thenReturn(true);
 
         // Paso 3: Ejecutar y verificar excepción
@@ -92,13 +121,35 @@ class AccountServiceImplTest {
         verify(userRepository, never()).findById(any());
     }
 
+    // ==================== TEST 2b: createAccount - El filtro descarta el número ====================
+    @Test
+    @DisplayName("createAccount - Debería omitir la consulta del número cuando el filtro lo descarta")
+    void createAccount_SkipsLookup_WhenFilterRulesOutNumber() {
+        // Paso 1: Datos
+        AccountRequestDTO request = new AccountRequestDTO("12345", Money.of("500"), 1L);
+        User user = new User();
+        user.setId(1L);
+
+        // Paso 2: Mocks: el filtro descarta el número y la restricción única lo rechaza igualmente
+        when(uniqueKeyFilter.mightExist(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER, "12345")).thenReturn(false);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(accountRepository.save(any(Account.class))).thenThrow(new DataIntegrityViolationException("UK_ACCOUNT_NUMBER"));
+
+        // Paso 3: Ejecutar y verificar excepción
+        assertThrows(DuplicateAccountException.class, () -> accountService.createAccount(request));
+
+        // Paso 4: Verificar interacciones
+        verify(accountRepository, never()).existsByAccountNumber(any());
+        verify(uniqueKeyFilter, never()).added(any(), any());
+    }
+
     // ==================== TEST 3: updateAccount - Caso exitoso ====================
     @Test
     @DisplayName("updateAccount - Debería actualizar cuenta exitosamente")
     void updateAccount_Success() {
         // Paso 1: Datos
         Long id = 1L;
-        AccountRequestDTO request = new AccountRequestDTO("54321", BigDecimal.valueOf(2000), 2L);
+        AccountRequestDTO request = new AccountRequestDTO("54321", Money.of("2000"), 2L);
 
         User user = new User();
         user.setId(2L);
@@ -106,16 +157,16 @@ class AccountServiceImplTest {
         Account account = new Account();
         account.setId(id);
         account.setAccountNumber("11111");
-        account.setBalance(BigDecimal.valueOf(500));
+        account.setBalance(Money.of("500"));
 
         Account updated = new Account();
         updated.setId(id);
         updated.setAccountNumber("54321");
-        updated.setBalance(BigDecimal.valueOf(2000));
+        updated.setBalance(Money.of("2000"));
         updated.setUser(user);
 
         // Paso 2: Mocks
-        when(accountRepository.findById(id)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(id)).thenReturn(Optional.of(account));
         when(userRepository.findById(2L)).thenReturn(Optional.of(user));
         when(accountRepository.save(any(Account.class))).thenReturn(updated);
 
@@ -125,13 +176,87 @@ class AccountServiceImplTest {
         // Paso 4: Verificar
         assertNotNull(result);
         assertEquals("54321", result.accountNumber());
-        assertEquals(BigDecimal.valueOf(2000), result.balance());
+        assertEquals(Money.of("2000"), result.balance());
         assertEquals(2L, result.userId());
 
         // Paso 5: Verificar interacciones
-        verify(accountRepository).findById(id);
+        verify(accountRepository).findByIdForUpdate(id);
         verify(userRepository).findById(2L);
         verify(accountRepository).save(account);
+        verify(balanceEngine, never()).replace(any(), any());
+    }
+
+    // ==================== TEST 3a: updateAccount - Motor en memoria ====================
+    @Test
+    @DisplayName("updateAccount - Debería fijar el saldo en el motor sin descartarlo")
+    void updateAccount_EngineMode_ReplacesBalanceInEngine() {
+        // Paso 1: Datos
+        Long id = 1L;
+        AccountRequestDTO request = new AccountRequestDTO("11111", Money.of("2000"), 2L);
+        User user = new User();
+        user.setId(2L);
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber("11111");
+        account.setBalance(Money.of("500"));
+        account.setUser(user);
+
+        // Paso 2: Mocks
+        when(balanceEngine.isEnabled()).thenReturn(true);
+        when(accountRepository.findByIdForUpdate(id)).thenReturn(Optional.of(account));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user));
+        when(accountRepository.save(account)).thenReturn(account);
+        when(balanceEngine.replace(id, Money.of("2000"))).thenReturn(Money.of("700"));
+        when(balanceEngine.currentBalance(id)).thenReturn(Optional.of(Money.of("2000")));
+
+        // Paso 3: Ejecutar
+        AccountResponseDTO result = accountService.updateAccount(id, request);
+
+        // Paso 4: La escritura diferida lleva el saldo a la tabla; evict perdería movimientos concurrentes
+        assertEquals(Money.of("2000"), result.balance());
+        assertEquals(Money.of("500"), account.getBalance());
+        verify(balanceEngine).replace(id, Money.of("2000"));
+        verify(balanceEngine, never()).evict(any());
+        verifyNoInteractions(accountJdbcRepository);
+        // El saldo editado también llega al stream de saldos
+        verify(eventPublisher).publishEvent(new BalanceChangedEvent(Set.of(id)));
+    }
+
+    // ==================== TEST 3b: updateAccount - Modo WAL ====================
+    @Test
+    @DisplayName("updateAccount - Debería aplicar la edición de saldo como variación en modo WAL")
+    void updateAccount_WalMode_AddsDeltaInsteadOfAbsoluteBalance() {
+        // Paso 1: La tabla dice 500 pero el motor ya lleva 700 con movimientos aún sin aplicar
+        Long id = 1L;
+        AccountRequestDTO request = new AccountRequestDTO("11111", Money.of("2000"), 2L);
+        User user = new User();
+        user.setId(2L);
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber("11111");
+        account.setBalance(Money.of("500"));
+        account.setUser(user);
+
+        // Paso 2: Mocks
+        when(balanceEngine.isEnabled()).thenReturn(true);
+        when(transactionWal.isEnabled()).thenReturn(true);
+        when(accountRepository.findByIdForUpdate(id)).thenReturn(Optional.of(account));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user));
+        when(accountRepository.save(account)).thenReturn(account);
+        when(balanceEngine.replace(id, Money.of("2000"))).thenReturn(Money.of("700"));
+        when(balanceEngine.currentBalance(id)).thenReturn(Optional.of(Money.of("2000")));
+
+        // Paso 3: Ejecutar
+        AccountResponseDTO result = accountService.updateAccount(id, request);
+
+        // Paso 4: La entidad no escribe el saldo; la tabla recibe +1300 sobre lo que tenga
+        assertEquals(Money.of("2000"), result.balance());
+        assertEquals(Money.of("500"), account.getBalance());
+        InOrder order = inOrder(accountRepository, balanceEngine, accountJdbcRepository);
+        order.verify(accountRepository).flush();
+        order.verify(balanceEngine).replace(id, Money.of("2000"));
+        order.verify(accountJdbcRepository).addToBalances(Map.of(id, Money.of("1300")));
+        verify(balanceEngine, never()).evict(any());
     }
 
     // ==================== TEST 4: updateAccount - Caso malo (cuenta no encontrada) ====================
@@ -140,16 +265,16 @@ class AccountServiceImplTest {
     void updateAccount_AccountNotFound() {
         // Paso 1
         Long id = 99L;
-        AccountRequestDTO request = new AccountRequestDTO("54321", BigDecimal.valueOf(2000), 1L);
+        AccountRequestDTO request = new AccountRequestDTO("54321", Money.of("2000"), 1L);
 
         // Paso 2
-        when(accountRepository.findById(id)).thenReturn(Optional.empty());
+        when(accountRepository.findByIdForUpdate(id)).thenReturn(Optional.empty());
 
         // Paso 3 y 4
         assertThrows(RuntimeException.class, () -> accountService.updateAccount(id, request));
 
         // Paso 5
-        verify(accountRepository).findById(id);
+        verify(accountRepository).findByIdForUpdate(id);
         verify(userRepository, never()).findById(any());
     }
 
@@ -157,28 +282,15 @@ class AccountServiceImplTest {
     @Test
     @DisplayName("getAllAccounts - Debería retornar lista de cuentas")
     void getAllAccounts_WithResults() {
-        // Paso 1
-        User u1 = new User();
-        u1.setId(1L);
-        User u2 = new User();
-        u2.setId(2L);
-
-        Account a1 = new Account();
-        a1.setId(1L);
-        a1.setAccountNumber("11111");
-        a1.setBalance(BigDecimal.valueOf(100));
-        a1.setUser(u1);
-
-        Account a2 = new Account();
-        a2.setId(2L);
-        a2.setAccountNumber("22222");
-        a2.setBalance(BigDecimal.valueOf(200));
-        a2.setUser(u2);
+        // Paso 1: La proyección ya trae los DTOs
+        List<AccountResponseDTO> accounts = Arrays.asList(
+                new AccountResponseDTO(1L, "11111", Money.of("100"), 1L),
+                new AccountResponseDTO(2L, "22222", Money.of("200"), 2L));
 
-        List<Account> accounts = Arrays.asList(a1, a2);
-
-        // Paso 2
-        when(accountRepository.findAll()).thenReturn(accounts);
+        // Paso 2: El motor en memoria tiene un saldo más reciente para la segunda
+        when(accountRepository.findAllResponses()).thenReturn(accounts);
+        when(balanceEngine.currentBalance(1L)).thenReturn(Optional.empty());
+        when(balanceEngine.currentBalance(2L)).thenReturn(Optional.of(Money.of("250")));
 
         // Paso 3
         List<AccountResponseDTO> result = accountService.getAllAccounts();
@@ -186,24 +298,27 @@ class AccountServiceImplTest {
         // Paso 4
         assertEquals(2, result.size());
         assertEquals("11111", result.get(0).accountNumber());
+        assertEquals(Money.of("100"), result.get(0).balance());
         assertEquals("22222", result.get(1).accountNumber());
+        assertEquals(Money.of("250"), result.get(1).balance());
 
-        // Paso 5
-        verify(accountRepository).findAll();
+        // Paso 5: Sin cargar entidades
+        verify(accountRepository).findAllResponses();
+        verify(accountRepository, never()).findAll();
     }
 
     // ==================== TEST 6: getAllAccounts - Lista vacía ====================
     @Test
     @DisplayName("getAllAccounts - Debería retornar lista vacía")
     void getAllAccounts_Empty() {
-        when(accountRepository.findAll()).thenReturn(Collections.emptyList());
+        when(accountRepository.findAllResponses()).thenReturn(Collections.emptyList());
 
         List<AccountResponseDTO> result = accountService.getAllAccounts();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
 
-        verify(accountRepository).findAll();
+        verify(accountRepository).findAllResponses();
     }
 
     // ==================== TEST 7: getAccountById - Caso exitoso ====================
@@ -212,24 +327,18 @@ class AccountServiceImplTest {
     void getAccountById_Success() {
         Long id = 1L;
 
-        User user = new User();
-        user.setId(1L);
-
-        Account account = new Account();
-        account.setId(id);
-        account.setAccountNumber("12345");
-        account.setBalance(BigDecimal.valueOf(300));
-        account.setUser(user);
-
-        when(accountRepository.findById(id)).thenReturn(Optional.of(account));
+        when(accountRepository.findResponseById(id))
+                .thenReturn(Optional.of(new AccountResponseDTO(id, "12345", Money.of("300"), 1L)));
 
         AccountResponseDTO result = accountService.getAccountById(id);
 
         assertNotNull(result);
         assertEquals("12345", result.accountNumber());
-        assertEquals(BigDecimal.valueOf(300), result.balance());
+        assertEquals(Money.of("300"), result.balance());
+        assertEquals(1L, result.userId());
 
-        verify(accountRepository).findById(id);
+        verify(accountRepository).findResponseById(id);
+        verify(accountRepository, never()).findById(any());
     }
 
     // ==================== TEST 8: getAccountById - Caso malo ====================
@@ -238,11 +347,11 @@ class AccountServiceImplTest {
     void getAccountById_NotFound() {
         Long id = 99L;
 
-        when(accountRepository.findById(id)).thenReturn(Optional.empty());
+        when(accountRepository.findResponseById(id)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> accountService.getAccountById(id));
 
-        verify(accountRepository).findById(id);
+        verify(accountRepository).findResponseById(id);
     }
 
     // ==================== TEST 9: deleteAccount - Caso exitoso ====================
@@ -250,11 +359,31 @@ class AccountServiceImplTest {
     @DisplayName("deleteAccount - Debería eliminar cuenta exitosamente")
     void deleteAccount_Success() {
         Long id = 1L;
+        Account account = new Account();
+        account.setId(id);
 
-        doNothing().when(accountRepository).deleteById(id);
+        when(accountRepository.findById(id)).thenReturn(Optional.of(account));
 
         accountService.deleteAccount(id);
 
-        verify(accountRepository).deleteById(id);
+        InOrder order = inOrder(transactionWal, accountRepository);
+        order.verify(transactionWal).applyPending();
+        order.verify(accountRepository).delete(account);
+        verify(uniqueKeyFilter).removed(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER);
+        // El saldo en memoria no se toca dentro de la transacción: se descarta al confirmar
+        verify(eventPublisher).publishEvent(new AccountsDeletedEvent(Set.of(id)));
+        verify(balanceEngine, never()).evict(any());
+    }
+
+    // ==================== TEST 10: deleteAccount - Cuenta inexistente ====================
+    @Test
+    @DisplayName("deleteAccount - No debería contar una baja en el filtro si no borró ninguna fila")
+    void deleteAccount_Missing_DoesNotCountRemoval() {
+        when(accountRepository.findById(99L)).thenReturn(Optional.empty());
+
+        accountService.deleteAccount(99L);
+
+        verify(accountRepository, never()).delete(any());
+        verify(uniqueKeyFilter, never()).removed(any());
     }
 }
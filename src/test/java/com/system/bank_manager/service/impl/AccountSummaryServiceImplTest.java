@@ -0,0 +1,158 @@
+package com.system.bank_manager.service.impl;
+
+import com.system.bank_manager.dto.request.TransactionRequestDTO;
+import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.dto.response.AccountSummaryDTO;
+import com.system.bank_manager.dto.response.SummaryRebuildDTO;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.service.AccountSummaryService;
+import com.system.bank_manager.service.TransactionService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Resúmenes por cuenta contra H2: lo que mantienen las escrituras concurrentes coincide
+ * con lo que recalcula la reconstrucción paralela desde transactions.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:account-summaries;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "bank.summaries.rebuild-threads=3"
+})
+@DisplayName("AccountSummaryServiceImpl - Resúmenes por cuenta")
+class AccountSummaryServiceImplTest {
+
+    private static final int ACCOUNTS = 20;
+    private static final int OPERATIONS = 600;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private AccountSummaryServiceImpl accountSummaryServiceImpl;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM account_summaries");
+        jdbcTemplate.update("DELETE FROM accounts");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("INSERT INTO users (id, dni, name, email, password) VALUES (1, '1', 'Ana', 'ana@bank.com', 'x')");
+        // Una cuenta más sin movimientos, la ACCOUNTS + 1
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, user_id, created_at) "
+                + "SELECT X, 'ACC' || X, 100000, 1, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + (ACCOUNTS + 1) + ")");
+    }
+
+    private List<Map<String, Object>> summaries() {
+        return jdbcTemplate.queryForList("SELECT account_id, total_deposited, total_withdrawn, transaction_count, "
+                + "last_activity FROM account_summaries ORDER BY account_id");
+    }
+
+    // TEST 1: mantenimiento incremental frente a reconstrucción
+    @Test
+    @DisplayName("rebuildAll - Debería recalcular en paralelo lo mismo que mantuvieron las escrituras concurrentes")
+    void rebuildAll_MatchesIncrementalSummaries() throws Exception {
+        // PASO 1: Depósitos, retiros y transferencias concurrentes entre las cuentas
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < OPERATIONS; i++) {
+                long account = 1 + i % ACCOUNTS;
+                long other = 1 + (i * 7 + 3) % ACCOUNTS;
+                int kind = i % 3;
+                results.add(executor.submit(() -> {
+                    switch (kind) {
+                        case 0 -> transactionService.createTransaction(account,
+                                new TransactionRequestDTO(Money.of("12.34"), Transaction.TransactionType.DEPOSIT));
+                        case 1 -> transactionService.createTransaction(account,
+                                new TransactionRequestDTO(Money.of("5.01"), Transaction.TransactionType.WITHDRAWAL));
+                        default -> transactionService.transferBetweenAccounts(
+                                new TransferRequestDTO(Money.of("7.50"), account, other == account ? 1 + account % ACCOUNTS : other));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        List<Map<String, Object>> incremental = summaries();
+        assertEquals(ACCOUNTS, incremental.size());
+        assertEquals(OPERATIONS + OPERATIONS / 3, jdbcTemplate.queryForObject(
+                "SELECT SUM(transaction_count) FROM account_summaries", Integer.class));
+
+        // PASO 2: Borrar los resúmenes y reconstruirlos desde transactions
+        jdbcTemplate.update("DELETE FROM account_summaries");
+        SummaryRebuildDTO rebuild = accountSummaryService.rebuildAll();
+
+        // PASO 3: Verificar que coinciden fila a fila
+        assertEquals(ACCOUNTS, rebuild.accounts());
+        assertEquals(3 * 4, rebuild.slices());
+        assertEquals(incremental, summaries());
+    }
+
+    // TEST 2: lectura de una cuenta
+    @Test
+    @DisplayName("getSummary - Debería devolver los totales de la cuenta, ceros sin movimientos y 404 si no existe")
+    void getSummary_ReturnsTotals() {
+        // PASO 1: Un depósito y un retiro sobre la cuenta 1
+        transactionService.createTransaction(1L, new TransactionRequestDTO(Money.of("40.00"), Transaction.TransactionType.DEPOSIT));
+        transactionService.createTransaction(1L, new TransactionRequestDTO(Money.of("15.50"), Transaction.TransactionType.WITHDRAWAL));
+
+        // PASO 2: Verificar los totales
+        AccountSummaryDTO summary = accountSummaryService.getSummary(1L);
+        assertEquals(Money.of("40.00"), summary.totalDeposited());
+        assertEquals(Money.of("15.50"), summary.totalWithdrawn());
+        assertEquals(2, summary.transactionCount());
+        assertNotNull(summary.lastActivity());
+
+        // PASO 3: Una cuenta sin movimientos no tiene fila pero sí resumen; una inexistente no
+        AccountSummaryDTO empty = accountSummaryService.getSummary(ACCOUNTS + 1L);
+        assertEquals(Money.ZERO, empty.totalDeposited());
+        assertEquals(0, empty.transactionCount());
+        assertNull(empty.lastActivity());
+        assertThrows(EntityNotFoundException.class, () -> accountSummaryService.getSummary(999L));
+    }
+
+    // TEST 3: base con movimientos anteriores a la tabla de resúmenes
+    @Test
+    @DisplayName("backfillIfIncomplete - Debería reconstruir al arrancar si hay movimientos sin resumir")
+    void backfillIfIncomplete_RebuildsSummariesOfExistingDatabase() {
+        // PASO 1: Movimientos de antes de que existiera account_summaries y uno nuevo que crea el resumen
+        jdbcTemplate.update("INSERT INTO transactions (id, amount, type, date, account_id) VALUES "
+                + "(9001, 100.00, 'DEPOSIT', TIMESTAMP '2024-01-01 10:00:00', 1), "
+                + "(9002, 30.00, 'WITHDRAWAL', TIMESTAMP '2024-01-02 10:00:00', 1)");
+        transactionService.createTransaction(1L, new TransactionRequestDTO(Money.of("5.00"), Transaction.TransactionType.DEPOSIT));
+        assertEquals(1, accountSummaryService.getSummary(1L).transactionCount());
+
+        // PASO 2: Lo que hace el arranque
+        assertTrue(accountSummaryServiceImpl.backfillIfIncomplete());
+
+        // PASO 3: El resumen recoge toda la historia y un segundo arranque no repite el trabajo
+        AccountSummaryDTO summary = accountSummaryService.getSummary(1L);
+        assertEquals(Money.of("105.00"), summary.totalDeposited());
+        assertEquals(Money.of("30.00"), summary.totalWithdrawn());
+        assertEquals(3, summary.transactionCount());
+        assertFalse(accountSummaryServiceImpl.backfillIfIncomplete());
+    }
+}
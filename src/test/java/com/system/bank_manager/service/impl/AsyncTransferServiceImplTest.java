@@ -0,0 +1,137 @@
+package com.system.bank_manager.service.impl;
+
+import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.dto.response.TransferResultDTO;
+import com.system.bank_manager.dto.response.TransferStatusDTO;
+import com.system.bank_manager.exception.TransferQueueFullException;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AsyncTransferServiceImpl - Transferencias asíncronas")
+class AsyncTransferServiceImplTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    private AsyncTransferServiceImpl asyncTransferService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        asyncTransferService.shutdown();
+    }
+
+    // Espera a que el worker deje la transferencia en un estado final
+    private TransferStatusDTO awaitFinalStatus(String transferId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            TransferStatusDTO status = asyncTransferService.getStatus(transferId);
+            if (status.status() != TransferStatusDTO.Status.PENDING) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return fail("La transferencia " + transferId + " sigue pendiente");
+    }
+
+    // TEST 1: Encolar y procesar
+    @Test
+    @DisplayName("submit - Debería responder PENDING y terminar en COMPLETED o REJECTED según el lote")
+    void submit_ProcessedByWorker() throws InterruptedException {
+        // PASO 1: El lote aplica la primera y rechaza la segunda
+        when(transactionService.transferBatch(anyList())).thenAnswer(invocation -> {
+            List<TransferRequestDTO> requests = invocation.getArgument(0);
+            return IntStream.range(0, requests.size())
+                    .mapToObj(i -> requests.get(i).fromAccountId() == 1L
+                            ? new TransferResultDTO(i, true, "Transferencia realizada con éxito")
+                            : new TransferResultDTO(i, false, "Saldo insuficiente en la cuenta origen"))
+                    .toList();
+        });
+        asyncTransferService = new AsyncTransferServiceImpl(transactionService, new SimpleMeterRegistry(), 100, 1, 50);
+
+        // PASO 2: Encolar
+        TransferStatusDTO ok = asyncTransferService.submit(new TransferRequestDTO(Money.of("10.00"), 1L, 2L));
+        TransferStatusDTO rejected = asyncTransferService.submit(new TransferRequestDTO(Money.of("10.00"), 3L, 2L));
+        assertEquals(TransferStatusDTO.Status.PENDING, ok.status());
+
+        // PASO 3: Verificar el estado final de cada una
+        assertEquals(TransferStatusDTO.Status.COMPLETED, awaitFinalStatus(ok.transferId()).status());
+        TransferStatusDTO rejectedStatus = awaitFinalStatus(rejected.transferId());
+        assertEquals(TransferStatusDTO.Status.REJECTED, rejectedStatus.status());
+        assertEquals("Saldo insuficiente en la cuenta origen", rejectedStatus.message());
+    }
+
+    // TEST 2: Cola llena
+    @Test
+    @DisplayName("submit - Debería rechazar con TransferQueueFullException cuando la cola está llena")
+    void submit_QueueFull() {
+        // PASO 1: Sin workers y con capacidad 1 la cola no se vacía
+        asyncTransferService = new AsyncTransferServiceImpl(transactionService, new SimpleMeterRegistry(), 1, 0, 50);
+        asyncTransferService.submit(new TransferRequestDTO(Money.of("10.00"), 1L, 2L));
+
+        // PASO 2: La segunda no cabe
+        assertThrows(TransferQueueFullException.class,
+                () -> asyncTransferService.submit(new TransferRequestDTO(Money.of("10.00"), 1L, 2L)));
+
+        // PASO 3: Nada llegó al servicio de transacciones
+        verifyNoInteractions(transactionService);
+    }
+
+    // TEST 3: Fallo del lote completo
+    @Test
+    @DisplayName("submit - Debería marcar FAILED si el lote entero se revierte")
+    void submit_BatchFailure() throws InterruptedException {
+        // PASO 1: La base de datos falla
+        when(transactionService.transferBatch(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Base de datos no disponible"));
+        asyncTransferService = new AsyncTransferServiceImpl(transactionService, new SimpleMeterRegistry(), 100, 1, 50);
+
+        // PASO 2: Encolar y esperar
+        TransferStatusDTO submitted = asyncTransferService.submit(new TransferRequestDTO(Money.of("10.00"), 1L, 2L));
+        TransferStatusDTO status = awaitFinalStatus(submitted.transferId());
+
+        // PASO 3: Verificar
+        assertEquals(TransferStatusDTO.Status.FAILED, status.status());
+        assertEquals("Base de datos no disponible", status.message());
+    }
+
+    // TEST 4: Servicio apagado
+    @Test
+    @DisplayName("submit - Debería rechazar con TransferQueueFullException después del apagado")
+    void submit_AfterShutdown_Refused() throws InterruptedException {
+        // PASO 1: Apagar; los workers ya no van a recoger nada
+        asyncTransferService = new AsyncTransferServiceImpl(transactionService, new SimpleMeterRegistry(), 100, 1, 50);
+        asyncTransferService.shutdown();
+
+        // PASO 2: La petición se rechaza en lugar de quedar PENDING para siempre
+        assertThrows(TransferQueueFullException.class,
+                () -> asyncTransferService.submit(new TransferRequestDTO(Money.of("10.00"), 1L, 2L)));
+
+        // PASO 3: Nada llegó al servicio de transacciones
+        verifyNoInteractions(transactionService);
+    }
+
+    // TEST 5: ID desconocido
+    @Test
+    @DisplayName("getStatus - Debería lanzar EntityNotFoundException si el ID no existe")
+    void getStatus_NotFound() {
+        asyncTransferService = new AsyncTransferServiceImpl(transactionService, new SimpleMeterRegistry(), 1, 0, 50);
+
+        assertThrows(EntityNotFoundException.class, () -> asyncTransferService.getStatus("desconocido"));
+    }
+}
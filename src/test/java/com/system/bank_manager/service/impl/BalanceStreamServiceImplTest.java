@@ -0,0 +1,111 @@
+package com.system.bank_manager.service.impl;
+
+import com.system.bank_manager.dto.request.TransactionRequestDTO;
+import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.exception.InsufficientFundsException;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stream SSE de saldos sobre HTTP real: el cliente recibe el saldo actual al conectar y
+ * un evento por cada cambio confirmado, y nada por un movimiento revertido.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:balance-stream;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@DisplayName("BalanceStreamServiceImpl - Saldos por Server-Sent Events")
+class BalanceStreamServiceImplTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM accounts");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("INSERT INTO users (id, dni, name, email, password) VALUES (1, '1', 'Ana', 'ana@bank.com', 'x')");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, user_id, created_at) VALUES "
+                + "(1, 'ACC1', 100.00, 1, CURRENT_TIMESTAMP), (2, 'ACC2', 50.00, 1, CURRENT_TIMESTAMP)");
+    }
+
+    private HttpResponse<InputStream> open(long accountId) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/accounts/" + accountId + "/balance/stream"))
+                .header("Accept", "text/event-stream")
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    // Siguiente línea data: del stream
+    private static String nextData(BufferedReader reader) throws Exception {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("data:")) {
+                return line.substring("data:".length());
+            }
+        }
+        throw new AssertionError("El stream se cerró");
+    }
+
+    // TEST 1: saldo inicial y cambios confirmados
+    @Test
+    @DisplayName("subscribe - Debería enviar el saldo actual y después cada cambio confirmado")
+    void subscribe_StreamsCommittedBalances() throws Exception {
+        // PASO 1: Conectar a la cuenta 1 y leer el saldo inicial
+        HttpResponse<InputStream> response = open(1);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/event-stream"));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            assertTrue(nextData(reader).contains("\"balance\":100.00"));
+
+            // PASO 2: Un retiro sin fondos se revierte y no genera evento; el depósito posterior sí
+            assertThrows(InsufficientFundsException.class, () -> transactionService.createTransaction(1L,
+                    new TransactionRequestDTO(Money.of("500.00"), Transaction.TransactionType.WITHDRAWAL)));
+            transactionService.createTransaction(1L,
+                    new TransactionRequestDTO(Money.of("25.50"), Transaction.TransactionType.DEPOSIT));
+            String deposit = nextData(reader);
+            assertTrue(deposit.contains("\"accountId\":1"), deposit);
+            assertTrue(deposit.contains("\"balance\":125.50"), deposit);
+
+            // PASO 3: Una transferencia llega con el saldo del origen
+            transactionService.transferBetweenAccounts(new TransferRequestDTO(Money.of("20.00"), 1L, 2L));
+            assertTrue(nextData(reader).contains("\"balance\":105.50"));
+        }
+    }
+
+    // TEST 2: cuenta inexistente
+    @Test
+    @DisplayName("subscribe - Debería responder 404 sin abrir el stream si la cuenta no existe")
+    void subscribe_UnknownAccount() throws Exception {
+        assertEquals(404, open(999).statusCode());
+    }
+}
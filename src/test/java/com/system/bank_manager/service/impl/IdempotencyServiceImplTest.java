@@ -0,0 +1,141 @@
+package com.system.bank_manager.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.bank_manager.entity.IdempotencyKey;
+import com.system.bank_manager.exception.IdempotencyKeyInProgressException;
+import com.system.bank_manager.exception.IdempotencyKeyReuseException;
+import com.system.bank_manager.repository.IdempotencyKeyRepository;
+import com.system.bank_manager.wal.TransactionWal;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyServiceImpl - Claves de idempotencia")
+class IdempotencyServiceImplTest {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionWal transactionWal;
+
+    private IdempotencyServiceImpl idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyServiceImpl(
+                idempotencyKeyRepository, entityManager, transactionManager, new ObjectMapper(), transactionWal);
+    }
+
+    // TEST 1: Clave nueva y reintento
+    @Test
+    @DisplayName("execute - Debería ejecutar una vez y responder el reintento desde memoria")
+    void execute_RetryServedFromMemory() {
+        // PASO 1: Operación que cuenta sus ejecuciones
+        AtomicInteger executions = new AtomicInteger();
+
+        // PASO 2: Ejecutar dos veces con la misma clave
+        String first = idempotencyService.execute("k1", "transfer:1", String.class,
+                () -> "ok-" + executions.incrementAndGet());
+        String retry = idempotencyService.execute("k1", "transfer:1", String.class,
+                () -> "ok-" + executions.incrementAndGet());
+
+        // PASO 3: Verificar
+        assertEquals("ok-1", first);
+        assertEquals("ok-1", retry);
+        assertEquals(1, executions.get());
+
+        // PASO 4: La clave se guardó con la operación y no se consultó la tabla
+        verify(entityManager).persist(any(IdempotencyKey.class));
+        verify(idempotencyKeyRepository, never()).findById(any());
+    }
+
+    // TEST 2: Clave ya confirmada en base de datos (no está en memoria)
+    @Test
+    @DisplayName("execute - Debería devolver la respuesta guardada si la clave ya existía en la tabla")
+    void execute_DuplicateFromDatabase() {
+        // PASO 1: Preparar la respuesta de la primera ejecución guardada en la tabla
+        IdempotencyKey saved = new IdempotencyKey(
+                "k2", IdempotencyServiceImpl.hash("transfer:2"), "\"original\"", LocalDateTime.now());
+
+        // PASO 2: Configurar mocks: el commit falla por clave duplicada
+        doThrow(new DataIntegrityViolationException("duplicate")).when(transactionManager).commit(any());
+        when(idempotencyKeyRepository.findById("k2")).thenReturn(Optional.of(saved));
+
+        // PASO 3: Ejecutar
+        String response = idempotencyService.execute("k2", "transfer:2", String.class, () -> "repetida");
+
+        // PASO 4: Verificar
+        assertEquals("original", response);
+    }
+
+    // TEST 3: Misma clave con otra petición
+    @Test
+    @DisplayName("execute - Debería rechazar una clave reutilizada con otra petición")
+    void execute_KeyReusedWithDifferentRequest() {
+        // PASO 1: Primera ejecución
+        idempotencyService.execute("k3", "transfer:1", String.class, () -> "ok");
+
+        // PASO 2: Ejecutar y verificar
+        assertThrows(IdempotencyKeyReuseException.class,
+                () -> idempotencyService.execute("k3", "transfer:99", String.class, () -> "ok"));
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.execute(" ", "transfer:1", String.class, () -> "ok"));
+    }
+
+    // TEST 4: Modo WAL, la clave está reservada por una petición en curso
+    @Test
+    @DisplayName("execute - Debería responder en curso sin ejecutar si la clave está reservada en modo WAL")
+    void execute_Wal_KeyInProgress() {
+        // PASO 1: La reserva choca con la de otra petición que aún no guardó respuesta
+        when(transactionWal.isEnabled()).thenReturn(true);
+        doThrow(new DataIntegrityViolationException("duplicate")).when(transactionManager).commit(any());
+        when(idempotencyKeyRepository.findById("k4")).thenReturn(Optional.of(new IdempotencyKey(
+                "k4", IdempotencyServiceImpl.hash("transfer:4"), IdempotencyServiceImpl.PENDING_RESPONSE, LocalDateTime.now())));
+        AtomicInteger executions = new AtomicInteger();
+
+        // PASO 2: Ejecutar y verificar
+        assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyService.execute(
+                "k4", "transfer:4", String.class, () -> "ok-" + executions.incrementAndGet()));
+        assertEquals(0, executions.get());
+    }
+
+    // TEST 5: Modo WAL, la operación falla tras reservar
+    @Test
+    @DisplayName("execute - Debería liberar la clave reservada si la operación falla en modo WAL")
+    void execute_Wal_FailureReleasesKey() {
+        // PASO 1: Configurar mocks
+        when(transactionWal.isEnabled()).thenReturn(true);
+
+        // PASO 2: Ejecutar una operación que falla
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("k5", "transfer:5", String.class,
+                () -> {
+                    throw new IllegalStateException("sin fondos");
+                }));
+
+        // PASO 3: Se reservó y se liberó
+        verify(entityManager).persist(any(IdempotencyKey.class));
+        verify(idempotencyKeyRepository).deleteById("k5");
+    }
+}
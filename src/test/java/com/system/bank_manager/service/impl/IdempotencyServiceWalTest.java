@@ -0,0 +1,140 @@
+package com.system.bank_manager.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.bank_manager.dto.request.TransactionRequestDTO;
+import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.exception.IdempotencyKeyInProgressException;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.IdempotencyKeyRepository;
+import com.system.bank_manager.service.IdempotencyService;
+import com.system.bank_manager.service.TransactionService;
+import com.system.bank_manager.wal.TransactionWal;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Idempotency-Key en modo WAL contra H2: el movimiento es durable antes del commit, así
+ * que reintentos concurrentes o posteriores con la misma clave no pueden volver a anexarlo.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency-wal;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "bank.execution.mode=WAL",
+        "bank.wal.apply-interval-ms=20"
+})
+@DisplayName("IdempotencyServiceImpl - Claves duplicadas en modo WAL")
+class IdempotencyServiceWalTest {
+
+    private static final int RETRIES = 16;
+    private static final long DEADLINE_MILLIS = 10_000;
+
+    @DynamicPropertySource
+    static void walDirectory(DynamicPropertyRegistry registry) throws IOException {
+        registry.add("bank.wal.directory", Files.createTempDirectory("idempotency-wal")::toString);
+    }
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionWal transactionWal;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionResponseDTO deposit(IdempotencyService service, String key, TransactionRequestDTO request) {
+        return service.execute(key, "transaction:1:" + request, TransactionResponseDTO.class,
+                () -> transactionService.createTransaction(1L, request));
+    }
+
+    // TEST 1: reintentos concurrentes y posteriores con la misma clave
+    @Test
+    @DisplayName("execute - Debería anexar al WAL un solo depósito aunque la clave llegue a la vez y tras salir de memoria")
+    void execute_ConcurrentDuplicateKeys_AppliedOnce() throws Exception {
+        // PASO 1: Una cuenta con 100.00
+        jdbcTemplate.update("INSERT INTO users (id, dni, name, email, password) VALUES (1, '1', 'Ana', 'ana@bank.com', 'x')");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, user_id, created_at) "
+                + "VALUES (1, 'ACC1', 100.00, 1, CURRENT_TIMESTAMP)");
+        TransactionRequestDTO request = new TransactionRequestDTO(Money.of("10.00"), Transaction.TransactionType.DEPOSIT);
+
+        // PASO 2: La misma clave a la vez desde varios hilos
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<TransactionResponseDTO>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(RETRIES)) {
+            for (int i = 0; i < RETRIES; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return deposit(idempotencyService, "dup", request);
+                    } catch (IdempotencyKeyInProgressException e) {
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Future<TransactionResponseDTO> result : results) {
+            TransactionResponseDTO response = result.get();
+            if (response != null) {
+                ids.add(response.id());
+            }
+        }
+
+        // PASO 3: Reintento con la clave ya fuera de memoria (otra instancia, como tras reiniciar)
+        IdempotencyServiceImpl restarted = new IdempotencyServiceImpl(
+                idempotencyKeyRepository, entityManager, transactionManager, objectMapper, transactionWal);
+        ids.add(deposit(restarted, "dup", request).id());
+
+        // PASO 4: Todas las respuestas son la del único depósito, y solo ese llega a la base
+        assertEquals(1, ids.size(), "Respuestas: " + ids);
+        long deadline = System.currentTimeMillis() + DEADLINE_MILLIS;
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class) == 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "El WAL no se aplicó a tiempo");
+            Thread.sleep(20);
+        }
+        Thread.sleep(200);
+        assertEquals(List.of(ids.iterator().next()),
+                jdbcTemplate.queryForList("SELECT id FROM transactions", Long.class));
+        assertEquals(new BigDecimal("110.00"),
+                jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = 1", BigDecimal.class));
+    }
+}
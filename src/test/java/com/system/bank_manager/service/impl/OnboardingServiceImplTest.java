@@ -0,0 +1,198 @@
+package com.system.bank_manager.service.impl;
+
+import com.system.bank_manager.dto.response.ImportSummaryDTO;
+import com.system.bank_manager.entity.Account;
+import com.system.bank_manager.entity.User;
+import com.system.bank_manager.persistence.IdBlockAllocator;
+import com.system.bank_manager.repository.AccountJdbcRepository;
+import com.system.bank_manager.repository.UserJdbcRepository;
+import com.system.bank_manager.uniqueness.UniqueKeyFilter;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OnboardingServiceImpl - Alta masiva desde CSV")
+class OnboardingServiceImplTest {
+
+    private static final String HEADER = "dni,name,email,password,accountNumber,balance";
+    private static final String PASSWORD = "Secreta1!";
+
+    @Mock
+    private UserJdbcRepository userJdbcRepository;
+
+    @Mock
+    private AccountJdbcRepository accountJdbcRepository;
+
+    @Mock
+    private IdBlockAllocator idBlockAllocator;
+
+    @Mock
+    private UniqueKeyFilter uniqueKeyFilter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OnboardingServiceImpl onboardingService;
+
+    private ImportSummaryDTO summary;
+
+    @BeforeEach
+    void setUp() {
+        // Bloques de 2 filas para que cada test cruce varios
+        onboardingService = new OnboardingServiceImpl(userJdbcRepository, accountJdbcRepository, idBlockAllocator,
+                uniqueKeyFilter, Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, 2);
+        lenient().when(idBlockAllocator.allocate(anyString(), anyInt()))
+                .thenAnswer(invocation -> LongStream.rangeClosed(1, invocation.<Integer>getArgument(1)).toArray());
+        lenient().when(uniqueKeyFilter.mightExist(any(), anyString())).thenReturn(true);
+    }
+
+    private String importCsv(String... rows) throws IOException {
+        StringWriter report = new StringWriter();
+        summary = onboardingService.importCsv(HEADER, new BufferedReader(new StringReader(String.join("\n", rows))), report);
+        return report.toString();
+    }
+
+    // TEST 1: Filas válidas e inválidas
+    @Test
+    @DisplayName("importCsv - Debería guardar las filas válidas por bloques e informar de las inválidas")
+    void importCsv_ValidAndInvalidRows() throws IOException {
+        // PASO 1: Tres filas válidas (una con comillas y coma en el nombre) y dos inválidas
+        String report = importCsv(
+                "11111111A,Ana,ana@bank.com," + PASSWORD + ",100000001,10.50",
+                "22222222B,\"Pérez, Luis\",,"  + PASSWORD + ",100000002,0",
+                "",
+                "33333333C,Eva,no-es-email,corta,12,-1",
+                "44444444D,Sara,sara@bank.com," + PASSWORD + ",100000004,abc",
+                "55555555E,Rosa,rosa@bank.com," + PASSWORD + ",100000005,20");
+
+        // PASO 2: Resumen
+        assertEquals(new ImportSummaryDTO(5, 3, 2), summary);
+
+        // PASO 3: Los bloques se insertan con batch JDBC, con la FK de la cuenta al usuario
+        ArgumentCaptor<List<User>> users = ArgumentCaptor.captor();
+        ArgumentCaptor<List<Account>> accounts = ArgumentCaptor.captor();
+        verify(userJdbcRepository, times(2)).insertAll(users.capture());
+        verify(accountJdbcRepository, times(2)).insertAll(accounts.capture());
+        assertEquals(List.of("11111111A", "22222222B"), users.getAllValues().get(0).stream().map(User::getDni).toList());
+        assertEquals("Pérez, Luis", users.getAllValues().get(0).get(1).getName());
+        assertEquals(List.of("55555555E"), users.getAllValues().get(1).stream().map(User::getDni).toList());
+        assertSame(users.getAllValues().get(0).get(0), accounts.getAllValues().get(0).get(0).getUser());
+        assertEquals("10.50", accounts.getAllValues().get(0).get(0).getBalance().toString());
+
+        // PASO 4: Informe con número de línea física (la vacía cuenta) y todos los errores de la fila
+        List<String> lines = report.lines().toList();
+        assertEquals(OnboardingServiceImpl.REPORT_HEADER, lines.get(0));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).startsWith("5,33333333C,12,\""), lines.get(1));
+        assertTrue(lines.get(1).contains("Debe ser un email válido"));
+        assertTrue(lines.get(1).contains("El número de cuenta debe tener entre 6 y 12 dígitos numéricos"));
+        assertTrue(lines.get(1).contains("El saldo inicial no puede ser negativo"));
+        assertEquals("6,44444444D,100000004,El saldo inicial no es un importe válido: abc", lines.get(2));
+
+        // PASO 5: Las claves guardadas pasan al filtro de unicidad
+        verify(uniqueKeyFilter).added(UniqueKeyFilter.KeySpace.DNI, "55555555E");
+        verify(uniqueKeyFilter).added(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER, "100000005");
+    }
+
+    // TEST 2: Duplicados en el fichero y en la base
+    @Test
+    @DisplayName("importCsv - Debería rechazar duplicados del bloque y de la base con una consulta IN por tabla")
+    void importCsv_Duplicates() throws IOException {
+        // PASO 1: El filtro descarta un DNI; la base ya tiene otro DNI y un número de cuenta
+        when(uniqueKeyFilter.mightExist(UniqueKeyFilter.KeySpace.DNI, "11111111A")).thenReturn(false);
+        when(userJdbcRepository.findExistingDnis(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(0).contains("33333333C") ? Set.of("33333333C") : Set.of());
+        when(accountJdbcRepository.findExistingAccountNumbers(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(0).contains("100000004") ? Set.of("100000004") : Set.of());
+
+        // PASO 2: Importar
+        String report = importCsv(
+                "11111111A,Ana,ana@bank.com," + PASSWORD + ",100000001,1",
+                "11111111A,Ana,ana@bank.com," + PASSWORD + ",100000002,1",
+                "33333333C,Eva,eva@bank.com," + PASSWORD + ",100000003,1",
+                "44444444D,Sara,sara@bank.com," + PASSWORD + ",100000004,1");
+
+        // PASO 3: Ninguna fila del segundo bloque se guarda
+        assertEquals(new ImportSummaryDTO(4, 1, 3), summary);
+        verify(userJdbcRepository, times(1)).insertAll(anyList());
+        assertEquals(List.of(OnboardingServiceImpl.REPORT_HEADER,
+                "3,11111111A,100000002,DNI repetido en el fichero: 11111111A",
+                "4,33333333C,100000003,Ya existe un usuario con DNI: 33333333C",
+                "5,44444444D,100000004,Ya existe una cuenta con este número: 100000004"), report.lines().toList());
+
+        // PASO 4: El DNI descartado por el filtro no se consulta
+        verify(userJdbcRepository).findExistingDnis(Set.of());
+    }
+
+    // TEST 3: Alta concurrente entre la consulta y el insert
+    @Test
+    @DisplayName("importCsv - Debería repetir el bloque fila a fila si la restricción única rechaza el batch")
+    void importCsv_UniqueViolationFallsBackToRows() throws IOException {
+        // PASO 1: El batch falla; fila a fila solo falla el segundo DNI, que otra petición acaba de dar de alta
+        lenient().doThrow(new DataIntegrityViolationException("duplicado")).when(userJdbcRepository)
+                .insertAll(argThat(users -> users.size() == 2 || users.get(0).getDni().equals("22222222B")));
+        when(userJdbcRepository.findExistingDnis(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(0).contains("22222222B") ? Set.of("22222222B") : Set.of());
+
+        // PASO 2: Importar
+        String report = importCsv(
+                "11111111A,Ana,ana@bank.com," + PASSWORD + ",100000001,1",
+                "22222222B,Luis,luis@bank.com," + PASSWORD + ",100000002,1");
+
+        // PASO 3: Verificar
+        assertEquals(new ImportSummaryDTO(2, 1, 1), summary);
+        assertEquals("3,22222222B,100000002,Ya existe un usuario con DNI: 22222222B", report.lines().toList().get(1));
+        verify(uniqueKeyFilter).added(UniqueKeyFilter.KeySpace.DNI, "11111111A");
+        verify(uniqueKeyFilter, never()).added(UniqueKeyFilter.KeySpace.DNI, "22222222B");
+    }
+
+    // TEST 4: Comillas sin cerrar que superan el tope del registro
+    @Test
+    @DisplayName("importCsv - Debería rechazar un registro que supera el tope y seguir con la línea siguiente")
+    void importCsv_RecordTooLong() throws IOException {
+        // PASO 1: Comillas sin cerrar en la línea 2 seguidas de una línea más larga que el tope
+        String report = importCsv(
+                "99999999Z,\"Sin cerrar",
+                "x".repeat(CsvRecordReader.MAX_RECORD_CHARS + 1000),
+                "11111111A,Ana,ana@bank.com," + PASSWORD + ",100000001,10");
+
+        // PASO 2: El registro largo se rechaza y la fila siguiente se importa
+        assertEquals(new ImportSummaryDTO(2, 1, 1), summary);
+        List<String> lines = report.lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("2,,,El registro de la línea 2 supera el máximo de " + CsvRecordReader.MAX_RECORD_CHARS
+                + " caracteres", lines.get(1));
+        verify(uniqueKeyFilter).added(UniqueKeyFilter.KeySpace.DNI, "11111111A");
+    }
+
+    // TEST 5: Cabecera incompleta
+    @Test
+    @DisplayName("checkHeader - Debería lanzar IllegalArgumentException si falta una columna")
+    void checkHeader_MissingColumn() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> onboardingService.checkHeader("dni,name,email,password,balance"));
+        assertEquals("Faltan columnas en la cabecera del CSV: accountNumber", exception.getMessage());
+        assertDoesNotThrow(() -> onboardingService.checkHeader("﻿balance,accountNumber,password,email,name,dni"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.system.bank_manager.service.impl;
+
+import com.system.bank_manager.dto.response.AccountStatementDTO;
+import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.engine.BalanceEngine;
+import com.system.bank_manager.entity.DailyBalance;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.AccountRepository;
+import com.system.bank_manager.repository.DailyBalanceRepository;
+import com.system.bank_manager.repository.TransactionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StatementServiceImpl - Extractos")
+class StatementServiceImplTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private DailyBalanceRepository dailyBalanceRepository;
+
+    @Mock
+    private BalanceEngine balanceEngine;
+
+    @InjectMocks
+    private StatementServiceImpl statementService;
+
+    // TEST 1: Apertura desde el snapshot anterior más los movimientos intermedios
+    @Test
+    @DisplayName("getStatement - Debería partir del snapshot anterior y sumar los movimientos del rango")
+    void getStatement_FromPreviousSnapshot() {
+        // PASO 1: Datos de entrada (snapshot el día 5, extracto del 8 al 10)
+        Long accountId = 1L;
+        LocalDate from = LocalDate.of(2025, 3, 8);
+        LocalDate to = LocalDate.of(2025, 3, 10);
+        DailyBalance snapshot = new DailyBalance(accountId, LocalDate.of(2025, 3, 5), Money.of("500.00"));
+
+        TransactionResponseDTO deposit = new TransactionResponseDTO(
+                1L, Money.of("100.00"), Transaction.TransactionType.DEPOSIT, from.atTime(9, 0), accountId, null);
+        TransactionResponseDTO withdrawal = new TransactionResponseDTO(
+                2L, Money.of("30.00"), Transaction.TransactionType.WITHDRAWAL, from.atTime(10, 0), accountId, null);
+
+        // PASO 2: Configurar mocks
+        when(accountRepository.existsById(accountId)).thenReturn(true);
+        when(dailyBalanceRepository.findFirstByAccountIdAndBalanceDateLessThanEqualOrderByBalanceDateDesc(
+                accountId, from.minusDays(1))).thenReturn(Optional.of(snapshot));
+        when(transactionRepository.sumDeltas(accountId, LocalDate.of(2025, 3, 6).atStartOfDay(), from.atStartOfDay()))
+                .thenReturn(Money.of("-20.00"));
+        when(transactionRepository.findStatementLines(accountId, from.atStartOfDay(), to.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(deposit, withdrawal));
+
+        // PASO 3: Ejecutar
+        AccountStatementDTO statement = statementService.getStatement(accountId, from, to, null);
+
+        // PASO 4: Verificar
+        assertEquals(Money.of("480.00"), statement.openingBalance());
+        assertEquals(Money.of("550.00"), statement.closingBalance());
+        assertEquals(List.of(deposit, withdrawal), statement.transactions());
+
+        // PASO 5: No se recorre el historial desde el saldo actual
+        verify(transactionRepository, never()).sumDeltasSince(any(), any());
+    }
+
+    // TEST 2: Sin snapshots, la apertura se calcula hacia atrás desde el saldo actual
+    @Test
+    @DisplayName("getStatement - Debería partir del saldo actual si aún no hay snapshots")
+    void getStatement_WithoutSnapshots() {
+        // PASO 1: Datos de entrada
+        Long accountId = 1L;
+        LocalDate day = LocalDate.of(2025, 3, 8);
+
+        // PASO 2: Configurar mocks
+        when(accountRepository.existsById(accountId)).thenReturn(true);
+        when(dailyBalanceRepository.findFirstByAccountIdAndBalanceDateLessThanEqualOrderByBalanceDateDesc(any(), any()))
+                .thenReturn(Optional.empty());
+        when(dailyBalanceRepository.findFirstByAccountIdAndBalanceDateGreaterThanOrderByBalanceDateAsc(any(), any()))
+                .thenReturn(Optional.empty());
+        when(balanceEngine.currentBalance(accountId)).thenReturn(Optional.empty());
+        when(accountRepository.findBalanceById(accountId)).thenReturn(Optional.of(Money.of("300.00")));
+        when(transactionRepository.sumDeltasSince(accountId, day.atStartOfDay())).thenReturn(Money.of("50.00"));
+
+        // PASO 3: Ejecutar
+        AccountStatementDTO statement = statementService.getStatement(accountId, day, day, null);
+
+        // PASO 4: Verificar
+        assertEquals(Money.of("250.00"), statement.openingBalance());
+        assertEquals(Money.of("250.00"), statement.closingBalance());
+        assertTrue(statement.transactions().isEmpty());
+    }
+
+    // TEST 3: Validaciones
+    @Test
+    @DisplayName("getStatement - Debería rechazar rangos inválidos y cuentas inexistentes")
+    void getStatement_InvalidRequests() {
+        // PASO 1: Configurar mocks
+        when(accountRepository.existsById(99L)).thenReturn(false);
+        LocalDate day = LocalDate.of(2025, 3, 8);
+
+        // PASO 2: Ejecutar y verificar
+        assertThrows(IllegalArgumentException.class, () -> statementService.getStatement(1L, day, day.minusDays(1), null));
+        assertThrows(IllegalArgumentException.class, () -> statementService.getStatement(1L, day, day.plusYears(2), null));
+        assertThrows(EntityNotFoundException.class, () -> statementService.getStatement(99L, day, day, null));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    // TEST 4: Filtro por tipo
+    @Test
+    @DisplayName("getStatement - Debería listar solo el tipo pedido sin alterar el saldo de cierre")
+    void getStatement_FilteredByType() {
+        // PASO 1: Datos de entrada
+        Long accountId = 1L;
+        LocalDate day = LocalDate.of(2025, 3, 8);
+        DailyBalance snapshot = new DailyBalance(accountId, day.minusDays(1), Money.of("200.00"));
+        TransactionResponseDTO withdrawal = new TransactionResponseDTO(
+                1L, Money.of("40.00"), Transaction.TransactionType.WITHDRAWAL, day.atTime(9, 0), accountId, null);
+
+        // PASO 2: Configurar mocks (hubo además un depósito de 100 ese día)
+        when(accountRepository.existsById(accountId)).thenReturn(true);
+        when(dailyBalanceRepository.findFirstByAccountIdAndBalanceDateLessThanEqualOrderByBalanceDateDesc(
+                accountId, day.minusDays(1))).thenReturn(Optional.of(snapshot));
+        when(transactionRepository.sumDeltas(accountId, day.atStartOfDay(), day.atStartOfDay()))
+                .thenReturn(Money.ZERO);
+        when(transactionRepository.findStatementLinesByType(
+                accountId, Transaction.TransactionType.WITHDRAWAL, day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(withdrawal));
+        when(transactionRepository.sumDeltas(accountId, day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+                .thenReturn(Money.of("60.00"));
+
+        // PASO 3: Ejecutar
+        AccountStatementDTO statement = statementService.getStatement(
+                accountId, day, day, Transaction.TransactionType.WITHDRAWAL);
+
+        // PASO 4: Verificar
+        assertEquals(List.of(withdrawal), statement.transactions());
+        assertEquals(Money.of("200.00"), statement.openingBalance());
+        assertEquals(Money.of("260.00"), statement.closingBalance());
+    }
+}
@@ -0,0 +1,86 @@
+package com.system.bank_manager.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TransactionExportServiceImpl - Exportación NDJSON")
+class TransactionExportServiceImplTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private TransactionExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new TransactionExportServiceImpl(transactionRepository, objectMapper);
+    }
+
+    // TEST 1: Una línea JSON por transacción, aplicando los filtros
+    @Test
+    @DisplayName("exportNdjson - Debería escribir una línea JSON por transacción")
+    void exportNdjson_WritesOneLinePerTransaction() throws Exception {
+        // PASO 1: Datos de entrada
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 2, 1, 0, 0);
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<TransactionResponseDTO> rows = Stream.of(
+                new TransactionResponseDTO(1L, Money.of("10.00"), Transaction.TransactionType.DEPOSIT, from, 7L, null),
+                new TransactionResponseDTO(2L, Money.of("5.00"), Transaction.TransactionType.WITHDRAWAL, from.plusDays(1), 7L, null))
+                .onClose(() -> closed.set(true));
+
+        // PASO 2: Configurar mocks
+        when(transactionRepository.streamForExport(7L, from, to)).thenReturn(rows);
+
+        // PASO 3: Ejecutar
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportNdjson(7L, from, to, out);
+
+        // PASO 4: Verificar
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[0].contains("\"date\":\"2025-01-01T00:00:00\""));
+        assertTrue(lines[1].contains("\"type\":\"WITHDRAWAL\""));
+
+        // PASO 5: Verificar que el cursor se cerró al terminar
+        assertTrue(closed.get());
+    }
+
+    // TEST 2: Sin resultados
+    @Test
+    @DisplayName("exportNdjson - Debería producir una salida vacía si no hay transacciones")
+    void exportNdjson_EmptyExport() throws Exception {
+        // PASO 1: Configurar mocks
+        when(transactionRepository.streamForExport(null, null, null)).thenReturn(Stream.empty());
+
+        // PASO 2: Ejecutar
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportNdjson(null, null, null, out);
+
+        // PASO 3: Verificar
+        assertEquals(0, out.size());
+    }
+}
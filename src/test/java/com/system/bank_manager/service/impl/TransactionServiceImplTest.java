@@ -1,27 +1,42 @@
 package com.system.bank_manager.service.impl;
 
 import com.system.bank_manager.dto.request.TransactionRequestDTO;
+import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.dto.response.JournalEntryDTO;
+import com.system.bank_manager.dto.response.TransactionPageDTO;
 import com.system.bank_manager.dto.response.TransactionResponseDTO;
+import com.system.bank_manager.dto.response.TransferResultDTO;
+import com.system.bank_manager.engine.BalanceEngine;
 import com.system.bank_manager.entity.Account;
 import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.event.BalanceChangedEvent;
 import com.system.bank_manager.exception.InsufficientFundsException;
 import com.system.bank_manager.mapper.TransactionMapper;
+import com.system.bank_manager.money.Money;
 import com.system.bank_manager.repository.AccountRepository;
+import com.system.bank_manager.repository.AccountSummaryJdbcRepository;
+import com.system.bank_manager.repository.TransactionJdbcRepository;
 import com.system.bank_manager.repository.TransactionRepository;
+import com.system.bank_manager.wal.TransactionWal;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongSupplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,6 +55,24 @@ class TransactionServiceImplTest {
     @Mock
     private TransactionMapper transactionMapper;
 
+    @Mock
+    private BalanceEngine balanceEngine;
+
+    @Mock
+    private TransactionJdbcRepository transactionJdbcRepository;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionWal transactionWal;
+
+    @Mock
+    private AccountSummaryJdbcRepository accountSummaryJdbcRepository;
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -50,29 +83,30 @@ class TransactionServiceImplTest {
         // PASO 1: Datos de entrada y salida esperados
         Long accountId = 1L;
         TransactionRequestDTO request = new TransactionRequestDTO(
-                new BigDecimal("100.00"),
+                Money.of("100.00"),
                 Transaction.TransactionType.DEPOSIT
         );
 
         Account account = new Account();
         account.setId(accountId);
-        account.setBalance(new BigDecimal("500.00"));
+        account.setBalance(Money.of("500.00"));
 
         Transaction transactionEntity = new Transaction();
         transactionEntity.setId(10L);
-        transactionEntity.setAmount(new BigDecimal("100.00"));
+        transactionEntity.setAmount(Money.of("100.00"));
         transactionEntity.setType(Transaction.TransactionType.DEPOSIT);
 
         TransactionResponseDTO expectedResponse = new TransactionResponseDTO(
                 10L,
-                new BigDecimal("100.00"),
+                Money.of("100.00"),
                 Transaction.TransactionType.DEPOSIT,
                 LocalDateTime.now(),
-                accountId
+                accountId,
+                null
         );
 
         // PASO 2: Configurar mocks
-        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(accountId)).thenReturn(Optional.of(account));
         when(transactionMapper.toEntity(request)).thenReturn(transactionEntity);
         when(transactionRepository.save(any(Transaction.class))).thenReturn(transactionEntity);
         when(transactionMapper.toResponse(transactionEntity)).thenReturn(expectedResponse);
@@ -87,9 +121,10 @@ class TransactionServiceImplTest {
         assertEquals(expectedResponse.type(), actualResult.type());
 
         // PASO 5: Verificar interacciones
-        verify(accountRepository).findById(accountId);
+        verify(accountRepository).findByIdForUpdate(accountId);
         verify(accountRepository).save(account);
         verify(transactionRepository).save(transactionEntity);
+        verify(accountSummaryJdbcRepository).apply(List.of(transactionEntity));
         verify(transactionMapper).toEntity(request);
         verify(transactionMapper).toResponse(transactionEntity);
     }
@@ -101,16 +136,16 @@ class TransactionServiceImplTest {
         // PASO 1: Datos de entrada
         Long accountId = 1L;
         TransactionRequestDTO request = new TransactionRequestDTO(
-                new BigDecimal("600.00"),
+                Money.of("600.00"),
                 Transaction.TransactionType.WITHDRAWAL
         );
 
         Account account = new Account();
         account.setId(accountId);
-        account.setBalance(new BigDecimal("500.00"));
+        account.setBalance(Money.of("500.00"));
 
         // PASO 2: Configurar mocks
-        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(accountId)).thenReturn(Optional.of(account));
 
         // PASO 3: Ejecutar y capturar excepción
         InsufficientFundsException exception = assertThrows(
@@ -122,9 +157,190 @@ class TransactionServiceImplTest {
         assertTrue(exception.getMessage().contains("Saldo insuficiente"));
 
         // PASO 5: Verificar interacciones
-        verify(accountRepository).findById(accountId);
+        verify(accountRepository).findByIdForUpdate(accountId);
+        verify(accountRepository, never()).save(any());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    // TEST 2b: createTransaction - Motor en memoria habilitado
+    @Test
+    @DisplayName("createTransaction - Con motor en memoria no debería leer ni guardar la cuenta")
+    void createTransaction_Deposit_WithBalanceEngine() {
+        // PASO 1: Datos de entrada
+        Long accountId = 1L;
+        TransactionRequestDTO request = new TransactionRequestDTO(
+                Money.of("100.00"),
+                Transaction.TransactionType.DEPOSIT
+        );
+
+        Account reference = new Account();
+        reference.setId(accountId);
+
+        Transaction transactionEntity = new Transaction();
+        transactionEntity.setId(10L);
+        transactionEntity.setAmount(Money.of("100.00"));
+        transactionEntity.setType(Transaction.TransactionType.DEPOSIT);
+
+        TransactionResponseDTO expectedResponse = new TransactionResponseDTO(
+                10L, Money.of("100.00"), Transaction.TransactionType.DEPOSIT, LocalDateTime.now(), accountId, null);
+
+        // PASO 2: Configurar mocks
+        when(balanceEngine.isEnabled()).thenReturn(true);
+        when(accountRepository.getReferenceById(accountId)).thenReturn(reference);
+        when(transactionMapper.toEntity(request)).thenReturn(transactionEntity);
+        when(transactionRepository.save(transactionEntity)).thenReturn(transactionEntity);
+        when(transactionMapper.toResponse(transactionEntity)).thenReturn(expectedResponse);
+
+        // PASO 3: Ejecutar
+        TransactionResponseDTO actualResult = transactionService.createTransaction(accountId, request);
+
+        // PASO 4: Verificar
+        assertEquals(expectedResponse, actualResult);
+        assertSame(reference, transactionEntity.getAccount());
+
+        // PASO 5: Verificar interacciones: el motor recibe el ID de la fila ya persistida
+        InOrder inOrder = inOrder(transactionRepository, balanceEngine);
+        inOrder.verify(transactionRepository).save(transactionEntity);
+        inOrder.verify(balanceEngine).deposit(accountId, Money.of("100.00"), 10L);
+        verify(accountRepository, never()).findByIdForUpdate(any());
         verify(accountRepository, never()).save(any());
+    }
+
+    // TEST 2c: transferBetweenAccounts - Motor en memoria habilitado
+    @Test
+    @DisplayName("transferBetweenAccounts - Con motor en memoria debería registrar ambas transacciones")
+    void transferBetweenAccounts_WithBalanceEngine() {
+        // PASO 1: Datos de entrada
+        TransferRequestDTO request = new TransferRequestDTO(Money.of("50.00"), 1L, 2L);
+
+        // PASO 2: Configurar mocks
+        when(balanceEngine.isEnabled()).thenReturn(true);
+        when(accountRepository.getReferenceById(1L)).thenReturn(new Account());
+        when(accountRepository.getReferenceById(2L)).thenReturn(new Account());
+        doAnswer(invocation -> {
+            List<Transaction> legs = invocation.getArgument(0);
+            legs.get(0).setId(20L);
+            legs.get(1).setId(21L);
+            return null;
+        }).when(transactionJdbcRepository).assignEntryIds(anyList());
+
+        // PASO 3: Ejecutar
+        transactionService.transferBetweenAccounts(request);
+
+        // PASO 4: Verificar interacciones: los IDs se reservan antes del movimiento, que recibe el del débito
+        InOrder inOrder = inOrder(transactionJdbcRepository, balanceEngine);
+        inOrder.verify(transactionJdbcRepository).assignEntryIds(anyList());
+        inOrder.verify(balanceEngine).transfer(1L, 2L, Money.of("50.00"), 20L);
+        inOrder.verify(transactionJdbcRepository).insertAll(argThat(legs -> legs.size() == 2
+                && legs.get(0).getType() == Transaction.TransactionType.WITHDRAWAL
+                && legs.get(1).getType() == Transaction.TransactionType.DEPOSIT));
+        verify(transactionJdbcRepository, never()).batchInsertEntries(any());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(accountRepository, never()).findAllByIdForUpdate(any());
+    }
+
+    // TEST 2d: transferBatch - Un elemento rechazado no afecta al resto del lote
+    @Test
+    @DisplayName("transferBatch - Debería aplicar en orden y rechazar solo el elemento sin fondos")
+    void transferBatch_PartialRejection() {
+        // PASO 1: Datos de entrada
+        Account from = new Account();
+        from.setId(1L);
+        from.setBalance(Money.of("100.00"));
+        Account to = new Account();
+        to.setId(2L);
+        to.setBalance(Money.of("0.00"));
+
+        List<TransferRequestDTO> requests = List.of(
+                new TransferRequestDTO(Money.of("80.00"), 1L, 2L),
+                new TransferRequestDTO(Money.of("30.00"), 1L, 2L),
+                new TransferRequestDTO(Money.of("20.00"), 1L, 2L)
+        );
+
+        // PASO 2: Configurar mocks
+        when(accountRepository.findAllByIdForUpdate(any())).thenReturn(List.of(from, to));
+        when(accountRepository.getReferenceById(1L)).thenReturn(from);
+        when(accountRepository.getReferenceById(2L)).thenReturn(to);
+
+        // PASO 3: Ejecutar
+        List<TransferResultDTO> results = transactionService.transferBatch(requests);
+
+        // PASO 4: Verificar
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).success());
+        assertFalse(results.get(1).success());
+        assertTrue(results.get(1).message().contains("Saldo insuficiente"));
+        assertTrue(results.get(2).success());
+        assertEquals(0, from.getBalance().compareTo(Money.ZERO));
+        assertEquals(0, to.getBalance().compareTo(Money.of("100.00")));
+
+        // PASO 5: Verificar interacciones: una consulta de cuentas y un único batch de 4 filas
+        verify(accountRepository, times(1)).findAllByIdForUpdate(any());
+        verify(accountRepository, never()).findById(any());
         verify(transactionRepository, never()).save(any());
+        verify(transactionJdbcRepository).batchInsertEntries(argThat(rows -> rows.size() == 4));
+        verify(accountSummaryJdbcRepository).apply(argThat(rows -> rows.size() == 4));
+    }
+
+    // TEST 2e: transferBetweenAccounts - Aviso de cambio de saldo para invalidar la caché
+    @Test
+    @DisplayName("transferBetweenAccounts - Debería publicar el cambio de saldo de ambas cuentas")
+    void transferBetweenAccounts_PublishesBalanceChange() {
+        // PASO 1: Datos de entrada
+        Account from = new Account();
+        from.setId(1L);
+        from.setBalance(Money.of("100.00"));
+        Account to = new Account();
+        to.setId(2L);
+        to.setBalance(Money.ZERO);
+        TransferRequestDTO request = new TransferRequestDTO(Money.of("40.00"), 1L, 2L);
+
+        // PASO 2: Configurar mocks
+        when(accountRepository.findAllByIdForUpdate(any())).thenReturn(List.of(from, to));
+
+        // PASO 3: Ejecutar
+        transactionService.transferBetweenAccounts(request);
+
+        // PASO 4: Verificar
+        verify(eventPublisher).publishEvent(new BalanceChangedEvent(Set.of(1L, 2L)));
+    }
+
+    // TEST 2f: getJournalEntry - Ambas patas de una transferencia
+    @Test
+    @DisplayName("getJournalEntry - Debería devolver el débito y el abono del asiento")
+    void getJournalEntry_Success() {
+        // PASO 1: Datos de entrada: las dos patas comparten entry_id, que es el ID del débito
+        LocalDateTime date = LocalDateTime.of(2025, 1, 1, 10, 0);
+        TransactionResponseDTO debitResponse = new TransactionResponseDTO(
+                20L, Money.of("40.00"), Transaction.TransactionType.WITHDRAWAL, date, 1L, 20L);
+        TransactionResponseDTO creditResponse = new TransactionResponseDTO(
+                21L, Money.of("40.00"), Transaction.TransactionType.DEPOSIT, date, 2L, 20L);
+
+        // PASO 2: Configurar mocks
+        when(transactionRepository.findEntryLegs(20L)).thenReturn(List.of(debitResponse, creditResponse));
+
+        // PASO 3: Ejecutar
+        JournalEntryDTO entry = transactionService.getJournalEntry(20L);
+
+        // PASO 4: Verificar
+        assertEquals(20L, entry.entryId());
+        assertEquals(Money.of("40.00"), entry.amount());
+        assertEquals(date, entry.date());
+        assertEquals(debitResponse, entry.debit());
+        assertEquals(creditResponse, entry.credit());
+    }
+
+    // TEST 2g: getJournalEntry - Asiento inexistente
+    @Test
+    @DisplayName("getJournalEntry - Debería lanzar EntityNotFoundException si el asiento no existe")
+    void getJournalEntry_NotFound() {
+        // PASO 1: Configurar mocks: depósitos y retiros no tienen asiento
+        when(transactionRepository.findEntryLegs(99L)).thenReturn(List.of());
+
+        // PASO 2: Ejecutar y verificar
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> transactionService.getJournalEntry(99L));
+        assertEquals("Asiento no encontrado con ID: 99", exception.getMessage());
     }
 
     //  TEST 3: getTransactionById - Caso exitoso
@@ -134,22 +350,17 @@ class TransactionServiceImplTest {
         // PASO 1: Datos de entrada y salida esperados
         Long transactionId = 10L;
 
-        Transaction transaction = new Transaction();
-        transaction.setId(transactionId);
-        transaction.setAmount(new BigDecimal("200.00"));
-        transaction.setType(Transaction.TransactionType.DEPOSIT);
-
         TransactionResponseDTO expectedResponse = new TransactionResponseDTO(
                 transactionId,
-                new BigDecimal("200.00"),
+                Money.of("200.00"),
                 Transaction.TransactionType.DEPOSIT,
                 LocalDateTime.now(),
-                1L
+                1L,
+                null
         );
 
         // PASO 2: Configurar mocks
-        when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(transaction));
-        when(transactionMapper.toResponse(transaction)).thenReturn(expectedResponse);
+        when(transactionRepository.findResponseById(transactionId)).thenReturn(Optional.of(expectedResponse));
 
         // PASO 3: Ejecutar
         TransactionResponseDTO actualResult = transactionService.getTransactionById(transactionId);
@@ -159,9 +370,10 @@ class TransactionServiceImplTest {
         assertEquals(expectedResponse.id(), actualResult.id());
         assertEquals(expectedResponse.amount(), actualResult.amount());
 
-        // PASO 5: Verificar interacciones
-        verify(transactionRepository).findById(transactionId);
-        verify(transactionMapper).toResponse(transaction);
+        // PASO 5: Verificar interacciones: proyección directa, sin cargar la entidad
+        verify(transactionRepository).findResponseById(transactionId);
+        verify(transactionRepository, never()).findById(any());
+        verify(transactionMapper, never()).toResponse(any());
     }
 
     //  TEST 4: getTransactionById - Caso malo
@@ -172,7 +384,7 @@ class TransactionServiceImplTest {
         Long transactionId = 999L;
 
         // PASO 2: Configurar mocks
-        when(transactionRepository.findById(transactionId)).thenReturn(Optional.empty());
+        when(transactionRepository.findResponseById(transactionId)).thenReturn(Optional.empty());
 
         // PASO 3: Ejecutar
         EntityNotFoundException exception = assertThrows(
@@ -184,123 +396,178 @@ class TransactionServiceImplTest {
         assertTrue(exception.getMessage().contains("Transacción no encontrada"));
 
         // PASO 5: Verificar interacciones
-        verify(transactionRepository).findById(transactionId);
-        verify(transactionMapper, never()).toResponse(any());
+        verify(transactionRepository).findResponseById(transactionId);
     }
 
-    // TEST 5: getAllTransactions - Con transacciones
+    // TEST 5: getAllTransactions - Primera página con cursor siguiente
     @Test
-    @DisplayName("getAllTransactions - Debería retornar lista con transacciones")
-    void getAllTransactions_WithResults() {
-        // PASO 1: Datos de entrada y salida
-        Transaction t1 = new Transaction();
-        t1.setId(1L);
-        Transaction t2 = new Transaction();
-        t2.setId(2L);
-
-        List<Transaction> transactions = Arrays.asList(t1, t2);
-
+    @DisplayName("getAllTransactions - Debería devolver una página y el cursor de la siguiente")
+    void getAllTransactions_FirstPageWithNextCursor() {
+        // PASO 1: Datos de entrada y salida (se piden 2 y el repositorio devuelve 3)
         TransactionResponseDTO r1 = new TransactionResponseDTO(
-                1L, BigDecimal.TEN, Transaction.TransactionType.DEPOSIT, LocalDateTime.now(), 1L);
+                1L, Money.of("10"), Transaction.TransactionType.DEPOSIT, LocalDateTime.now(), 1L, null);
         TransactionResponseDTO r2 = new TransactionResponseDTO(
-                2L, BigDecimal.ONE, Transaction.TransactionType.WITHDRAWAL, LocalDateTime.now(), 1L);
+                2L, Money.of("1"), Transaction.TransactionType.WITHDRAWAL, LocalDateTime.now(), 1L, null);
+        TransactionResponseDTO r3 = new TransactionResponseDTO(
+                3L, Money.of("5"), Transaction.TransactionType.DEPOSIT, LocalDateTime.now(), 1L, null);
 
         // PASO 2: Configurar mocks
-        when(transactionRepository.findAll()).thenReturn(transactions);
-        when(transactionMapper.toResponse(t1)).thenReturn(r1);
-        when(transactionMapper.toResponse(t2)).thenReturn(r2);
+        when(transactionRepository.findPageAfterId(0L, Limit.of(3)))
+                .thenReturn(Arrays.asList(r1, r2, r3));
 
         // PASO 3: Ejecutar
-        List<TransactionResponseDTO> actualResult = transactionService.getAllTransactions();
+        TransactionPageDTO actualResult = transactionService.getAllTransactions(null, 2);
 
         // PASO 4: Verificar
-        assertEquals(2, actualResult.size());
-        assertEquals(1L, actualResult.get(0).id());
-        assertEquals(2L, actualResult.get(1).id());
+        assertEquals(List.of(r1, r2), actualResult.items());
+        assertNotNull(actualResult.nextCursor());
+        assertEquals(2L, TransactionCursor.decode(actualResult.nextCursor()).id());
 
-        // PASO 5: Verificar interacciones
-        verify(transactionRepository).findAll();
-        verify(transactionMapper, times(2)).toResponse(any(Transaction.class));
+        // PASO 5: Verificar interacciones (las filas ya llegan como DTO)
+        verify(transactionMapper, never()).toResponse(any());
     }
 
-    // TEST 6: getAllTransactions - Lista vacía
+    // TEST 6: getAllTransactions - Última página
     @Test
-    @DisplayName("getAllTransactions - Debería retornar lista vacía si no hay transacciones")
-    void getAllTransactions_EmptyList() {
+    @DisplayName("getAllTransactions - Debería continuar tras el cursor y no devolver cursor en la última página")
+    void getAllTransactions_LastPage() {
         // PASO 1: Datos de entrada
-        List<Transaction> emptyList = Collections.emptyList();
+        String after = new TransactionCursor(null, 2L).encode();
+        TransactionResponseDTO r3 = new TransactionResponseDTO(
+                3L, Money.of("10"), Transaction.TransactionType.DEPOSIT, LocalDateTime.now(), 1L, null);
 
         // PASO 2: Configurar mocks
-        when(transactionRepository.findAll()).thenReturn(emptyList);
+        when(transactionRepository.findPageAfterId(2L, Limit.of(3))).thenReturn(List.of(r3));
 
         // PASO 3: Ejecutar
-        List<TransactionResponseDTO> actualResult = transactionService.getAllTransactions();
+        TransactionPageDTO actualResult = transactionService.getAllTransactions(after, 2);
 
         // PASO 4: Verificar
-        assertNotNull(actualResult);
-        assertTrue(actualResult.isEmpty());
+        assertEquals(List.of(r3), actualResult.items());
+        assertNull(actualResult.nextCursor());
+    }
 
-        // PASO 5: Verificar interacciones
-        verify(transactionRepository).findAll();
-        verify(transactionMapper, never()).toResponse(any());
+    // TEST 6b: getAllTransactions - Cursor o límite inválidos
+    @Test
+    @DisplayName("getAllTransactions - Debería rechazar cursores corruptos y límites fuera de rango")
+    void getAllTransactions_InvalidArguments() {
+        // PASO 1 y 2: Ejecutar y verificar
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getAllTransactions("no-es-un-cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getAllTransactions(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getAllTransactions(null, 501));
+
+        // PASO 3: Verificar que no se consultó la base de datos
+        verifyNoInteractions(transactionRepository);
     }
 
-    // TEST 7: getTransactionsByAccountId - Con resultados
+    // TEST 7: getTransactionsByAccountId - Primera página
     @Test
-    @DisplayName("getTransactionsByAccountId - Debería retornar lista de transacciones para cuenta")
-    void getTransactionsByAccountId_WithResults() {
+    @DisplayName("getTransactionsByAccountId - Debería devolver la primera página con cursor (date, id)")
+    void getTransactionsByAccountId_FirstPage() {
         // PASO 1: Datos de entrada y salida
         Long accountId = 5L;
-        Transaction t1 = new Transaction();
-        t1.setId(1L);
-        Transaction t2 = new Transaction();
-        t2.setId(2L);
-
-        List<Transaction> transactions = Arrays.asList(t1, t2);
-
+        LocalDateTime date = LocalDateTime.of(2025, 1, 10, 12, 0);
         TransactionResponseDTO r1 = new TransactionResponseDTO(
-                1L, BigDecimal.TEN, Transaction.TransactionType.DEPOSIT, LocalDateTime.now(), accountId);
+                1L, Money.of("10"), Transaction.TransactionType.DEPOSIT, date, accountId, null);
         TransactionResponseDTO r2 = new TransactionResponseDTO(
-                2L, BigDecimal.ONE, Transaction.TransactionType.WITHDRAWAL, LocalDateTime.now(), accountId);
+                2L, Money.of("5"), Transaction.TransactionType.DEPOSIT, date, accountId, null);
 
         // PASO 2: Configurar mocks
-        when(transactionRepository.findByAccountId(accountId)).thenReturn(transactions);
-        when(transactionMapper.toResponse(t1)).thenReturn(r1);
-        when(transactionMapper.toResponse(t2)).thenReturn(r2);
+        when(transactionRepository.findPageByAccountId(accountId, Limit.of(2)))
+                .thenReturn(Arrays.asList(r1, r2));
 
         // PASO 3: Ejecutar
-        List<TransactionResponseDTO> actualResult = transactionService.getTransactionsByAccountId(accountId);
+        TransactionPageDTO actualResult = transactionService.getTransactionsByAccountId(accountId, null, 1);
 
         // PASO 4: Verificar
-        assertEquals(2, actualResult.size());
-        assertEquals(accountId, actualResult.get(0).accountId());
-        assertEquals(accountId, actualResult.get(1).accountId());
-
-        // PASO 5: Verificar interacciones
-        verify(transactionRepository).findByAccountId(accountId);
-        verify(transactionMapper, times(2)).toResponse(any(Transaction.class));
+        assertEquals(List.of(r1), actualResult.items());
+        assertEquals(new TransactionCursor(date, 1L), TransactionCursor.decode(actualResult.nextCursor()));
     }
 
-    // TEST 8: getTransactionsByAccountId - Lista vacía
-    @DisplayName("getTransactionsByAccountId - Debería retornar lista vacía si no hay transacciones")
-    void getTransactionsByAccountId_EmptyList() {
+    // TEST 8: getTransactionsByAccountId - Página siguiente
+    @Test
+    @DisplayName("getTransactionsByAccountId - Debería buscar a partir de (date, id) del cursor")
+    void getTransactionsByAccountId_NextPage() {
         // PASO 1: Datos de entrada
         Long accountId = 5L;
+        LocalDateTime date = LocalDateTime.of(2025, 1, 10, 12, 0);
+        String after = new TransactionCursor(date, 1L).encode();
 
         // PASO 2: Configurar mocks
-        when(transactionRepository.findByAccountId(accountId)).thenReturn(Collections.emptyList());
+        when(transactionRepository.findByAccountIdAfter(accountId, date, 1L, Limit.of(11)))
+                .thenReturn(Collections.emptyList());
 
         // PASO 3: Ejecutar
-        List<TransactionResponseDTO> actualResult = transactionService.getTransactionsByAccountId(accountId);
+        TransactionPageDTO actualResult = transactionService.getTransactionsByAccountId(accountId, after, 10);
 
         // PASO 4: Verificar
         assertNotNull(actualResult);
-        assertTrue(actualResult.isEmpty());
+        assertTrue(actualResult.items().isEmpty());
+        assertNull(actualResult.nextCursor());
 
         // PASO 5: Verificar interacciones
-        verify(transactionRepository).findByAccountId(accountId);
-        verify(transactionMapper, never()).toResponse(any());
+        verify(transactionRepository).findByAccountIdAfter(accountId, date, 1L, Limit.of(11));
     }
-}
 
+    // TEST 9: modo WAL - el movimiento no llega a disco
+    @Test
+    @DisplayName("createTransaction - En modo WAL debería deshacer el depósito en memoria si el WAL falla")
+    void createTransaction_WalFailure_CompensatesInMemory() {
+        // PASO 1: Datos de entrada
+        Long accountId = 1L;
+        TransactionRequestDTO request = new TransactionRequestDTO(Money.of("25.00"), Transaction.TransactionType.DEPOSIT);
+
+        // PASO 2: Configurar mocks: el fsync del WAL falla
+        when(transactionWal.isEnabled()).thenReturn(true);
+        when(accountRepository.getReferenceById(accountId)).thenReturn(new Account());
+        when(transactionWal.append(any(Transaction.class))).thenReturn(7L);
+        when(balanceEngine.depositLogged(eq(accountId), eq(Money.of("25.00")), any(LongSupplier.class)))
+                .thenAnswer(invocation -> invocation.<LongSupplier>getArgument(2).getAsLong());
+        doThrow(new IllegalStateException("El libro mayor no acepta más eventos tras un fallo de escritura"))
+                .when(transactionWal).awaitDurable(7L);
+
+        // PASO 3: Ejecutar y verificar que el error llega al llamador
+        assertThrows(IllegalStateException.class, () -> transactionService.createTransaction(accountId, request));
+
+        // PASO 4: Verificar que el saldo en memoria se revirtió y no se escribió nada en la base
+        verify(transactionWal).append(any(Transaction.class));
+        verify(balanceEngine).adjust(accountId, Money.of("-25.00"));
+        verify(transactionRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    // TEST 10: modo WAL - el log falla con parte del lote ya en disco
+    @Test
+    @DisplayName("transferBatch - En modo WAL debería deshacer solo las transferencias que no llegaron a disco")
+    void transferBatch_WalFailure_KeepsDurablePrefix() {
+        // PASO 1: Datos de entrada
+        List<TransferRequestDTO> requests = List.of(
+                new TransferRequestDTO(Money.of("10.00"), 1L, 2L),
+                new TransferRequestDTO(Money.of("20.00"), 1L, 2L),
+                new TransferRequestDTO(Money.of("30.00"), 1L, 2L)
+        );
+
+        // PASO 2: Configurar mocks: las secuencias 4 y 5 llegan a disco, la 6 no
+        when(transactionWal.isEnabled()).thenReturn(true);
+        when(validator.validate(any(TransferRequestDTO.class))).thenReturn(Set.of());
+        when(accountRepository.getReferenceById(any())).thenReturn(new Account());
+        when(balanceEngine.transferLogged(eq(1L), eq(2L), any(Money.class), any(LongSupplier.class)))
+                .thenReturn(4L, 5L, 6L);
+        doThrow(new IllegalStateException("El libro mayor no acepta más eventos tras un fallo de escritura"))
+                .when(transactionWal).awaitDurable(6L);
+        when(transactionWal.durableSequence()).thenReturn(5L);
+
+        // PASO 3: Ejecutar
+        List<TransferResultDTO> results = transactionService.transferBatch(requests);
 
+        // PASO 4: Verificar que las dos primeras quedan confirmadas y la tercera se rechaza
+        assertTrue(results.get(0).success());
+        assertTrue(results.get(1).success());
+        assertFalse(results.get(2).success());
+
+        // PASO 5: Verificar que solo se deshizo en memoria la transferencia no durable
+        verify(balanceEngine).adjust(1L, Money.of("30.00"));
+        verify(balanceEngine).adjust(2L, Money.of("-30.00"));
+        verify(balanceEngine, times(2)).adjust(any(), any());
+    }
+}
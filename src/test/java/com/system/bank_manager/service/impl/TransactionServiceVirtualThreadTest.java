@@ -0,0 +1,99 @@
+package com.system.bank_manager.service.impl;
+
+import com.system.bank_manager.dto.request.TransactionRequestDTO;
+import com.system.bank_manager.dto.request.TransferRequestDTO;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.service.TransactionService;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las rutas @Transactional de TransactionServiceImpl sobre hilos virtuales, con muchos
+ * más hilos que conexiones: ninguna debe bloquearse dentro de un synchronized, porque
+ * eso retiene el hilo portador (evento JFR jdk.VirtualThreadPinned).
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:virtual-threads;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.threads.virtual.enabled=true"
+})
+@DisplayName("TransactionServiceImpl - Hilos virtuales sin pinning")
+class TransactionServiceVirtualThreadTest {
+
+    private static final int ACCOUNTS = 100;
+    private static final int OPERATIONS = 1000;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("createTransaction y transferBetweenAccounts - No deberían fijar el hilo portador")
+    void transactionalPaths_DoNotPinCarrierThreads() throws Exception {
+        // PASO 1: Datos iniciales
+        jdbcTemplate.update("INSERT INTO users (id, dni, name, email, password) VALUES (1, '1', 'Ana', 'ana@bank.com', 'x')");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, user_id, created_at) "
+                + "SELECT X, 'ACC' || X, 100000, 1, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + ACCOUNTS + ")");
+
+        // PASO 2: Registrar cualquier bloqueo con el portador fijado que pase por el código de la aplicación
+        List<String> pinnedStacks = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> {
+                if (event.getStackTrace() == null) {
+                    return;
+                }
+                List<String> frames = event.getStackTrace().getFrames().stream()
+                        .map(RecordedFrame::getMethod)
+                        .map(method -> method.getType().getName() + "." + method.getName())
+                        .toList();
+                if (frames.stream().anyMatch(frame -> frame.startsWith("com.system.bank_manager"))) {
+                    pinnedStacks.add(String.join(" <- ", frames));
+                }
+            });
+            recording.startAsync();
+
+            // PASO 3: Depósitos y transferencias en hilos virtuales, compitiendo por el pool
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < OPERATIONS; i++) {
+                    long from = 1 + i % ACCOUNTS;
+                    long to = 1 + (i + 1) % ACCOUNTS;
+                    boolean deposit = i % 2 == 0;
+                    executor.submit(() -> {
+                        if (deposit) {
+                            transactionService.createTransaction(from,
+                                    new TransactionRequestDTO(Money.of("1"), Transaction.TransactionType.DEPOSIT));
+                        } else {
+                            transactionService.transferBetweenAccounts(new TransferRequestDTO(Money.of("1"), from, to));
+                        }
+                        return null;
+                    });
+                }
+            }
+            recording.stop();
+        }
+
+        // PASO 4: Verificar que todo se aplicó y que ningún hilo quedó fijado
+        assertEquals(OPERATIONS + OPERATIONS / 2,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        assertTrue(pinnedStacks.isEmpty(), "Hilos virtuales fijados: " + pinnedStacks);
+    }
+}
@@ -3,22 +3,30 @@ package com.system.bank_manager.service.impl;
 import com.system.bank_manager.dto.request.CreateUserDTO;
 import com.system.bank_manager.dto.request.UpdateUserDTO;
 import com.system.bank_manager.dto.response.UserResponseDTO;
+import com.system.bank_manager.entity.Account;
 import com.system.bank_manager.entity.User;
+import com.system.bank_manager.event.AccountsDeletedEvent;
 import com.system.bank_manager.exception.DuplicateUserException;
 import com.system.bank_manager.mapper.UserMapper;
 import com.system.bank_manager.repository.UserRepository;
+import com.system.bank_manager.uniqueness.UniqueKeyFilter;
+import com.system.bank_manager.wal.TransactionWal;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,6 +42,15 @@ class UserServiceImplTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private UniqueKeyFilter uniqueKeyFilter;
+
+    @Mock
+    private TransactionWal transactionWal;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -70,9 +87,10 @@ class UserServiceImplTest {
         );
 
         // PASO 2: Establecer comportamientos simulados
-        when(userRepository.findByDni(inputDTO.dni())).thenReturn(Optional.empty());
+        when(uniqueKeyFilter.mightExist(UniqueKeyFilter.KeySpace.DNI, inputDTO.dni())).thenReturn(true);
+        when(userRepository.existsByDni(inputDTO.dni())).thenReturn(false);
         when(userMapper.toEntity(inputDTO)).thenReturn(userEntity);
-        when(userRepository.save(userEntity)).thenReturn(savedUserEntity);
+        when(userRepository.saveAndFlush(userEntity)).thenReturn(savedUserEntity);
         when(userMapper.toResponse(savedUserEntity)).thenReturn(expectedOutput);
 
         // PASO 3: Llamar al método a probar
@@ -86,10 +104,34 @@ class UserServiceImplTest {
         assertEquals("12345678990", actualResult.dni());
 
         // PASO 5: Verificar interacciones
-        verify(userRepository, times(1)).findByDni(inputDTO.dni());
+        verify(userRepository, times(1)).existsByDni(inputDTO.dni());
         verify(userMapper, times(1)).toEntity(inputDTO);
-        verify(userRepository, times(1)).save(userEntity);
+        verify(userRepository, times(1)).saveAndFlush(userEntity);
         verify(userMapper, times(1)).toResponse(savedUserEntity);
+        verify(uniqueKeyFilter).added(UniqueKeyFilter.KeySpace.DNI, "12345678990");
+    }
+
+    // TEST 1b: createUser - El filtro descarta el DNI
+
+    @Test
+    @DisplayName("createUser - Debería omitir la consulta del DNI cuando el filtro lo descarta")
+    void createUser_SkipsLookup_WhenFilterRulesOutDni() {
+        // PASO 1: Datos de entrada
+        CreateUserDTO inputDTO = new CreateUserDTO("12345678990", "Julian", "julian@mail.com", "Password123!");
+        User userEntity = new User();
+        userEntity.setDni("12345678990");
+
+        // PASO 2: El filtro responde que el DNI no existe
+        when(uniqueKeyFilter.mightExist(UniqueKeyFilter.KeySpace.DNI, inputDTO.dni())).thenReturn(false);
+        when(userMapper.toEntity(inputDTO)).thenReturn(userEntity);
+        when(userRepository.saveAndFlush(userEntity)).thenReturn(userEntity);
+
+        // PASO 3: Ejecutar
+        userService.createUser(inputDTO);
+
+        // PASO 4: Verificar que no se consultó la base antes de insertar
+        verify(userRepository, never()).existsByDni(any());
+        verify(userRepository).saveAndFlush(userEntity);
     }
 
     //  TEST 2: createUser - DNI duplicado
@@ -105,12 +147,9 @@ class UserServiceImplTest {
                 "Password123!"
         );
 
-        User existingUser = new User();
-        existingUser.setId(99L);
-        existingUser.setDni("12345678990");
-
         // PASO 2: Establecer comportamientos simulados
-        when(userRepository.findByDni(inputDTO.dni())).thenReturn(Optional.of(existingUser));
+        when(uniqueKeyFilter.mightExist(UniqueKeyFilter.KeySpace.DNI, inputDTO.dni())).thenReturn(true);
+        when(userRepository.existsByDni(inputDTO.dni())).thenReturn(true);
 
         // PASO 3: Ejecutar y capturar excepción
         DuplicateUserException exception = assertThrows(
@@ -122,9 +161,30 @@ class UserServiceImplTest {
         assertEquals("Ya existe un usuario con DNI: " + inputDTO.dni(), exception.getMessage());
 
         // PASO 5: Verificar interacciones
-        verify(userRepository, times(1)).findByDni(inputDTO.dni());
+        verify(userRepository, times(1)).existsByDni(inputDTO.dni());
         verify(userMapper, never()).toEntity(any());
-        verify(userRepository, never()).save(any());
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    // TEST 2b: createUser - La restricción única respalda al filtro
+
+    @Test
+    @DisplayName("createUser - Debería lanzar DuplicateUserException si la restricción única rechaza el DNI")
+    void createUser_ThrowsException_WhenUniqueConstraintFails() {
+        // PASO 1: Datos de entrada
+        CreateUserDTO inputDTO = new CreateUserDTO("12345678990", "Julian", "julian@mail.com", "Password123!");
+        User userEntity = new User();
+
+        // PASO 2: El filtro descarta el DNI pero otra alta concurrente lo insertó antes
+        when(uniqueKeyFilter.mightExist(UniqueKeyFilter.KeySpace.DNI, inputDTO.dni())).thenReturn(false);
+        when(userMapper.toEntity(inputDTO)).thenReturn(userEntity);
+        when(userRepository.saveAndFlush(userEntity)).thenThrow(new DataIntegrityViolationException("UK_DNI"));
+
+        // PASO 3: Ejecutar y verificar
+        DuplicateUserException exception = assertThrows(DuplicateUserException.class,
+                () -> userService.createUser(inputDTO));
+        assertEquals("Ya existe un usuario con DNI: " + inputDTO.dni(), exception.getMessage());
+        verify(uniqueKeyFilter, never()).added(any(), any());
     }
 
     // TEST 3: updateUser - Caso exitoso
@@ -205,26 +265,11 @@ class UserServiceImplTest {
     @Test
     @DisplayName("getAllUsers - Debería retornar lista de usuarios exitosamente")
     void getAllUsers_Success() {
-        User user1 = new User();
-        user1.setId(1L);
-        user1.setName("Juan Pérez");
-        user1.setEmail("juan@email.com");
-        user1.setDni("12345678");
-
-        User user2 = new User();
-        user2.setId(2L);
-        user2.setName("María García");
-        user2.setEmail("maria@email.com");
-        user2.setDni("87654321");
-
-        List<User> usersList = Arrays.asList(user1, user2);
-
         UserResponseDTO response1 = new UserResponseDTO(1L, "12345678", "Juan Pérez", "juan@email.com");
         UserResponseDTO response2 = new UserResponseDTO(2L, "87654321", "María García", "maria@email.com");
 
-        when(userRepository.findAll()).thenReturn(usersList);
-        when(userMapper.toResponse(user1)).thenReturn(response1);
-        when(userMapper.toResponse(user2)).thenReturn(response2);
+        // La proyección ya trae los DTOs, sin entidades ni mapper
+        when(userRepository.findAllResponses()).thenReturn(Arrays.asList(response1, response2));
 
         List<UserResponseDTO> actualResult = userService.getAllUsers();
 
@@ -233,8 +278,9 @@ class UserServiceImplTest {
         assertEquals("Juan Pérez", actualResult.get(0).name());
         assertEquals("María García", actualResult.get(1).name());
 
-        verify(userRepository, times(1)).findAll();
-        verify(userMapper, times(2)).toResponse(any(User.class));
+        verify(userRepository, times(1)).findAllResponses();
+        verify(userRepository, never()).findAll();
+        verify(userMapper, never()).toResponse(any());
     }
 
     // TEST 6: getAllUsers - Lista vacía
@@ -242,15 +288,14 @@ class UserServiceImplTest {
     @Test
     @DisplayName("getAllUsers - Debería retornar lista vacía cuando no hay usuarios")
     void getAllUsers_ReturnsEmptyList() {
-        when(userRepository.findAll()).thenReturn(Collections.emptyList());
+        when(userRepository.findAllResponses()).thenReturn(Collections.emptyList());
 
         List<UserResponseDTO> actualResult = userService.getAllUsers();
 
         assertNotNull(actualResult);
         assertTrue(actualResult.isEmpty());
 
-        verify(userRepository, times(1)).findAll();
-        verify(userMapper, never()).toResponse(any());
+        verify(userRepository, times(1)).findAllResponses();
     }
 
     // TEST 7: getUserById - Caso exitoso
@@ -260,12 +305,6 @@ class UserServiceImplTest {
     void getUserById_Success() {
         Long userId = 1L;
 
-        User userEntity = new User();
-        userEntity.setId(userId);
-        userEntity.setName("Juan Pérez");
-        userEntity.setEmail("juan@email.com");
-        userEntity.setDni("12345678");
-
         UserResponseDTO expectedOutput = new UserResponseDTO(
                 userId,
                 "12345678",
@@ -273,8 +312,7 @@ class UserServiceImplTest {
                 "juan@email.com"
         );
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(userEntity));
-        when(userMapper.toResponse(userEntity)).thenReturn(expectedOutput);
+        when(userRepository.findResponseById(userId)).thenReturn(Optional.of(expectedOutput));
 
         UserResponseDTO actualResult = userService.getUserById(userId);
 
@@ -283,8 +321,8 @@ class UserServiceImplTest {
         assertEquals("Juan Pérez", actualResult.name());
         assertEquals("juan@email.com", actualResult.email());
 
-        verify(userRepository, times(1)).findById(userId);
-        verify(userMapper, times(1)).toResponse(userEntity);
+        verify(userRepository, times(1)).findResponseById(userId);
+        verify(userRepository, never()).findById(any());
     }
 
     //TEST 8: getUserById - Usuario no encontrado
@@ -294,7 +332,7 @@ class UserServiceImplTest {
     void getUserById_ThrowsException_WhenUserNotFound() {
         Long userId = 999L;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.findResponseById(userId)).thenReturn(Optional.empty());
 
         EntityNotFoundException exception = assertThrows(
                 EntityNotFoundException.class,
@@ -303,8 +341,7 @@ class UserServiceImplTest {
 
         assertTrue(exception.getMessage().contains("Usuario no encontrado con ID: " + userId));
 
-        verify(userRepository, times(1)).findById(userId);
-        verify(userMapper, never()).toResponse(any());
+        verify(userRepository, times(1)).findResponseById(userId);
     }
 
     //TEST 9: deleteUser - Caso exitoso
@@ -313,14 +350,27 @@ class UserServiceImplTest {
     @DisplayName("deleteUser - Debería eliminar usuario exitosamente")
     void deleteUser_Success() {
         Long userId = 1L;
+        User user = new User();
+        user.setId(userId);
+        Account first = new Account();
+        first.setId(10L);
+        Account second = new Account();
+        second.setId(11L);
+        user.setAccounts(List.of(first, second));
 
-        when(userRepository.existsById(userId)).thenReturn(true);
-        doNothing().when(userRepository).deleteById(userId);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
 
         assertDoesNotThrow(() -> userService.deleteUser(userId));
 
-        verify(userRepository, times(1)).existsById(userId);
-        verify(userRepository, times(1)).deleteById(userId);
+        // Lo pendiente en el WAL llega a la base antes del borrado en cascada
+        InOrder order = inOrder(transactionWal, userRepository);
+        order.verify(transactionWal).applyPending();
+        order.verify(userRepository).delete(user);
+        // El DNI y los números de las dos cuentas borradas en cascada cuentan como bajas
+        verify(uniqueKeyFilter).removed(UniqueKeyFilter.KeySpace.DNI);
+        verify(uniqueKeyFilter, times(2)).removed(UniqueKeyFilter.KeySpace.ACCOUNT_NUMBER);
+        // Los saldos en memoria de las cuentas borradas en cascada se descartan al confirmar
+        verify(eventPublisher).publishEvent(new AccountsDeletedEvent(Set.of(10L, 11L)));
     }
 
     //  TEST 10: deleteUser - Usuario no encontrado
@@ -330,7 +380,7 @@ class UserServiceImplTest {
     void deleteUser_ThrowsException_WhenUserNotFound() {
         Long userId = 999L;
 
-        when(userRepository.existsById(userId)).thenReturn(false);
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
         EntityNotFoundException exception = assertThrows(
                 EntityNotFoundException.class,
@@ -339,7 +389,8 @@ class UserServiceImplTest {
 
         assertTrue(exception.getMessage().contains("Usuario no encontrado con ID: " + userId));
 
-        verify(userRepository, times(1)).existsById(userId);
-        verify(userRepository, never()).deleteById(any());
+        verify(userRepository, times(1)).findById(userId);
+        verify(userRepository, never()).delete(any());
+        verifyNoInteractions(uniqueKeyFilter);
     }
 }
@@ -0,0 +1,170 @@
+package com.system.bank_manager.stream;
+
+import com.system.bank_manager.money.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BalanceStreamBus - Reparto de saldos con conflación")
+class BalanceStreamBusTest {
+
+    private static final int ACCOUNTS = 100;
+    private static final int SUBSCRIBERS = 10_000;
+    // Uno de cada 100 suscriptores no lee hasta el final del test
+    private static final int SLOW_EVERY = 100;
+    private static final int WRITERS = 8;
+    private static final int COMMITS_PER_WRITER = 5_000;
+    private static final long DEADLINE_MILLIS = 30_000;
+
+    // Lo que ha recibido un suscriptor: el último saldo, cuántos eventos y si alguno llegó desordenado
+    private static final class Received {
+        private final AtomicLong last = new AtomicLong(-1);
+        private final AtomicInteger events = new AtomicInteger();
+        private final AtomicBoolean outOfOrder = new AtomicBoolean();
+
+        private void accept(long cents) {
+            if (last.getAndSet(cents) > cents) {
+                outOfOrder.set(true);
+            }
+            events.incrementAndGet();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DEADLINE_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "No se alcanzó la condición a tiempo");
+            Thread.sleep(10);
+        }
+    }
+
+    // TEST 1: 10k suscriptores concurrentes con clientes lentos
+    @Test
+    @DisplayName("changed - Debería llevar el último saldo a 10k suscriptores sin que los lentos frenen al resto")
+    void changed_TenThousandSubscribers() throws Exception {
+        // PASO 1: Saldos en memoria que solo crecen, así un saldo menor que el anterior es un desorden
+        AtomicLongArray balances = new AtomicLongArray(ACCOUNTS + 1);
+        CountDownLatch slowRelease = new CountDownLatch(1);
+        try (BalanceStreamBus bus = new BalanceStreamBus(id -> Optional.of(Money.ofCents(balances.get(id.intValue()))))) {
+
+            // PASO 2: 10k suscriptores repartidos en las cuentas; los lentos se quedan bloqueados en su primer envío
+            List<Received> fast = new ArrayList<>();
+            List<Received> slow = new ArrayList<>();
+            List<Long> fastAccounts = new ArrayList<>();
+            List<Long> slowAccounts = new ArrayList<>();
+            List<BalanceStreamBus.Subscription> subscriptions = new ArrayList<>();
+            for (int i = 0; i < SUBSCRIBERS; i++) {
+                long accountId = 1 + i % ACCOUNTS;
+                Received received = new Received();
+                boolean isSlow = i % SLOW_EVERY == 0;
+                (isSlow ? slow : fast).add(received);
+                (isSlow ? slowAccounts : fastAccounts).add(accountId);
+                subscriptions.add(bus.subscribe(accountId, update -> {
+                    if (isSlow) {
+                        try {
+                            slowRelease.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IOException(e);
+                        }
+                    }
+                    received.accept(update.balance().cents());
+                }));
+            }
+            assertEquals(SUBSCRIBERS, bus.subscribers());
+
+            // PASO 3: Commits concurrentes, cada uno avisa de su cuenta como haría el oyente tras confirmar
+            List<Future<?>> results = new ArrayList<>();
+            try (ExecutorService writers = Executors.newFixedThreadPool(WRITERS)) {
+                for (int w = 0; w < WRITERS; w++) {
+                    int writer = w;
+                    results.add(writers.submit(() -> {
+                        for (int i = 0; i < COMMITS_PER_WRITER; i++) {
+                            int accountId = 1 + (writer * COMMITS_PER_WRITER + i) % ACCOUNTS;
+                            balances.incrementAndGet(accountId);
+                            bus.changed(Set.of((long) accountId));
+                        }
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+
+            // PASO 4: Los rápidos llegan al saldo final mientras los lentos siguen bloqueados
+            await(() -> {
+                for (int i = 0; i < fast.size(); i++) {
+                    if (fast.get(i).last.get() != balances.get(fastAccounts.get(i).intValue())) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+            assertTrue(slow.stream().allMatch(received -> received.events.get() == 0));
+
+            // PASO 5: Al liberarlos, los lentos reciben el saldo final sin pasar por los intermedios
+            slowRelease.countDown();
+            await(() -> {
+                for (int i = 0; i < slow.size(); i++) {
+                    if (slow.get(i).last.get() != balances.get(slowAccounts.get(i).intValue())) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+            // El saldo inicial que los tuvo bloqueados y el último pendiente
+            assertTrue(slow.stream().allMatch(received -> received.events.get() <= 2));
+            assertTrue(bus.conflated() > 0);
+
+            // PASO 6: Nadie recibió saldos desordenados y al cerrar no quedan suscriptores
+            assertTrue(fast.stream().noneMatch(received -> received.outOfOrder.get()));
+            assertTrue(slow.stream().noneMatch(received -> received.outOfOrder.get()));
+            subscriptions.forEach(BalanceStreamBus.Subscription::close);
+            assertEquals(0, bus.subscribers());
+        }
+    }
+
+    // TEST 2: bajas
+    @Test
+    @DisplayName("subscribe - Debería dar de baja al suscriptor cuyo envío falla y no enviar nada tras cerrar")
+    void subscribe_RemovesFailedAndClosedSubscribers() throws Exception {
+        // PASO 1: Un suscriptor cuyo cliente se desconectó y otro que se cierra a mano
+        try (BalanceStreamBus bus = new BalanceStreamBus(id -> Optional.of(Money.of("10.00")))) {
+            AtomicInteger failedSends = new AtomicInteger();
+            bus.subscribe(1L, update -> {
+                failedSends.incrementAndGet();
+                throw new IOException("Broken pipe");
+            });
+            AtomicInteger closedSends = new AtomicInteger();
+            BalanceStreamBus.Subscription closed = bus.subscribe(2L, update -> closedSends.incrementAndGet());
+
+            // PASO 2: El primer envío fallido da de baja; el cerrado recibió solo el saldo inicial
+            await(() -> bus.subscribers() == 1 && closedSends.get() == 1);
+            closed.close();
+            bus.changed(List.of(1L, 2L));
+
+            // PASO 3: Verificar
+            assertEquals(0, bus.subscribers());
+            Thread.sleep(200);
+            assertEquals(1, failedSends.get());
+            assertEquals(1, closedSends.get());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.system.bank_manager.uniqueness;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BloomFilter - Comprobación previa de unicidad")
+class BloomFilterTest {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    // Presupuesto de memoria para 10M claves al 1%: ~10.5 bits por clave. El de tiempo de
+    // construcción se mide con BloomFilterBenchmark, fuera de la suite de tests
+    private static final int BUDGET_KEYS = 10_000_000;
+    private static final long BUDGET_BYTES = 13L * 1024 * 1024;
+
+    // Tasa de falsos positivos medida con claves que nunca se añadieron
+    private static double measuredFalsePositiveRate(BloomFilter filter, int probes) {
+        int positives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("nueva-" + i)) {
+                positives++;
+            }
+        }
+        return (double) positives / probes;
+    }
+
+    // TEST 1: sin falsos negativos y con la tasa de falsos positivos pedida
+    @Test
+    @DisplayName("mightContain - Debería reconocer toda clave añadida y rechazar casi todas las demás")
+    void mightContain_NoFalseNegatives() {
+        // PASO 1: Llenar el filtro hasta su capacidad
+        BloomFilter filter = new BloomFilter(1_000_000, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < 1_000_000; i++) {
+            filter.add(String.valueOf(100_000_000L + i));
+        }
+
+        // PASO 2: Toda clave añadida da positivo
+        for (int i = 0; i < 1_000_000; i++) {
+            assertTrue(filter.mightContain(String.valueOf(100_000_000L + i)));
+        }
+
+        // PASO 3: Las claves nuevas dan negativo salvo una fracción cercana al 1%
+        assertEquals(7, filter.hashes());
+        double rate = measuredFalsePositiveRate(filter, 100_000);
+        assertTrue(rate < FALSE_POSITIVE_RATE * 1.5, "Falsos positivos: " + rate);
+    }
+
+    // TEST 2: presupuesto de memoria para 10M claves
+    @Test
+    @DisplayName("BloomFilter - Debería caber en 13 MiB con 10M claves al 1%")
+    void budget_TenMillionKeys() {
+        // PASO 1: La memoria es fija desde el dimensionado
+        BloomFilter filter = new BloomFilter(BUDGET_KEYS, FALSE_POSITIVE_RATE);
+
+        // PASO 2: Verificar
+        assertTrue(filter.memoryBytes() <= BUDGET_BYTES, "Memoria: " + filter.memoryBytes() + " bytes");
+        assertEquals(BUDGET_KEYS, filter.capacity());
+    }
+
+    // TEST 3: filtro por espacio de claves sobre un recorrido
+    @Test
+    @DisplayName("BloomUniqueKeyFilter - Debería consultar la base hasta construirse y luego descartar claves nuevas")
+    void uniqueKeyFilter_BuildAndUpdate() {
+        // PASO 1: Un recorrido con dos DNIs existentes
+        Map<UniqueKeyFilter.KeySpace, Consumer<Consumer<String>>> scans = Map.of(
+                UniqueKeyFilter.KeySpace.DNI, action -> List.of("111", "222").forEach(action));
+        try (BloomUniqueKeyFilter filter = new BloomUniqueKeyFilter(scans, 1000, FALSE_POSITIVE_RATE)) {
+
+            // PASO 2: Sin construir, toda clave puede existir
+            assertTrue(filter.mightExist(UniqueKeyFilter.KeySpace.DNI, "333"));
+
+            // PASO 3: Construido, las existentes siguen dando positivo y las nuevas no
+            filter.rebuild(UniqueKeyFilter.KeySpace.DNI);
+            assertTrue(filter.isReady(UniqueKeyFilter.KeySpace.DNI));
+            assertTrue(filter.mightExist(UniqueKeyFilter.KeySpace.DNI, "111"));
+            assertFalse(filter.mightExist(UniqueKeyFilter.KeySpace.DNI, "333"));
+
+            // PASO 4: Un alta posterior pasa a dar positivo
+            filter.added(UniqueKeyFilter.KeySpace.DNI, "333");
+            assertTrue(filter.mightExist(UniqueKeyFilter.KeySpace.DNI, "333"));
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.system.bank_manager.wal;
+
+import com.system.bank_manager.entity.Account;
+import com.system.bank_manager.entity.Transaction;
+import com.system.bank_manager.ledger.LedgerLog;
+import com.system.bank_manager.money.Money;
+import com.system.bank_manager.persistence.IdBlockAllocator;
+import com.system.bank_manager.repository.AccountJdbcRepository;
+import com.system.bank_manager.repository.AccountSummaryJdbcRepository;
+import com.system.bank_manager.repository.TransactionJdbcRepository;
+import com.system.bank_manager.repository.WalCheckpointRepository;
+import com.system.bank_manager.repository.WalRejectedEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WAL de movimientos contra H2: lo que se confirmó en el WAL llega a accounts y
+ * transactions, también cuando la aplicación cae antes de aplicarlo.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transaction-wal;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@DisplayName("GroupCommitTransactionWal - WAL de movimientos")
+class GroupCommitTransactionWalTest {
+
+    private static final long SEGMENT_BYTES = 1024 * 1024;
+    // Sin aplicador en segundo plano durante el test: se aplica a mano o al recuperar
+    private static final long NEVER = 3_600_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdBlockAllocator idBlockAllocator;
+
+    @Autowired
+    private TransactionJdbcRepository transactionJdbcRepository;
+
+    @Autowired
+    private AccountJdbcRepository accountJdbcRepository;
+
+    @Autowired
+    private AccountSummaryJdbcRepository accountSummaryJdbcRepository;
+
+    @Autowired
+    private WalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private WalRejectedEntryRepository rejectedEntryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM wal_checkpoints");
+        jdbcTemplate.update("DELETE FROM wal_rejected_entries");
+        jdbcTemplate.update("DELETE FROM accounts");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("INSERT INTO users (id, dni, name, email, password) VALUES (1, '1', 'Ana', 'ana@bank.com', 'x')");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, user_id, created_at) VALUES "
+                + "(1, 'ACC1', 100.00, 1, CURRENT_TIMESTAMP), (2, 'ACC2', 50.00, 1, CURRENT_TIMESTAMP)");
+    }
+
+    private GroupCommitTransactionWal open(LedgerLog ledger) {
+        return new GroupCommitTransactionWal(ledger, idBlockAllocator, transactionJdbcRepository,
+                accountJdbcRepository, accountSummaryJdbcRepository, checkpointRepository, rejectedEntryRepository,
+                new TransactionTemplate(transactionManager), 100, NEVER);
+    }
+
+    private static Transaction transaction(Transaction.TransactionType type, long accountId, String amount, LocalDateTime date) {
+        Account account = new Account();
+        account.setId(accountId);
+        Transaction transaction = new Transaction();
+        transaction.setType(type);
+        transaction.setAccount(account);
+        transaction.setAmount(Money.of(amount));
+        transaction.setDate(date);
+        return transaction;
+    }
+
+    private BigDecimal balanceOf(long accountId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+    }
+
+    // TEST 1: camino normal
+    @Test
+    @DisplayName("applyDurable - Debería llevar filas, saldos y checkpoint a la base en una sola transacción")
+    void applyDurable_WritesRowsBalancesAndCheckpoint() {
+        // PASO 1: Un depósito y una transferencia confirmados en el WAL
+        LedgerLog ledger = new LedgerLog(directory, SEGMENT_BYTES, true, 1000);
+        GroupCommitTransactionWal wal = open(ledger);
+        LocalDateTime date = LocalDateTime.of(2025, 3, 1, 10, 30, 15, 123_456_000);
+        Transaction deposit = transaction(Transaction.TransactionType.DEPOSIT, 1, "20.00", date);
+        Transaction withdrawal = transaction(Transaction.TransactionType.WITHDRAWAL, 1, "30.00", date);
+        Transaction credit = transaction(Transaction.TransactionType.DEPOSIT, 2, "30.00", date);
+        wal.awaitDurable(wal.append(deposit));
+        wal.awaitDurable(wal.appendTransfer(withdrawal, credit));
+
+        // PASO 2: Aún no se aplicó nada: la base no cambia hasta el aplicador
+        assertNotNull(deposit.getId());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+
+        // PASO 3: Aplicar
+        assertEquals(2, wal.applyDurable());
+
+        // PASO 4: Verificar filas con los IDs y la fecha que vio el llamador, saldos y checkpoint
+        assertEquals(List.of(deposit.getId(), withdrawal.getId(), credit.getId()),
+                jdbcTemplate.queryForList("SELECT id FROM transactions ORDER BY id", Long.class));
+        assertEquals(date, jdbcTemplate.queryForObject("SELECT date FROM transactions WHERE id = ?",
+                LocalDateTime.class, credit.getId()));
+        // Las dos patas de la transferencia forman un asiento con el ID del débito; el depósito no tiene
+        assertEquals(List.of(withdrawal.getId(), credit.getId()), jdbcTemplate.queryForList(
+                "SELECT id FROM transactions WHERE entry_id = ? ORDER BY id", Long.class, withdrawal.getId()));
+        assertNull(jdbcTemplate.queryForObject("SELECT entry_id FROM transactions WHERE id = ?",
+                Long.class, deposit.getId()));
+        assertEquals(new BigDecimal("90.00"), balanceOf(1));
+        assertEquals(new BigDecimal("80.00"), balanceOf(2));
+        // El resumen de la cuenta 1 acumula el depósito y el débito en la misma transacción
+        assertEquals(Map.of("TOTAL_DEPOSITED", new BigDecimal("20.00"), "TOTAL_WITHDRAWN", new BigDecimal("30.00"),
+                "TRANSACTION_COUNT", 2L), jdbcTemplate.queryForMap("SELECT total_deposited, total_withdrawn, "
+                + "transaction_count FROM account_summaries WHERE account_id = 1"));
+        assertEquals(2L, checkpointRepository.findById(1).orElseThrow().getSequence());
+        wal.close();
+    }
+
+    // TEST 2: caída antes de aplicar
+    @Test
+    @DisplayName("constructor - Debería reproducir lo confirmado tras el checkpoint y no repetirlo al volver a arrancar")
+    void recover_AppliesDurableEventsOnce() {
+        // PASO 1: Movimientos confirmados en el WAL y caída antes de que el aplicador los lleve a la base
+        LedgerLog ledger = new LedgerLog(directory, SEGMENT_BYTES, true, 1000);
+        GroupCommitTransactionWal wal = open(ledger);
+        LocalDateTime date = LocalDateTime.of(2025, 3, 1, 10, 30);
+        wal.awaitDurable(wal.append(transaction(Transaction.TransactionType.WITHDRAWAL, 2, "10.00", date)));
+        wal.awaitDurable(wal.appendTransfer(transaction(Transaction.TransactionType.WITHDRAWAL, 1, "5.00", date),
+                transaction(Transaction.TransactionType.DEPOSIT, 2, "5.00", date)));
+        ledger.close();
+        assertEquals(new BigDecimal("50.00"), balanceOf(2));
+
+        // PASO 2: Arrancar sobre el mismo directorio
+        GroupCommitTransactionWal recovered = open(new LedgerLog(directory, SEGMENT_BYTES, true, 1000));
+        recovered.close();
+
+        // PASO 3: Verificar que ambas tablas recogieron los movimientos
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        assertEquals(new BigDecimal("95.00"), balanceOf(1));
+        assertEquals(new BigDecimal("45.00"), balanceOf(2));
+
+        // PASO 4: Un nuevo arranque parte del checkpoint y no duplica nada
+        open(new LedgerLog(directory, SEGMENT_BYTES, true, 1000)).close();
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        assertEquals(new BigDecimal("45.00"), balanceOf(2));
+    }
+
+    // TEST 3: cuenta borrada con movimientos pendientes
+    @Test
+    @DisplayName("applyDurable - Debería apartar las patas de una cuenta borrada y seguir aplicando el resto")
+    void applyDurable_DeletedAccount_RejectsItsLegsWithoutBlockingTheQueue() {
+        // PASO 1: Depósito en la 2, transferencia 1→2 y depósito en la 1, todos pendientes
+        LedgerLog ledger = new LedgerLog(directory, SEGMENT_BYTES, true, 1000);
+        GroupCommitTransactionWal wal = open(ledger);
+        LocalDateTime date = LocalDateTime.of(2025, 3, 1, 10, 30);
+        Transaction lost = transaction(Transaction.TransactionType.DEPOSIT, 2, "7.00", date);
+        Transaction debit = transaction(Transaction.TransactionType.WITHDRAWAL, 1, "30.00", date);
+        Transaction credit = transaction(Transaction.TransactionType.DEPOSIT, 2, "30.00", date);
+        Transaction later = transaction(Transaction.TransactionType.DEPOSIT, 1, "5.00", date);
+        wal.awaitDurable(wal.append(lost));
+        wal.awaitDurable(wal.appendTransfer(debit, credit));
+        wal.awaitDurable(wal.append(later));
+
+        // PASO 2: La cuenta 2 se borra sin pasar por applyPending
+        jdbcTemplate.update("DELETE FROM accounts WHERE id = 2");
+
+        // PASO 3: El lote choca con la FK, pero no lanza ni se queda en la cabeza de la cola
+        assertEquals(3, wal.applyDurable());
+        assertEquals(0, wal.applyDurable());
+
+        // PASO 4: La cuenta 1 recibe el débito y el depósito; las patas de la 2 quedan apartadas
+        assertEquals(new BigDecimal("75.00"), balanceOf(1));
+        assertEquals(List.of(debit.getId(), later.getId()),
+                jdbcTemplate.queryForList("SELECT id FROM transactions ORDER BY id", Long.class));
+        assertEquals(List.of(lost.getId(), credit.getId()), rejectedEntryRepository.findAll().stream()
+                .map(entry -> entry.getTransactionId()).sorted().toList());
+        assertEquals(2L, rejectedEntryRepository.findById(credit.getId()).orElseThrow().getSequence());
+        assertEquals(3L, checkpointRepository.findById(1).orElseThrow().getSequence());
+        wal.close();
+    }
+
+    // TEST 4: la misma situación descubierta al arrancar
+    @Test
+    @DisplayName("constructor - Debería arrancar aunque el WAL tenga movimientos de una cuenta ya borrada")
+    void recover_DeletedAccount_DoesNotFailStartup() {
+        // PASO 1: Movimientos pendientes, borrado de la cuenta y caída antes de aplicar
+        LedgerLog ledger = new LedgerLog(directory, SEGMENT_BYTES, true, 1000);
+        GroupCommitTransactionWal wal = open(ledger);
+        LocalDateTime date = LocalDateTime.of(2025, 3, 1, 10, 30);
+        wal.awaitDurable(wal.append(transaction(Transaction.TransactionType.DEPOSIT, 2, "7.00", date)));
+        wal.awaitDurable(wal.append(transaction(Transaction.TransactionType.DEPOSIT, 1, "5.00", date)));
+        ledger.close();
+        jdbcTemplate.update("DELETE FROM accounts WHERE id = 2");
+
+        // PASO 2 y 3: Arrancar y verificar
+        GroupCommitTransactionWal recovered = assertDoesNotThrow(
+                () -> open(new LedgerLog(directory, SEGMENT_BYTES, true, 1000)));
+        recovered.close();
+        assertEquals(new BigDecimal("105.00"), balanceOf(1));
+        assertEquals(1, rejectedEntryRepository.count());
+        assertEquals(2L, checkpointRepository.findById(1).orElseThrow().getSequence());
+    }
+
+    // TEST 5: applyPending antes de una baja
+    @Test
+    @DisplayName("applyPending - Debería llevar a la base todo lo anexado sin esperar al aplicador")
+    void applyPending_AppliesEverythingAppended() {
+        // PASO 1: Un depósito anexado y sin aplicar
+        GroupCommitTransactionWal wal = open(new LedgerLog(directory, SEGMENT_BYTES, true, 1000));
+        wal.append(transaction(Transaction.TransactionType.DEPOSIT, 2, "7.00", LocalDateTime.of(2025, 3, 1, 10, 30)));
+
+        // PASO 2: Aplicar lo pendiente y borrar la cuenta, como hace AccountServiceImpl
+        wal.applyPending();
+        assertEquals(new BigDecimal("57.00"), balanceOf(2));
+        jdbcTemplate.update("DELETE FROM transactions WHERE account_id = 2");
+        jdbcTemplate.update("DELETE FROM accounts WHERE id = 2");
+
+        // PASO 3: Nada quedó apartado
+        assertEquals(0, wal.applyDurable());
+        assertEquals(0, rejectedEntryRepository.count());
+        wal.close();
+    }
+}